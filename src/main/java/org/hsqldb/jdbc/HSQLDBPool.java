@@ -1,14 +1,60 @@
 package org.hsqldb.jdbc;
 
 import org.hsqldb.jdbc.pool.JDBCPooledConnection;
+import org.hsqldb.jdbc.pool.JDBCPooledDataSource;
 
+import javax.sql.PooledConnection;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class HSQLDBPool extends JDBCPool {
 
-	public HSQLDBPool(int poolSize) {
+	/** Creates pooled connections that cache their prepared statements */
+	private static class HSQLDBPooledDataSource extends JDBCPooledDataSource {
+		private static final long serialVersionUID = 1L;
+
+		private final transient HSQLDBPool pool;
+		private final int statementCacheSize;
+
+		private HSQLDBPooledDataSource(HSQLDBPool pool, int statementCacheSize) {
+			this.pool = pool;
+			this.statementCacheSize = statementCacheSize;
+		}
+
+		@Override
+		public PooledConnection getPooledConnection() throws SQLException {
+			JDBCConnection connection = (JDBCConnection) JDBCDriver.getConnection(this.url, this.connectionProps);
+
+			return new HSQLDBPooledConnection(connection, this.pool, this.statementCacheSize);
+		}
+	}
+
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	public HSQLDBPool(int poolSize, int statementCacheSize) {
 		super(poolSize);
+
+		this.source = new HSQLDBPooledDataSource(this, statementCacheSize);
+	}
+
+	/* package */ void recordStatementCacheHit() {
+		this.statementCacheHits.incrementAndGet();
+	}
+
+	/* package */ void recordStatementCacheMiss() {
+		this.statementCacheMisses.incrementAndGet();
+	}
+
+	/** Number of times a pooled connection reused one of its cached prepared statements. */
+	public long getStatementCacheHits() {
+		return this.statementCacheHits.get();
+	}
+
+	/** Number of times a pooled connection had to prepare, i.e. compile, a statement. */
+	public long getStatementCacheMisses() {
+		return this.statementCacheMisses.get();
 	}
 
 	/**
@@ -31,8 +31,8 @@ public class HSQLDBPoolMonitored extends HSQLDBPool {
 
 	private ConcurrentHashMap<Integer, DbConnectionInfo> infoByIndex;
 
-	public HSQLDBPoolMonitored(int poolSize) {
-		super(poolSize);
+	public HSQLDBPoolMonitored(int poolSize, int statementCacheSize) {
+		super(poolSize, statementCacheSize);
 
 		this.infoByIndex = new ConcurrentHashMap<>(poolSize);
 	}
@@ -0,0 +1,141 @@
+package org.hsqldb.jdbc;
+
+import org.hsqldb.jdbc.pool.JDBCPooledConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pooled connection that keeps its prepared statements between leases.
+ * <p>
+ * JDBCPooledConnection fully resets its session whenever its connection is returned to the pool,
+ * which also discards every statement compiled by that session. Here we only roll back instead,
+ * so statements prepared on the underlying connection, and cached here, stay usable by later leases.
+ * <p>
+ * Cache is bounded, evicting least-recently used statements. As an evicted statement might still
+ * have an open ResultSet in use by the current lease, evicted statements are only closed
+ * once the connection is returned to the pool.
+ */
+public class HSQLDBPooledConnection extends JDBCPooledConnection {
+
+	private final HSQLDBPool pool;
+	private final int statementCacheSize;
+
+	/** Cached statements by SQL, in access order */
+	private final LinkedHashMap<String, PreparedStatement> preparedStatements = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() <= statementCacheSize)
+				return false;
+
+			evictedStatements.add(eldest.getValue());
+			return true;
+		}
+	};
+	private final List<PreparedStatement> evictedStatements = new ArrayList<>();
+
+	public HSQLDBPooledConnection(JDBCConnection connection, HSQLDBPool pool, int statementCacheSize) {
+		super(connection);
+
+		this.pool = pool;
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Returns pooled connection that leased out <tt>connection</tt>, or null if <tt>connection</tt> isn't from an HSQLDBPool.
+	 */
+	public static HSQLDBPooledConnection fromConnection(Connection connection) {
+		if (!(connection instanceof JDBCConnection))
+			return null;
+
+		JDBCConnectionEventListener poolEventListener = ((JDBCConnection) connection).poolEventListener;
+		if (!(poolEventListener instanceof HSQLDBPooledConnection))
+			return null;
+
+		return (HSQLDBPooledConnection) poolEventListener;
+	}
+
+	/**
+	 * Returns cached PreparedStatement for <tt>sql</tt>, cleared ready for reuse, or newly prepared if not cached.
+	 */
+	public synchronized PreparedStatement prepareStatement(String sql) throws SQLException {
+		PreparedStatement preparedStatement = this.preparedStatements.get(sql);
+
+		if (preparedStatement != null && !preparedStatement.isClosed()) {
+			this.pool.recordStatementCacheHit();
+
+			// Clean up ready for reuse
+			preparedStatement.clearBatch();
+			preparedStatement.clearParameters();
+			return preparedStatement;
+		}
+
+		this.pool.recordStatementCacheMiss();
+
+		// Prepared on underlying connection, rather than leased connection, so statement outlives lease
+		preparedStatement = this.connection.prepareStatement(sql);
+		this.preparedStatements.put(sql, preparedStatement);
+
+		return preparedStatement;
+	}
+
+	@Override
+	public synchronized void reset() {
+		// If connection is being forcibly reclaimed, or has errored, then fully reset
+		if (this.userConnection != null) {
+			this.clearStatements();
+			super.reset();
+			return;
+		}
+
+		this.closeEvictedStatements();
+
+		try {
+			// Discard any uncommitted changes, but keep session's compiled statements
+			this.connection.rollback();
+		} catch (SQLException e) {
+			// Fall back to full reset, which also discards compiled statements
+			this.clearStatements();
+			super.reset();
+			return;
+		}
+
+		this.isInUse = false;
+	}
+
+	@Override
+	public synchronized void release() {
+		// Statements are closed along with underlying connection
+		this.preparedStatements.clear();
+		this.evictedStatements.clear();
+
+		super.release();
+	}
+
+	private void closeEvictedStatements() {
+		for (PreparedStatement preparedStatement : this.evictedStatements) {
+			try {
+				preparedStatement.close();
+			} catch (SQLException e) {
+				// Nothing more we can do
+			}
+		}
+
+		this.evictedStatements.clear();
+	}
+
+	private void clearStatements() {
+		this.evictedStatements.addAll(this.preparedStatements.values());
+		this.preparedStatements.clear();
+
+		this.closeEvictedStatements();
+	}
+
+}
@@ -2,6 +2,8 @@ package org.qortal.api.model;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import java.util.ArrayList;
+import java.util.List;
 
 @XmlAccessorType(XmlAccessType.FIELD)
 public class PeersSummary {
@@ -9,7 +11,58 @@ public class PeersSummary {
 	public int inboundConnections;
 	public int outboundConnections;
 
+	/** Peer receive buffers currently allocated to connections, and their total size */
+	public long receiveBuffersInUse;
+	public long receiveBufferBytesInUse;
+	/** Idle receive buffers held for reuse, and their total size */
+	public long pooledReceiveBuffers;
+	public long pooledReceiveBufferBytes;
+
+	/** Send queue depth and statistics, by priority lane, across all peers */
+	public List<SendLane> sendLanes = new ArrayList<>();
+
+	/** QDN data bandwidth shaping, by direction */
+	public List<QdnBandwidth> qdnBandwidth = new ArrayList<>();
+
 	public PeersSummary() {
 	}
 
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class SendLane {
+		public String lane;
+
+		public long queuedMessages;
+		public long queuedBytes;
+
+		public long sentMessages;
+		public long sentBytes;
+		/** Messages dropped due to lane being full, going stale or failing to send */
+		public long droppedMessages;
+
+		/** Time (ms) between message being queued and being sent */
+		public long averageLatency;
+		public long maxLatency;
+
+		public SendLane() {
+		}
+	}
+
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class QdnBandwidth {
+		public String direction;
+
+		/** Global budget, in bytes per second, or 0 if unlimited */
+		public long maxRate;
+		/** Each active peer's current share of budget, in bytes per second, or 0 if unlimited */
+		public long peerRate;
+		public int activePeers;
+
+		public long bytes;
+		/** Number of times QDN data had to wait for budget */
+		public long throttled;
+
+		public QdnBandwidth() {
+		}
+	}
+
 }
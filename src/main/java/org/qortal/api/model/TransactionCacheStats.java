@@ -0,0 +1,34 @@
+package org.qortal.api.model;
+
+import org.qortal.controller.ConfirmedTransactionCache;
+import org.qortal.controller.Controller;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+
+@XmlAccessorType(XmlAccessType.FIELD)
+public class TransactionCacheStats {
+
+	public final int entries;
+	public final long bytes;
+	public final long maxBytes;
+
+	public final long hits;
+	public final long misses;
+	public final long evictions;
+	public final double hitRate;
+
+	public TransactionCacheStats() {
+		ConfirmedTransactionCache cache = Controller.getInstance().getConfirmedTransactionCache();
+
+		this.entries = cache.size();
+		this.bytes = cache.getTotalBytes();
+		this.maxBytes = cache.getMaxBytes();
+
+		this.hits = cache.getHitCount();
+		this.misses = cache.getMissCount();
+		this.evictions = cache.getEvictionCount();
+		this.hitRate = cache.getHitRate();
+	}
+
+}
@@ -14,6 +14,7 @@ import org.qortal.api.ApiError;
 import org.qortal.api.ApiErrors;
 import org.qortal.api.ApiExceptionFactory;
 import org.qortal.api.Security;
+import org.qortal.controller.Controller;
 import org.qortal.crypto.Crypto;
 import org.qortal.data.chat.ActiveChats;
 import org.qortal.data.chat.ChatMessage;
@@ -206,7 +207,7 @@ public class ChatResource {
 
 		try (final Repository repository = RepositoryManager.getRepository()) {
 
-			ChatTransactionData chatTransactionData = (ChatTransactionData) repository.getTransactionRepository().fromSignature(signature);
+			ChatTransactionData chatTransactionData = (ChatTransactionData) Controller.getInstance().getConfirmedTransactionCache().fromSignature(repository, signature);
 			if (chatTransactionData == null) {
 				throw ApiExceptionFactory.INSTANCE.createCustomException(request, ApiError.INVALID_CRITERIA, "Message not found");
 			}
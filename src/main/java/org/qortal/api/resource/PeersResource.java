@@ -21,9 +21,14 @@ import org.qortal.controller.Synchronizer;
 import org.qortal.controller.Synchronizer.SynchronizationResult;
 import org.qortal.data.block.BlockSummaryData;
 import org.qortal.data.network.PeerData;
+import org.qortal.network.BandwidthManager;
 import org.qortal.network.Network;
 import org.qortal.network.Peer;
 import org.qortal.network.PeerAddress;
+import org.qortal.network.PeerSendLane;
+import org.qortal.network.PeerSendLaneStats;
+import org.qortal.network.PeerSendManagement;
+import org.qortal.network.ReceiveBufferPool;
 import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
@@ -358,7 +363,7 @@ public class PeersResource {
 	@GET
 	@Path("/summary")
 	@Operation(
-			summary = "Returns total inbound and outbound connections for connected peers",
+			summary = "Returns total inbound and outbound connections for connected peers, and receive buffer pool occupancy",
 			responses = {
 					@ApiResponse(
 							content = @Content(
@@ -384,6 +389,43 @@ public class PeersResource {
 				peersSummary.outboundConnections++;
 			}
 		}
+
+		ReceiveBufferPool receiveBufferPool = Network.getInstance().getReceiveBufferPool();
+		peersSummary.receiveBuffersInUse = receiveBufferPool.getBuffersInUse();
+		peersSummary.receiveBufferBytesInUse = receiveBufferPool.getBytesInUse();
+		peersSummary.pooledReceiveBuffers = receiveBufferPool.getIdleBuffers();
+		peersSummary.pooledReceiveBufferBytes = receiveBufferPool.getIdleBytes();
+
+		PeerSendManagement peerSendManagement = PeerSendManagement.getInstance();
+		for (PeerSendLane lane : PeerSendLane.values()) {
+			PeerSendLaneStats laneStats = peerSendManagement.getLaneStats(lane);
+
+			PeersSummary.SendLane sendLane = new PeersSummary.SendLane();
+			sendLane.lane = lane.name();
+			sendLane.queuedMessages = peerSendManagement.getQueuedMessages(lane);
+			sendLane.queuedBytes = peerSendManagement.getQueuedBytes(lane);
+			sendLane.sentMessages = laneStats.getSentMessages();
+			sendLane.sentBytes = laneStats.getSentBytes();
+			sendLane.droppedMessages = laneStats.getDroppedMessages();
+			sendLane.averageLatency = laneStats.getAverageLatency();
+			sendLane.maxLatency = laneStats.getMaxLatency();
+
+			peersSummary.sendLanes.add(sendLane);
+		}
+
+		BandwidthManager bandwidthManager = BandwidthManager.getInstance();
+		for (BandwidthManager.Direction direction : BandwidthManager.Direction.values()) {
+			PeersSummary.QdnBandwidth qdnBandwidth = new PeersSummary.QdnBandwidth();
+			qdnBandwidth.direction = direction.name();
+			qdnBandwidth.maxRate = bandwidthManager.getMaxRate(direction);
+			qdnBandwidth.peerRate = bandwidthManager.getPeerRate(direction);
+			qdnBandwidth.activePeers = bandwidthManager.getActivePeers(direction);
+			qdnBandwidth.bytes = bandwidthManager.getBytes(direction);
+			qdnBandwidth.throttled = bandwidthManager.getThrottledCount(direction);
+
+			peersSummary.qdnBandwidth.add(qdnBandwidth);
+		}
+
 		return peersSummary;
 	}
 
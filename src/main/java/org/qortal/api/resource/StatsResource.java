@@ -9,6 +9,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.api.ApiError;
 import org.qortal.api.ApiExceptionFactory;
+import org.qortal.api.model.TransactionCacheStats;
 import org.qortal.block.BlockChain;
 import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
@@ -69,4 +70,18 @@ public class StatsResource {
 		}
 	}
 
+	@GET
+	@Path("/cache/transactions")
+	@Operation(
+		summary = "Fetch confirmed transaction cache statistics",
+		responses = {
+			@ApiResponse(
+					content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = TransactionCacheStats.class))
+			)
+		}
+	)
+	public TransactionCacheStats transactionCacheStats() {
+		return new TransactionCacheStats();
+	}
+
 }
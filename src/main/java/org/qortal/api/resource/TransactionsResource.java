@@ -78,7 +78,7 @@ public class TransactionsResource {
 		}
 
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			TransactionData transactionData = repository.getTransactionRepository().fromSignature(signature);
+			TransactionData transactionData = Controller.getInstance().getConfirmedTransactionCache().fromSignature(repository, signature);
 			if (transactionData == null)
 				throw ApiExceptionFactory.INSTANCE.createException(request, ApiError.TRANSACTION_UNKNOWN);
 
@@ -119,12 +119,10 @@ public class TransactionsResource {
 		}
 
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			TransactionData transactionData = repository.getTransactionRepository().fromSignature(signature);
-			if (transactionData == null)
+			byte[] transactionBytes = Controller.getInstance().getConfirmedTransactionCache().getTransactionBytes(repository, signature);
+			if (transactionBytes == null)
 				throw ApiExceptionFactory.INSTANCE.createException(request, ApiError.TRANSACTION_UNKNOWN);
 
-			byte[] transactionBytes = TransactionTransformer.toBytes(transactionData);
-
 			return Base58.encode(transactionBytes);
 		} catch (ApiException e) {
 			throw e;
@@ -225,12 +223,7 @@ public class TransactionsResource {
 			List<byte[]> signatures = repository.getTransactionRepository().getSignaturesMatchingCriteria(null, null, height, height);
 
 			// Expand signatures to transactions
-			List<TransactionData> transactions = new ArrayList<>(signatures.size());
-			for (byte[] s : signatures) {
-				transactions.add(repository.getTransactionRepository().fromSignature(s));
-			}
-
-			return transactions;
+			return repository.getTransactionRepository().fromSignatures(signatures);
 		} catch (ApiException e) {
 			throw e;
 		} catch (DataException e) {
@@ -379,11 +372,7 @@ public class TransactionsResource {
 					txTypes, null, null, address, confirmationStatus, limit, offset, reverse);
 
 			// Expand signatures to transactions
-			List<TransactionData> transactions = new ArrayList<>(signatures.size());
-			for (byte[] signature : signatures)
-				transactions.add(repository.getTransactionRepository().fromSignature(signature));
-
-			return transactions;
+			return repository.getTransactionRepository().fromSignatures(signatures);
 		} catch (ApiException e) {
 			throw e;
 		} catch (DataException e) {
@@ -444,10 +433,7 @@ public class TransactionsResource {
 						null, null, null, address, TransactionsResource.ConfirmationStatus.CONFIRMED, limit, offset, reverse);
 
 				// Expand signatures to transactions
-				transactions = new ArrayList<>(signatures.size());
-				for (byte[] signature : signatures) {
-					transactions.add(repository.getTransactionRepository().fromSignature(signature));
-				}
+				transactions = repository.getTransactionRepository().fromSignatures(signatures);
 			} catch (ApiException e) {
 				throw e;
 			} catch (DataException e) {
@@ -579,11 +565,7 @@ public class TransactionsResource {
 					publicKey, confirmationStatus, limit, offset, reverse);
 
 			// Expand signatures to transactions
-			List<TransactionData> transactions = new ArrayList<>(signatures.size());
-			for (byte[] signature : signatures)
-				transactions.add(repository.getTransactionRepository().fromSignature(signature));
-
-			return transactions;
+			return repository.getTransactionRepository().fromSignatures(signatures);
 		} catch (DataException e) {
 			throw ApiExceptionFactory.INSTANCE.createException(request, ApiError.REPOSITORY_ISSUE, e);
 		}
@@ -39,6 +39,7 @@ import org.qortal.transform.block.BlockTransformer;
 import org.qortal.transform.transaction.TransactionTransformer;
 import org.qortal.utils.Amounts;
 import org.qortal.utils.Base58;
+import org.qortal.utils.ByteArray;
 import org.qortal.utils.Groups;
 import org.qortal.utils.NTP;
 
@@ -129,6 +130,8 @@ public class Block {
 
 	/** Cached online accounts validation decision, to avoid revalidating when true */
 	private boolean onlineAccountsAlreadyValid = false;
+	/** Online accounts whose nonces were verified ahead of validation, e.g. while prefetching during sync, or null */
+	private volatile Set<OnlineAccountData> preVerifiedOnlineAccounts = null;
 
 	@FunctionalInterface
 	private interface BlockRewardDistributor {
@@ -151,21 +154,22 @@ public class Block {
 
 		final BlockChain blockChain = BlockChain.getInstance();
 
-		ExpandedAccount(Repository repository, RewardShareData rewardShareData, int blockHeight) throws DataException {
+		/**
+		 * Builds expanded account using account info and minting-group membership already fetched in bulk.
+		 *
+		 * @param accountsByAddress account info for minter and recipient
+		 * @param mintingGroupMembers addresses that are members of any minting group at this block's height
+		 */
+		ExpandedAccount(Repository repository, RewardShareData rewardShareData, Map<String, AccountData> accountsByAddress, Set<String> mintingGroupMembers) {
 			this.rewardShareData = rewardShareData;
 			this.sharePercent = this.rewardShareData.getSharePercent();
 
 			this.mintingAccount = new Account(repository, this.rewardShareData.getMinter());
-			this.mintingAccountData = repository.getAccountRepository().getAccount(this.mintingAccount.getAddress());
+			this.mintingAccountData = copyOf(accountsByAddress.get(this.mintingAccount.getAddress()));
 			this.isMinterFounder = Account.isFounder(mintingAccountData.getFlags());
 
 			this.isRecipientAlsoMinter = this.rewardShareData.getRecipient().equals(this.mintingAccount.getAddress());
-			this.isMinterMember
-				= Groups.memberExistsInAnyGroup(
-					repository.getGroupRepository(),
-					Groups.getGroupIdsToMint(BlockChain.getInstance(), blockHeight),
-					this.mintingAccount.getAddress()
-			);
+			this.isMinterMember = mintingGroupMembers.contains(this.mintingAccount.getAddress());
 
 			if (this.isRecipientAlsoMinter) {
 				// Self-share: minter is also recipient
@@ -174,10 +178,19 @@ public class Block {
 			} else {
 				// Recipient differs from minter
 				this.recipientAccount = new Account(repository, this.rewardShareData.getRecipient());
-				this.recipientAccountData = repository.getAccountRepository().getAccount(this.recipientAccount.getAddress());
+				this.recipientAccountData = copyOf(accountsByAddress.get(this.recipientAccount.getAddress()));
 			}
 		}
 
+		/** Each expanded account has its own account info, as if fetched individually, because account info is modified during processing. */
+		private static AccountData copyOf(AccountData accountData) {
+			if (accountData == null)
+				return null;
+
+			return new AccountData(accountData.getAddress(), accountData.getReference(), accountData.getPublicKey(), accountData.getDefaultGroupId(),
+					accountData.getFlags(), accountData.getLevel(), accountData.getBlocksMinted(), accountData.getBlocksMintedAdjustment(), accountData.getBlocksMintedPenalty());
+		}
+
 		/**
 		 * Get Effective Minting Level
 		 *
@@ -460,12 +473,12 @@ public class Block {
 			// Load sorted list of reward share public keys into memory, so that the indexes can be obtained.
 			// This is up to 100x faster than querying each index separately. For 4150 reward share keys, it
 			// was taking around 5000ms to query individually, vs 50ms using this approach.
-			List<byte[]> allRewardSharePublicKeys = repository.getAccountRepository().getRewardSharePublicKeys();
+			Map<ByteArray, Integer> rewardShareIndexes = getRewardShareIndexes(repository.getAccountRepository().getRewardSharePublicKeys());
 
 			// Map using index into sorted list of reward-shares as key
 			Map<Integer, OnlineAccountData> indexedOnlineAccounts = new HashMap<>();
 			for (OnlineAccountData onlineAccountData : onlineAccounts) {
-				Integer accountIndex = getRewardShareIndex(onlineAccountData.getPublicKey(), allRewardSharePublicKeys);
+				Integer accountIndex = rewardShareIndexes.get(ByteArray.wrap(onlineAccountData.getPublicKey()));
 				if (accountIndex == null)
 					// Online account (reward-share) with current timestamp but reward-share cancelled
 					continue;
@@ -756,10 +769,29 @@ public class Block {
 				throw new DataException("Online accounts invalid?");
 		}
 
-		List<ExpandedAccount> expandedAccounts = new ArrayList<>();
+		// Fetch account info and minting-group membership for all involved accounts in bulk, rather than per reward-share
+		Set<String> minters = new LinkedHashSet<>();
+		Set<String> involvedAddresses = new LinkedHashSet<>();
+		for (RewardShareData rewardShare : this.cachedOnlineRewardShares) {
+			minters.add(rewardShare.getMinter());
+			involvedAddresses.add(rewardShare.getMinter());
+			involvedAddresses.add(rewardShare.getRecipient());
+		}
+
+		Map<String, AccountData> accountsByAddress = new HashMap<>();
+		for (AccountData accountData : repository.getAccountRepository().getAccounts(new ArrayList<>(involvedAddresses)))
+			accountsByAddress.put(accountData.getAddress(), accountData);
+
+		Set<String> mintingGroupMembers = Groups.membersOfAnyGroup(
+				repository.getGroupRepository(),
+				Groups.getGroupIdsToMint(BlockChain.getInstance(), this.blockData.getHeight()),
+				new ArrayList<>(minters)
+		);
+
+		List<ExpandedAccount> expandedAccounts = new ArrayList<>(this.cachedOnlineRewardShares.size());
 
 		for (RewardShareData rewardShare : this.cachedOnlineRewardShares) {
-			expandedAccounts.add(new ExpandedAccount(repository, rewardShare, this.blockData.getHeight()));
+			expandedAccounts.add(new ExpandedAccount(repository, rewardShare, accountsByAddress, mintingGroupMembers));
 		}
 
 		this.cachedExpandedAccounts = expandedAccounts;
@@ -853,6 +885,158 @@ public class Block {
 		return true;
 	}
 
+	/**
+	 * Add as many of the passed transactions to the block as will validly fit, in a single pass.
+	 * <p>
+	 * Used when constructing a new block during minting, in preference to calling
+	 * {@link #addTransaction(TransactionData)} followed by {@link #isValid()} for each transaction,
+	 * which re-validates and re-processes every previously added transaction each time.
+	 * <p>
+	 * Here, each candidate is validated and test-processed exactly once, against a repository savepoint
+	 * that accumulates the effects of previously accepted candidates. Invalid candidates are skipped.
+	 * Block size and fees are tallied as we go and the transactions signature is only recalculated once, at the end.
+	 * All test-processing is rolled back before returning.
+	 * <p>
+	 * Caller is still expected to call {@link #sign()} and {@link #isValid()} on the finished block.
+	 * <p>
+	 * Requires block's {@code minter} being a {@code PrivateKeyAccount} so block's transactions signature can be recalculated.
+	 *
+	 * @param candidateTransactions candidates, sorted using {@link Transaction#getDataComparator()}
+	 * @param maxTransactionCount maximum number of transactions block should contain
+	 * @return number of transactions added to block
+	 * @throws DataException
+	 * @throws IllegalStateException
+	 *             if block's {@code minter} is not a {@code PrivateKeyAccount}.
+	 */
+	public int addTransactions(List<TransactionData> candidateTransactions, int maxTransactionCount) throws DataException {
+		// Can't add to transactions if we haven't loaded existing ones yet
+		if (this.transactions == null)
+			throw new IllegalStateException("Attempted to add transactions to partially loaded database Block");
+
+		if (!(this.minter instanceof PrivateKeyAccount))
+			throw new IllegalStateException("Block's minter is not PrivateKeyAccount - can't sign!");
+
+		if (this.blockData.getMinterSignature() == null)
+			throw new IllegalStateException("Cannot calculate transactions signature as block has no minter signature");
+
+		final int maxBlockSize = BlockChain.getInstance().getMaxBlockSize();
+
+		int blockLength;
+		try {
+			blockLength = BlockTransformer.getDataLength(this);
+		} catch (TransformationException e) {
+			return 0;
+		}
+
+		Set<ByteArray> existingSignatures = this.transactions.stream()
+				.map(transaction -> ByteArray.wrap(transaction.getTransactionData().getSignature()))
+				.collect(Collectors.toSet());
+
+		int transactionCount = this.blockData.getTransactionCount();
+		List<Transaction> acceptedTransactions = new ArrayList<>();
+		long acceptedFees = 0;
+
+		// Transactions whose effects candidates are validated against, starting with any already in block
+		List<Transaction> processedTransactions = this.transactions.stream()
+				.filter(transaction -> transaction.getTransactionData().getType() != TransactionType.AT)
+				.collect(Collectors.toList());
+
+		// As per areTransactionsValid(), use an account reference cache and savepoint while test-processing
+		AccountRefCache accountRefCache = new AccountRefCache(this.repository);
+		this.repository.setSavepoint();
+
+		try {
+			for (Transaction transaction : processedTransactions)
+				testProcessTransaction(transaction);
+
+			for (TransactionData transactionData : candidateTransactions) {
+				if (transactionCount + acceptedTransactions.size() >= maxTransactionCount)
+					break;
+
+				// Already added? (Check using signature)
+				if (!existingSignatures.add(ByteArray.wrap(transactionData.getSignature())))
+					continue;
+
+				// AT transactions are only ever generated by executing ATs
+				if (transactionData.getType() == TransactionType.AT)
+					continue;
+
+				// Check there is space in block
+				int transactionLength;
+				try {
+					transactionLength = BlockTransformer.TRANSACTION_SIZE_LENGTH + TransactionTransformer.getDataLength(transactionData);
+				} catch (TransformationException e) {
+					continue;
+				}
+
+				if (blockLength + transactionLength > maxBlockSize)
+					break;
+
+				Transaction transaction = Transaction.fromData(this.repository, transactionData);
+
+				// If transaction would make block invalid then skip it and it'll either expire or be in a later block
+				ValidationResult validationResult = this.isTransactionValid(transaction);
+				if (validationResult != ValidationResult.OK) {
+					LOGGER.debug(() -> String.format("Skipping invalid transaction %s during block assembly", Base58.encode(transactionData.getSignature())));
+					continue;
+				}
+
+				try {
+					testProcessTransaction(transaction);
+				} catch (Exception e) {
+					LOGGER.debug(() -> String.format("Skipping unprocessable transaction %s during block assembly", Base58.encode(transactionData.getSignature())), e);
+
+					// Transaction may have been partially processed, so rebuild savepoint state from accepted transactions only
+					accountRefCache.close();
+					this.repository.rollbackToSavepoint();
+					this.repository.setSavepoint();
+					accountRefCache = new AccountRefCache(this.repository);
+
+					for (Transaction processedTransaction : processedTransactions)
+						testProcessTransaction(processedTransaction);
+
+					continue;
+				}
+
+				processedTransactions.add(transaction);
+				acceptedTransactions.add(transaction);
+				acceptedFees += transactionData.getFee();
+				blockLength += transactionLength;
+			}
+		} finally {
+			accountRefCache.close();
+
+			// Rollback repository changes made by test-processing transactions above
+			try {
+				this.repository.rollbackToSavepoint();
+			} catch (DataException e) {
+				/*
+				 * Rollback failure most likely due to prior DataException, so discard this DataException. Prior DataException propagates to caller.
+				 */
+			}
+		}
+
+		if (acceptedTransactions.isEmpty())
+			return 0;
+
+		// Add to block
+		this.transactions.addAll(acceptedTransactions);
+
+		// Re-sort
+		this.transactions.sort(Transaction.getComparator());
+
+		// Update transaction count
+		this.blockData.setTransactionCount(transactionCount + acceptedTransactions.size());
+
+		// Update totalFees
+		this.blockData.setTotalFees(this.blockData.getTotalFees() + acceptedFees);
+
+		// We've added transactions, so recalculate transactions signature
+		calcTransactionsSignature();
+
+		return acceptedTransactions.size();
+	}
+
 	/**
 	 * Remove a transaction from the block.
 	 * <p>
@@ -1197,50 +1381,38 @@ public class Block {
 		}
 
 		// If block is past a certain age then we simply assume the signatures were correct
-		long signatureRequirementThreshold = NTP.getTime() - BlockChain.getInstance().getOnlineAccountSignaturesMinLifetime();
-		if (this.blockData.getTimestamp() < signatureRequirementThreshold)
+		if (!this.areOnlineAccountSignaturesChecked())
 			return ValidationResult.OK;
 
 		if (this.blockData.getOnlineAccountsSignatures() == null || this.blockData.getOnlineAccountsSignatures().length == 0)
 			return ValidationResult.ONLINE_ACCOUNT_SIGNATURES_MISSING;
 
-		final int signaturesLength = Transformer.SIGNATURE_LENGTH;
-		final int noncesLength = onlineRewardShares.size() * Transformer.INT_LENGTH;
-
-		// We expect nonces to be appended to the online accounts signatures
-		if (this.blockData.getOnlineAccountsSignatures().length != signaturesLength + noncesLength)
+		// Build block's view of online accounts (without signatures, as we don't need them here)
+		Set<OnlineAccountData> onlineAccounts = this.decodeOnlineAccountsWithNonces(onlineRewardShares);
+		if (onlineAccounts == null)
 			return ValidationResult.ONLINE_ACCOUNT_SIGNATURES_MALFORMED;
 
 		// Check signatures
 		long onlineTimestamp = this.blockData.getOnlineAccountsTimestamp();
 		byte[] onlineTimestampBytes = Longs.toByteArray(onlineTimestamp);
 
-		byte[] encodedOnlineAccountSignatures = this.blockData.getOnlineAccountsSignatures();
-
-		// Split online account signatures into signature(s) + nonces, then validate the nonces
-		byte[] extractedSignatures = BlockTransformer.extract(encodedOnlineAccountSignatures, 0, signaturesLength);
-		byte[] extractedNonces = BlockTransformer.extract(encodedOnlineAccountSignatures, signaturesLength, onlineRewardShares.size() * Transformer.INT_LENGTH);
-		encodedOnlineAccountSignatures = extractedSignatures;
-
-		List<Integer> nonces = BlockTransformer.decodeOnlineAccountNonces(extractedNonces);
-
-		// Build block's view of online accounts (without signatures, as we don't need them here)
-		Set<OnlineAccountData> onlineAccounts = new HashSet<>();
-		for (int i = 0; i < onlineRewardShares.size(); ++i) {
-			Integer nonce = nonces.get(i);
-			byte[] publicKey = onlineRewardShares.get(i).getRewardSharePublicKey();
-
-			OnlineAccountData onlineAccountData = new OnlineAccountData(onlineTimestamp, null, publicKey, nonce);
-			onlineAccounts.add(onlineAccountData);
-		}
+		// Online account signature(s) precede the nonces
+		byte[] encodedOnlineAccountSignatures = BlockTransformer.extract(this.blockData.getOnlineAccountsSignatures(), 0, Transformer.SIGNATURE_LENGTH);
 
 		// Remove those already validated & cached by online accounts manager - no need to re-validate them
 		OnlineAccountsManager.getInstance().removeKnown(onlineAccounts, onlineTimestamp);
 
-		// Validate the rest
-		for (OnlineAccountData onlineAccount : onlineAccounts)
-			if (!OnlineAccountsManager.getInstance().verifyMemoryPoW(onlineAccount, null))
-				return ValidationResult.ONLINE_ACCOUNT_NONCE_INCORRECT;
+		// Also skip those verified while block was prefetched
+		Set<OnlineAccountData> onlineAccountsToVerify = onlineAccounts;
+		Set<OnlineAccountData> preVerifiedOnlineAccounts = this.preVerifiedOnlineAccounts;
+		if (preVerifiedOnlineAccounts != null) {
+			onlineAccountsToVerify = new HashSet<>(onlineAccounts);
+			onlineAccountsToVerify.removeAll(preVerifiedOnlineAccounts);
+		}
+
+		// Validate the rest, in parallel
+		if (!OnlineAccountsManager.getInstance().verifyMemoryPoWs(onlineAccountsToVerify))
+			return ValidationResult.ONLINE_ACCOUNT_NONCE_INCORRECT;
 
 		// Cache the valid online accounts as they will likely be needed for the next block
 		OnlineAccountsManager.getInstance().addBlocksOnlineAccounts(onlineAccounts, onlineTimestamp);
@@ -1270,6 +1442,88 @@ public class Block {
 		return ValidationResult.OK;
 	}
 
+	/** Returns whether block is recent enough for its online accounts' signatures and nonces to be checked. */
+	private boolean areOnlineAccountSignaturesChecked() {
+		Long now = NTP.getTime();
+		if (now == null)
+			return true;
+
+		return this.blockData.getTimestamp() >= now - BlockChain.getInstance().getOnlineAccountSignaturesMinLifetime();
+	}
+
+	/**
+	 * Returns block's online accounts, with nonces extracted from block's online accounts signatures,
+	 * using passed reward-shares decoded from block's online accounts indexes.
+	 *
+	 * @return online accounts (without signatures), or null if signatures/nonces are malformed
+	 */
+	private Set<OnlineAccountData> decodeOnlineAccountsWithNonces(List<RewardShareData> onlineRewardShares) {
+		byte[] encodedOnlineAccountSignatures = this.blockData.getOnlineAccountsSignatures();
+		Long onlineTimestamp = this.blockData.getOnlineAccountsTimestamp();
+
+		final int signaturesLength = Transformer.SIGNATURE_LENGTH;
+		final int noncesLength = onlineRewardShares.size() * Transformer.INT_LENGTH;
+
+		// We expect nonces to be appended to the online accounts signatures
+		if (encodedOnlineAccountSignatures == null || onlineTimestamp == null
+				|| encodedOnlineAccountSignatures.length != signaturesLength + noncesLength)
+			return null;
+
+		byte[] extractedNonces = BlockTransformer.extract(encodedOnlineAccountSignatures, signaturesLength, noncesLength);
+		List<Integer> nonces = BlockTransformer.decodeOnlineAccountNonces(extractedNonces);
+
+		Set<OnlineAccountData> onlineAccounts = new HashSet<>();
+		for (int i = 0; i < onlineRewardShares.size(); ++i) {
+			Integer nonce = nonces.get(i);
+			byte[] publicKey = onlineRewardShares.get(i).getRewardSharePublicKey();
+
+			onlineAccounts.add(new OnlineAccountData(onlineTimestamp, null, publicKey, nonce));
+		}
+
+		return onlineAccounts;
+	}
+
+	/**
+	 * Verifies online accounts' MemoryPoW nonces ahead of {@link #areOnlineAccountsValid()}, e.g. while a block is prefetched during sync.
+	 * <p>
+	 * Reward-share indexes are resolved using a separate repository session, against our current chain state,
+	 * which might not yet include blocks preceding this one. This is harmless as verified accounts are only
+	 * remembered by this block, and {@link #areOnlineAccountsValid()} skips just those that exactly match
+	 * the accounts it decodes. If any nonce is invalid, nothing is remembered and all are verified again later.
+	 */
+	public void preVerifyOnlineAccountNonces() {
+		Integer height = this.blockData.getHeight();
+		if (height == null || height == 1 || !this.isOnlineAccountsBlock() || this.isBatchRewardDistributionBlock())
+			return;
+
+		// Signatures aren't checked for older blocks
+		if (!this.areOnlineAccountSignaturesChecked())
+			return;
+
+		ConciseSet accountIndexes = BlockTransformer.decodeOnlineAccounts(this.blockData.getEncodedOnlineAccounts());
+
+		List<RewardShareData> onlineRewardShares;
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			onlineRewardShares = repository.getAccountRepository().getRewardSharesByIndexes(accountIndexes.toArray());
+		} catch (DataException e) {
+			LOGGER.debug("Unable to fetch online reward-shares to pre-verify block {}: {}", height, e.getMessage());
+			return;
+		}
+
+		if (onlineRewardShares == null)
+			return;
+
+		Set<OnlineAccountData> onlineAccounts = this.decodeOnlineAccountsWithNonces(onlineRewardShares);
+		if (onlineAccounts == null)
+			return;
+
+		OnlineAccountsManager.getInstance().removeKnown(onlineAccounts, this.blockData.getOnlineAccountsTimestamp());
+
+		// Verified in parallel, using workers' reusable work buffers
+		if (OnlineAccountsManager.getInstance().verifyMemoryPoWs(onlineAccounts))
+			this.preVerifiedOnlineAccounts = onlineAccounts;
+	}
+
 
 	/**
 	 * Returns whether Block is valid.
@@ -1370,59 +1624,13 @@ public class Block {
 				if (transactionData.getType() == TransactionType.AT)
 					continue;
 
-				// GenesisTransactions are not allowed (GenesisBlock overrides isValid() to allow them)
-				if (transactionData.getType() == TransactionType.GENESIS || transactionData.getType() == TransactionType.ACCOUNT_FLAGS)
-					return ValidationResult.GENESIS_TRANSACTIONS_INVALID;
-
-				// Check timestamp and deadline
-				if (transactionData.getTimestamp() > this.blockData.getTimestamp()
-						|| transaction.getDeadline() <= this.blockData.getTimestamp())
-					return ValidationResult.TRANSACTION_TIMESTAMP_INVALID;
-
-				// After feature trigger, check that this transaction is confirmable
-				if (transactionData.getTimestamp() >= BlockChain.getInstance().getMemPoWTransactionUpdatesTimestamp()) {
-					if (!transaction.isConfirmable()) {
-						return ValidationResult.TRANSACTION_NOT_CONFIRMABLE;
-					}
-					if (!transaction.isConfirmableAtHeight(this.blockData.getHeight())) {
-						return ValidationResult.TRANSACTION_NOT_CONFIRMABLE;
-					}
-				}
-
-				// Check transaction isn't already included in a block
-				if (this.repository.getTransactionRepository().isConfirmed(transactionData.getSignature()))
-					return ValidationResult.TRANSACTION_ALREADY_PROCESSED;
-
-				// Check transaction has correct reference, etc.
-				if (!transaction.hasValidReference()) {
-					LOGGER.debug(String.format("Error during transaction validation, tx %s: INVALID_REFERENCE", Base58.encode(transactionData.getSignature())));
-					return ValidationResult.TRANSACTION_INVALID;
-				}
-
-				// Check transaction is even valid
-				// NOTE: in Gen1 there was an extra block height passed to DeployATTransaction.isValid
-				Transaction.ValidationResult validationResult = transaction.isValid();
-				if (validationResult != Transaction.ValidationResult.OK) {
-					LOGGER.debug(String.format("Error during transaction validation, tx %s: %s", Base58.encode(transactionData.getSignature()), validationResult.name()));
-					return ValidationResult.TRANSACTION_INVALID;
-				}
-
-				// Check transaction can even be processed
-				validationResult = transaction.isProcessable();
-				if (validationResult != Transaction.ValidationResult.OK) {
-					LOGGER.debug(String.format("Error during transaction validation, tx %s: %s", Base58.encode(transactionData.getSignature()), validationResult.name()));
-					return ValidationResult.TRANSACTION_INVALID;
-				}
+				ValidationResult transactionResult = this.isTransactionValid(transaction);
+				if (transactionResult != ValidationResult.OK)
+					return transactionResult;
 
 				// Process transaction to make sure other transactions validate properly
 				try {
-					// Only process transactions that don't require group-approval.
-					// Group-approval transactions are dealt with later.
-					if (transactionData.getApprovalStatus() == ApprovalStatus.NOT_REQUIRED)
-						transaction.process();
-
-					// Regardless of group-approval, update relevant info for creator (e.g. lastReference)
-					transaction.processReferencesAndFees();
+					testProcessTransaction(transaction);
 				} catch (Exception e) {
 					LOGGER.error(String.format("Exception during transaction validation, tx %s", Base58.encode(transactionData.getSignature())), e);
 					return ValidationResult.TRANSACTION_PROCESSING_FAILED;
@@ -1445,6 +1653,73 @@ public class Block {
 		return ValidationResult.OK;
 	}
 
+	/**
+	 * Returns whether a single, non-AT transaction is valid for inclusion in this block.
+	 * <p>
+	 * Validation is against the current repository state, so any preceding transactions
+	 * in this block must already have been test-processed.
+	 */
+	private ValidationResult isTransactionValid(Transaction transaction) throws DataException {
+		TransactionData transactionData = transaction.getTransactionData();
+
+		// GenesisTransactions are not allowed (GenesisBlock overrides isValid() to allow them)
+		if (transactionData.getType() == TransactionType.GENESIS || transactionData.getType() == TransactionType.ACCOUNT_FLAGS)
+			return ValidationResult.GENESIS_TRANSACTIONS_INVALID;
+
+		// Check timestamp and deadline
+		if (transactionData.getTimestamp() > this.blockData.getTimestamp()
+				|| transaction.getDeadline() <= this.blockData.getTimestamp())
+			return ValidationResult.TRANSACTION_TIMESTAMP_INVALID;
+
+		// After feature trigger, check that this transaction is confirmable
+		if (transactionData.getTimestamp() >= BlockChain.getInstance().getMemPoWTransactionUpdatesTimestamp()) {
+			if (!transaction.isConfirmable()) {
+				return ValidationResult.TRANSACTION_NOT_CONFIRMABLE;
+			}
+			if (!transaction.isConfirmableAtHeight(this.blockData.getHeight())) {
+				return ValidationResult.TRANSACTION_NOT_CONFIRMABLE;
+			}
+		}
+
+		// Check transaction isn't already included in a block
+		if (this.repository.getTransactionRepository().isConfirmed(transactionData.getSignature()))
+			return ValidationResult.TRANSACTION_ALREADY_PROCESSED;
+
+		// Check transaction has correct reference, etc.
+		if (!transaction.hasValidReference()) {
+			LOGGER.debug(String.format("Error during transaction validation, tx %s: INVALID_REFERENCE", Base58.encode(transactionData.getSignature())));
+			return ValidationResult.TRANSACTION_INVALID;
+		}
+
+		// Check transaction is even valid
+		// NOTE: in Gen1 there was an extra block height passed to DeployATTransaction.isValid
+		Transaction.ValidationResult validationResult = transaction.isValid();
+		if (validationResult != Transaction.ValidationResult.OK) {
+			LOGGER.debug(String.format("Error during transaction validation, tx %s: %s", Base58.encode(transactionData.getSignature()), validationResult.name()));
+			return ValidationResult.TRANSACTION_INVALID;
+		}
+
+		// Check transaction can even be processed
+		validationResult = transaction.isProcessable();
+		if (validationResult != Transaction.ValidationResult.OK) {
+			LOGGER.debug(String.format("Error during transaction validation, tx %s: %s", Base58.encode(transactionData.getSignature()), validationResult.name()));
+			return ValidationResult.TRANSACTION_INVALID;
+		}
+
+		return ValidationResult.OK;
+	}
+
+	/** Processes transaction during validation, so that subsequent transactions in this block validate properly. */
+	private static void testProcessTransaction(Transaction transaction) throws DataException {
+		// Only process transactions that don't require group-approval.
+		// Group-approval transactions are dealt with later.
+		if (transaction.getTransactionData().getApprovalStatus() == ApprovalStatus.NOT_REQUIRED)
+			transaction.process();
+
+		// Regardless of group-approval, update relevant info for creator (e.g. lastReference)
+		transaction.processReferencesAndFees();
+	}
+
 	/**
 	 * Returns whether blocks' ATs are valid.
 	 * <p>
@@ -1606,6 +1881,21 @@ public class Block {
 	 * @throws DataException
 	 */
 	public void process() throws DataException {
+		AccountRepository accountRepository = this.repository.getAccountRepository();
+
+		// Buffer account balance, last-reference and level changes made while processing, instead of writing each one
+		accountRepository.beginBatchedChanges();
+		try {
+			this.processInternal();
+
+			// Write buffered account changes in batches
+			accountRepository.flushBatchedChanges();
+		} finally {
+			accountRepository.endBatchedChanges();
+		}
+	}
+
+	private void processInternal() throws DataException {
 		// Set our block's height
 		int blockchainHeight = this.repository.getBlockRepository().getBlockchainHeight();
 		this.blockData.setHeight(blockchainHeight + 1);
@@ -1928,6 +2218,21 @@ public class Block {
 	 * @throws DataException
 	 */
 	public void orphan() throws DataException {
+		AccountRepository accountRepository = this.repository.getAccountRepository();
+
+		// Buffer account balance, last-reference and level changes made while orphaning, instead of writing each one
+		accountRepository.beginBatchedChanges();
+		try {
+			this.orphanInternal();
+
+			// Write buffered account changes in batches
+			accountRepository.flushBatchedChanges();
+		} finally {
+			accountRepository.endBatchedChanges();
+		}
+	}
+
+	private void orphanInternal() throws DataException {
 		LOGGER.trace(() -> String.format("Orphaning block %d", this.blockData.getHeight()));
 
 		// Log some debugging info relating to the block weight calculation
@@ -2727,21 +3032,22 @@ public class Block {
 	// Utils
 
 	/**
-	 * Find index of rewardSharePublicKey in list of rewardSharePublicKeys
+	 * Map each rewardSharePublicKey to its index in list of rewardSharePublicKeys
 	 *
-	 * @param rewardSharePublicKey - the key to query
-	 * @param rewardSharePublicKeys - a sorted list of keys
-	 * @return - the index of the key, or null if not found
+	 * @param rewardSharePublicKeys - a sorted list of keys, or null if none
+	 * @return - index of each key
 	 */
-	private static Integer getRewardShareIndex(byte[] rewardSharePublicKey, List<byte[]> rewardSharePublicKeys) {
+	private static Map<ByteArray, Integer> getRewardShareIndexes(List<byte[]> rewardSharePublicKeys) {
+		if (rewardSharePublicKeys == null)
+			return Collections.emptyMap();
+
+		Map<ByteArray, Integer> indexes = new HashMap<>(rewardSharePublicKeys.size() * 2);
 		int index = 0;
 		for (byte[] publicKey : rewardSharePublicKeys) {
-			if (Arrays.equals(rewardSharePublicKey, publicKey)) {
-				return index;
-			}
+			indexes.put(ByteArray.wrap(publicKey), index);
 			index++;
 		}
-		return null;
+		return indexes;
 	}
 
 	private void logDebugInfo() {
@@ -491,8 +491,10 @@ public class BlockMinter extends Thread {
 
 			// Ignore transactions that have timestamp later than block's timestamp (not yet valid)
 			// Ignore transactions that have expired before this block - they will be cleaned up later
-			if (transactionData.getTimestamp() > newBlockTimestamp || Transaction.getDeadline(transactionData) <= newBlockTimestamp)
+			if (transactionData.getTimestamp() > newBlockTimestamp || Transaction.getDeadline(transactionData) <= newBlockTimestamp) {
 				unconfirmedTransactionsIterator.remove();
+				continue;
+			}
 
 			// Ignore transactions that are unconfirmable at this block height
 			Transaction transaction = Transaction.fromData(repository, transactionData);
@@ -501,31 +503,16 @@ public class BlockMinter extends Thread {
 			}
 		}
 
-		// Sign to create block's signature, needed by Block.isValid()
+		// Sign to create block's signature, needed when recalculating transactions signature
 		newBlock.sign();
 
 		// User-defined limit per block
 		int limit = Settings.getInstance().getMaxTransactionsPerBlock();
 
 		// Attempt to add transactions until block is full, or we run out
-		// If a transaction makes the block invalid then skip it and it'll either expire or be in next block.
-		for (TransactionData transactionData : unconfirmedTransactions) {
-			if (!newBlock.addTransaction(transactionData))
-				break;
-
-			// If newBlock is no longer valid then we can't use transaction
-			ValidationResult validationResult = newBlock.isValid();
-			if (validationResult != ValidationResult.OK) {
-				LOGGER.debug(() -> String.format("Skipping invalid transaction %s during block minting", Base58.encode(transactionData.getSignature())));
-				newBlock.deleteTransaction(transactionData);
-			}
-
-			// User-defined limit per block
-			List<Transaction> transactions = newBlock.getTransactions();
-			if (transactions != null && transactions.size() >= limit) {
-				break;
-			}
-		}
+		// If a transaction would make the block invalid then it's skipped and it'll either expire or be in next block.
+		// Each transaction is only validated once, against the accumulated state of those added before it.
+		newBlock.addTransactions(unconfirmedTransactions, limit);
 	}
 
 	public void shutdown() {
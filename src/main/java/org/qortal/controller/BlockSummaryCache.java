@@ -0,0 +1,109 @@
+package org.qortal.controller;
+
+import org.qortal.data.block.BlockSummaryData;
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+
+/**
+ * Cache of block summaries recently served to peers, shared by block summary and block signature requests.
+ * <p>
+ * Syncing peers tend to walk the same stretch of chain, so summaries are kept by height,
+ * evicting least-recently used, and looked up by their reference, i.e. parent's signature.
+ * <p>
+ * Entries above an orphaned height are dropped. Each invalidation also bumps a generation counter,
+ * so summaries fetched from the repository before an invalidation aren't added afterwards.
+ */
+public class BlockSummaryCache {
+
+	private final int capacity;
+
+	/** Summaries by height, in access order */
+	private final LinkedHashMap<Integer, BlockSummaryData> summariesByHeight = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<ByteArray, Integer> heightsByReference = new HashMap<>();
+
+	private long generation = 0;
+
+	public BlockSummaryCache(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public synchronized long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Returns cached summaries for blocks following block with <tt>parentSignature</tt>, in height order.
+	 * <p>
+	 * Stops at the first block not cached, so the result may be empty or shorter than requested.
+	 */
+	public synchronized List<BlockSummaryData> getSummariesAfter(byte[] parentSignature, int count) {
+		List<BlockSummaryData> blockSummaries = new ArrayList<>();
+
+		Integer firstHeight = this.heightsByReference.get(ByteArray.wrap(parentSignature));
+		if (firstHeight == null)
+			return blockSummaries;
+
+		byte[] previousSignature = parentSignature;
+		for (int height = firstHeight; blockSummaries.size() < count; ++height) {
+			BlockSummaryData blockSummary = this.summariesByHeight.get(height);
+			if (blockSummary == null || !Arrays.equals(blockSummary.getReference(), previousSignature))
+				break;
+
+			blockSummaries.add(blockSummary);
+			previousSignature = blockSummary.getSignature();
+		}
+
+		return blockSummaries;
+	}
+
+	/** Adds summaries fetched from repository, unless cache has been invalidated since <tt>generation</tt>. */
+	public synchronized void putAll(List<BlockSummaryData> blockSummaries, long generation) {
+		if (generation != this.generation || this.capacity <= 0)
+			return;
+
+		for (BlockSummaryData blockSummary : blockSummaries) {
+			if (blockSummary.getReference() == null)
+				continue;
+
+			BlockSummaryData previousSummary = this.summariesByHeight.put(blockSummary.getHeight(), blockSummary);
+			if (previousSummary != null)
+				this.heightsByReference.remove(ByteArray.wrap(previousSummary.getReference()));
+
+			this.heightsByReference.put(ByteArray.wrap(blockSummary.getReference()), blockSummary.getHeight());
+		}
+
+		Iterator<BlockSummaryData> iterator = this.summariesByHeight.values().iterator();
+		while (this.summariesByHeight.size() > this.capacity && iterator.hasNext()) {
+			BlockSummaryData eldestSummary = iterator.next();
+			iterator.remove();
+			this.heightsByReference.remove(ByteArray.wrap(eldestSummary.getReference()));
+		}
+	}
+
+	/** Drops summaries for blocks above <tt>height</tt>, e.g. after orphaning. */
+	public synchronized void invalidateAbove(int height) {
+		this.generation++;
+
+		Iterator<BlockSummaryData> iterator = this.summariesByHeight.values().iterator();
+		while (iterator.hasNext()) {
+			BlockSummaryData blockSummary = iterator.next();
+			if (blockSummary.getHeight() <= height)
+				continue;
+
+			iterator.remove();
+			this.heightsByReference.remove(ByteArray.wrap(blockSummary.getReference()));
+		}
+	}
+
+	public synchronized void clear() {
+		this.generation++;
+		this.summariesByHeight.clear();
+		this.heightsByReference.clear();
+	}
+
+	public synchronized int size() {
+		return this.summariesByHeight.size();
+	}
+
+}
@@ -0,0 +1,267 @@
+package org.qortal.controller;
+
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.transaction.Transaction.ApprovalStatus;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.transaction.TransactionTransformer;
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of transactions confirmed deeply enough that they're unlikely to change, by signature,
+ * along with their serialized form for replying to peers.
+ * <p>
+ * Popular transactions are requested repeatedly by API clients and peers, and each request would otherwise
+ * mean fetching and decoding the transaction from the repository.
+ * <p>
+ * Entries are evicted least-recently used, bounded by their approximate total size rather than count,
+ * as transactions vary a lot in size.
+ * <p>
+ * Transactions confirmed or approved above an orphaned height are dropped. Each invalidation also bumps
+ * a generation counter, so transactions fetched from the repository before an invalidation aren't added afterwards.
+ * <p>
+ * Cached transaction data is shared, so callers must <b>not</b> modify it.
+ * Code that processes or orphans transactions should use the repository directly.
+ */
+public class ConfirmedTransactionCache {
+
+	/** Rough per-entry overhead, in bytes, on top of serialized transaction, for map entry and decoded objects */
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private static class Entry {
+		final TransactionData transactionData;
+		final byte[] transactionBytes;
+		final int size;
+
+		Entry(TransactionData transactionData, byte[] transactionBytes) {
+			this.transactionData = transactionData;
+			this.transactionBytes = transactionBytes;
+			// Decoded data takes up roughly as much room again as serialized form
+			this.size = transactionBytes.length * 2 + ENTRY_OVERHEAD;
+		}
+	}
+
+	private final long maxBytes;
+	private final int minConfirmations;
+
+	/** Entries by signature, in access order */
+	private final LinkedHashMap<ByteArray, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalBytes = 0;
+	private long generation = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ConfirmedTransactionCache(long maxBytes, int minConfirmations) {
+		this.maxBytes = maxBytes;
+		this.minConfirmations = minConfirmations;
+	}
+
+	/**
+	 * Returns transaction with <tt>signature</tt>, from cache if possible, otherwise from repository.
+	 * <p>
+	 * Returned transaction data is shared and must not be modified.
+	 *
+	 * @return transaction data, or null if not found
+	 */
+	public TransactionData fromSignature(Repository repository, byte[] signature) throws DataException {
+		Entry entry = this.get(signature);
+		if (entry != null)
+			return entry.transactionData;
+
+		long generation = this.getGeneration();
+		TransactionData transactionData = repository.getTransactionRepository().fromSignature(signature);
+
+		if (transactionData != null && this.isCacheable(transactionData, this.getChainHeight(repository))) {
+			try {
+				this.put(new Entry(transactionData, TransactionTransformer.toBytes(transactionData)), generation);
+			} catch (TransformationException e) {
+				// Not a transaction we can cache
+			}
+		}
+
+		return transactionData;
+	}
+
+	/**
+	 * Returns serialized transaction with <tt>signature</tt>, from cache if possible, otherwise from repository.
+	 *
+	 * @return serialized transaction, or null if not found
+	 * @throws TransformationException if transaction can't be serialized
+	 */
+	public byte[] getTransactionBytes(Repository repository, byte[] signature) throws DataException, TransformationException {
+		Entry entry = this.get(signature);
+		if (entry != null)
+			return entry.transactionBytes;
+
+		long generation = this.getGeneration();
+		TransactionData transactionData = repository.getTransactionRepository().fromSignature(signature);
+		if (transactionData == null)
+			return null;
+
+		byte[] transactionBytes = TransactionTransformer.toBytes(transactionData);
+
+		if (this.isCacheable(transactionData, this.getChainHeight(repository)))
+			this.put(new Entry(transactionData, transactionBytes), generation);
+
+		return transactionBytes;
+	}
+
+	/**
+	 * Returns serialized transactions, keyed by signature, from cache if possible, otherwise from repository.
+	 * <p>
+	 * Transactions not found, or that can't be serialized, are omitted.
+	 */
+	public Map<ByteArray, byte[]> getTransactionBytes(Repository repository, List<byte[]> signatures) throws DataException {
+		Map<ByteArray, byte[]> transactionBytesBySignature = new HashMap<>(signatures.size());
+		List<byte[]> signaturesNeeded = new ArrayList<>();
+
+		for (byte[] signature : signatures) {
+			Entry entry = this.get(signature);
+
+			if (entry != null)
+				transactionBytesBySignature.put(ByteArray.wrap(signature), entry.transactionBytes);
+			else
+				signaturesNeeded.add(signature);
+		}
+
+		if (signaturesNeeded.isEmpty())
+			return transactionBytesBySignature;
+
+		long generation = this.getGeneration();
+		List<TransactionData> transactions = repository.getTransactionRepository().fromSignatures(signaturesNeeded);
+
+		int chainHeight = this.getChainHeight(repository);
+
+		for (TransactionData transactionData : transactions) {
+			byte[] transactionBytes;
+			try {
+				transactionBytes = TransactionTransformer.toBytes(transactionData);
+			} catch (TransformationException e) {
+				continue;
+			}
+
+			transactionBytesBySignature.put(ByteArray.wrap(transactionData.getSignature()), transactionBytes);
+
+			if (this.isCacheable(transactionData, chainHeight))
+				this.put(new Entry(transactionData, transactionBytes), generation);
+		}
+
+		return transactionBytesBySignature;
+	}
+
+	private synchronized Entry get(byte[] signature) {
+		Entry entry = this.entries.get(ByteArray.wrap(signature));
+
+		if (entry != null)
+			this.hits.increment();
+		else
+			this.misses.increment();
+
+		return entry;
+	}
+
+	/** Returns whether transaction can be cached, i.e. confirmed deeply enough at <tt>chainHeight</tt> and not still awaiting group approval. */
+	private boolean isCacheable(TransactionData transactionData, int chainHeight) {
+		Integer blockHeight = transactionData.getBlockHeight();
+		if (blockHeight == null || transactionData.getApprovalStatus() == ApprovalStatus.PENDING)
+			return false;
+
+		return chainHeight - blockHeight >= this.minConfirmations;
+	}
+
+	/** Returns current chain height, or 0 if cache is disabled, so nothing is cacheable, without querying repository. */
+	private int getChainHeight(Repository repository) throws DataException {
+		if (this.maxBytes <= 0)
+			return 0;
+
+		return repository.getBlockRepository().getBlockchainHeight();
+	}
+
+	private synchronized void put(Entry entry, long generation) {
+		if (generation != this.generation || entry.size > this.maxBytes)
+			return;
+
+		Entry previousEntry = this.entries.put(ByteArray.wrap(entry.transactionData.getSignature()), entry);
+		if (previousEntry != null)
+			this.totalBytes -= previousEntry.size;
+
+		this.totalBytes += entry.size;
+
+		Iterator<Entry> iterator = this.entries.values().iterator();
+		while (this.totalBytes > this.maxBytes && iterator.hasNext()) {
+			Entry eldestEntry = iterator.next();
+			iterator.remove();
+			this.totalBytes -= eldestEntry.size;
+			this.evictions.increment();
+		}
+	}
+
+	private synchronized long getGeneration() {
+		return this.generation;
+	}
+
+	/** Drops transactions confirmed or approved above <tt>height</tt>, e.g. after orphaning. */
+	public synchronized void invalidateAbove(int height) {
+		this.generation++;
+
+		Iterator<Entry> iterator = this.entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			TransactionData transactionData = entry.transactionData;
+
+			Integer approvalHeight = transactionData.getApprovalHeight();
+			if (transactionData.getBlockHeight() <= height && (approvalHeight == null || approvalHeight <= height))
+				continue;
+
+			iterator.remove();
+			this.totalBytes -= entry.size;
+		}
+	}
+
+	public synchronized void clear() {
+		this.generation++;
+		this.entries.clear();
+		this.totalBytes = 0;
+	}
+
+	// Metrics
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public synchronized long getTotalBytes() {
+		return this.totalBytes;
+	}
+
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+
+	/** Returns fraction of lookups served from cache, or 0 if no lookups yet. */
+	public double getHitRate() {
+		long hits = this.hits.sum();
+		long lookups = hits + this.misses.sum();
+
+		return lookups > 0 ? (double) hits / lookups : 0.0;
+	}
+
+}
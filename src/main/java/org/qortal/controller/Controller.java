@@ -119,6 +119,13 @@ public class Controller extends Thread {
 		}
 	};
 
+	/** Cache of block summaries served to peers, shared by summary and signature requests */
+	private final BlockSummaryCache blockSummaryCache = new BlockSummaryCache(Settings.getInstance().getBlockSummariesCacheSize());
+
+	/** Cache of deeply confirmed transactions, for API lookups and replies to peers */
+	private final ConfirmedTransactionCache confirmedTransactionCache = new ConfirmedTransactionCache(
+			Settings.getInstance().getConfirmedTransactionCacheSize(), Settings.getInstance().getConfirmedTransactionCacheMinConfirmations());
+
 	private long repositoryBackupTimestamp = startTime; // ms
 	private long repositoryMaintenanceTimestamp = startTime; // ms
 	private long repositoryCheckpointTimestamp = startTime; // ms
@@ -150,6 +157,7 @@ public class Controller extends Thread {
 			public AtomicLong requests = new AtomicLong();
 			public AtomicLong cacheHits = new AtomicLong();
 			public AtomicLong fullyFromCache = new AtomicLong();
+			public AtomicLong repositoryRangeQueries = new AtomicLong();
 
 			public GetBlockSummariesStats() {
 			}
@@ -160,6 +168,7 @@ public class Controller extends Thread {
 			public AtomicLong requests = new AtomicLong();
 			public AtomicLong cacheHits = new AtomicLong();
 			public AtomicLong fullyFromCache = new AtomicLong();
+			public AtomicLong repositoryRangeQueries = new AtomicLong();
 
 			public GetBlockSignaturesV2Stats() {
 			}
@@ -315,6 +324,10 @@ public class Controller extends Thread {
 		return this.buildVersion.replaceFirst(VERSION_PREFIX, "");
 	}
 
+	public ConfirmedTransactionCache getConfirmedTransactionCache() {
+		return this.confirmedTransactionCache;
+	}
+
 	/** Returns current blockchain height, or 0 if it's not available. */
 	public int getChainHeight() {
 		synchronized (this.latestBlocks) {
@@ -345,6 +358,8 @@ public class Controller extends Thread {
 
 			synchronized (this.latestBlocks) {
 				this.latestBlocks.clear();
+				this.blockSummaryCache.clear();
+				this.confirmedTransactionCache.clear();
 
 				for (int i = 0; i < blockCacheSize && blockData != null; ++i) {
 					this.latestBlocks.addFirst(blockData);
@@ -1329,6 +1344,10 @@ public class Controller extends Thread {
 		// Protective copy
 		BlockData blockDataCopy = new BlockData(latestBlockData);
 
+		// Cached summaries and transactions above new chain tip are no longer valid
+		this.blockSummaryCache.invalidateAbove(blockDataCopy.getHeight());
+		this.confirmedTransactionCache.invalidateAbove(blockDataCopy.getHeight());
+
 		synchronized (this.latestBlocks) {
 			BlockData cachedChainTip = this.latestBlocks.pollLast();
 			boolean refillNeeded = false;
@@ -1485,6 +1504,10 @@ public class Controller extends Thread {
 				OnlineAccountsManager.getInstance().onNetworkGetOnlineAccountsV3Message(peer, message);
 				break;
 
+			case GET_ONLINE_ACCOUNTS_V4:
+				OnlineAccountsManager.getInstance().onNetworkGetOnlineAccountsV4Message(peer, message);
+				break;
+
 			case ONLINE_ACCOUNTS_V3:
 				OnlineAccountsManager.getInstance().onNetworkOnlineAccountsV3Message(peer, message);
 				break;
@@ -1713,34 +1736,17 @@ public class Controller extends Thread {
 		}
 
 		if (blockSummaries.isEmpty()) {
-			try (final Repository repository = RepositoryManager.getRepository()) {
+			try {
 				int numberRequested = Math.min(Network.MAX_BLOCK_SUMMARIES_PER_REPLY, getBlockSummariesMessage.getNumberRequested());
+				StatsSnapshot.GetBlockSummariesStats summariesStats = this.stats.getBlockSummariesStats;
 
-				BlockData blockData = repository.getBlockRepository().fromReference(parentSignature);
-				if (blockData == null) {
-					// Try the archive
-					blockData = repository.getBlockArchiveRepository().fromReference(parentSignature);
-				}
+				blockSummaries = this.getBlockSummariesAfter(parentSignature, numberRequested,
+						summariesStats.cacheHits, summariesStats.fullyFromCache, summariesStats.repositoryRangeQueries);
 
-				if (blockData != null) {
-					if (PruneManager.getInstance().isBlockPruned(blockData.getHeight())) {
-						// If this request contains a pruned block, we likely only have partial data, so best not to sent anything
-						// We always prune from the oldest first, so it's fine to just check the first block requested
-						blockData = null;
-					}
-				}
-
-				while (blockData != null && blockSummaries.size() < numberRequested) {
-					BlockSummaryData blockSummary = new BlockSummaryData(blockData);
-					blockSummaries.add(blockSummary);
-
-					byte[] previousSignature = blockData.getSignature();
-					blockData = repository.getBlockRepository().fromReference(previousSignature);
-					if (blockData == null) {
-						// Try the archive
-						blockData = repository.getBlockArchiveRepository().fromReference(previousSignature);
-					}
-				}
+				// If this request contains a pruned block, we likely only have partial data, so best not to sent anything
+				// We always prune from the oldest first, so it's fine to just check the first block requested
+				if (!blockSummaries.isEmpty() && PruneManager.getInstance().isBlockPruned(blockSummaries.get(0).getHeight()))
+					blockSummaries = Collections.emptyList();
 			} catch (DataException e) {
 				LOGGER.error(String.format("Repository issue while sending block summaries after %s to peer %s", Base58.encode(parentSignature), peer), e);
 			}
@@ -1787,24 +1793,15 @@ public class Controller extends Thread {
 		}
 
 		if (signatures.isEmpty()) {
-			try (final Repository repository = RepositoryManager.getRepository()) {
-				int numberRequested = getSignaturesMessage.getNumberRequested();
-				BlockData blockData = repository.getBlockRepository().fromReference(parentSignature);
-				if (blockData == null) {
-					// Try the archive
-					blockData = repository.getBlockArchiveRepository().fromReference(parentSignature);
-				}
-
-				while (blockData != null && signatures.size() < numberRequested) {
-					signatures.add(blockData.getSignature());
-
-					byte[] previousSignature = blockData.getSignature();
-					blockData = repository.getBlockRepository().fromReference(previousSignature);
-					if (blockData == null) {
-						// Try the archive
-						blockData = repository.getBlockArchiveRepository().fromReference(previousSignature);
-					}
-				}
+			try {
+				int numberRequested = Math.min(Network.MAX_SIGNATURES_PER_REPLY, getSignaturesMessage.getNumberRequested());
+				StatsSnapshot.GetBlockSignaturesV2Stats signaturesStats = this.stats.getBlockSignaturesV2Stats;
+
+				signatures = this.getBlockSummariesAfter(parentSignature, numberRequested,
+						signaturesStats.cacheHits, signaturesStats.fullyFromCache, signaturesStats.repositoryRangeQueries)
+						.stream()
+						.map(BlockSummaryData::getSignature)
+						.collect(Collectors.toList());
 			} catch (DataException e) {
 				LOGGER.error(String.format("Repository issue while sending V2 signatures after %s to peer %s", Base58.encode(parentSignature), peer), e);
 			}
@@ -1821,6 +1818,68 @@ public class Controller extends Thread {
 			peer.disconnect("failed to send signatures (v2)");
 	}
 
+	/**
+	 * Returns summaries of up to <tt>numberRequested</tt> blocks following block with <tt>parentSignature</tt>.
+	 * <p>
+	 * Served from block summaries cache where possible, with the remainder fetched from the repository
+	 * using one height-ranged query, plus one ranged archive read for any blocks that have been archived.
+	 */
+	private List<BlockSummaryData> getBlockSummariesAfter(byte[] parentSignature, int numberRequested,
+			AtomicLong cacheHits, AtomicLong fullyFromCache, AtomicLong repositoryRangeQueries) throws DataException {
+		long cacheGeneration = this.blockSummaryCache.getGeneration();
+
+		List<BlockSummaryData> blockSummaries = this.blockSummaryCache.getSummariesAfter(parentSignature, numberRequested);
+		if (!blockSummaries.isEmpty()) {
+			cacheHits.incrementAndGet();
+
+			if (blockSummaries.size() >= numberRequested) {
+				fullyFromCache.incrementAndGet();
+				return blockSummaries;
+			}
+		}
+
+		byte[] previousSignature = blockSummaries.isEmpty() ? parentSignature : blockSummaries.get(blockSummaries.size() - 1).getSignature();
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			int previousHeight = repository.getBlockRepository().getHeightFromSignature(previousSignature);
+			if (previousHeight == 0)
+				// Try the archive
+				previousHeight = repository.getBlockArchiveRepository().getHeightFromSignature(previousSignature);
+
+			if (previousHeight == 0)
+				return blockSummaries;
+
+			int firstHeight = previousHeight + 1;
+			int lastHeight = previousHeight + (numberRequested - blockSummaries.size());
+
+			repositoryRangeQueries.incrementAndGet();
+			List<BlockSummaryData> fetchedSummaries = repository.getBlockRepository().getBlockSummaries(firstHeight, lastHeight);
+
+			// Any blocks missing from the start of the range might be in the archive
+			int firstUnarchivedHeight = fetchedSummaries.isEmpty() ? lastHeight + 1 : fetchedSummaries.get(0).getHeight();
+			if (firstUnarchivedHeight > firstHeight) {
+				List<BlockSummaryData> archivedSummaries = repository.getBlockArchiveRepository().getBlockSummaries(firstHeight, firstUnarchivedHeight - 1);
+				archivedSummaries.addAll(fetchedSummaries);
+				fetchedSummaries = archivedSummaries;
+			}
+
+			// Only use blocks that still chain on from the parent, in case of gaps or reorgs
+			List<BlockSummaryData> chainedSummaries = new ArrayList<>(fetchedSummaries.size());
+			for (BlockSummaryData blockSummary : fetchedSummaries) {
+				if (!Arrays.equals(blockSummary.getReference(), previousSignature))
+					break;
+
+				chainedSummaries.add(blockSummary);
+				previousSignature = blockSummary.getSignature();
+			}
+
+			this.blockSummaryCache.putAll(chainedSummaries, cacheGeneration);
+			blockSummaries.addAll(chainedSummaries);
+		}
+
+		return blockSummaries;
+	}
+
 	private void onNetworkHeightV2Message(Peer peer, Message message) {
 		HeightV2Message heightV2Message = (HeightV2Message) message;
 
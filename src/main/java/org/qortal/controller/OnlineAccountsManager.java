@@ -13,11 +13,13 @@ import org.qortal.crypto.MemoryPoW;
 import org.qortal.crypto.Qortal25519Extras;
 import org.qortal.data.account.MintingAccountData;
 import org.qortal.data.account.RewardShareData;
+import org.qortal.data.block.BlockData;
 import org.qortal.data.group.GroupMemberData;
 import org.qortal.data.network.OnlineAccountData;
 import org.qortal.network.Network;
 import org.qortal.network.Peer;
 import org.qortal.network.message.GetOnlineAccountsV3Message;
+import org.qortal.network.message.GetOnlineAccountsV4Message;
 import org.qortal.network.message.Message;
 import org.qortal.network.message.OnlineAccountsV3Message;
 import org.qortal.repository.DataException;
@@ -25,6 +27,7 @@ import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
 import org.qortal.settings.Settings;
 import org.qortal.utils.Base58;
+import org.qortal.utils.ByteArray;
 import org.qortal.utils.Groups;
 import org.qortal.utils.NTP;
 import org.qortal.utils.NamedThreadFactory;
@@ -33,6 +36,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 public class OnlineAccountsManager {
@@ -59,6 +66,10 @@ public class OnlineAccountsManager {
     private static final int MAX_BLOCKS_CACHED_ONLINE_ACCOUNTS = 3;
 
     private static final long ONLINE_ACCOUNTS_QUEUE_INTERVAL = 100L; // ms
+    /** How many queued online accounts to verify before merging valid ones into current online accounts */
+    private static final int ONLINE_ACCOUNTS_IMPORT_BATCH_SIZE = 500;
+    /** Maximum number of cached reward-share minting eligibility results, as entries can be for bogus public keys from peers */
+    private static final int MAX_CACHED_REWARD_SHARE_ELIGIBILITY = 10_000;
     private static final long ONLINE_ACCOUNTS_TASKS_INTERVAL = 10 * 1000L; // ms
     private static final long ONLINE_ACCOUNTS_COMPUTE_INTERVAL = 5 * 1000L; // ms
     private static final long ONLINE_ACCOUNTS_BROADCAST_INTERVAL = 60 * 1000L; // ms
@@ -79,24 +90,40 @@ public class OnlineAccountsManager {
     public static final int POW_BUFFER_SIZE_TESTNET = 1024 * 1024; // bytes
     public static final int POW_DIFFICULTY_TESTNET = 5; // leading zero bits
 
-    // IMPORTANT: if we ever need to dynamically modify the buffer size using a feature trigger, the
-    // pre-allocated buffer below will NOT work, and we should instead use a dynamically allocated
-    // one for the transition period.
-    private static long[] POW_VERIFY_WORK_BUFFER = new long[getPoWBufferSize() / 8];
-
     private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4, new NamedThreadFactory("OnlineAccounts", Thread.NORM_PRIORITY));
+
+    private static final int POW_VERIFICATION_THREADS = Math.max(1, Settings.getInstance().getOnlineAccountsPoWVerificationThreads());
+    /** Workers for verifying many online accounts' MemoryPoW nonces at once, e.g. during block validation or import */
+    private final ExecutorService powVerificationExecutor = Executors.newFixedThreadPool(POW_VERIFICATION_THREADS,
+            new NamedThreadFactory("OnlineAccounts PoW verifier", Thread.NORM_PRIORITY));
     private volatile boolean isStopping = false;
 
     private final Set<OnlineAccountData> onlineAccountsImportQueue = ConcurrentHashMap.newKeySet();
 
+    // Only accessed by import queue processing, which never runs concurrently with itself
+    /** Signature of block that cached minting eligibility info below is valid for */
+    private byte[] mintingEligibilityBlockSignature;
+    /** Cached minting group member addresses */
+    private Set<String> mintingGroupMemberAddresses = Collections.emptySet();
+    /** Cached minting eligibility of reward-shares, keyed by reward-share public key */
+    private final Map<ByteArray, Boolean> rewardShareMintingEligibility = new HashMap<>();
+
     /**
      * Cache of 'current' online accounts, keyed by timestamp
      */
     private final Map<Long, Set<OnlineAccountData>> currentOnlineAccounts = new ConcurrentHashMap<>();
     /**
      * Cache of hash-summary of 'current' online accounts, keyed by timestamp, then leading byte of public key.
+     * <p>
+     * Maintained incrementally as online accounts are added.
      */
     private final Map<Long, Map<Byte, byte[]>> currentOnlineAccountsHashes = new ConcurrentHashMap<>();
+    /**
+     * Cache of finer-grained hash-summary of 'current' online accounts, keyed by timestamp, then two-byte prefix of public key.
+     * <p>
+     * Used for two-level reconciliation with peers that support {@link GetOnlineAccountsV4Message}.
+     */
+    private final Map<Long, Map<Short, byte[]>> currentOnlineAccountsPrefixHashes = new ConcurrentHashMap<>();
 
     /**
      * Cache of online accounts for latest blocks - not necessarily 'current' / now.
@@ -182,6 +209,7 @@ public class OnlineAccountsManager {
     public void shutdown() {
         isStopping = true;
         executor.shutdownNow();
+        powVerificationExecutor.shutdownNow();
     }
 
     // Testing support
@@ -210,7 +238,7 @@ public class OnlineAccountsManager {
             replacementAccounts.add(ourOnlineAccountData);
         }
 
-        this.currentOnlineAccounts.clear();
+        clearAccounts();
         addAccounts(replacementAccounts);
     }
 
@@ -223,17 +251,10 @@ public class OnlineAccountsManager {
 
         LOGGER.debug("Processing online accounts import queue (size: {})", this.onlineAccountsImportQueue.size());
 
-        Set<OnlineAccountData> onlineAccountsToAdd = new HashSet<>();
+        List<OnlineAccountData> onlineAccountsToVerify = new ArrayList<>();
         Set<OnlineAccountData> onlineAccountsToRemove = new HashSet<>();
         try (final Repository repository = RepositoryManager.getRepository()) {
-
-            int blockHeight = repository.getBlockRepository().getBlockchainHeight();
-
-            List<String> mintingGroupMemberAddresses
-                = Groups.getAllMembers(
-                    repository.getGroupRepository(),
-                    Groups.getGroupIdsToMint(BlockChain.getInstance(), blockHeight)
-            );
+            this.refreshMintingEligibility(repository);
 
             for (OnlineAccountData onlineAccountData : this.onlineAccountsImportQueue) {
                 if (isStopping)
@@ -247,26 +268,73 @@ public class OnlineAccountsManager {
                     continue;
                 }
 
-                boolean isValid = this.isValidCurrentAccount(repository, mintingGroupMemberAddresses, onlineAccountData);
-                if (isValid)
-                    onlineAccountsToAdd.add(onlineAccountData);
+                // Cheap checks here, leaving signature and nonce to be verified in parallel
+                if (this.isEligibleCurrentAccount(repository, onlineAccountData))
+                    onlineAccountsToVerify.add(onlineAccountData);
 
                 // Don't remove from the queue yet - we'll do this at the end of the process
                 // This prevents duplicates being added to the queue whilst it's being processed
                 onlineAccountsToRemove.add(onlineAccountData);
+
+                // Merge in batches so that, after a restart, minting doesn't wait for the whole queue
+                if (onlineAccountsToVerify.size() >= ONLINE_ACCOUNTS_IMPORT_BATCH_SIZE) {
+                    this.verifyAndAddAccounts(onlineAccountsToVerify);
+                    onlineAccountsToVerify.clear();
+                }
             }
         } catch (DataException e) {
             LOGGER.error("Repository issue while verifying online accounts", e);
 
         } finally {
-            if (!onlineAccountsToAdd.isEmpty()) {
-                LOGGER.debug("Merging {} validated online accounts from import queue", onlineAccountsToAdd.size());
-                addAccounts(onlineAccountsToAdd);
-            }
+            if (!onlineAccountsToVerify.isEmpty())
+                this.verifyAndAddAccounts(onlineAccountsToVerify);
+
             onlineAccountsImportQueue.removeAll(onlineAccountsToRemove);
         }
     }
 
+    /** Verifies online accounts' signatures and nonces in parallel, then merges valid online accounts in one go. */
+    private void verifyAndAddAccounts(List<OnlineAccountData> onlineAccountsToVerify) {
+        boolean[] isValid = new boolean[onlineAccountsToVerify.size()];
+
+        boolean isComplete = this.forEachInParallel(onlineAccountsToVerify.size(),
+                index -> isValid[index] = this.hasValidSignatureAndNonce(onlineAccountsToVerify.get(index)),
+                () -> !isStopping);
+
+        // Workers could still be writing results
+        if (!isComplete)
+            return;
+
+        List<OnlineAccountData> onlineAccountsToAdd = new ArrayList<>();
+        for (int i = 0; i < isValid.length; ++i)
+            if (isValid[i])
+                onlineAccountsToAdd.add(onlineAccountsToVerify.get(i));
+
+        if (onlineAccountsToAdd.isEmpty())
+            return;
+
+        LOGGER.debug("Merging {} validated online accounts from import queue", onlineAccountsToAdd.size());
+        addAccounts(onlineAccountsToAdd);
+    }
+
+    /** Rebuilds cached minting group members, and forgets reward-shares' minting eligibility, if chain tip has changed. */
+    private void refreshMintingEligibility(Repository repository) throws DataException {
+        BlockData chainTip = repository.getBlockRepository().getLastBlock();
+        if (chainTip == null)
+            throw new DataException("Unable to fetch chain tip");
+
+        if (Arrays.equals(chainTip.getSignature(), this.mintingEligibilityBlockSignature))
+            return;
+
+        this.mintingGroupMemberAddresses = new HashSet<>(Groups.getAllMembers(
+                repository.getGroupRepository(),
+                Groups.getGroupIdsToMint(BlockChain.getInstance(), chainTip.getHeight())
+        ));
+
+        this.rewardShareMintingEligibility.clear();
+        this.mintingEligibilityBlockSignature = chainTip.getSignature();
+    }
+
     /**
      * Check if supplied onlineAccountData is superior (i.e. has a nonce value) than existing record.
      * Two entries are considered equal even if the nonce differs, to prevent multiple variations
@@ -316,17 +384,27 @@ public class OnlineAccountsManager {
     // Utilities
 
     public static byte[] xorByteArrayInPlace(byte[] inplaceArray, byte[] otherArray) {
+        return xorByteArrayInPlace(inplaceArray, otherArray, 1);
+    }
+
+    /** As {@link #xorByteArrayInPlace(byte[], byte[])} but leaving leading <tt>prefixLength</tt> bytes unchanged. */
+    public static byte[] xorByteArrayInPlace(byte[] inplaceArray, byte[] otherArray, int prefixLength) {
         if (inplaceArray == null)
             return Arrays.copyOf(otherArray, otherArray.length);
 
-        // Start from index 1 to enforce static leading byte
-        for (int i = 1; i < otherArray.length; i++)
+        // Start from prefixLength to enforce static prefix
+        for (int i = prefixLength; i < otherArray.length; i++)
             inplaceArray[i] ^= otherArray[i];
 
         return inplaceArray;
     }
 
-    private static boolean isValidCurrentAccount(Repository repository, List<String> mintingGroupMemberAddresses, OnlineAccountData onlineAccountData) throws DataException {
+    /**
+     * Returns whether online account has recent, valid timestamp and is for a reward-share that can mint.
+     * <p>
+     * Signature and nonce are <b>not</b> checked here - see {@link #hasValidSignatureAndNonce(OnlineAccountData)}.
+     */
+    private boolean isEligibleCurrentAccount(Repository repository, OnlineAccountData onlineAccountData) throws DataException {
         final Long now = NTP.getTime();
         if (now == null)
             return false;
@@ -346,14 +424,21 @@ public class OnlineAccountsManager {
             return false;
         }
 
-        // Verify signature
-        byte[] data = Longs.toByteArray(onlineAccountData.getTimestamp());
-        boolean isSignatureValid = Qortal25519Extras.verifyAggregated(rewardSharePublicKey, onlineAccountData.getSignature(), data);
-        if (!isSignatureValid) {
-            LOGGER.trace(() -> String.format("Rejecting invalid online account %s", Base58.encode(rewardSharePublicKey)));
-            return false;
+        ByteArray rewardShareKey = ByteArray.wrap(rewardSharePublicKey);
+        Boolean canMint = this.rewardShareMintingEligibility.get(rewardShareKey);
+        if (canMint == null) {
+            canMint = this.canRewardShareMint(repository, rewardSharePublicKey);
+
+            if (this.rewardShareMintingEligibility.size() >= MAX_CACHED_REWARD_SHARE_ELIGIBILITY)
+                this.rewardShareMintingEligibility.clear();
+
+            this.rewardShareMintingEligibility.put(rewardShareKey, canMint);
         }
 
+        return canMint;
+    }
+
+    private boolean canRewardShareMint(Repository repository, byte[] rewardSharePublicKey) throws DataException {
         // Qortal: check online account is actually reward-share
         RewardShareData rewardShareData = repository.getAccountRepository().getRewardShare(rewardSharePublicKey);
         if (rewardShareData == null) {
@@ -362,7 +447,7 @@ public class OnlineAccountsManager {
             return false;
         }
         // reject account address that are not in the MINTER Group
-        else if( !mintingGroupMemberAddresses.contains(rewardShareData.getMinter())) {
+        else if (!this.mintingGroupMemberAddresses.contains(rewardShareData.getMinter())) {
             LOGGER.trace(() -> String.format("Rejecting online reward-share that is not in MINTER Group, account %s", rewardShareData.getMinter()));
             return false;
         }
@@ -374,59 +459,40 @@ public class OnlineAccountsManager {
             return false;
         }
 
+        return true;
+    }
+
+    /** Returns whether online account's signature and MemoryPoW nonce are valid. Safe to call from multiple threads. */
+    private boolean hasValidSignatureAndNonce(OnlineAccountData onlineAccountData) {
+        byte[] rewardSharePublicKey = onlineAccountData.getPublicKey();
+
+        // Verify signature
+        byte[] data = Longs.toByteArray(onlineAccountData.getTimestamp());
+        boolean isSignatureValid = Qortal25519Extras.verifyAggregated(rewardSharePublicKey, onlineAccountData.getSignature(), data);
+        if (!isSignatureValid) {
+            LOGGER.trace(() -> String.format("Rejecting invalid online account %s", Base58.encode(rewardSharePublicKey)));
+            return false;
+        }
+
         // Validate mempow
-        if (!getInstance().verifyMemoryPoW(onlineAccountData, POW_VERIFY_WORK_BUFFER)) {
-            LOGGER.trace(() -> String.format("Rejecting online reward-share for account %s due to invalid PoW nonce", mintingAccount.getAddress()));
+        if (!this.verifyMemoryPoW(onlineAccountData, null)) {
+            LOGGER.trace(() -> String.format("Rejecting online reward-share %s due to invalid PoW nonce", Base58.encode(rewardSharePublicKey)));
             return false;
         }
 
         return true;
     }
 
-    /** Adds accounts, maybe rebuilds hashes, returns whether any new accounts were added / hashes rebuilt. */
+    /** Adds accounts, updating hashes, returns whether any new accounts were added. */
     private boolean addAccounts(Collection<OnlineAccountData> onlineAccountsToAdd) {
-        // For keeping track of which hashes to rebuild
-        Map<Long, Set<Byte>> hashesToRebuild = new HashMap<>();
+        boolean hasNewEntries = false;
 
-        for (OnlineAccountData onlineAccountData : onlineAccountsToAdd) {
-            boolean isNewEntry = this.addAccount(onlineAccountData);
+        for (OnlineAccountData onlineAccountData : onlineAccountsToAdd)
+            hasNewEntries |= this.addAccount(onlineAccountData);
 
-            if (isNewEntry)
-                hashesToRebuild.computeIfAbsent(onlineAccountData.getTimestamp(), k -> new HashSet<>()).add(onlineAccountData.getPublicKey()[0]);
-        }
-
-        if (hashesToRebuild.isEmpty())
+        if (!hasNewEntries)
             return false;
 
-        for (var entry : hashesToRebuild.entrySet()) {
-            Long timestamp = entry.getKey();
-
-            LOGGER.trace(() -> String.format("Rehashing for timestamp %d and leading bytes %s",
-                            timestamp,
-                            entry.getValue().stream().sorted(Byte::compareUnsigned).map(leadingByte -> String.format("%02x", leadingByte)).collect(Collectors.joining(", "))
-                    )
-            );
-
-            for (Byte leadingByte : entry.getValue()) {
-                byte[] pubkeyHash = currentOnlineAccounts.get(timestamp).stream()
-                        .map(OnlineAccountData::getPublicKey)
-                        .filter(publicKey -> leadingByte == publicKey[0])
-                        .reduce(null, OnlineAccountsManager::xorByteArrayInPlace);
-
-                currentOnlineAccountsHashes.computeIfAbsent(timestamp, k -> new ConcurrentHashMap<>()).put(leadingByte, pubkeyHash);
-
-                LOGGER.trace(() -> String.format("Rebuilt hash %s for timestamp %d and leading byte %02x using %d public keys",
-                        HashCode.fromBytes(pubkeyHash),
-                        timestamp,
-                        leadingByte,
-                        currentOnlineAccounts.get(timestamp).stream()
-                                .map(OnlineAccountData::getPublicKey)
-                                .filter(publicKey -> leadingByte == publicKey[0])
-                                .count()
-                ));
-            }
-        }
-
         LOGGER.trace(String.format("we have online accounts for timestamps: %s", String.join(", ", this.currentOnlineAccounts.keySet().stream().map(l -> Long.toString(l)).collect(Collectors.joining(", ")))));
 
         return true;
@@ -439,12 +505,17 @@ public class OnlineAccountsManager {
         Set<OnlineAccountData> onlineAccounts = this.currentOnlineAccounts.computeIfAbsent(onlineAccountTimestamp, k -> ConcurrentHashMap.newKeySet());
 
         boolean isSuperiorEntry = isOnlineAccountsDataSuperior(onlineAccountData);
+        boolean isReplacement = false;
         if (isSuperiorEntry)
             // Remove existing inferior entry so it can be re-added below (it's likely the existing copy is missing a nonce value)
-            onlineAccounts.removeIf(a -> Objects.equals(a.getPublicKey(), onlineAccountData.getPublicKey()));
+            isReplacement = onlineAccounts.removeIf(a -> Objects.equals(a.getPublicKey(), onlineAccountData.getPublicKey()));
 
         boolean isNewEntry = onlineAccounts.add(onlineAccountData);
 
+        // Replacement entry has same public key, so hashes are unchanged
+        if (isNewEntry && !isReplacement)
+            this.addToHashes(onlineAccountTimestamp, rewardSharePublicKey);
+
         if (isNewEntry)
             LOGGER.trace(() -> String.format("Added online account %s with timestamp %d", Base58.encode(rewardSharePublicKey), onlineAccountTimestamp));
         else
@@ -453,6 +524,33 @@ public class OnlineAccountsManager {
         return isNewEntry;
     }
 
+    /**
+     * Folds public key into hashes for its leading byte and its two-byte prefix.
+     * <p>
+     * As XOR is its own inverse, hashes can be updated per account instead of being rebuilt from all online accounts.
+     * Hashes are replaced rather than modified in place, as they might be being serialized into outgoing messages.
+     */
+    private void addToHashes(long timestamp, byte[] publicKey) {
+        byte[] pubkeyHash = this.currentOnlineAccountsHashes.computeIfAbsent(timestamp, k -> new ConcurrentHashMap<>())
+                .compute(publicKey[0], (leadingByte, hash) -> xorByteArrayInPlace(hash != null ? hash.clone() : null, publicKey));
+
+        this.currentOnlineAccountsPrefixHashes.computeIfAbsent(timestamp, k -> new ConcurrentHashMap<>())
+                .compute(GetOnlineAccountsV4Message.getPrefix(publicKey),
+                        (prefix, hash) -> xorByteArrayInPlace(hash != null ? hash.clone() : null, publicKey, 2));
+
+        LOGGER.trace(() -> String.format("Updated hash %s for timestamp %d and leading byte %02x",
+                HashCode.fromBytes(pubkeyHash),
+                timestamp,
+                publicKey[0]
+        ));
+    }
+
+    private void clearAccounts() {
+        this.currentOnlineAccounts.clear();
+        this.currentOnlineAccountsHashes.clear();
+        this.currentOnlineAccountsPrefixHashes.clear();
+    }
+
     /**
      * Expire old entries.
      */
@@ -464,6 +562,7 @@ public class OnlineAccountsManager {
         final long cutoffThreshold = now - MAX_CACHED_TIMESTAMP_SETS * getOnlineTimestampModulus();
         this.currentOnlineAccounts.keySet().removeIf(timestamp -> timestamp < cutoffThreshold);
         this.currentOnlineAccountsHashes.keySet().removeIf(timestamp -> timestamp < cutoffThreshold);
+        this.currentOnlineAccountsPrefixHashes.keySet().removeIf(timestamp -> timestamp < cutoffThreshold);
     }
 
     /**
@@ -634,7 +733,9 @@ public class OnlineAccountsManager {
             if (!hasInfoChanged)
                 return false;
 
-            Network.getInstance().broadcast(peer -> new OnlineAccountsV3Message(ourOnlineAccounts));
+            // Serialized once, with framed payload shared by all peers
+            Message messageV3 = new OnlineAccountsV3Message(ourOnlineAccounts);
+            Network.getInstance().broadcast(peer -> messageV3);
 
             LOGGER.debug("Broadcasted {} online account{} with timestamp {}", ourOnlineAccounts.size(), (ourOnlineAccounts.size() != 1 ? "s" : ""), onlineAccountsTimestamp);
 
@@ -696,10 +797,88 @@ public class OnlineAccountsManager {
             return false;
         }
 
-        // Verify the nonce
+        // Verify the nonce, using thread's reusable work buffer (if any) when not passed one
+        if (workBuffer == null)
+            return MemoryPoW.verify2(mempowBytes, getPoWBufferSize(), getPoWDifficulty(onlineAccountData.getTimestamp()), nonce);
+
         return MemoryPoW.verify2(mempowBytes, workBuffer, getPoWBufferSize(), getPoWDifficulty(onlineAccountData.getTimestamp()), nonce);
     }
 
+    /**
+     * Verifies MemoryPoW nonces of all passed online accounts, in parallel, stopping early on first invalid nonce.
+     * <p>
+     * Each worker reuses its own work buffer, rather than allocating one per verification.
+     *
+     * @return true if all nonces are valid, false if any nonce is invalid or verification was interrupted
+     */
+    public boolean verifyMemoryPoWs(Collection<OnlineAccountData> onlineAccounts) {
+        List<OnlineAccountData> accountsToVerify = new ArrayList<>(onlineAccounts);
+
+        AtomicBoolean allValid = new AtomicBoolean(true);
+
+        boolean isComplete = this.forEachInParallel(accountsToVerify.size(),
+                index -> {
+                    if (!this.verifyMemoryPoW(accountsToVerify.get(index), null))
+                        allValid.set(false);
+                },
+                allValid::get);
+
+        // Unfinished verification can't count as valid
+        return isComplete && allValid.get();
+    }
+
+    /**
+     * Calls <tt>task</tt> with each index from 0 to <tt>count - 1</tt>, spread across PoW verification workers,
+     * while <tt>keepGoing</tt> returns true.
+     * <p>
+     * Each worker reuses its own MemoryPoW work buffer, rather than allocating one per verification.
+     *
+     * @return true if all workers finished, or false if interrupted or workers unavailable, in which case
+     * some tasks may not have been called, or may still be running
+     */
+    private boolean forEachInParallel(int count, IntConsumer task, BooleanSupplier keepGoing) {
+        AtomicInteger nextIndex = new AtomicInteger(0);
+
+        Runnable drain = () -> {
+            int index;
+            while (keepGoing.getAsBoolean() && (index = nextIndex.getAndIncrement()) < count)
+                task.accept(index);
+        };
+
+        // Not worth handing off a single task
+        if (count <= 1) {
+            drain.run();
+            return true;
+        }
+
+        Callable<Void> worker = () -> {
+            MemoryPoW.reuseWorkBuffers();
+            drain.run();
+            return null;
+        };
+
+        int workerCount = Math.min(count, POW_VERIFICATION_THREADS);
+
+        try {
+            for (Future<Void> future : this.powVerificationExecutor.invokeAll(Collections.nCopies(workerCount, worker)))
+                future.get();
+
+            return true;
+        } catch (InterruptedException e) {
+            // Probably shutting down
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (RejectedExecutionException e) {
+            // Probably shutting down
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new IllegalStateException("Unable to verify online accounts", e.getCause());
+        }
+    }
+
 
     /**
      * Returns whether online accounts manager has any online accounts with timestamp recent enough to be considered currently online.
@@ -807,7 +986,7 @@ public class OnlineAccountsManager {
     // Utils
 
     public void removeAllOnlineAccounts() {
-        this.currentOnlineAccounts.clear();
+        clearAccounts();
     }
 
 
@@ -819,6 +998,10 @@ public class OnlineAccountsManager {
         Map<Long, Map<Byte, byte[]>> peersHashes = getOnlineAccountsMessage.getHashesByTimestampThenByte();
         List<OnlineAccountData> outgoingOnlineAccounts = new ArrayList<>();
 
+        // If peer supports two-level reconciliation, we send our finer-grained hashes for mismatched leading bytes, instead of all accounts
+        boolean isTwoLevelPeer = peer.getPeersVersion() >= GetOnlineAccountsV4Message.MIN_PEER_VERSION;
+        Map<Long, Map<Short, byte[]>> outgoingPrefixHashes = new HashMap<>();
+
         // Warning: no double-checking/fetching - we must be ConcurrentMap compatible!
         // So no contains()-then-get() or multiple get()s on the same key/map.
         // We also use getOrDefault() with emptySet() on currentOnlineAccounts in case corresponding timestamp entry isn't there.
@@ -837,6 +1020,7 @@ public class OnlineAccountsManager {
             } else {
                 // Quick cache of which leading bytes to send so we only have to filter once
                 Set<Byte> outgoingLeadingBytes = new HashSet<>();
+                Set<Byte> twoLevelLeadingBytes = new HashSet<>();
 
                 // We have entries for this timestamp so compare against peer's entries
                 for (var ourInnerMapEntry : ourInnerMap.entrySet()) {
@@ -844,12 +1028,28 @@ public class OnlineAccountsManager {
                     byte[] peersHash = peersInnerMap.get(leadingByte);
 
                     if (!Arrays.equals(ourInnerMapEntry.getValue(), peersHash)) {
-                        // For this leading byte: hashes don't match or peer doesn't have entry
-                        // Send all online accounts for this timestamp and leading byte
-                        outgoingLeadingBytes.add(leadingByte);
+                        if (peersHash != null && isTwoLevelPeer) {
+                            // For this leading byte: hashes don't match, so narrow down using finer-grained hashes
+                            twoLevelLeadingBytes.add(leadingByte);
+                        } else {
+                            // For this leading byte: hashes don't match or peer doesn't have entry
+                            // Send all online accounts for this timestamp and leading byte
+                            outgoingLeadingBytes.add(leadingByte);
+                        }
                     }
                 }
 
+                if (!twoLevelLeadingBytes.isEmpty()) {
+                    Map<Short, byte[]> prefixHashes = new HashMap<>();
+
+                    this.currentOnlineAccountsPrefixHashes.getOrDefault(timestamp, Collections.emptyMap()).entrySet().stream()
+                            .filter(entry -> twoLevelLeadingBytes.contains(GetOnlineAccountsV4Message.getLeadingByte(entry.getKey())))
+                            .forEach(entry -> prefixHashes.put(entry.getKey(), entry.getValue()));
+
+                    if (!prefixHashes.isEmpty())
+                        outgoingPrefixHashes.put(timestamp, prefixHashes);
+                }
+
                 int beforeAddSize = outgoingOnlineAccounts.size();
 
                 this.currentOnlineAccounts.getOrDefault(timestamp, Collections.emptySet()).stream()
@@ -869,6 +1069,74 @@ public class OnlineAccountsManager {
         peer.sendMessage(new OnlineAccountsV3Message(outgoingOnlineAccounts));
 
         LOGGER.trace("Sent {} online accounts to {}", outgoingOnlineAccounts.size(), peer);
+
+        if (!outgoingPrefixHashes.isEmpty()) {
+            peer.sendMessage(new GetOnlineAccountsV4Message(outgoingPrefixHashes));
+
+            LOGGER.trace("Sent finer-grained online accounts hashes for {} timestamp{} to {}",
+                    outgoingPrefixHashes.size(), (outgoingPrefixHashes.size() != 1 ? "s" : ""), peer);
+        }
+    }
+
+    /**
+     * Sends online accounts with two-byte prefixes whose hashes differ from peer's,
+     * but only within leading-byte buckets that peer included in its request.
+     * <p>
+     * Peer typically sends this in response to our GET_ONLINE_ACCOUNTS_V3, for leading bytes where our hashes didn't match.
+     * Online accounts that peer has, but we don't, will reach us when peer requests our online accounts in turn.
+     */
+    public void onNetworkGetOnlineAccountsV4Message(Peer peer, Message message) {
+        GetOnlineAccountsV4Message getOnlineAccountsMessage = (GetOnlineAccountsV4Message) message;
+
+        Map<Long, Map<Short, byte[]>> peersHashes = getOnlineAccountsMessage.getHashesByTimestampThenPrefix();
+        List<OnlineAccountData> outgoingOnlineAccounts = new ArrayList<>();
+
+        for (var peersOuterMapEntry : peersHashes.entrySet()) {
+            Long timestamp = peersOuterMapEntry.getKey();
+
+            var peersInnerMap = peersOuterMapEntry.getValue();
+            var ourInnerMap = this.currentOnlineAccountsPrefixHashes.get(timestamp);
+
+            if (ourInnerMap == null)
+                continue;
+
+            Set<Byte> requestedLeadingBytes = peersInnerMap.keySet().stream()
+                    .map(GetOnlineAccountsV4Message::getLeadingByte)
+                    .collect(Collectors.toSet());
+
+            // Quick cache of which prefixes to send so we only have to filter once
+            Set<Short> outgoingPrefixes = new HashSet<>();
+
+            for (var ourInnerMapEntry : ourInnerMap.entrySet()) {
+                Short prefix = ourInnerMapEntry.getKey();
+
+                if (!requestedLeadingBytes.contains(GetOnlineAccountsV4Message.getLeadingByte(prefix)))
+                    continue;
+
+                if (!Arrays.equals(ourInnerMapEntry.getValue(), peersInnerMap.get(prefix)))
+                    // For this prefix: hashes don't match or peer doesn't have entry
+                    outgoingPrefixes.add(prefix);
+            }
+
+            if (outgoingPrefixes.isEmpty())
+                continue;
+
+            int beforeAddSize = outgoingOnlineAccounts.size();
+
+            this.currentOnlineAccounts.getOrDefault(timestamp, Collections.emptySet()).stream()
+                    .filter(account -> outgoingPrefixes.contains(GetOnlineAccountsV4Message.getPrefix(account.getPublicKey())))
+                    .forEach(outgoingOnlineAccounts::add);
+
+            LOGGER.trace("Going to send {} online accounts for timestamp {} and {} prefixes",
+                    outgoingOnlineAccounts.size() - beforeAddSize, timestamp, outgoingPrefixes.size());
+        }
+
+        if (outgoingOnlineAccounts.isEmpty())
+            return;
+
+        peer.sendMessage(new OnlineAccountsV3Message(outgoingOnlineAccounts));
+
+        LOGGER.trace("Sent {} online accounts to {}", outgoingOnlineAccounts.size(), peer);
     }
 
     public void onNetworkOnlineAccountsV3Message(Peer peer, Message message) {
@@ -25,13 +25,14 @@ import org.qortal.transaction.Transaction;
 import org.qortal.utils.Base58;
 import org.qortal.utils.ByteArray;
 import org.qortal.utils.NTP;
+import org.qortal.utils.NamedThreadFactory;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -84,6 +85,9 @@ public class Synchronizer extends Thread {
 
 	// Keep track of invalid blocks so that we don't keep trying to sync them
 	private Map<ByteArray, Long> invalidBlockSignatures = Collections.synchronizedMap(new HashMap<>());
+	/** Workers for fetching, and pre-validating, blocks ahead of the one being processed during sync, or null if prefetching is disabled */
+	private final ExecutorService blockPrefetchExecutor;
+
 	public Long timeValidBlockLastReceived = null;
 	public Long timeInvalidBlockLastReceived = null;
 
@@ -115,6 +119,11 @@ public class Synchronizer extends Thread {
 
 	private Synchronizer() {
 		this.running = true;
+
+		int prefetchThreads = Settings.getInstance().getSyncPrefetchBlockCount();
+		this.blockPrefetchExecutor = prefetchThreads > 0
+				? Executors.newFixedThreadPool(prefetchThreads, new NamedThreadFactory("Synchronizer block prefetch", Thread.NORM_PRIORITY))
+				: null;
 	}
 
 	public static Synchronizer getInstance() {
@@ -164,6 +173,8 @@ public class Synchronizer extends Thread {
 
 	public void shutdown() {
 		this.running = false;
+		if (this.blockPrefetchExecutor != null)
+			this.blockPrefetchExecutor.shutdownNow();
 		this.interrupt();
 	}
 
@@ -1503,85 +1514,109 @@ public class Synchronizer extends Thread {
 		// Convert any block summaries from above into signatures to request from peer
 		List<byte[]> peerBlockSignatures = peerBlockSummaries.stream().map(BlockSummaryData::getSignature).collect(Collectors.toList());
 
-		while (ourHeight < peerHeight && ourHeight < maxBatchHeight) {
-			if (Controller.isStopping())
-				return SynchronizationResult.SHUTTING_DOWN;
+		// Blocks being fetched, and pre-validated, ahead of the one being processed
+		final int prefetchBlockCount = this.blockPrefetchExecutor != null ? Settings.getInstance().getSyncPrefetchBlockCount() : 0;
+		Map<ByteArray, Future<PrefetchedBlock>> prefetchedBlocks = new HashMap<>();
 
-			// Do we need more signatures?
-			if (peerBlockSignatures.isEmpty()) {
-				int numberRequested = Math.min(maxBatchHeight - ourHeight, MAXIMUM_REQUEST_SIZE);
+		try {
+			while (ourHeight < peerHeight && ourHeight < maxBatchHeight) {
+				if (Controller.isStopping())
+					return SynchronizationResult.SHUTTING_DOWN;
 
-				LOGGER.trace(String.format("Requesting %d signature%s after height %d, sig %.8s",
-						numberRequested, (numberRequested != 1 ? "s": ""), ourHeight, Base58.encode(latestPeerSignature)));
+				// Do we need more signatures?
+				if (peerBlockSignatures.isEmpty()) {
+					int numberRequested = Math.min(maxBatchHeight - ourHeight, MAXIMUM_REQUEST_SIZE);
 
-				peerBlockSignatures = this.getBlockSignatures(peer, latestPeerSignature, numberRequested);
+					LOGGER.trace(String.format("Requesting %d signature%s after height %d, sig %.8s",
+							numberRequested, (numberRequested != 1 ? "s": ""), ourHeight, Base58.encode(latestPeerSignature)));
 
-				if (peerBlockSignatures == null || peerBlockSignatures.isEmpty()) {
-					LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
-							ourHeight, Base58.encode(latestPeerSignature)));
-					return SynchronizationResult.NO_REPLY;
+					peerBlockSignatures = this.getBlockSignatures(peer, latestPeerSignature, numberRequested);
+
+					if (peerBlockSignatures == null || peerBlockSignatures.isEmpty()) {
+						LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
+								ourHeight, Base58.encode(latestPeerSignature)));
+						return SynchronizationResult.NO_REPLY;
+					}
+
+					LOGGER.trace(String.format("Received %s signature%s", peerBlockSignatures.size(), (peerBlockSignatures.size() != 1 ? "s" : "")));
 				}
 
-				LOGGER.trace(String.format("Received %s signature%s", peerBlockSignatures.size(), (peerBlockSignatures.size() != 1 ? "s" : "")));
-			}
+				latestPeerSignature = peerBlockSignatures.get(0);
+				peerBlockSignatures.remove(0);
+				++ourHeight;
 
-			latestPeerSignature = peerBlockSignatures.get(0);
-			peerBlockSignatures.remove(0);
-			++ourHeight;
+				Future<PrefetchedBlock> prefetchedBlockFuture = prefetchedBlocks.remove(ByteArray.wrap(latestPeerSignature));
 
-			LOGGER.trace(String.format("Fetching block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
-			Block newBlock = this.fetchBlock(repository, peer, latestPeerSignature);
-			LOGGER.trace(String.format("Fetched block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
+				// Start fetching following blocks while we process this one
+				final int prefetchLimit = Math.min(Math.min(prefetchBlockCount, peerBlockSignatures.size()), maxBatchHeight - ourHeight);
+				for (int i = 0; i < prefetchLimit; ++i) {
+					byte[] prefetchSignature = peerBlockSignatures.get(i);
+					prefetchedBlocks.computeIfAbsent(ByteArray.wrap(prefetchSignature),
+							k -> this.blockPrefetchExecutor.submit(() -> this.fetchAndPreValidateBlock(repository, peer, prefetchSignature)));
+				}
 
-			if (newBlock == null) {
-				LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
-						ourHeight, Base58.encode(latestPeerSignature)));
-				return SynchronizationResult.NO_REPLY;
-			}
+				LOGGER.trace(String.format("Fetching block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
+				PrefetchedBlock prefetchedBlock = prefetchedBlockFuture != null
+						? getPrefetchedBlock(prefetchedBlockFuture)
+						: this.fetchAndPreValidateBlock(repository, peer, latestPeerSignature);
+				LOGGER.trace(String.format("Fetched block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
 
-			if (!newBlock.isSignatureValid()) {
-				LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
-						ourHeight, Base58.encode(latestPeerSignature)));
-				return SynchronizationResult.INVALID_DATA;
-			}
+				if (prefetchedBlock == null) {
+					LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
+							ourHeight, Base58.encode(latestPeerSignature)));
+					return SynchronizationResult.NO_REPLY;
+				}
 
-			// Transactions are transmitted without approval status so determine that now
-			for (Transaction transaction : newBlock.getTransactions())
-				transaction.setInitialApprovalStatus();
+				if (!prefetchedBlock.isSignatureValid) {
+					LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
+							ourHeight, Base58.encode(latestPeerSignature)));
+					return SynchronizationResult.INVALID_DATA;
+				}
 
-			newBlock.preProcess();
+				Block newBlock = prefetchedBlock.block;
 
-			ValidationResult blockResult = newBlock.isValid();
-			if (blockResult != ValidationResult.OK) {
-				LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
-						ourHeight, Base58.encode(latestPeerSignature), blockResult.name()));
-				this.addInvalidBlockSignature(newBlock.getSignature());
-				this.timeInvalidBlockLastReceived = NTP.getTime();
-				return SynchronizationResult.INVALID_DATA;
-			}
+				// Transactions are transmitted without approval status so determine that now
+				for (Transaction transaction : newBlock.getTransactions())
+					transaction.setInitialApprovalStatus();
 
-			// Block is valid
-			this.timeValidBlockLastReceived = NTP.getTime();
+				newBlock.preProcess();
 
-			// Save transactions attached to this block
-			for (Transaction transaction : newBlock.getTransactions()) {
-				TransactionData transactionData = transaction.getTransactionData();
-				repository.getTransactionRepository().save(transactionData);
-			}
+				ValidationResult blockResult = newBlock.isValid();
+				if (blockResult != ValidationResult.OK) {
+					LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
+							ourHeight, Base58.encode(latestPeerSignature), blockResult.name()));
+					this.addInvalidBlockSignature(newBlock.getSignature());
+					this.timeInvalidBlockLastReceived = NTP.getTime();
+					return SynchronizationResult.INVALID_DATA;
+				}
 
-			newBlock.process();
+				// Block is valid
+				this.timeValidBlockLastReceived = NTP.getTime();
 
-			LOGGER.trace(String.format("Processed block height %d, sig %.8s", newBlock.getBlockData().getHeight(), Base58.encode(newBlock.getBlockData().getSignature())));
+				// Save transactions attached to this block
+				for (Transaction transaction : newBlock.getTransactions()) {
+					TransactionData transactionData = transaction.getTransactionData();
+					repository.getTransactionRepository().save(transactionData);
+				}
 
-			repository.saveChanges();
+				newBlock.process();
 
-			synchronized (this.syncLock) {
-				if (peer.getChainTipData() != null) {
-					this.blocksRemaining = peer.getChainTipData().getHeight() - newBlock.getBlockData().getHeight();
+				LOGGER.trace(String.format("Processed block height %d, sig %.8s", newBlock.getBlockData().getHeight(), Base58.encode(newBlock.getBlockData().getSignature())));
+
+				repository.saveChanges();
+
+				synchronized (this.syncLock) {
+					if (peer.getChainTipData() != null) {
+						this.blocksRemaining = peer.getChainTipData().getHeight() - newBlock.getBlockData().getHeight();
+					}
 				}
-			}
 
-			Controller.getInstance().onNewBlock(newBlock.getBlockData());
+				Controller.getInstance().onNewBlock(newBlock.getBlockData());
+			}
+		} finally {
+			// Abandon any blocks still being fetched, e.g. if sync failed part way through
+			for (Future<PrefetchedBlock> prefetchedBlockFuture : prefetchedBlocks.values())
+				prefetchedBlockFuture.cancel(true);
 		}
 
 		return SynchronizationResult.OK;
@@ -1618,6 +1653,50 @@ public class Synchronizer extends Thread {
 		return signaturesMessage.getSignatures();
 	}
 
+	/** Block received from peer, along with results of checks that don't depend on chain state. */
+	private static class PrefetchedBlock {
+		private final Block block;
+		private final boolean isSignatureValid;
+
+		private PrefetchedBlock(Block block, boolean isSignatureValid) {
+			this.block = block;
+			this.isSignatureValid = isSignatureValid;
+		}
+	}
+
+	/**
+	 * Fetches block from peer, then performs checks that don't depend on chain state.
+	 * <p>
+	 * Safe to call from a worker thread, as <tt>repository</tt> is only stored by the new block, not used.
+	 *
+	 * @return prefetched block, or null if peer didn't supply it
+	 */
+	private PrefetchedBlock fetchAndPreValidateBlock(Repository repository, Peer peer, byte[] signature) throws InterruptedException {
+		Block block = this.fetchBlock(repository, peer, signature);
+		if (block == null)
+			return null;
+
+		// Minter's signature, and signature covering block's transactions
+		boolean isSignatureValid = block.isSignatureValid();
+
+		// Expensive online accounts nonce checks, remembered by block for later validation
+		if (isSignatureValid)
+			block.preVerifyOnlineAccountNonces();
+
+		return new PrefetchedBlock(block, isSignatureValid);
+	}
+
+	private static PrefetchedBlock getPrefetchedBlock(Future<PrefetchedBlock> prefetchedBlockFuture) throws InterruptedException {
+		try {
+			return prefetchedBlockFuture.get();
+		} catch (ExecutionException e) {
+			LOGGER.debug("Unable to prefetch block: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+			return null;
+		} catch (CancellationException e) {
+			return null;
+		}
+	}
+
 	private Block fetchBlock(Repository repository, Peer peer, byte[] signature) throws InterruptedException {
 		Message getBlockMessage = new GetBlockMessage(signature);
 
@@ -3,6 +3,7 @@ package org.qortal.controller;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.controller.arbitrary.PeerMessage;
+import org.qortal.crypto.MemoryPoW;
 import org.qortal.data.block.BlockData;
 import org.qortal.data.transaction.TransactionData;
 import org.qortal.network.Network;
@@ -19,11 +20,18 @@ import org.qortal.transaction.Transaction;
 import org.qortal.transform.TransformationException;
 import org.qortal.utils.Base58;
 import org.qortal.utils.NTP;
+import org.qortal.utils.NamedThreadFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -37,6 +45,8 @@ public class TransactionImporter extends Thread {
 
     private static final int MAX_INCOMING_TRANSACTIONS = 5000;
 
+    private static final int SIGNATURE_VERIFICATION_THREADS = Math.max(1, Settings.getInstance().getTransactionSignatureVerificationThreads());
+
     /** Minimum time before considering an invalid unconfirmed transaction as "stale" */
     public static final long INVALID_TRANSACTION_STALE_TIMEOUT = 30 * 60 * 1000L; // ms
     /** Minimum frequency to re-request stale unconfirmed transactions from peers, to recheck validity */
@@ -52,8 +62,9 @@ public class TransactionImporter extends Thread {
     /** Map of recent invalid unconfirmed transactions. Key is base58 transaction signature, value is do-not-request expiry timestamp. */
     private final Map<String, Long> invalidUnconfirmedTransactions = Collections.synchronizedMap(new HashMap<>());
 
-    /** Cached list of unconfirmed transactions, used when counting per creator. This is replaced regularly */
-    public static List<TransactionData> unconfirmedTransactionsCache = null;
+    /** Workers for verifying signatures of incoming transactions */
+    private final ExecutorService signatureVerificationExecutor = Executors.newFixedThreadPool(SIGNATURE_VERIFICATION_THREADS,
+            new NamedThreadFactory("Transaction Signature Verifier", Thread.NORM_PRIORITY));
 
     public TransactionImporter() {
         signatureMessageScheduler.scheduleAtFixedRate(this::processNetworkTransactionSignaturesMessage, 60, 1, TimeUnit.SECONDS);
@@ -91,6 +102,7 @@ public class TransactionImporter extends Thread {
 
     public void shutdown() {
         isStopping = true;
+        this.signatureVerificationExecutor.shutdownNow();
         this.interrupt();
     }
 
@@ -124,6 +136,8 @@ public class TransactionImporter extends Thread {
      * Validate the signatures of any transactions pending import, then update their
      * entries in the queue to mark them as valid/invalid.
      *
+     * Signatures (and any PoW nonces) are verified in parallel, by a pool of worker threads.
+     *
      * No database lock is required.
      */
     private void validateTransactionsInQueue() {
@@ -144,17 +158,16 @@ public class TransactionImporter extends Thread {
             }
 
             // A list of all currently pending transactions that have valid signatures
-            List<Transaction> sigValidTransactions = new ArrayList<>();
+            List<TransactionData> sigValidTransactions = new ArrayList<>();
 
-            // A list of signatures that became valid in this round
-            List<byte[]> newlyValidSignatures = new ArrayList<>();
+            // A list of transactions that still need their signatures validating
+            List<TransactionData> unvalidatedTransactions = new ArrayList<>();
 
             boolean isLiteNode = Settings.getInstance().isLite();
 
             // We need the latest block in order to check for expired transactions
             BlockData latestBlock = Controller.getInstance().getChainTip();
 
-            // Signature validation round - does not require blockchain lock
             for (Map.Entry<TransactionData, Boolean> transactionEntry : incomingTransactionsCopy.entrySet()) {
                 // Quick exit?
                 if (isStopping) {
@@ -183,45 +196,58 @@ public class TransactionImporter extends Thread {
                 if (!Boolean.TRUE.equals(isSigValid)) {
                     if (isLiteNode) {
                         // Lite nodes can't easily validate transactions, so for now we will have to assume that everything is valid
-                        sigValidTransactions.add(transaction);
-                        newlyValidSignatures.add(transactionData.getSignature());
+                        sigValidTransactions.add(transactionData);
                         // Add mark signature as valid if transaction still exists in import queue
                         incomingTransactions.computeIfPresent(transactionData, (k, v) -> Boolean.TRUE);
                         continue;
                     }
 
-                    if (!transaction.isSignatureValid()) {
-                        LOGGER.debug("Ignoring {} transaction {} with invalid signature", transactionData.getType().name(), signature58);
-                        removeIncomingTransaction(transactionData.getSignature());
-
-                        // Also add to invalidIncomingTransactions map
-                        now = NTP.getTime();
-                        if (now != null) {
-                            Long expiry = now + INVALID_TRANSACTION_RECHECK_INTERVAL;
-                            LOGGER.trace("Adding invalid transaction {} to invalidUnconfirmedTransactions...", signature58);
-                            // Add to invalidUnconfirmedTransactions so that we don't keep requesting it
-                            invalidUnconfirmedTransactions.put(signature58, expiry);
-                        }
+                    unvalidatedTransactions.add(transactionData);
+                    continue;
+                }
 
-                        // We're done with this transaction
-                        continue;
-                    }
+                LOGGER.trace(() -> String.format("Transaction %s known to have valid signature", Base58.encode(transactionData.getSignature())));
 
-                    // Count the number that were validated in this round, for logging purposes
-                    validatedCount++;
+                // Signature valid - add to shortlist
+                sigValidTransactions.add(transactionData);
+            }
+
+            // Signature validation round - does not require blockchain lock
+            boolean[] isSignatureValid = this.verifySignatures(unvalidatedTransactions);
+            if (isSignatureValid == null) {
+                // Stopping
+                return;
+            }
+
+            for (int i = 0; i < unvalidatedTransactions.size(); ++i) {
+                TransactionData transactionData = unvalidatedTransactions.get(i);
 
-                    // Add mark signature as valid if transaction still exists in import queue
-                    incomingTransactions.computeIfPresent(transactionData, (k, v) -> Boolean.TRUE);
+                if (!isSignatureValid[i]) {
+                    String signature58 = Base58.encode(transactionData.getSignature());
+                    LOGGER.debug("Ignoring {} transaction {} with invalid signature", transactionData.getType().name(), signature58);
+                    removeIncomingTransaction(transactionData.getSignature());
 
-                    // Signature validated in this round
-                    newlyValidSignatures.add(transactionData.getSignature());
+                    // Also add to invalidIncomingTransactions map
+                    Long now = NTP.getTime();
+                    if (now != null) {
+                        Long expiry = now + INVALID_TRANSACTION_RECHECK_INTERVAL;
+                        LOGGER.trace("Adding invalid transaction {} to invalidUnconfirmedTransactions...", signature58);
+                        // Add to invalidUnconfirmedTransactions so that we don't keep requesting it
+                        invalidUnconfirmedTransactions.put(signature58, expiry);
+                    }
 
-                } else {
-                    LOGGER.trace(() -> String.format("Transaction %s known to have valid signature", Base58.encode(transactionData.getSignature())));
+                    // We're done with this transaction
+                    continue;
                 }
 
+                // Count the number that were validated in this round, for logging purposes
+                validatedCount++;
+
+                // Add mark signature as valid if transaction still exists in import queue
+                incomingTransactions.computeIfPresent(transactionData, (k, v) -> Boolean.TRUE);
+
                 // Signature valid - add to shortlist
-                sigValidTransactions.add(transaction);
+                sigValidTransactions.add(transactionData);
             }
 
             if (unvalidatedCount > 0) {
@@ -233,6 +259,65 @@ public class TransactionImporter extends Thread {
         }
     }
 
+    /**
+     * Verify signatures (and PoW nonces, where applicable) of transactions, using worker pool.
+     * <p>
+     * Each worker uses its own repository session, as some nonce difficulties depend on account state,
+     * and takes the next unverified transaction from the shared list until none remain.
+     *
+     * @return array of results, matching order of <tt>transactions</tt>, or null if stopping
+     */
+    private boolean[] verifySignatures(List<TransactionData> transactions) throws DataException {
+        boolean[] isSignatureValid = new boolean[transactions.size()];
+        if (transactions.isEmpty()) {
+            return isSignatureValid;
+        }
+
+        AtomicInteger nextIndex = new AtomicInteger(0);
+
+        Callable<Void> worker = () -> {
+            MemoryPoW.reuseWorkBuffers();
+
+            try (final Repository repository = RepositoryManager.getRepository()) {
+                int index;
+                while (!isStopping && (index = nextIndex.getAndIncrement()) < transactions.size()) {
+                    TransactionData transactionData = transactions.get(index);
+
+                    try {
+                        isSignatureValid[index] = Transaction.fromData(repository, transactionData).isSignatureValid();
+                    } catch (RuntimeException e) {
+                        LOGGER.debug("Unable to verify signature of {} transaction {}: {}", transactionData.getType().name(),
+                                Base58.encode(transactionData.getSignature()), e.getMessage());
+                        isSignatureValid[index] = false;
+                    }
+                }
+            }
+
+            return null;
+        };
+
+        int workerCount = Math.min(transactions.size(), SIGNATURE_VERIFICATION_THREADS);
+
+        try {
+            for (Future<Void> future : this.signatureVerificationExecutor.invokeAll(Collections.nCopies(workerCount, worker))) {
+                future.get();
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataException)
+                throw (DataException) e.getCause();
+
+            throw new DataException("Unable to verify transaction signatures", e.getCause());
+        }
+
+        if (isStopping) {
+            return null;
+        }
+
+        return isSignatureValid;
+    }
+
     /**
      * Import any transactions in the queue that have valid signatures.
      *
@@ -261,12 +346,6 @@ public class TransactionImporter extends Thread {
         int processedCount = 0;
         try (final Repository repository = RepositoryManager.getRepository()) {
 
-            // Use a single copy of the unconfirmed transactions list for each cycle, to speed up constant lookups
-            // when counting unconfirmed transactions by creator.
-            List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
-            unconfirmedTransactions.removeIf(t -> t.getType() == Transaction.TransactionType.CHAT);
-            unconfirmedTransactionsCache = unconfirmedTransactions;
-
             // A list of signatures were imported in this round
             List<byte[]> newlyImportedSignatures = new ArrayList<>();
 
@@ -303,11 +382,6 @@ public class TransactionImporter extends Thread {
                         case OK: {
                             LOGGER.debug(() -> String.format("Imported %s transaction %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature())));
 
-                            // Add to the unconfirmed transactions cache
-                            if (transactionData.getType() != Transaction.TransactionType.CHAT && unconfirmedTransactionsCache != null) {
-                                unconfirmedTransactionsCache.add(transactionData);
-                            }
-
                             // Signature imported in this round
                             newlyImportedSignatures.add(transactionData.getSignature());
 
@@ -348,9 +422,6 @@ public class TransactionImporter extends Thread {
             } finally {
                 LOGGER.debug("Finished importing {} incoming transaction{}", processedCount, (processedCount == 1 ? "" : "s"));
                 blockchainLock.unlock();
-
-                // Clear the unconfirmed transaction cache so new data can be populated in the next cycle
-                unconfirmedTransactionsCache = null;
             }
         } catch (DataException e) {
             LOGGER.error("Repository issue while importing incoming transactions", e);
@@ -439,13 +510,13 @@ public class TransactionImporter extends Thread {
                 transactionsToSendBySignature58.put(entry.getKey(), transactionsCachedBySignature58.get(entry.getKey()));
             }
 
+            // Already-serialized transactions, found in the confirmed transactions cache or database
+            Map<String, byte[]> transactionBytesToSendBySignature58 = new HashMap<>(signaturesNeeded.size());
             if( !signaturesNeeded.isEmpty() ) {
-                // Not found in import queue, so try the database
+                // Not found in import queue, so try the cache, then the database
                 try (final Repository repository = RepositoryManager.getRepository()) {
-                    transactionsToSendBySignature58.putAll(
-                            repository.getTransactionRepository().fromSignatures(signaturesNeeded).stream()
-                                    .collect(Collectors.toMap(transactionData -> Base58.encode(transactionData.getSignature()), Function.identity()))
-                    );
+                    Controller.getInstance().getConfirmedTransactionCache().getTransactionBytes(repository, signaturesNeeded)
+                            .forEach((signature, transactionBytes) -> transactionBytesToSendBySignature58.put(Base58.encode(signature.value), transactionBytes));
                 } catch (DataException e) {
                     LOGGER.error(e.getMessage(), e);
                 }
@@ -461,6 +532,17 @@ public class TransactionImporter extends Thread {
                 Thread sendTransactionMessageThread = new Thread(sendTransactionMessageRunner);
                 sendTransactionMessageThread.start();
             }
+
+            for( final Map.Entry<String, byte[]> entry : transactionBytesToSendBySignature58.entrySet() ) {
+
+                PeerMessage peerMessage = peerMessageBySignature58.get(entry.getKey());
+                final Message message = peerMessage.getMessage();
+                final Peer peer = peerMessage.getPeer();
+
+                Runnable sendTransactionMessageRunner = () -> sendTransactionMessage(new TransactionMessage(entry.getValue()), message, peer);
+                Thread sendTransactionMessageThread = new Thread(sendTransactionMessageRunner);
+                sendTransactionMessageThread.start();
+            }
         } catch (Exception e) {
             LOGGER.error(e.getMessage(),e);
         }
@@ -468,15 +550,20 @@ public class TransactionImporter extends Thread {
 
     private static void sendTransactionMessage(String signature58, TransactionData data, Message message, Peer peer) {
         try {
-            Message transactionMessage = new TransactionMessage(data);
+            sendTransactionMessage(new TransactionMessage(data), message, peer);
+        }
+        catch (TransformationException e) {
+            LOGGER.error(String.format("Serialization issue while sending transaction %s to peer %s", signature58, peer), e);
+        }
+    }
+
+    private static void sendTransactionMessage(Message transactionMessage, Message message, Peer peer) {
+        try {
             transactionMessage.setId(message.getId());
 
             if (!peer.sendMessage(transactionMessage))
                 peer.disconnect("failed to send transaction");
         }
-        catch (TransformationException e) {
-            LOGGER.error(String.format("Serialization issue while sending transaction %s to peer %s", signature58, peer), e);
-        }
         catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
@@ -11,6 +11,7 @@ import org.qortal.data.arbitrary.ArbitraryFileListResponseInfo;
 import org.qortal.data.arbitrary.ArbitraryRelayInfo;
 import org.qortal.data.network.PeerData;
 import org.qortal.data.transaction.ArbitraryTransactionData;
+import org.qortal.network.BandwidthManager;
 import org.qortal.network.Network;
 import org.qortal.network.Peer;
 import org.qortal.network.PeerSendManagement;
@@ -37,6 +38,8 @@ import org.qortal.crypto.Crypto;
 public class ArbitraryDataFileManager extends Thread {
 
     public static final int SEND_TIMEOUT_MS = 500;
+    /** Maximum time to wait for QDN download bandwidth budget before giving up on a request, so it can be retried later */
+    private static final long MAX_DOWNLOAD_BANDWIDTH_WAIT_MS = 5000L;
     private static final Logger LOGGER = LogManager.getLogger(ArbitraryDataFileManager.class);
 
     private static ArbitraryDataFileManager instance;
@@ -126,65 +129,6 @@ public class ArbitraryDataFileManager extends Thread {
 
 
 
-    // Fetch data files by hash
-
-    public boolean fetchArbitraryDataFiles(Peer peer,
-                                           byte[] signature,
-                                           ArbitraryTransactionData arbitraryTransactionData,
-                                           List<byte[]> hashes, ArbitraryFileListResponseInfo responseInfo) throws DataException {
-
-        // Load data file(s)
-        ArbitraryDataFile arbitraryDataFile = ArbitraryDataFile.fromTransactionData(arbitraryTransactionData);
-        boolean receivedAtLeastOneFile = false;
-
-        // Now fetch actual data from this peer
-        for (byte[] hash : hashes) {
-            if (isStopping) {
-                return false;
-            }
-            String hash58 = Base58.encode(hash);
-            if (!arbitraryDataFile.chunkExists(hash)) {
-                // Only request the file if we aren't already requesting it from someone else
-                if (!arbitraryDataFileRequests.containsKey(Base58.encode(hash))) {
-                    LOGGER.debug("Requesting data file {} from peer {}", hash58, peer);
-                    Long startTime = NTP.getTime();
-                    ArbitraryDataFile receivedArbitraryDataFile = fetchArbitraryDataFile(peer, arbitraryTransactionData, signature, hash);
-                    Long endTime = NTP.getTime();
-                    if (receivedArbitraryDataFile != null) {
-                        LOGGER.debug("Received data file {} from peer {}. Time taken: {} ms", receivedArbitraryDataFile.getHash58(), peer, (endTime-startTime));
-                        receivedAtLeastOneFile = true;
-                    }
-                    else {
-                        LOGGER.debug("Peer {} didn't respond with data file {} for signature {}. Time taken: {} ms", peer, Base58.encode(hash), Base58.encode(signature), (endTime-startTime));
-
-                        // Stop asking for files from this peer
-                        break;
-                    }
-                }
-                else {
-                    LOGGER.trace("Already requesting data file {} for signature {} from peer {}", arbitraryDataFile, Base58.encode(signature), peer);
-                    this.addResponse(responseInfo);
-
-                }
-            }
-        }
-
-        if (receivedAtLeastOneFile) {
-            // Invalidate the hosted transactions cache as we are now hosting something new
-            ArbitraryDataStorageManager.getInstance().invalidateHostedTransactionsCache();
-
-            // Check if we have all the files we need for this transaction
-            if (arbitraryDataFile.allFilesExist()) {
-
-                // We have all the chunks for this transaction, so we should invalidate the transaction's name's
-                // data cache so that it is rebuilt the next time we serve it
-                ArbitraryDataManager.getInstance().invalidateCache(arbitraryTransactionData);
-            }
-        }
-
-        return receivedAtLeastOneFile;
-    }
-
     // Lock to synchronize access to the list
     private final Object arbitraryDataFileHashResponseLock = new Object();
 
@@ -217,7 +161,7 @@ public class ArbitraryDataFileManager extends Thread {
         }
     }
 
-    private ArbitraryDataFile fetchArbitraryDataFile(Peer peer, ArbitraryTransactionData arbitraryTransactionData, byte[] signature, byte[] hash) throws DataException {
+    ArbitraryDataFile fetchArbitraryDataFile(Peer peer, ArbitraryTransactionData arbitraryTransactionData, byte[] signature, byte[] hash) throws DataException {
         ArbitraryDataFile arbitraryDataFile;
 
         try {
@@ -227,6 +171,11 @@ public class ArbitraryDataFileManager extends Thread {
 
             // Fetch the file if it doesn't exist locally
             if (!fileAlreadyExists) {
+                if (!BandwidthManager.getInstance().awaitDownload(peer, MAX_DOWNLOAD_BANDWIDTH_WAIT_MS)) {
+                    LOGGER.debug(String.format("Over download bandwidth budget, not fetching data file %.8s from peer %s", hash58, peer));
+                    return null;
+                }
+
                 LOGGER.debug(String.format("Fetching data file %.8s from peer %s", hash58, peer));
                 arbitraryDataFileRequests.put(hash58, NTP.getTime());
                 Message getArbitraryDataFileMessage = new GetArbitraryDataFileMessage(signature, hash);
@@ -257,6 +206,8 @@ public class ArbitraryDataFileManager extends Thread {
                     return null;
                 }
 
+                BandwidthManager.getInstance().recordDownload(peer, fileBytes.length);
+
                 byte[] actualHash = Crypto.digest(fileBytes);
                 if (!Arrays.equals(hash, actualHash)) {
                     LOGGER.debug(String.format("Hash mismatch for chunk: expected %s but got %s",
@@ -296,6 +247,11 @@ public class ArbitraryDataFileManager extends Thread {
         try {
             String hash58 = Base58.encode(hash);
 
+            if (!BandwidthManager.getInstance().awaitDownload(peer, MAX_DOWNLOAD_BANDWIDTH_WAIT_MS)) {
+                LOGGER.debug(String.format("Over download bandwidth budget, not relaying data file %.8s from peer %s", hash58, peer));
+                return;
+            }
+
             LOGGER.debug(String.format("Fetching data file %.8s from peer %s", hash58, peer));
             arbitraryDataFileRequests.put(hash58, NTP.getTime());
             Message getArbitraryDataFileMessage = new GetArbitraryDataFileMessage(signature, hash);
@@ -322,6 +278,9 @@ public class ArbitraryDataFileManager extends Thread {
             ArbitraryDataFile arbitraryDataFile = peersArbitraryDataFileMessage.getArbitraryDataFile();
 
             if (arbitraryDataFile != null) {
+                byte[] fileBytes = arbitraryDataFile.getBytes();
+                if (fileBytes != null)
+                    BandwidthManager.getInstance().recordDownload(peer, fileBytes.length);
 
                 // We might want to forward the request to the peer that originally requested it
                 this.handleArbitraryDataFileForwarding(requestingPeer, new ArbitraryDataFileMessage(signature, arbitraryDataFile), originalMessage);
@@ -589,6 +548,46 @@ public class ArbitraryDataFileManager extends Thread {
         return null;
     }
 
+    /**
+     * Returns connected peers known to hold each of the given hashes, for a single signature.
+     * Peers are taken from the relay map, as well as direct connection info for peers we are connected to.
+     */
+    Map<String, Set<Peer>> getPeersForHashes(byte[] signature, Collection<String> hash58s) {
+        Map<String, Set<Peer>> peersByHash58 = new HashMap<>();
+
+        synchronized (arbitraryRelayMap) {
+            for (ArbitraryRelayInfo relayInfo : arbitraryRelayMap) {
+                if (hash58s.contains(relayInfo.getHash58()))
+                    peersByHash58.computeIfAbsent(relayInfo.getHash58(), k -> new LinkedHashSet<>()).add(relayInfo.getPeer());
+            }
+        }
+
+        List<ArbitraryDirectConnectionInfo> connectionInfoList = getDirectConnectionInfoForSignature(signature);
+        if (connectionInfoList.isEmpty()) {
+            return peersByHash58;
+        }
+
+        Map<String, Peer> handshakedPeerByAddress = new HashMap<>();
+        for (Peer peer : Network.getInstance().getImmutableHandshakedPeers()) {
+            handshakedPeerByAddress.put(peer.toString(), peer);
+        }
+
+        for (ArbitraryDirectConnectionInfo connectionInfo : connectionInfoList) {
+            Peer peer = handshakedPeerByAddress.get(connectionInfo.getPeerAddress());
+            if (peer == null || connectionInfo.getHashes() == null) {
+                continue;
+            }
+
+            for (byte[] hash : connectionInfo.getHashes()) {
+                String hash58 = Base58.encode(hash);
+                if (hash58s.contains(hash58))
+                    peersByHash58.computeIfAbsent(hash58, k -> new LinkedHashSet<>()).add(peer);
+            }
+        }
+
+        return peersByHash58;
+    }
+
     public void addToRelayMap(ArbitraryRelayInfo newEntry) {
         if (newEntry == null || !newEntry.isValid()) {
             return;
@@ -2,6 +2,7 @@ package org.qortal.controller.arbitrary;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.qortal.arbitrary.ArbitraryDataFile;
 import org.qortal.controller.Controller;
 import org.qortal.data.arbitrary.ArbitraryFileListResponseInfo;
 import org.qortal.data.arbitrary.ArbitraryResourceData;
@@ -16,19 +17,22 @@ import org.qortal.utils.ArbitraryTransactionUtils;
 import org.qortal.utils.Base58;
 import org.qortal.utils.NTP;
 import org.qortal.utils.NamedThreadFactory;
+import org.qortal.utils.Pair;
 
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -42,10 +46,20 @@ public class ArbitraryDataFileRequestThread {
     private static final Integer FETCHER_LIMIT_PER_PEER = Settings.getInstance().getMaxThreadsForMessageType(MessageType.GET_ARBITRARY_DATA_FILE);
     private static final String FETCHER_THREAD_PREFIX = "Arbitrary Data Fetcher ";
 
+    private static final int MAX_OUTSTANDING_REQUESTS_PER_PEER = FETCHER_LIMIT_PER_PEER != null
+            ? Math.min(FETCHER_LIMIT_PER_PEER, Settings.getInstance().getMaxOutstandingDataFileRequestsPerPeer())
+            : Settings.getInstance().getMaxOutstandingDataFileRequestsPerPeer();
+
     private ConcurrentHashMap<String, ExecutorService> executorByPeer = new ConcurrentHashMap<>();
 
+    /**
+     * Downloads in progress, keyed by signature58
+     */
+    private final ConcurrentHashMap<String, ArbitraryDataSwarmDownload> downloadBySignature58 = new ConcurrentHashMap<>();
+
     private ArbitraryDataFileRequestThread() {
         cleanupExecutorByPeerScheduler.scheduleAtFixedRate(this::cleanupExecutorsByPeer, 1, 1, TimeUnit.MINUTES);
+        cleanupExecutorByPeerScheduler.scheduleAtFixedRate(this::dispatchDownloads, 1, 1, TimeUnit.SECONDS);
     }
 
     private static ArbitraryDataFileRequestThread instance = null;
@@ -105,14 +119,6 @@ public class ArbitraryDataFileRequestThread {
                 continue;
             }
 
-            // Skip if already requesting, but don't remove, as we might want to retry later
-            if (arbitraryDataFileManager.arbitraryDataFileRequests.containsKey(responseInfo.getHash58())) {
-                // Already requesting - leave this attempt for later
-                arbitraryDataFileManager.addResponse(responseInfo); // don't remove -> adding back, beacause it was removed already above
-                continue;
-            }
-
-
             byte[] hash = Base58.decode(responseInfo.getHash58());
             byte[] signature = Base58.decode(responseInfo.getSignature58());
 
@@ -122,6 +128,7 @@ public class ArbitraryDataFileRequestThread {
             }
 
             // We want to process this file, store and map data to process later
+            // (chunks already being requested are still recorded, so that this peer becomes another source)
             signatureBySignature58.put(responseInfo.getSignature58(), signature);
             responseInfoBySignature58
                     .computeIfAbsent(responseInfo.getSignature58(), signature58 -> new ArrayList<>())
@@ -141,50 +148,133 @@ public class ArbitraryDataFileRequestThread {
             LOGGER.warn("Unable to fetch transaction data: {}", e.getMessage());
         }
 
-        if( !arbitraryTransactionDataList.isEmpty() ) {
-            long start = System.currentTimeMillis();
-
-            for(ArbitraryTransactionData data : arbitraryTransactionDataList ) {
-                String signature58 = Base58.encode(data.getSignature());
-                for( ArbitraryFileListResponseInfo responseInfo : responseInfoBySignature58.get(signature58)) {
-                    Runnable fetcher = () -> arbitraryDataFileFetcher(arbitraryDataFileManager, responseInfo, data);
-                    this.executorByPeer
-                            .computeIfAbsent(
-                                responseInfo.getPeer().toString(),
-                                peer -> Executors.newFixedThreadPool(
-                                    FETCHER_LIMIT_PER_PEER,
-                                    new NamedThreadFactory(FETCHER_THREAD_PREFIX + responseInfo.getPeer().toString(), NORM_PRIORITY)
-                                )
+        for(ArbitraryTransactionData data : arbitraryTransactionDataList ) {
+            String signature58 = Base58.encode(data.getSignature());
+            List<ArbitraryFileListResponseInfo> signatureResponseInfos = responseInfoBySignature58.get(signature58);
+
+            ArbitraryDataSwarmDownload download
+                    = this.downloadBySignature58.computeIfAbsent(signature58, k -> new ArbitraryDataSwarmDownload(data, now));
+
+            Set<String> hash58s = new HashSet<>();
+            for( ArbitraryFileListResponseInfo responseInfo : signatureResponseInfos) {
+                download.addPeerForHash(responseInfo.getHash58(), responseInfo.getPeer(), now);
+                hash58s.add(responseInfo.getHash58());
+            }
+
+            // Any other peers known to hold these chunks can also be used
+            arbitraryDataFileManager.getPeersForHashes(data.getSignature(), hash58s)
+                    .forEach((hash58, peers) -> peers.forEach(peer -> download.addPeerForHash(hash58, peer, now)));
+
+            this.dispatch(download, arbitraryDataFileManager);
+        }
+    }
+
+    /**
+     * Sends as many requests for missing chunks as the per-peer window allows.
+     */
+    private void dispatch(ArbitraryDataSwarmDownload download, ArbitraryDataFileManager arbitraryDataFileManager) {
+        Pair<String, Peer> request;
+        while ((request = download.nextRequest(MAX_OUTSTANDING_REQUESTS_PER_PEER, arbitraryDataFileManager.arbitraryDataFileRequests::containsKey)) != null) {
+            String hash58 = request.getA();
+            Peer peer = request.getB();
+
+            try {
+                this.executorByPeer
+                        .computeIfAbsent(
+                            peer.toString(),
+                            key -> Executors.newFixedThreadPool(
+                                FETCHER_LIMIT_PER_PEER,
+                                new NamedThreadFactory(FETCHER_THREAD_PREFIX + key, NORM_PRIORITY)
                             )
-                            .execute(fetcher);
+                        )
+                        .execute(() -> arbitraryDataFileFetcher(arbitraryDataFileManager, download, hash58, peer));
+            } catch (RejectedExecutionException e) {
+                // Executor was shut down while idle, so try again on next dispatch
+                download.onRequestCancelled(hash58, peer);
+                return;
+            }
+        }
+    }
+
+    private void dispatchDownloads() {
+        try {
+            Long now = NTP.getTime();
+            if (now == null || Controller.isStopping()) {
+                return;
+            }
+
+            ArbitraryDataFileManager arbitraryDataFileManager = ArbitraryDataFileManager.getInstance();
+
+            for (ArbitraryDataSwarmDownload download : this.downloadBySignature58.values()) {
+                if (download.hasExpired(now, ArbitraryDataManager.ARBITRARY_RELAY_TIMEOUT)) {
+                    this.downloadBySignature58.remove(download.getSignature58(), download);
+                    LOGGER.debug("Download for signature {} expired: {}", download.getSignature58(), download.getThroughputSummary(now));
+                    continue;
                 }
+
+                this.dispatch(download, arbitraryDataFileManager);
             }
-            long timeLapse = System.currentTimeMillis() - start;
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
         }
     }
 
-    private void arbitraryDataFileFetcher(ArbitraryDataFileManager arbitraryDataFileManager, ArbitraryFileListResponseInfo responseInfo, ArbitraryTransactionData arbitraryTransactionData)  {
+    private void arbitraryDataFileFetcher(ArbitraryDataFileManager arbitraryDataFileManager, ArbitraryDataSwarmDownload download, String hash58, Peer peer) {
         try {
+            byte[] hash = Base58.decode(hash58);
+
+            long startTime = System.currentTimeMillis();
+            ArbitraryDataFile receivedArbitraryDataFile
+                    = arbitraryDataFileManager.fetchArbitraryDataFile(peer, download.getTransactionData(), download.getSignature(), hash);
+            long responseTime = System.currentTimeMillis() - startTime;
+
             Long now = NTP.getTime();
 
-            if (now - responseInfo.getTimestamp() >= ArbitraryDataManager.ARBITRARY_RELAY_TIMEOUT ) {
+            if (receivedArbitraryDataFile != null) {
+                LOGGER.debug("Received data file {} from peer {}. Time taken: {} ms", hash58, peer, responseTime);
+                download.onChunkReceived(hash58, peer, receivedArbitraryDataFile.size(), responseTime, now);
 
-                Peer peer = responseInfo.getPeer();
-                String hash58 = responseInfo.getHash58();
-                String signature58 = responseInfo.getSignature58();
-                LOGGER.debug("Peer {} version {} didn't fetch data file {} for signature {} due to relay timeout.", peer, peer.getPeersVersionString(), hash58, signature58);
+                // Invalidate the hosted transactions cache as we are now hosting something new
+                ArbitraryDataStorageManager.getInstance().invalidateHostedTransactionsCache();
+            }
+            else if (ArbitraryDataFile.fromHash(hash, download.getSignature()).exists()) {
+                // Fetched by other means in the meantime
+                download.onChunkPresent(hash58, peer);
+            }
+            else {
+                LOGGER.debug("Peer {} didn't respond with data file {} for signature {}. Time taken: {} ms", peer, hash58, download.getSignature58(), responseTime);
+                download.onChunkFailed(hash58, peer, now);
+            }
+
+            if (download.isIdle()) {
+                this.onDownloadIdle(download, now);
                 return;
             }
 
-            arbitraryDataFileManager.fetchArbitraryDataFiles(
-                responseInfo.getPeer(),
-                arbitraryTransactionData.getSignature(),
-                arbitraryTransactionData,
-                Arrays.asList(Base58.decode(responseInfo.getHash58())),
-                responseInfo
-            );
+            this.dispatch(download, arbitraryDataFileManager);
         } catch (DataException e) {
-            LOGGER.warn("Unable to process file hashes: {}", e.getMessage());
+            LOGGER.warn("Unable to fetch data file: {}", e.getMessage());
+            download.onRequestCancelled(hash58, peer);
+        }
+    }
+
+    private void onDownloadIdle(ArbitraryDataSwarmDownload download, Long now) throws DataException {
+        // Check if we have all the files we need for this transaction
+        ArbitraryDataFile arbitraryDataFile = ArbitraryDataFile.fromTransactionData(download.getTransactionData());
+        if (!arbitraryDataFile.allFilesExist()) {
+            // Wait for more peers to report chunks, until download expires
+            return;
         }
+
+        if (!this.downloadBySignature58.remove(download.getSignature58(), download)) {
+            // Already reported
+            return;
+        }
+
+        // We have all the chunks for this transaction, so we should invalidate the transaction's name's
+        // data cache so that it is rebuilt the next time we serve it
+        ArbitraryDataManager.getInstance().invalidateCache(download.getTransactionData());
+
+        LOGGER.debug("Fetched data files for signature {}: {}", download.getSignature58(), download.getThroughputSummary(now));
     }
-}
\ No newline at end of file
+}
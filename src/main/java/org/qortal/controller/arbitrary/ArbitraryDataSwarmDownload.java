@@ -0,0 +1,218 @@
+package org.qortal.controller.arbitrary;
+
+import org.qortal.data.transaction.ArbitraryTransactionData;
+import org.qortal.network.Peer;
+import org.qortal.utils.Base58;
+import org.qortal.utils.Pair;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Tracks the download of a single resource's data files (chunks) from all peers known to hold them.
+ * <p>
+ * Missing chunks are spread over those peers, keeping up to a window of requests outstanding with each.
+ * Each peer's average response time is measured, and new requests go to the peer expected to respond
+ * soonest given its current backlog, so load moves towards faster peers as the download progresses.
+ * Peers that repeatedly fail to supply chunks stop being asked for this resource.
+ */
+public class ArbitraryDataSwarmDownload {
+
+    /** Number of consecutive failed requests before a peer is no longer asked for chunks of this resource */
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    /** Weight given to the latest response time when updating a peer's average */
+    private static final double RESPONSE_TIME_WEIGHT = 0.3;
+
+    private static class PeerStats {
+        int outstandingRequests = 0;
+        int consecutiveFailures = 0;
+        int chunksReceived = 0;
+        long bytesReceived = 0;
+        /** Average response time in ms, or negative if not yet known */
+        double averageResponseTime = -1;
+    }
+
+    private final byte[] signature;
+    private final String signature58;
+    private final ArbitraryTransactionData transactionData;
+    private final long startTime;
+    private long lastActivity;
+
+    /** Chunks still needed, in the order they were first reported, with the peers known to hold them */
+    private final Map<String, Set<Peer>> peersByHash58 = new LinkedHashMap<>();
+    /** Chunks currently being requested, with the peer each was requested from */
+    private final Map<String, Peer> outstandingPeerByHash58 = new HashMap<>();
+    private final Map<Peer, PeerStats> statsByPeer = new HashMap<>();
+
+    private int chunksReceived = 0;
+    private long bytesReceived = 0;
+
+    public ArbitraryDataSwarmDownload(ArbitraryTransactionData transactionData, long now) {
+        this.transactionData = transactionData;
+        this.signature = transactionData.getSignature();
+        this.signature58 = Base58.encode(this.signature);
+        this.startTime = now;
+        this.lastActivity = now;
+    }
+
+    public byte[] getSignature() {
+        return this.signature;
+    }
+
+    public String getSignature58() {
+        return this.signature58;
+    }
+
+    public ArbitraryTransactionData getTransactionData() {
+        return this.transactionData;
+    }
+
+    /** Records that <tt>peer</tt> holds chunk with hash <tt>hash58</tt>. */
+    public synchronized void addPeerForHash(String hash58, Peer peer, long now) {
+        this.peersByHash58.computeIfAbsent(hash58, k -> new LinkedHashSet<>()).add(peer);
+        this.statsByPeer.computeIfAbsent(peer, k -> new PeerStats());
+        this.lastActivity = now;
+    }
+
+    /**
+     * Picks the next chunk to request, and the peer to request it from, marking the request as outstanding.
+     *
+     * @param maxOutstandingRequestsPerPeer window of outstanding requests allowed per peer
+     * @param isRequestedElsewhere whether a chunk is already being fetched outside of this download
+     * @return hash58 and peer, or null if no further requests can be made right now
+     */
+    public synchronized Pair<String, Peer> nextRequest(int maxOutstandingRequestsPerPeer, Predicate<String> isRequestedElsewhere) {
+        for (Map.Entry<String, Set<Peer>> entry : this.peersByHash58.entrySet()) {
+            String hash58 = entry.getKey();
+
+            if (this.outstandingPeerByHash58.containsKey(hash58) || isRequestedElsewhere.test(hash58))
+                continue;
+
+            Peer bestPeer = null;
+            double bestEstimate = Double.MAX_VALUE;
+
+            Iterator<Peer> iterator = entry.getValue().iterator();
+            while (iterator.hasNext()) {
+                Peer peer = iterator.next();
+
+                if (peer.isStopping()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                PeerStats stats = this.statsByPeer.get(peer);
+                if (stats.consecutiveFailures >= MAX_CONSECUTIVE_FAILURES || stats.outstandingRequests >= maxOutstandingRequestsPerPeer)
+                    continue;
+
+                double estimate = getEstimatedResponseTime(stats);
+                if (estimate < bestEstimate) {
+                    bestPeer = peer;
+                    bestEstimate = estimate;
+                }
+            }
+
+            if (bestPeer == null)
+                continue;
+
+            this.outstandingPeerByHash58.put(hash58, bestPeer);
+            this.statsByPeer.get(bestPeer).outstandingRequests++;
+
+            return new Pair<>(hash58, bestPeer);
+        }
+
+        return null;
+    }
+
+    /** Records successful receipt of chunk from <tt>peer</tt>. */
+    public synchronized void onChunkReceived(String hash58, Peer peer, long size, long responseTime, long now) {
+        PeerStats stats = this.completeRequest(hash58, peer);
+        this.peersByHash58.remove(hash58);
+
+        stats.consecutiveFailures = 0;
+        stats.chunksReceived++;
+        stats.bytesReceived += size;
+        stats.averageResponseTime = stats.averageResponseTime < 0
+                ? responseTime
+                : RESPONSE_TIME_WEIGHT * responseTime + (1 - RESPONSE_TIME_WEIGHT) * stats.averageResponseTime;
+
+        this.chunksReceived++;
+        this.bytesReceived += size;
+        this.lastActivity = now;
+    }
+
+    /** Records that chunk is no longer needed, e.g. because it was fetched by other means. */
+    public synchronized void onChunkPresent(String hash58, Peer peer) {
+        this.completeRequest(hash58, peer);
+        this.peersByHash58.remove(hash58);
+    }
+
+    /** Records that <tt>peer</tt> failed to supply chunk, so it isn't asked for that chunk again. */
+    public synchronized void onChunkFailed(String hash58, Peer peer, long now) {
+        PeerStats stats = this.completeRequest(hash58, peer);
+        stats.consecutiveFailures++;
+
+        Set<Peer> peers = this.peersByHash58.get(hash58);
+        if (peers != null) {
+            peers.remove(peer);
+
+            // No known sources left, but chunk can be added again if another peer reports it
+            if (peers.isEmpty())
+                this.peersByHash58.remove(hash58);
+        }
+
+        this.lastActivity = now;
+    }
+
+    /** Records that request was never made, e.g. due to shutdown, without penalizing <tt>peer</tt>. */
+    public synchronized void onRequestCancelled(String hash58, Peer peer) {
+        this.completeRequest(hash58, peer);
+    }
+
+    /** Returns whether there are no chunks left to request, and no requests outstanding. */
+    public synchronized boolean isIdle() {
+        return this.peersByHash58.isEmpty() && this.outstandingPeerByHash58.isEmpty();
+    }
+
+    /** Returns whether there has been no progress, and nothing outstanding, for <tt>timeout</tt> ms. */
+    public synchronized boolean hasExpired(long now, long timeout) {
+        return this.outstandingPeerByHash58.isEmpty() && now - this.lastActivity > timeout;
+    }
+
+    /** Returns summary of download throughput, overall and per peer. */
+    public synchronized String getThroughputSummary(long now) {
+        long elapsed = Math.max(1, now - this.startTime);
+
+        StringBuilder summary = new StringBuilder(String.format("%d chunks (%d bytes) in %d ms, %.1f KiB/s",
+                this.chunksReceived, this.bytesReceived, elapsed, this.bytesReceived * 1000.0 / 1024 / elapsed));
+
+        for (Map.Entry<Peer, PeerStats> entry : this.statsByPeer.entrySet()) {
+            PeerStats stats = entry.getValue();
+            if (stats.chunksReceived == 0)
+                continue;
+
+            summary.append(String.format("; %s: %d chunks, %.1f KiB/s, avg response %.0f ms",
+                    entry.getKey(), stats.chunksReceived, stats.bytesReceived * 1000.0 / 1024 / elapsed, stats.averageResponseTime));
+        }
+
+        return summary.toString();
+    }
+
+    private PeerStats completeRequest(String hash58, Peer peer) {
+        PeerStats stats = this.statsByPeer.get(peer);
+
+        if (this.outstandingPeerByHash58.remove(hash58, peer))
+            stats.outstandingRequests--;
+
+        return stats;
+    }
+
+    /** Returns expected time until <tt>peer</tt> would respond to a new request, with unmeasured peers tried first. */
+    private static double getEstimatedResponseTime(PeerStats stats) {
+        if (stats.averageResponseTime < 0)
+            return stats.outstandingRequests;
+
+        return stats.averageResponseTime * (stats.outstandingRequests + 1);
+    }
+
+}
@@ -10,6 +10,7 @@ import org.qortal.settings.Settings;
 import org.qortal.transform.TransformationException;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -18,6 +19,9 @@ public class BlockArchiveRebuilder {
 
     private static final Logger LOGGER = LogManager.getLogger(BlockArchiveRebuilder.class);
 
+    /** Existing archive is moved here when replaced by a rebuilt one, until it can be deleted */
+    private static final String REPLACED_ARCHIVE_DIRECTORY = "archive-replaced";
+
     private final int serializationVersion;
 
     public BlockArchiveRebuilder(int serializationVersion) {
@@ -37,6 +41,9 @@ public class BlockArchiveRebuilder {
         // Delete archive-rebuild if it exists from a previous attempt
         FileUtils.deleteDirectory(newArchivePath.toFile());
 
+        // Delete archive replaced by a previous rebuild, if it couldn't be deleted at the time
+        deleteReplacedArchive();
+
         try (final Repository repository = RepositoryManager.getRepository()) {
             int startHeight = 1; // We need to rebuild the entire archive
 
@@ -57,10 +64,8 @@ public class BlockArchiveRebuilder {
                     final int maximumArchiveHeight = BlockArchiveReader.getInstance().getHeightOfLastArchivedBlock();
                     if (startHeight >= maximumArchiveHeight) {
                         // We've finished.
-                        // Delete existing archive and move the newly built one into its place
-                        FileUtils.deleteDirectory(originalArchivePath.toFile());
-                        FileUtils.moveDirectory(newArchivePath.toFile(), originalArchivePath.toFile());
-                        BlockArchiveReader.getInstance().invalidateFileListCache();
+                        // Move existing archive aside and move the newly built one into its place
+                        replaceArchive(originalArchivePath, newArchivePath);
                         LOGGER.info("Block archive successfully rebuilt");
                         return;
                     }
@@ -118,4 +123,42 @@ public class BlockArchiveRebuilder {
         }
     }
 
+    /**
+     * Moves existing archive aside, moves newly built archive into its place, then deletes existing archive.
+     * <p>
+     * Existing archive files might still be memory-mapped until garbage collected, and mapped files can't be
+     * deleted on some platforms, e.g. Windows. So if existing archive can't be deleted yet, it's left
+     * for {@link #deleteReplacedArchive()} to delete later.
+     */
+    private static void replaceArchive(Path originalArchivePath, Path newArchivePath) throws IOException {
+        final Path replacedArchivePath = Paths.get(Settings.getInstance().getRepositoryPath(), REPLACED_ARCHIVE_DIRECTORY);
+
+        // Drop mapped archive files
+        BlockArchiveReader.getInstance().invalidateFileListCache();
+
+        // Renaming, unlike deleting, leaves existing archive intact if it fails
+        Files.move(originalArchivePath, replacedArchivePath);
+        FileUtils.moveDirectory(newArchivePath.toFile(), originalArchivePath.toFile());
+
+        // Drop any existing archive files mapped meanwhile, and pick up new ones
+        BlockArchiveReader.getInstance().invalidateFileListCache();
+
+        try {
+            FileUtils.deleteDirectory(replacedArchivePath.toFile());
+        } catch (IOException e) {
+            LOGGER.info("Unable to delete replaced block archive yet, will try again later: {}", e.getMessage());
+        }
+    }
+
+    /** Deletes archive replaced by a previous rebuild, if it still exists, e.g. at startup before any files are mapped. */
+    public static void deleteReplacedArchive() {
+        final Path replacedArchivePath = Paths.get(Settings.getInstance().getRepositoryPath(), REPLACED_ARCHIVE_DIRECTORY);
+
+        try {
+            FileUtils.deleteDirectory(replacedArchivePath.toFile());
+        } catch (IOException e) {
+            LOGGER.info("Unable to delete replaced block archive: {}", e.getMessage());
+        }
+    }
+
 }
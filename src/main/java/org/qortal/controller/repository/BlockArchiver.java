@@ -30,6 +30,9 @@ public class BlockArchiver implements Runnable {
 			return;
 		}
 
+		// Archive replaced by a rebuild might not have been deletable at the time, but nothing has it mapped yet
+		BlockArchiveRebuilder.deleteReplacedArchive();
+
 		int startHeight;
 
 		try (final Repository repository = RepositoryManager.getRepository()) {
@@ -7,6 +7,25 @@ import java.util.concurrent.TimeoutException;
 
 public class MemoryPoW {
 
+	/** Work buffer for threads that have opted in to reusing one between verifications, otherwise null */
+	private static final ThreadLocal<long[]> REUSABLE_WORK_BUFFER = new ThreadLocal<>();
+
+	/**
+	 * Opt in to reusing a work buffer between verifications on the current thread.
+	 * <p>
+	 * Suited to long-lived worker threads that verify many nonces, as it avoids allocating
+	 * (and zeroing) a large work buffer per verification, at the cost of retaining one per thread.
+	 */
+	public static void reuseWorkBuffers() {
+		if (REUSABLE_WORK_BUFFER.get() == null)
+			REUSABLE_WORK_BUFFER.set(new long[0]);
+	}
+
+	/** Stop reusing a work buffer on the current thread, releasing it. */
+	public static void releaseWorkBuffers() {
+		REUSABLE_WORK_BUFFER.remove();
+	}
+
 	/**
 	 * Compute a MemoryPoW nonce
 	 *
@@ -99,7 +118,7 @@ public class MemoryPoW {
 	}
 
 	public static boolean verify2(byte[] data, int workBufferLength, long difficulty, int nonce) {
-		return verify2(data, null, workBufferLength, difficulty, nonce);
+		return verify2(data, getReusableWorkBuffer(workBufferLength), workBufferLength, difficulty, nonce);
 	}
 
 	public static boolean verify2(byte[] data, long[] workBuffer, int workBufferLength, long difficulty, int nonce) {
@@ -146,6 +165,22 @@ public class MemoryPoW {
 		return Long.numberOfLeadingZeros(result) >= difficulty;
 	}
 
+	/** Returns current thread's reusable work buffer, resized if necessary, or null if thread hasn't opted in. */
+	private static long[] getReusableWorkBuffer(int workBufferLength) {
+		long[] workBuffer = REUSABLE_WORK_BUFFER.get();
+		if (workBuffer == null)
+			return null;
+
+		// Buffer length affects result, so must match exactly
+		int longBufferLength = workBufferLength / 8;
+		if (workBuffer.length != longBufferLength) {
+			workBuffer = new long[longBufferLength];
+			REUSABLE_WORK_BUFFER.set(workBuffer);
+		}
+
+		return workBuffer;
+	}
+
 	private static final long xoshiro256p(long[] state) {
 		final long result = state[0] + state[3];
 		final long temp = state[1] << 17;
@@ -7,6 +7,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ArbitraryResourceCache {
     private ConcurrentHashMap<Integer, List<ArbitraryResourceData>> dataByService = new ConcurrentHashMap<>();
     private ConcurrentHashMap<String, Integer> levelByName = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Integer, ArbitraryResourceIndex> indexByService = new ConcurrentHashMap<>();
 
     private ArbitraryResourceCache() {}
 
@@ -23,4 +24,8 @@ public class ArbitraryResourceCache {
     public ConcurrentHashMap<Integer, List<ArbitraryResourceData>> getDataByService() {
         return this.dataByService;
     }
+
+    public ConcurrentHashMap<Integer, ArbitraryResourceIndex> getIndexByService() {
+        return this.indexByService;
+    }
 }
@@ -0,0 +1,273 @@
+package org.qortal.data.arbitrary;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable, indexed snapshot of the cached arbitrary resources for a single service.
+ * <p>
+ * Resources are held in an array sorted by creation time, so a resource's position in that
+ * array doubles as its sort key. All indexes map to sorted arrays of positions, which means
+ * candidates can be combined cheaply and walked in creation order, stopping as soon as
+ * enough results have been found.
+ * <p>
+ * Indexes provided:
+ * <ul>
+ *     <li>exact (lower-case) name lookups</li>
+ *     <li>prefix lookups on name, identifier, title and description via sorted maps</li>
+ *     <li>"contains" lookups on the same fields via trigram indexes</li>
+ *     <li>a flag per resource marking whether it is the latest for its name</li>
+ * </ul>
+ * The cache is rebuilt wholesale on a timer, so a new snapshot is built each time
+ * rather than maintaining the indexes incrementally.
+ */
+public class ArbitraryResourceIndex {
+
+    public enum Field {
+        NAME(data -> data.name),
+        IDENTIFIER(data -> data.identifier),
+        TITLE(data -> data.metadata != null ? data.metadata.getTitle() : null),
+        DESCRIPTION(data -> data.metadata != null ? data.metadata.getDescription() : null);
+
+        private final Function<ArbitraryResourceData, String> getter;
+
+        Field(Function<ArbitraryResourceData, String> getter) {
+            this.getter = getter;
+        }
+
+        public String valueOf(ArbitraryResourceData data) {
+            return this.getter.apply(data);
+        }
+    }
+
+    /** Length of n-grams used for "contains" lookups. Shorter search terms fall back to scanning. */
+    public static final int NGRAM_LENGTH = 3;
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    /** Resources (with names), sorted by creation time, oldest first. */
+    private final ArbitraryResourceData[] resources;
+    /** Creation times, matching <tt>resources</tt>, with missing values as Long.MIN_VALUE. */
+    private final long[] createdTimes;
+    /** Whether resource at same position is the latest for its name (within this service). */
+    private final boolean[] latest;
+
+    private final Map<String, int[]> positionsByName;
+    private final Map<Field, NavigableMap<String, int[]>> positionsByValue = new EnumMap<>(Field.class);
+    private final Map<Field, Map<String, int[]>> positionsByNgram = new EnumMap<>(Field.class);
+
+    public ArbitraryResourceIndex(Collection<ArbitraryResourceData> candidates) {
+        this.resources = candidates.stream()
+                .filter(data -> data.name != null)
+                .sorted(Comparator.comparingLong(ArbitraryResourceIndex::getCreated))
+                .toArray(ArbitraryResourceData[]::new);
+
+        final int count = this.resources.length;
+        this.createdTimes = new long[count];
+        for (int i = 0; i < count; ++i)
+            this.createdTimes[i] = getCreated(this.resources[i]);
+
+        // Latest per name, ignoring resources without a created time
+        this.latest = new boolean[count];
+        Map<String, Long> latestCreatedByName = new HashMap<>();
+        for (ArbitraryResourceData data : this.resources)
+            if (data.created != null)
+                latestCreatedByName.merge(data.name, data.created, Math::max);
+
+        for (int i = 0; i < count; ++i) {
+            ArbitraryResourceData data = this.resources[i];
+            this.latest[i] = data.created != null && data.created.equals(latestCreatedByName.get(data.name));
+        }
+
+        Map<String, IntList> byName = new HashMap<>();
+        for (int i = 0; i < count; ++i)
+            byName.computeIfAbsent(this.resources[i].name.toLowerCase(), k -> new IntList()).add(i);
+        this.positionsByName = toPositions(byName, new HashMap<>());
+
+        for (Field field : Field.values()) {
+            Map<String, IntList> byValue = new HashMap<>();
+            Map<String, IntList> byNgram = new HashMap<>();
+
+            for (int i = 0; i < count; ++i) {
+                String value = field.valueOf(this.resources[i]);
+                if (value == null)
+                    continue;
+
+                value = value.toLowerCase();
+                byValue.computeIfAbsent(value, k -> new IntList()).add(i);
+
+                // Each n-gram only needs recording once per resource
+                Set<String> ngrams = new HashSet<>();
+                for (int n = 0; n + NGRAM_LENGTH <= value.length(); ++n)
+                    ngrams.add(value.substring(n, n + NGRAM_LENGTH));
+
+                for (String ngram : ngrams)
+                    byNgram.computeIfAbsent(ngram, k -> new IntList()).add(i);
+            }
+
+            this.positionsByValue.put(field, toPositions(byValue, new TreeMap<>()));
+            this.positionsByNgram.put(field, toPositions(byNgram, new HashMap<>()));
+        }
+    }
+
+    public int size() {
+        return this.resources.length;
+    }
+
+    public boolean isEmpty() {
+        return this.resources.length == 0;
+    }
+
+    public ArbitraryResourceData get(int position) {
+        return this.resources[position];
+    }
+
+    public boolean isLatest(int position) {
+        return this.latest[position];
+    }
+
+    /** Returns first position with creation time greater than <tt>after</tt>. */
+    public int getFirstPositionAfter(long after) {
+        // Find first position where createdTime >= after + 1
+        return lowerBound(after == Long.MAX_VALUE ? after : after + 1);
+    }
+
+    /** Returns first position with creation time not less than <tt>before</tt>, i.e. exclusive upper bound. */
+    public int getFirstPositionNotBefore(long before) {
+        return lowerBound(before);
+    }
+
+    /** Returns sorted positions of resources with name matching <tt>name</tt>, ignoring case. */
+    public int[] getPositionsForExactName(String name) {
+        return this.positionsByName.getOrDefault(name.toLowerCase(), NO_POSITIONS);
+    }
+
+    /**
+     * Returns sorted positions of resources whose <tt>field</tt> starts with, or contains, <tt>term</tt>, ignoring case.
+     * <p>
+     * Prefix lookups are exact. "Contains" lookups may return extra candidates, so callers need to re-check matches.
+     *
+     * @return positions, or null if the index can't narrow down candidates for this term
+     */
+    public int[] getPositionsForTerm(Field field, String term, boolean prefixOnly) {
+        String lowerTerm = term.toLowerCase();
+
+        if (prefixOnly) {
+            if (lowerTerm.isEmpty())
+                return null;
+
+            NavigableMap<String, int[]> matches = this.positionsByValue.get(field)
+                    .subMap(lowerTerm, true, lowerTerm + Character.MAX_VALUE, false);
+
+            return union(matches.values());
+        }
+
+        if (lowerTerm.length() < NGRAM_LENGTH)
+            return null;
+
+        Map<String, int[]> ngramIndex = this.positionsByNgram.get(field);
+        int[] positions = null;
+        for (int n = 0; n + NGRAM_LENGTH <= lowerTerm.length(); ++n) {
+            int[] ngramPositions = ngramIndex.getOrDefault(lowerTerm.substring(n, n + NGRAM_LENGTH), NO_POSITIONS);
+            positions = positions == null ? ngramPositions : intersect(positions, ngramPositions);
+
+            if (positions.length == 0)
+                break;
+        }
+
+        return positions;
+    }
+
+    /** Returns sorted union of sorted position arrays. */
+    public static int[] union(Collection<int[]> positionArrays) {
+        if (positionArrays.isEmpty())
+            return NO_POSITIONS;
+
+        if (positionArrays.size() == 1)
+            return positionArrays.iterator().next();
+
+        int total = 0;
+        for (int[] positions : positionArrays)
+            total += positions.length;
+
+        int[] merged = new int[total];
+        int offset = 0;
+        for (int[] positions : positionArrays) {
+            System.arraycopy(positions, 0, merged, offset, positions.length);
+            offset += positions.length;
+        }
+
+        Arrays.sort(merged);
+
+        // Remove duplicates
+        int unique = 0;
+        for (int i = 0; i < merged.length; ++i)
+            if (i == 0 || merged[i] != merged[i - 1])
+                merged[unique++] = merged[i];
+
+        return Arrays.copyOf(merged, unique);
+    }
+
+    /** Returns sorted intersection of two sorted position arrays. */
+    public static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                ++i;
+            } else if (a[i] > b[j]) {
+                ++j;
+            } else {
+                result[count++] = a[i];
+                ++i;
+                ++j;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private int lowerBound(long created) {
+        int low = 0;
+        int high = this.createdTimes.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.createdTimes[mid] < created)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private static long getCreated(ArbitraryResourceData data) {
+        return data.created != null ? data.created : Long.MIN_VALUE;
+    }
+
+    private static <M extends Map<String, int[]>> M toPositions(Map<String, IntList> lists, M map) {
+        for (Map.Entry<String, IntList> entry : lists.entrySet())
+            map.put(entry.getKey(), entry.getValue().toArray());
+
+        return map;
+    }
+
+    /** Minimal growable int array, to avoid boxing while building indexes. */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+
+            this.values[this.size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
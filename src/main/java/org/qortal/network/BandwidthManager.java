@@ -0,0 +1,263 @@
+package org.qortal.network;
+
+import org.qortal.network.message.MessageType;
+import org.qortal.settings.Settings;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shapes QDN data traffic, using token buckets, so that it can't saturate our connection.
+ * <p>
+ * Uploads and downloads each have a global budget, shared by all peers, and a per-peer budget.
+ * Each active peer's share is the global budget divided between peers that moved QDN data recently,
+ * capped by the per-peer budget, so one busy peer gets the whole budget but many peers get a fair share each.
+ * <p>
+ * Only QDN data messages are shaped, see {@link #isShaped(MessageType)}. Consensus traffic is never delayed.
+ */
+public class BandwidthManager {
+
+    public enum Direction {
+        UPLOAD,
+        DOWNLOAD
+    }
+
+    /** Peers that moved data within this period share the global budget */
+    private static final long PEER_ACTIVE_PERIOD = 10_000L; // ms
+    /** Peers that haven't moved data within this period are forgotten */
+    private static final long PEER_EXPIRY_PERIOD = 5 * 60 * 1000L; // ms
+    /** How often to recalculate peers' shares of global budget */
+    private static final long SHARE_RECALCULATION_INTERVAL = 1_000L; // ms
+    /** Longest single sleep while waiting for download budget, so that interrupts and budget changes are noticed */
+    private static final long MAX_DOWNLOAD_SLEEP = 250L; // ms
+
+    private static BandwidthManager instance;
+
+    private final Budget uploadBudget;
+    private final Budget downloadBudget;
+
+    private BandwidthManager() {
+        Settings settings = Settings.getInstance();
+        long now = System.currentTimeMillis();
+
+        this.uploadBudget = new Budget(settings.getMaxQdnUploadRate(), settings.getMaxQdnPeerUploadRate(), now);
+        this.downloadBudget = new Budget(settings.getMaxQdnDownloadRate(), settings.getMaxQdnPeerDownloadRate(), now);
+    }
+
+    public static synchronized BandwidthManager getInstance() {
+        if (instance == null)
+            instance = new BandwidthManager();
+
+        return instance;
+    }
+
+    /** Returns whether messages of <tt>messageType</tt> count towards, and are limited by, QDN bandwidth budgets. */
+    public static boolean isShaped(MessageType messageType) {
+        return messageType == MessageType.ARBITRARY_DATA_FILE || messageType == MessageType.ARBITRARY_DATA;
+    }
+
+    // Uploads
+
+    /** Returns whether a QDN data message can be sent to <tt>peer</tt> now. */
+    public boolean isUploadAvailable(Peer peer) {
+        return this.uploadBudget.isAvailable(peer.toString(), System.currentTimeMillis());
+    }
+
+    /** Returns time (ms) until a QDN data message can be sent to <tt>peer</tt>, or 0 if one can be sent now. */
+    public long getUploadWaitTime(Peer peer) {
+        return this.uploadBudget.getWaitTime(peer.toString(), System.currentTimeMillis());
+    }
+
+    /** Records QDN data, of <tt>length</tt> bytes, being sent to <tt>peer</tt>. */
+    public void recordUpload(Peer peer, long length) {
+        this.uploadBudget.consume(peer.toString(), length, System.currentTimeMillis());
+    }
+
+    /** Records QDN data message for <tt>peer</tt> having to wait for upload budget. */
+    public void recordThrottledUpload() {
+        this.uploadBudget.throttled.increment();
+    }
+
+    // Downloads
+
+    /**
+     * Waits, up to <tt>maxWait</tt> ms, until QDN data can be requested from <tt>peer</tt>.
+     *
+     * @return true if data can be requested, false if wait timed out or was interrupted
+     */
+    public boolean awaitDownload(Peer peer, long maxWait) {
+        String peerKey = peer.toString();
+        long now = System.currentTimeMillis();
+        long deadline = now + maxWait;
+
+        long waitTime = this.downloadBudget.getWaitTime(peerKey, now);
+        if (waitTime == 0)
+            return true;
+
+        this.downloadBudget.throttled.increment();
+
+        while (waitTime > 0) {
+            long remaining = deadline - now;
+            if (remaining <= 0)
+                return false;
+
+            try {
+                Thread.sleep(Math.min(Math.min(waitTime, MAX_DOWNLOAD_SLEEP), remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            now = System.currentTimeMillis();
+            waitTime = this.downloadBudget.getWaitTime(peerKey, now);
+        }
+
+        return true;
+    }
+
+    /** Records QDN data, of <tt>length</tt> bytes, being received from <tt>peer</tt>. */
+    public void recordDownload(Peer peer, long length) {
+        this.downloadBudget.consume(peer.toString(), length, System.currentTimeMillis());
+    }
+
+    // Stats
+
+    /** Returns total QDN data bytes moved in <tt>direction</tt>. */
+    public long getBytes(Direction direction) {
+        return this.getBudget(direction).bytes.sum();
+    }
+
+    /** Returns number of times QDN data had to wait for budget in <tt>direction</tt>. */
+    public long getThrottledCount(Direction direction) {
+        return this.getBudget(direction).throttled.sum();
+    }
+
+    /** Returns number of peers currently sharing global budget in <tt>direction</tt>. */
+    public int getActivePeers(Direction direction) {
+        return this.getBudget(direction).activePeers;
+    }
+
+    /** Returns global budget, in bytes per second, for <tt>direction</tt>, or 0 if unlimited. */
+    public long getMaxRate(Direction direction) {
+        return this.getBudget(direction).maxRate;
+    }
+
+    /** Returns each active peer's current share of budget, in bytes per second, for <tt>direction</tt>, or 0 if unlimited. */
+    public long getPeerRate(Direction direction) {
+        return this.getBudget(direction).peerRate;
+    }
+
+    private Budget getBudget(Direction direction) {
+        return direction == Direction.UPLOAD ? this.uploadBudget : this.downloadBudget;
+    }
+
+    /** Global and per-peer token buckets for one direction. */
+    private static class Budget {
+        final long maxRate;
+        final long maxPeerRate;
+        final boolean isLimited;
+
+        final TokenBucket globalBucket;
+        final Map<String, PeerBucket> peerBuckets = new ConcurrentHashMap<>();
+
+        final LongAdder bytes = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+
+        volatile int activePeers = 0;
+        volatile long peerRate;
+        private long lastRecalculation = 0L;
+
+        Budget(long maxRate, long maxPeerRate, long now) {
+            this.maxRate = maxRate;
+            this.maxPeerRate = maxPeerRate;
+            this.isLimited = maxRate > 0 || maxPeerRate > 0;
+
+            this.globalBucket = new TokenBucket(maxRate, now);
+            this.peerRate = calculatePeerRate(maxRate, maxPeerRate, 1);
+        }
+
+        boolean isAvailable(String peerKey, long now) {
+            if (!this.isLimited)
+                return true;
+
+            return this.globalBucket.isAvailable(now) && this.getPeerBucket(peerKey, now).bucket.isAvailable(now);
+        }
+
+        long getWaitTime(String peerKey, long now) {
+            if (!this.isLimited)
+                return 0L;
+
+            return Math.max(this.globalBucket.getWaitTime(now), this.getPeerBucket(peerKey, now).bucket.getWaitTime(now));
+        }
+
+        void consume(String peerKey, long length, long now) {
+            this.bytes.add(length);
+
+            if (!this.isLimited)
+                return;
+
+            PeerBucket peerBucket = this.getPeerBucket(peerKey, now);
+            peerBucket.lastActive = now;
+
+            this.globalBucket.consume(length, now);
+            peerBucket.bucket.consume(length, now);
+        }
+
+        private PeerBucket getPeerBucket(String peerKey, long now) {
+            this.recalculateShares(now);
+
+            return this.peerBuckets.computeIfAbsent(peerKey, k -> new PeerBucket(new TokenBucket(this.peerRate, now), now));
+        }
+
+        /** Divides global budget between recently active peers, and forgets long-idle peers. */
+        private void recalculateShares(long now) {
+            synchronized (this) {
+                if (now - this.lastRecalculation < SHARE_RECALCULATION_INTERVAL)
+                    return;
+
+                this.lastRecalculation = now;
+            }
+
+            int activeCount = 0;
+            Iterator<PeerBucket> iterator = this.peerBuckets.values().iterator();
+            while (iterator.hasNext()) {
+                long idleTime = now - iterator.next().lastActive;
+
+                if (idleTime > PEER_EXPIRY_PERIOD)
+                    iterator.remove();
+                else if (idleTime <= PEER_ACTIVE_PERIOD)
+                    ++activeCount;
+            }
+
+            long newPeerRate = calculatePeerRate(this.maxRate, this.maxPeerRate, activeCount);
+
+            this.activePeers = activeCount;
+            this.peerRate = newPeerRate;
+
+            for (PeerBucket peerBucket : this.peerBuckets.values())
+                peerBucket.bucket.setRate(newPeerRate, now);
+        }
+
+        private static long calculatePeerRate(long maxRate, long maxPeerRate, int activeCount) {
+            if (maxRate == 0)
+                return maxPeerRate;
+
+            long fairShare = Math.max(1L, maxRate / Math.max(1, activeCount));
+
+            return maxPeerRate > 0 ? Math.min(maxPeerRate, fairShare) : fairShare;
+        }
+    }
+
+    private static class PeerBucket {
+        final TokenBucket bucket;
+        volatile long lastActive;
+
+        PeerBucket(TokenBucket bucket, long now) {
+            this.bucket = bucket;
+            this.lastActive = now;
+        }
+    }
+
+}
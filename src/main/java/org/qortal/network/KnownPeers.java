@@ -0,0 +1,365 @@
+package org.qortal.network;
+
+import org.qortal.data.network.PeerData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.NetworkRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Known peers, indexed by address, with connect candidates kept in priority order.
+ * <p>
+ * Lookups, merges and removals don't lock or scan the whole set, so nodes that learned tens of thousands
+ * of addresses don't stall networking threads.
+ * <p>
+ * Connect candidates are ordered by when they next become eligible for a connection attempt:
+ * <ul>
+ * <li>never-attempted peers are eligible straight away</li>
+ * <li>peers whose last attempt succeeded are eligible straight away, least-recently attempted first</li>
+ * <li>peers whose last attempt failed wait, with backoff doubling for each consecutive failure</li>
+ * </ul>
+ * Ties are broken randomly. This replaces picking a random known peer, so peers that keep failing
+ * are tried less often, rather than as often as any other peer.
+ * <p>
+ * Changes are persisted in batches, see {@link #flush(NetworkRepository)}. Only peers added, updated or removed
+ * since last flush are written. So peers passed to {@link #load(Collection)} aren't written back unless they
+ * change, e.g. by a connection attempt.
+ * <p>
+ * Connection attempt and success times should only be updated via {@link #pollConnectable(long, Predicate)}
+ * and {@link #noteConnected(PeerData, Long)} so that candidate order is kept up to date.
+ */
+public class KnownPeers {
+
+    /** Maximum number of times connect failure backoff is doubled */
+    private static final int MAX_BACKOFF_DOUBLINGS = 4;
+
+    private final long connectFailureBackoff;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Candidate> candidates = new ConcurrentSkipListSet<>();
+
+    /** Keys of peers added or updated since last flush */
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    /** Addresses of peers removed since last flush, by key */
+    private final Map<String, PeerAddress> removedAddresses = new ConcurrentHashMap<>();
+    /** Whether all peers were removed since last flush */
+    private final AtomicBoolean isCleared = new AtomicBoolean(false);
+
+    public KnownPeers(long connectFailureBackoff) {
+        this.connectFailureBackoff = connectFailureBackoff;
+    }
+
+    /** Returns key for address, matching {@link PeerAddress#equals(PeerAddress)}, i.e. same port and case-insensitive host. */
+    private static String toKey(PeerAddress peerAddress) {
+        return peerAddress.getHost().toLowerCase(Locale.ROOT) + ":" + peerAddress.getPort();
+    }
+
+    // Lookups
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public PeerData get(PeerAddress peerAddress) {
+        Entry entry = this.entries.get(toKey(peerAddress));
+        return entry != null ? entry.peerData : null;
+    }
+
+    public List<PeerData> getAll() {
+        List<PeerData> peers = new ArrayList<>(this.entries.size());
+
+        for (Entry entry : this.entries.values())
+            peers.add(entry.peerData);
+
+        return peers;
+    }
+
+    // Additions
+
+    /** Adds peers already persisted in repository, or configured fixed network peers, e.g. on startup. Not written by next flush. */
+    public void load(Collection<PeerData> peers) {
+        for (PeerData peerData : peers)
+            this.add(peerData);
+    }
+
+    /**
+     * Adds new peers for addresses that aren't already known.
+     *
+     * @return newly added peers, which might be empty
+     */
+    public List<PeerData> merge(List<PeerAddress> peerAddresses, Long addedWhen, String addedBy) {
+        List<PeerData> newPeers = new ArrayList<>();
+
+        for (PeerAddress peerAddress : peerAddresses) {
+            PeerData peerData = new PeerData(peerAddress, addedWhen, addedBy);
+
+            if (this.add(peerData)) {
+                this.markDirty(toKey(peerAddress));
+                newPeers.add(peerData);
+            }
+        }
+
+        return newPeers;
+    }
+
+    private boolean add(PeerData peerData) {
+        Entry entry = new Entry(peerData, this.initialNextAttempt(peerData));
+
+        if (this.entries.putIfAbsent(entry.key, entry) != null)
+            return false;
+
+        synchronized (entry) {
+            // Might have been removed before we could add candidate
+            if (!entry.isRemoved)
+                this.candidates.add(entry.candidate);
+        }
+
+        return true;
+    }
+
+    private long initialNextAttempt(PeerData peerData) {
+        Long lastAttempted = peerData.getLastAttempted();
+        if (lastAttempted == null)
+            return 0L;
+
+        if (hasLastAttemptFailed(peerData))
+            return lastAttempted + this.connectFailureBackoff;
+
+        return lastAttempted;
+    }
+
+    private static boolean hasLastAttemptFailed(PeerData peerData) {
+        return peerData.getLastAttempted() != null
+                && (peerData.getLastConnected() == null || peerData.getLastConnected() < peerData.getLastAttempted());
+    }
+
+    // Removals
+
+    public boolean remove(PeerAddress peerAddress) {
+        Entry entry = this.entries.get(toKey(peerAddress));
+        if (entry == null)
+            return false;
+
+        return this.remove(entry);
+    }
+
+    private boolean remove(Entry entry) {
+        synchronized (entry) {
+            if (!this.entries.remove(entry.key, entry))
+                return false;
+
+            entry.isRemoved = true;
+            this.candidates.remove(entry.candidate);
+        }
+
+        this.dirtyKeys.remove(entry.key);
+        this.removedAddresses.put(entry.key, entry.peerData.getAddress());
+        return true;
+    }
+
+    /**
+     * Removes peers matching <tt>predicate</tt>.
+     *
+     * @return removed peers
+     */
+    public List<PeerData> removeIf(Predicate<PeerData> predicate) {
+        List<PeerData> removedPeers = new ArrayList<>();
+
+        for (Entry entry : this.entries.values())
+            if (predicate.test(entry.peerData) && this.remove(entry))
+                removedPeers.add(entry.peerData);
+
+        return removedPeers;
+    }
+
+    /**
+     * Removes all peers.
+     *
+     * @return number of peers removed
+     */
+    public int clear() {
+        int numRemoved = 0;
+
+        for (Entry entry : this.entries.values())
+            if (this.remove(entry))
+                ++numRemoved;
+
+        // No need to delete individually
+        this.removedAddresses.clear();
+        this.isCleared.set(true);
+
+        return numRemoved;
+    }
+
+    // Connections
+
+    /**
+     * Returns highest-priority peer that is eligible for a connection attempt at <tt>now</tt>
+     * and isn't excluded by <tt>isExcluded</tt>, or null if there isn't one.
+     * <p>
+     * Returned peer's last-attempted time is set to <tt>now</tt>, and its priority is lowered accordingly.
+     */
+    public PeerData pollConnectable(long now, Predicate<PeerData> isExcluded) {
+        for (Candidate candidate : this.candidates) {
+            if (candidate.nextAttempt > now)
+                // No more eligible candidates
+                return null;
+
+            Entry entry = this.entries.get(candidate.key);
+            if (entry == null || entry.candidate != candidate || isExcluded.test(entry.peerData))
+                continue;
+
+            synchronized (entry) {
+                // Another thread might have claimed, or removed, this peer
+                if (entry.isRemoved || entry.candidate != candidate)
+                    continue;
+
+                if (hasLastAttemptFailed(entry.peerData))
+                    ++entry.consecutiveFailures;
+                else
+                    entry.consecutiveFailures = 0;
+
+                entry.peerData.setLastAttempted(now);
+
+                // Assume failure until we hear otherwise
+                long backoff = this.connectFailureBackoff << Math.min(entry.consecutiveFailures, MAX_BACKOFF_DOUBLINGS);
+                this.reposition(entry, now + backoff);
+            }
+
+            this.markDirty(entry.key);
+            return entry.peerData;
+        }
+
+        return null;
+    }
+
+    /** Records successful connection to peer, if known, making it eligible for reconnection once disconnected. */
+    public void noteConnected(PeerData peerData, Long now) {
+        Entry entry = this.entries.get(toKey(peerData.getAddress()));
+
+        // Not one of ours, e.g. inbound or data-only peer
+        if (entry == null || entry.peerData != peerData) {
+            peerData.setLastConnected(now);
+            return;
+        }
+
+        synchronized (entry) {
+            peerData.setLastConnected(now);
+            entry.consecutiveFailures = 0;
+
+            if (!entry.isRemoved)
+                this.reposition(entry, this.initialNextAttempt(peerData));
+        }
+
+        this.markDirty(entry.key);
+    }
+
+    /** Must be inside <tt>synchronized (entry) {...}</tt> */
+    private void reposition(Entry entry, long nextAttempt) {
+        this.candidates.remove(entry.candidate);
+        entry.candidate = new Candidate(entry.key, nextAttempt);
+        this.candidates.add(entry.candidate);
+    }
+
+    // Persistence
+
+    private void markDirty(String key) {
+        this.dirtyKeys.add(key);
+        this.removedAddresses.remove(key);
+    }
+
+    /**
+     * Writes peers added, updated or removed since last flush to repository.
+     * <p>
+     * Caller is responsible for saving repository changes.
+     *
+     * @return number of peers saved or deleted
+     */
+    public int flush(NetworkRepository networkRepository) throws DataException {
+        boolean deleteAll = this.isCleared.getAndSet(false);
+
+        Map<String, PeerAddress> removed = new HashMap<>(this.removedAddresses);
+        removed.keySet().forEach(this.removedAddresses::remove);
+
+        List<String> dirty = new ArrayList<>(this.dirtyKeys);
+        this.dirtyKeys.removeAll(dirty);
+
+        int count = 0;
+        try {
+            if (deleteAll)
+                count += networkRepository.deleteAllPeers();
+
+            for (PeerAddress peerAddress : removed.values())
+                count += networkRepository.delete(peerAddress);
+
+            for (String key : dirty) {
+                Entry entry = this.entries.get(key);
+
+                // Could have been removed since
+                if (entry == null)
+                    continue;
+
+                networkRepository.save(entry.peerData);
+                ++count;
+            }
+        } catch (DataException e) {
+            // Try again next time
+            if (deleteAll)
+                this.isCleared.set(true);
+
+            removed.forEach(this.removedAddresses::putIfAbsent);
+            this.dirtyKeys.addAll(dirty);
+
+            throw e;
+        }
+
+        return count;
+    }
+
+    private static class Entry {
+        final String key;
+        final PeerData peerData;
+
+        /** Guarded by synchronizing on entry */
+        Candidate candidate;
+        boolean isRemoved = false;
+        int consecutiveFailures = 0;
+
+        Entry(PeerData peerData, long nextAttempt) {
+            this.key = toKey(peerData.getAddress());
+            this.peerData = peerData;
+            this.candidate = new Candidate(this.key, nextAttempt);
+        }
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        final String key;
+        final long nextAttempt;
+        final long tieBreaker = ThreadLocalRandom.current().nextLong();
+
+        Candidate(String key, long nextAttempt) {
+            this.key = key;
+            this.nextAttempt = nextAttempt;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int result = Long.compare(this.nextAttempt, other.nextAttempt);
+            if (result != 0)
+                return result;
+
+            result = Long.compare(this.tieBreaker, other.tieBreaker);
+            if (result != 0)
+                return result;
+
+            // Candidates with same key, nextAttempt and tieBreaker are equal
+            return this.key.compareTo(other.key);
+        }
+    }
+
+}
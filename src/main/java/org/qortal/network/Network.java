@@ -99,12 +99,13 @@ public class Network {
     private final String ourNodeId = Crypto.toNodeAddress(edPublicKeyParams.getEncoded());
 
     private final int maxMessageSize;
+    private final ReceiveBufferPool receiveBufferPool;
     private final int minOutboundPeers;
     private final int maxPeers;
 
     private long nextDisconnectionCheck = 0L;
 
-    private final List<PeerData> allKnownPeers = new ArrayList<>();
+    private final KnownPeers knownPeers = new KnownPeers(CONNECT_FAILURE_BACKOFF);
 
     /**
      * Maintain two lists for each subset of peers:
@@ -148,6 +149,15 @@ public class Network {
     private SelectionKey serverSelectionKey;
     private final Set<SelectableChannel> channelsPendingWrite = ConcurrentHashMap.newKeySet();
 
+    /** Peers with received messages awaiting processing, so task production needn't scan every peer */
+    private final Queue<Peer> peersWithPendingMessages = new ConcurrentLinkedQueue<>();
+    /**
+     * Peers with pings enabled, in next-ping-due order.
+     * <p>
+     * Every ping is due a fixed interval after the previous one, so peers simply rejoin the back of the queue.
+     */
+    private final Deque<Peer> peersAwaitingPing = new ArrayDeque<>();
+
     private final Lock mergePeersLock = new ReentrantLock();
 
     private List<String> ourExternalIpAddressHistory = new ArrayList<>();
@@ -160,6 +170,8 @@ public class Network {
 
     private Network() {
         maxMessageSize = 4 + 1 + 4 + BlockChain.getInstance().getMaxBlockSize();
+        receiveBufferPool = new ReceiveBufferPool(Settings.getInstance().getPeerInitialReceiveBufferSize(), maxMessageSize,
+                Settings.getInstance().getReceiveBufferPoolMaxIdleBytes(), Settings.getInstance().isReceiveBufferPoolDirect());
 
         minOutboundPeers = Settings.getInstance().getMinOutboundPeers();
         maxPeers = Settings.getInstance().getMaxPeers();
@@ -216,8 +228,10 @@ public class Network {
             }
         }
 
-        // Load all known peers from repository
-        synchronized (this.allKnownPeers) {
+        // Load all known peers from repository, or use fixed network peers instead.
+        // With a fixed network, peers stored in repository are left alone, not replaced by fixed network peers,
+        // and fixed network peers are only stored once they have connection attempt info to save.
+        {
             List<String> fixedNetwork = Settings.getInstance().getFixedNetwork();
             if (fixedNetwork != null && !fixedNetwork.isEmpty()) {
                 Long addedWhen = NTP.getTime();
@@ -230,14 +244,14 @@ public class Network {
                 List<PeerData> peers = peerAddresses.stream()
                         .map(peerAddress -> new PeerData(peerAddress, addedWhen, addedBy))
                         .collect(Collectors.toList());
-                this.allKnownPeers.addAll(peers);
+                this.knownPeers.load(peers);
             } else {
                 try (Repository repository = RepositoryManager.getRepository()) {
-                    this.allKnownPeers.addAll(repository.getNetworkRepository().getAllPeers());
+                    this.knownPeers.load(repository.getNetworkRepository().getAllPeers());
                 }
             }
 
-            LOGGER.debug("starting with {} known peers", this.allKnownPeers.size());
+            LOGGER.debug("starting with {} known peers", this.knownPeers.size());
         }
 
         // Attempt to set up UPnP. All errors are ignored.
@@ -299,6 +313,10 @@ public class Network {
         return this.maxMessageSize;
     }
 
+    public ReceiveBufferPool getReceiveBufferPool() {
+        return this.receiveBufferPool;
+    }
+
     public StatsSnapshot getStatsSnapshot() {
         return this.networkEPC.getStatsSnapshot();
     }
@@ -306,9 +324,7 @@ public class Network {
     // Peer lists
 
     public List<PeerData> getAllKnownPeers() {
-        synchronized (this.allKnownPeers) {
-            return new ArrayList<>(this.allKnownPeers);
-        }
+        return this.knownPeers.getAll();
     }
 
     public List<Peer> getImmutableConnectedPeers() {
@@ -352,12 +368,7 @@ public class Network {
             PeerData peerData = null;
 
             // Reuse an existing PeerData instance if it's already in the known peers list
-            synchronized (this.allKnownPeers) {
-                peerData = this.allKnownPeers.stream()
-                        .filter(knownPeerData -> knownPeerData.getAddress().equals(peerAddress))
-                        .findFirst()
-                        .orElse(null);
-            }
+            peerData = this.knownPeers.get(peerAddress);
 
             if (peerData == null) {
                 // Not a known peer, so we need to create one
@@ -572,19 +583,53 @@ public class Network {
         }
 
         private Task maybeProducePeerMessageTask() {
-            return getImmutableConnectedPeers().stream()
-                    .map(Peer::getMessageTask)
-                    .filter(Objects::nonNull)
-                    .findFirst()
-                    .orElse(null);
+            Peer peer;
+            while ((peer = peersWithPendingMessages.poll()) != null) {
+                // Clear before checking for messages, so any newly arriving message re-queues peer
+                peer.onDequeuedForMessageTask();
+
+                if (peer.isStopping()) {
+                    continue;
+                }
+
+                // Peer re-queues itself if it has further messages that can be processed concurrently
+                Task task = peer.getMessageTask();
+                if (task != null) {
+                    return task;
+                }
+            }
+
+            return null;
         }
 
         private Task maybeProducePeerPingTask(Long now) {
-            return getImmutableHandshakedPeers().stream()
-                    .map(peer -> peer.getPingTask(now))
-                    .filter(Objects::nonNull)
-                    .findFirst()
-                    .orElse(null);
+            if (now == null) {
+                return null;
+            }
+
+            synchronized (peersAwaitingPing) {
+                Peer peer;
+                while ((peer = peersAwaitingPing.peek()) != null) {
+                    if (peer.isStopping()) {
+                        peersAwaitingPing.poll();
+                        continue;
+                    }
+
+                    // If peer at head of queue isn't due a ping, then no other peer is either
+                    Task task = peer.getPingTask(now);
+                    if (task == null) {
+                        return null;
+                    }
+
+                    // Next ping is due a full interval from now
+                    peersAwaitingPing.poll();
+                    peersAwaitingPing.offer(peer);
+
+                    return task;
+                }
+            }
+
+            return null;
         }
 
         private Task maybeProduceConnectPeerTask(Long now) throws InterruptedException {
@@ -714,48 +759,30 @@ public class Network {
     }
 
     private Peer getConnectablePeer(final Long now) throws InterruptedException {
+        this.checkLongestConnection(now);
 
-        // Find an address to connect to
-        List<PeerData> peers = this.getAllKnownPeers();
-
-        // Don't consider peers with recent connection failures
-        final long lastAttemptedThreshold = now - CONNECT_FAILURE_BACKOFF;
-        peers.removeIf(peerData -> peerData.getLastAttempted() != null
-                && (peerData.getLastConnected() == null
-                || peerData.getLastConnected() < peerData.getLastAttempted())
-                && peerData.getLastAttempted() > lastAttemptedThreshold);
-
-        // Don't consider peers that we know loop back to ourself
+        // Find an address to connect to, in knownPeers' candidate order rather than at random:
+        // never-attempted and least-recently attempted peers first, with backoff after connection failures.
+        // Skip peers with recent connection failures (handled by knownPeers),
+        // peers that we know loop back to ourself and already connected peers (simple address match).
+        // Connection attempt info is updated by knownPeers.
+        //
+        // Already connected peers (resolved address match) are not skipped
+        // because this might be too slow if we end up waiting a long time for hostnames to resolve via DNS,
+        // which is ok because duplicate connections to the same peer are handled during handshaking.
+        PeerData peerData;
         synchronized (this.selfPeers) {
-            peers.removeIf(isSelfPeer);
+            peerData = this.knownPeers.pollConnectable(now, isSelfPeer.or(isConnectedPeer));
         }
 
-        // Don't consider already connected peers (simple address match)
-        peers.removeIf(isConnectedPeer);
-
-        // Don't consider already connected peers (resolved address match)
-        // Disabled because this might be too slow if we end up waiting a long time for hostnames to resolve via DNS
-        // Which is ok because duplicate connections to the same peer are handled during handshaking
-        // peers.removeIf(isResolvedAsConnectedPeer);
-
-        this.checkLongestConnection(now);
-
         // Any left?
-        if (peers.isEmpty()) {
+        if (peerData == null) {
             return null;
         }
 
-        // Pick random peer
-        int peerIndex = new Random().nextInt(peers.size());
-
-        // Pick candidate
-        PeerData peerData = peers.get(peerIndex);
         Peer newPeer = new Peer(peerData);
         newPeer.setIsDataPeer(false);
 
-        // Update connection attempt info
-        peerData.setLastAttempted(now);
-
         return newPeer;
     }
 
@@ -904,6 +931,18 @@ public class Network {
         onHandshakingMessage(peer, null, Handshake.STARTED);
     }
 
+    /** Called by peer when it has received messages awaiting processing. Peer ensures it is only queued once at a time. */
+    void onPeerMessagesPending(Peer peer) {
+        this.peersWithPendingMessages.offer(peer);
+    }
+
+    /** Called by peer once its pings are enabled, after handshaking. */
+    void onPeerPingsStarted(Peer peer) {
+        synchronized (this.peersAwaitingPing) {
+            this.peersAwaitingPing.offer(peer);
+        }
+    }
+
     public void onDisconnect(Peer peer) {
         if (peer.getConnectionEstablishedTime() > 0L) {
             LOGGER.debug("[{}] Disconnected from peer {}", peer.getPeerConnectionId(), peer);
@@ -1123,7 +1162,7 @@ public class Network {
         this.addHandshakedPeer(peer);
 
         // Make a note that we've successfully completed handshake (and when)
-        peer.getPeerData().setLastConnected(NTP.getTime());
+        this.knownPeers.noteConnected(peer.getPeerData(), NTP.getTime());
 
         // Process any pending signature requests, as this peer may have been connected for this purpose only
         List<byte[]> pendingSignatureRequests = new ArrayList<>(peer.getPendingSignatureRequests());
@@ -1390,9 +1429,7 @@ public class Network {
     public boolean forgetPeer(PeerAddress peerAddress) throws DataException {
         boolean numDeleted;
 
-        synchronized (this.allKnownPeers) {
-            numDeleted = this.allKnownPeers.removeIf(peerData -> peerData.getAddress().equals(peerAddress));
-        }
+        numDeleted = this.knownPeers.remove(peerAddress);
 
         disconnectPeer(peerAddress);
 
@@ -1402,10 +1439,7 @@ public class Network {
     public int forgetAllPeers() throws DataException {
         int numDeleted;
 
-        synchronized (this.allKnownPeers) {
-            numDeleted = this.allKnownPeers.size();
-            this.allKnownPeers.clear();
-        }
+        numDeleted = this.knownPeers.clear();
 
         for (Peer peer : this.getImmutableConnectedPeers()) {
             peer.disconnect("to be forgotten");
@@ -1451,39 +1485,38 @@ public class Network {
             peer.disconnect(String.format("handshake timeout at %s", peer.getHandshakeStatus().name()));
         }
 
-        // Prune 'old' peers from repository...
-        // Pruning peers isn't critical so no need to block for a repository instance.
-        synchronized (this.allKnownPeers) {
-            // Fetch all known peers
-            List<PeerData> peers = new ArrayList<>(this.allKnownPeers);
-
-            // 'Old' peers:
-            // We attempted to connect within the last day
-            // but we last managed to connect over a week ago.
-            Predicate<PeerData> isNotOldPeer = peerData -> {
-                if (peerData.getLastAttempted() == null
-                        || peerData.getLastAttempted() < now - OLD_PEER_ATTEMPTED_PERIOD) {
-                    return true;
-                }
-
-                if (peerData.getLastConnected() == null
-                        || peerData.getLastConnected() > now - OLD_PEER_CONNECTION_PERIOD) {
-                    return true;
-                }
+        // Prune 'old' peers...
+        // 'Old' peers:
+        // We attempted to connect within the last day
+        // but we last managed to connect over a week ago.
+        Predicate<PeerData> isNotOldPeer = peerData -> {
+            if (peerData.getLastAttempted() == null
+                    || peerData.getLastAttempted() < now - OLD_PEER_ATTEMPTED_PERIOD) {
+                return true;
+            }
 
-                return false;
-            };
+            if (peerData.getLastConnected() == null
+                    || peerData.getLastConnected() > now - OLD_PEER_CONNECTION_PERIOD) {
+                return true;
+            }
 
-            // Disregard peers that are NOT 'old'
-            peers.removeIf(isNotOldPeer);
+            return false;
+        };
 
-            // Don't consider already connected peers (simple address match)
-            peers.removeIf(isConnectedPeer);
+        // Disregard peers that are NOT 'old', and don't consider already connected peers (simple address match)
+        this.knownPeers.removeIf(isNotOldPeer.negate().and(isConnectedPeer.negate()));
 
-            for (PeerData peerData : peers) {
-                // Delete from known peer cache too
-                this.allKnownPeers.remove(peerData);
+        // Persist changes to known peers since last time.
+        // Pruning peers isn't critical so no need to block for a repository instance.
+        try (Repository repository = RepositoryManager.tryRepository()) {
+            if (repository == null) {
+                return;
             }
+
+            int changedCount = this.knownPeers.flush(repository.getNetworkRepository());
+            repository.saveChanges();
+
+            LOGGER.debug("Persisted {} known peer changes", changedCount);
         }
     }
 
@@ -1526,27 +1559,10 @@ public class Network {
         if (fixedNetwork != null && !fixedNetwork.isEmpty()) {
             return false;
         }
-        List<PeerData> newPeers;
-        synchronized (this.allKnownPeers) {
-            for (PeerData knownPeerData : this.allKnownPeers) {
-                // Filter out duplicates, without resolving via DNS
-                Predicate<PeerAddress> isKnownAddress = peerAddress -> knownPeerData.getAddress().equals(peerAddress);
-                peerAddresses.removeIf(isKnownAddress);
-            }
-
-            if (peerAddresses.isEmpty()) {
-                return false;
-            }
-
-            // Add leftover peer addresses to known peers list
-            newPeers = peerAddresses.stream()
-                    .map(peerAddress -> new PeerData(peerAddress, addedWhen, addedBy))
-                    .collect(Collectors.toList());
+        // Add unknown peer addresses to known peers, filtering out duplicates without resolving via DNS
+        List<PeerData> newPeers = this.knownPeers.merge(peerAddresses, addedWhen, addedBy);
 
-            this.allKnownPeers.addAll(newPeers);
-
-            return true;
-        }
+        return !newPeers.isEmpty();
     }
 
     public void broadcast(Function<Peer, Message> peerMessageBuilder) {
@@ -1591,27 +1607,12 @@ public class Network {
 
         try( Repository repository = RepositoryManager.getRepository() ){
 
-            // reset all known peers in database
-            int deletedCount = repository.getNetworkRepository().deleteAllPeers();
-
-            LOGGER.debug("Deleted {} known peers", deletedCount);
-
-            List<PeerData> knownPeersToProcess;
-            synchronized (this.allKnownPeers) {
-                knownPeersToProcess = new ArrayList<>(this.allKnownPeers);
-            }
-
-            int addedPeerCount = 0;
-
-            // save all known peers for next start up
-            for (PeerData knownPeerToProcess : knownPeersToProcess) {
-                repository.getNetworkRepository().save(knownPeerToProcess);
-                addedPeerCount++;
-            }
+            // save changes to known peers for next start up
+            int changedCount = this.knownPeers.flush(repository.getNetworkRepository());
 
             repository.saveChanges();
 
-            LOGGER.debug("Added {} known peers", addedPeerCount);
+            LOGGER.debug("Persisted {} known peer changes", changedCount);
         } catch (DataException e) {
             LOGGER.error(e.getMessage(), e);
         }
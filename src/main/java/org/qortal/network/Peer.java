@@ -12,6 +12,7 @@ import org.qortal.data.network.PeerData;
 import org.qortal.network.message.ChallengeMessage;
 import org.qortal.network.message.Message;
 import org.qortal.network.message.MessageException;
+import org.qortal.network.message.MessageFrameDecoder;
 import org.qortal.network.message.MessageType;
 import org.qortal.network.task.MessageTask;
 import org.qortal.network.task.PingTask;
@@ -27,6 +28,7 @@ import java.nio.channels.SocketChannel;
 import java.security.SecureRandom;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -73,12 +75,14 @@ public class Peer {
 
     private final UUID peerConnectionId = UUID.randomUUID();
     private final Object byteBufferLock = new Object();
+    private ReceiveBufferPool receiveBufferPool;
+    private MessageFrameDecoder frameDecoder;
     private ByteBuffer byteBuffer;
     private Map<Integer, BlockingQueue<Message>> replyQueues;
     private LinkedBlockingQueue<Message> pendingMessages;
 
     private TransferQueue<Message> sendQueue;
-    private ByteBuffer outputBuffer;
+    private ByteBuffer[] outputBuffers;
     private String outputMessageType;
     private int outputMessageId;
 
@@ -90,6 +94,8 @@ public class Peer {
     private final Object handshakingLock = new Object();
     private Handshake handshakeStatus = Handshake.STARTED;
     private volatile boolean handshakeMessagePending = false;
+    /** Whether this peer is queued for network processor to produce a message task */
+    private final AtomicBoolean isQueuedForMessageTask = new AtomicBoolean(false);
     private long handshakeComplete = -1L;
     private long maxConnectionAge = 0L;
 
@@ -260,6 +266,11 @@ public class Peer {
 
     protected void resetHandshakeMessagePending() {
         this.handshakeMessagePending = false;
+
+        // Messages that arrived during handshake processing can now be processed
+        if (!this.pendingMessages.isEmpty()) {
+            this.queueForMessageTask();
+        }
     }
 
     public PeerData getPeerData() {
@@ -444,6 +455,8 @@ public class Peer {
         this.socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
         this.socketChannel.configureBlocking(false);
         Network.getInstance().setInterestOps(this.socketChannel, SelectionKey.OP_READ);
+        this.receiveBufferPool = Network.getInstance().getReceiveBufferPool();
+        this.frameDecoder = new MessageFrameDecoder(Network.getInstance().getMessageMagic());
         this.byteBuffer = null; // Defer allocation to when we need it, to save memory. Sorry GC!
         this.sendQueue = new LinkedTransferQueue<>();
         this.replyQueues = new ConcurrentHashMap<>();
@@ -503,9 +516,9 @@ public class Peer {
                     return;
                 }
 
-                // Do we need to allocate byteBuffer?
+                // Do we need to allocate byteBuffer? Start small, growing only when a large message arrives
                 if (this.byteBuffer == null) {
-                    this.byteBuffer = ByteBuffer.allocate(Network.getInstance().getMaxMessageSize());
+                    this.byteBuffer = this.receiveBufferPool.acquire(this.receiveBufferPool.getInitialCapacity());
                 }
 
                 final int priorPosition = this.byteBuffer.position();
@@ -537,16 +550,20 @@ public class Peer {
                 while (true) {
                     final Message message;
 
-                    // Can we build a message from buffer now?
+                    // Can we build a message from buffer now? Decoder only parses frame's header once
                     ByteBuffer readOnlyBuffer = this.byteBuffer.asReadOnlyBuffer().flip();
                     try {
-                        message = Message.fromByteBuffer(readOnlyBuffer);
+                        message = this.frameDecoder.decode(readOnlyBuffer);
                     } catch (MessageException e) {
                         LOGGER.debug("[{}] {}, from peer {}", this.peerConnectionId, e.getMessage(), this);
                         this.disconnect(e.getMessage());
                         return;
                     }
 
+                    // Incomplete message might not fit in current buffer
+                    if (message == null)
+                        this.growByteBufferIfNeeded();
+
                     if (message == null && bytesRead == 0 && !wasByteBufferFull) {
                         // No complete message in buffer, no more bytes to read from socket
                         // even though there was room to read bytes
@@ -577,6 +594,8 @@ public class Peer {
                     // Copy bytes after read message to front of buffer,
                     // adjusting position accordingly, reset limit to capacity
                     this.byteBuffer.compact();
+                    // Hand back large buffer if remaining bytes fit in a small one
+                    this.shrinkByteBufferIfPossible();
 
                     // Record message stats
                     MessageStats messageStats = this.receivedMessageStats.computeIfAbsent(message.getType(), k -> new MessageStats());
@@ -605,6 +624,8 @@ public class Peer {
                         return;
                     }
 
+                    this.queueForMessageTask();
+
                     // Prematurely end any blocking channel select so that new messages can be processed.
                     // This might cause this.socketChannel.read() above to return zero into bytesRead.
                     Network.getInstance().wakeupChannelSelector();
@@ -613,6 +634,29 @@ public class Peer {
         }
     }
 
+    /** Swaps to larger receive buffer if message at start of buffer is declared too big for current buffer. */
+    private void growByteBufferIfNeeded() {
+        if (this.byteBuffer.capacity() >= this.receiveBufferPool.getMaxCapacity())
+            return;
+
+        Integer messageLength = this.frameDecoder.getFrameLength();
+        if (messageLength == null || messageLength <= this.byteBuffer.capacity())
+            return;
+
+        LOGGER.trace("[{}] Growing receive buffer from {} to fit {} byte message from peer {}", this.peerConnectionId,
+                this.byteBuffer.capacity(), messageLength, this);
+
+        this.byteBuffer = this.receiveBufferPool.resize(this.byteBuffer, messageLength);
+    }
+
+    /** Swaps back to small receive buffer, returning large one to pool, if buffered bytes now fit. */
+    private void shrinkByteBufferIfPossible() {
+        int initialCapacity = this.receiveBufferPool.getInitialCapacity();
+
+        if (this.byteBuffer.capacity() > initialCapacity && this.byteBuffer.position() <= initialCapacity)
+            this.byteBuffer = this.receiveBufferPool.resize(this.byteBuffer, initialCapacity);
+    }
+
     /** Maybe send some pending outgoing messages.
      *
      * @return true if more data is pending to be sent
@@ -621,8 +665,8 @@ public class Peer {
         // It is the responsibility of ChannelWriteTask's producer to produce only one call to writeChannel() at a time
 
         while (true) {
-            // If output byte buffer is null, fetch next message from queue (if any)
-            while (this.outputBuffer == null) {
+            // If output byte buffers are null, fetch next message from queue (if any)
+            while (this.outputBuffers == null) {
                 Message message;
 
                 try {
@@ -640,9 +684,8 @@ public class Peer {
                     return false;
 
                 try {
-                        byte[] messageBytes = message.toBytes();
-
-                    this.outputBuffer = ByteBuffer.wrap(messageBytes);
+                    // Header, then shared read-only views of payload, so no copying
+                    this.outputBuffers = message.toFrame();
                     this.outputMessageType = message.getType().name();
                     this.outputMessageId = message.getId();
 
@@ -654,7 +697,8 @@ public class Peer {
                     MessageStats messageStats = this.sentMessageStats.computeIfAbsent(message.getType(), k -> new MessageStats());
                     // Ideally these two operations would be atomic, we could pack 'count' in top X bits of the 64-bit long, but meh
                     messageStats.count.increment();
-                    messageStats.totalBytes.add(this.outputBuffer.limit());
+                    for (ByteBuffer outputBuffer : this.outputBuffers)
+                        messageStats.totalBytes.add(outputBuffer.remaining());
                 } catch (MessageException e) {
                     // Something went wrong converting message to bytes, so discard but allow another round
                     LOGGER.warn("[{}] Failed to send {} message with ID {} to peer {}: {}", this.peerConnectionId,
@@ -662,8 +706,8 @@ public class Peer {
                 }
             }
 
-            // If output byte buffer is not null, send from that
-            int bytesWritten = this.socketChannel.write(outputBuffer);
+            // If output byte buffers are not null, send from those, using gathering write
+            long bytesWritten = this.socketChannel.write(this.outputBuffers);
 
             int zeroSendCount = 0;
 
@@ -680,14 +724,14 @@ public class Peer {
                 return false; // optional, if you want to signal shutdown
             }
                 zeroSendCount++;
-                bytesWritten = this.socketChannel.write(outputBuffer);
+                bytesWritten = this.socketChannel.write(this.outputBuffers);
             }
 
-            // If we then exhaust the byte buffer, set it to null (otherwise loop and try to send more)
-            if (!this.outputBuffer.hasRemaining()) {
+            // If we then exhaust the byte buffers, set them to null (otherwise loop and try to send more)
+            if (!this.outputBuffers[this.outputBuffers.length - 1].hasRemaining()) {
                 this.outputMessageType = null;
                 this.outputMessageId = 0;
-                this.outputBuffer = null;
+                this.outputBuffers = null;
             }
         }
     }
@@ -713,12 +757,27 @@ public class Peer {
 
         if (this.handshakeStatus != Handshake.COMPLETED) {
             this.handshakeMessagePending = true;
+        } else if (!this.pendingMessages.isEmpty()) {
+            // Allow another thread to process our next message
+            this.queueForMessageTask();
         }
 
         // Return a task to process message in queue
         return new MessageTask(this, nextMessage);
     }
 
+    /** Queues this peer for network processor to produce a message task, unless already queued. */
+    private void queueForMessageTask() {
+        if (this.isQueuedForMessageTask.compareAndSet(false, true)) {
+            Network.getInstance().onPeerMessagesPending(this);
+        }
+    }
+
+    /** Called by network processor when it takes this peer off message task queue. */
+    protected void onDequeuedForMessageTask() {
+        this.isQueuedForMessageTask.set(false);
+    }
+
     /**
      * Attempt to send Message to peer, using default RESPONSE_TIMEOUT.
      *
@@ -767,6 +826,19 @@ public class Peer {
         }
     }
 
+    /**
+     * Attempt to hand Message to peer's channel writer, without waiting.
+     * <p>
+     * Only succeeds if writer is already waiting for a message. Writer is woken up either way,
+     * so caller should try again shortly if this returns <code>false</code>.
+     *
+     * @param message message to be sent
+     * @return <code>true</code> if message handed to writer; <code>false</code> if writer not ready or error
+     */
+    public boolean trySendMessageNow(Message message) {
+        return this.sendMessageWithTimeoutNow(message, 0);
+    }
+
     /**
      * Send message to peer and await response, using default RESPONSE_TIMEOUT.
      * <p>
@@ -827,9 +899,14 @@ public class Peer {
     }
 
     protected void startPings() {
-        // Replacing initial null value allows getPingTask() to start sending pings.
+        // Replacing initial null value allows getPingTask() to start sending pings, once network processor picks us up.
         LOGGER.trace("[{}] Enabling pings for peer {}", this.peerConnectionId, this);
         this.lastPingSent = NTP.getTime();
+
+        // Without synced time, pings never start
+        if (this.lastPingSent != null) {
+            Network.getInstance().onPeerPingsStarted(this);
+        }
     }
 
     protected Task getPingTask(Long now) {
@@ -877,6 +954,14 @@ public class Peer {
             }
         }
 
+        // Return receive buffer to pool, now that channel is closed and no more reads will use it
+        synchronized (this.byteBufferLock) {
+            if (this.byteBuffer != null) {
+                this.receiveBufferPool.release(this.byteBuffer);
+                this.byteBuffer = null;
+            }
+        }
+
         if (logStats && !this.receivedMessageStats.isEmpty()) {
             StringBuilder statsBuilder = new StringBuilder(1024);
             statsBuilder.append("peer ").append(this).append(" message stats:\n=received=");
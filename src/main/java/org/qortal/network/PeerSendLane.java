@@ -0,0 +1,78 @@
+package org.qortal.network;
+
+import org.qortal.network.message.MessageType;
+
+/**
+ * Priority lanes for messages waiting to be sent to a peer.
+ * <p>
+ * Each lane has a weight, used by {@link PeerSendManager} to share sending between lanes with waiting messages,
+ * and a limit on total bytes queued, so that one lane can't hog memory. When a lane is full, new messages for it
+ * are dropped, and counted as such, rather than waiting. An empty lane always accepts one message, however big.
+ * <p>
+ * This stops PINGs, block and consensus traffic from waiting behind multi-megabyte QDN transfers,
+ * and stops bursts of block replies to syncing peers from crowding out small control messages.
+ */
+public enum PeerSendLane {
+    /** Handshake, pings, peers, online accounts, etc. */
+    CONTROL(8, 4 * 1024 * 1024),
+    /** Blocks, block summaries and block signatures, e.g. replies to syncing peers */
+    BLOCKS(6, 32 * 1024 * 1024),
+    /** Transactions and other chain data lookups */
+    TRANSACTIONS(4, 16 * 1024 * 1024),
+    /** QDN data transfers */
+    BULK(1, 64 * 1024 * 1024);
+
+    /** Relative share of sends when other lanes also have messages waiting */
+    public final int weight;
+    /** Maximum total data bytes of messages waiting in this lane, per peer, beyond which new messages are dropped */
+    public final long maxQueuedBytes;
+
+    PeerSendLane(int weight, long maxQueuedBytes) {
+        this.weight = weight;
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    public static PeerSendLane forMessageType(MessageType messageType) {
+        switch (messageType) {
+            case BLOCK:
+            case BLOCK_V2:
+            case BLOCK_SUMMARIES:
+            case BLOCK_SUMMARIES_V2:
+            case SIGNATURES:
+                return BLOCKS;
+
+            case TRANSACTION:
+            case GET_TRANSACTION:
+            case TRANSACTION_SIGNATURES:
+            case GET_UNCONFIRMED_TRANSACTIONS:
+            case TRADE_PRESENCES:
+            case GET_TRADE_PRESENCES:
+            case ACCOUNT:
+            case GET_ACCOUNT:
+            case ACCOUNT_BALANCE:
+            case GET_ACCOUNT_BALANCE:
+            case NAMES:
+            case GET_ACCOUNT_NAMES:
+            case GET_NAME:
+            case TRANSACTIONS:
+            case GET_ACCOUNT_TRANSACTIONS:
+            case FOREIGN_FEES:
+            case GET_FOREIGN_FEES:
+                return TRANSACTIONS;
+
+            case ARBITRARY_DATA:
+            case GET_ARBITRARY_DATA:
+            case ARBITRARY_DATA_FILE:
+            case GET_ARBITRARY_DATA_FILE:
+            case ARBITRARY_DATA_FILE_LIST:
+            case GET_ARBITRARY_DATA_FILE_LIST:
+            case ARBITRARY_SIGNATURES:
+            case ARBITRARY_METADATA:
+            case GET_ARBITRARY_METADATA:
+                return BULK;
+
+            default:
+                return CONTROL;
+        }
+    }
+}
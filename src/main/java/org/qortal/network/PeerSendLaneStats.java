@@ -0,0 +1,52 @@
+package org.qortal.network;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Send statistics for one {@link PeerSendLane}, across all peers.
+ */
+public class PeerSendLaneStats {
+
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0L);
+
+    /** Records message sent, having waited <tt>latency</tt> ms since being queued. */
+    public void recordSent(int dataLength, long latency) {
+        this.sentMessages.increment();
+        this.sentBytes.add(dataLength);
+        this.totalLatency.add(latency);
+        this.maxLatency.accumulate(latency);
+    }
+
+    /** Records message dropped, due to lane being full, message going stale or send failing. */
+    public void recordDropped() {
+        this.droppedMessages.increment();
+    }
+
+    public long getSentMessages() {
+        return this.sentMessages.sum();
+    }
+
+    public long getSentBytes() {
+        return this.sentBytes.sum();
+    }
+
+    public long getDroppedMessages() {
+        return this.droppedMessages.sum();
+    }
+
+    /** Returns mean time (ms) between message being queued and being sent. */
+    public long getAverageLatency() {
+        long count = this.sentMessages.sum();
+        return count > 0 ? this.totalLatency.sum() / count : 0L;
+    }
+
+    public long getMaxLatency() {
+        return this.maxLatency.get();
+    }
+
+}
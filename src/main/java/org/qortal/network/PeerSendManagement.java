@@ -2,7 +2,10 @@ package org.qortal.network;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.qortal.settings.Settings;
+import org.qortal.utils.NamedThreadFactory;
 
+import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -16,11 +19,40 @@ public class PeerSendManagement {
 
     private final Map<String, PeerSendManager> peerSendManagers = new ConcurrentHashMap<>();
 
+    /** Threads shared by all peers' send managers, or null if each peer has its own thread */
+    private final ScheduledExecutorService sharedExecutor;
+
+    /** Send statistics, by lane, across all peers */
+    private final Map<PeerSendLane, PeerSendLaneStats> laneStats = new EnumMap<>(PeerSendLane.class);
+
     public PeerSendManager getOrCreateSendManager(Peer peer) {
-        return peerSendManagers.computeIfAbsent(peer.toString(), p -> new PeerSendManager(peer));
+        return peerSendManagers.computeIfAbsent(peer.toString(), p -> new PeerSendManager(peer, sharedExecutor, laneStats));
+    }
+
+    public PeerSendLaneStats getLaneStats(PeerSendLane lane) {
+        return this.laneStats.get(lane);
+    }
+
+    /** Returns number of messages waiting in <tt>lane</tt>, across all peers. */
+    public long getQueuedMessages(PeerSendLane lane) {
+        return peerSendManagers.values().stream().mapToLong(manager -> manager.getQueuedMessages(lane)).sum();
+    }
+
+    /** Returns total data bytes of messages waiting in <tt>lane</tt>, across all peers. */
+    public long getQueuedBytes(PeerSendLane lane) {
+        return peerSendManagers.values().stream().mapToLong(manager -> manager.getQueuedBytes(lane)).sum();
     }
 
     private PeerSendManagement() {
+        for (PeerSendLane lane : PeerSendLane.values())
+            this.laneStats.put(lane, new PeerSendLaneStats());
+
+        int sharedThreadCount = Settings.getInstance().getPeerSendManagerThreads();
+
+        if (sharedThreadCount > 0)
+            this.sharedExecutor = Executors.newScheduledThreadPool(sharedThreadCount, new NamedThreadFactory("PeerSendManager", Thread.NORM_PRIORITY));
+        else
+            this.sharedExecutor = null;
 
         ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor();
 
@@ -1,12 +1,23 @@
 package org.qortal.network;
 
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.network.message.Message;
 
+/**
+ * Queues messages for sending to a peer, sending one at a time.
+ * <p>
+ * Messages wait in priority lanes, see {@link PeerSendLane}. When more than one lane has messages waiting,
+ * next message is picked using smooth weighted round-robin, so higher priority lanes get most, but not all, sends.
+ */
 public class PeerSendManager {
     private static final Logger LOGGER = LogManager.getLogger(PeerSendManager.class);
 
@@ -15,87 +26,183 @@ public class PeerSendManager {
     private static final int RETRY_DELAY_MS = 100;
     private static final long MAX_QUEUE_DURATION_MS = 20_000;
     private static final long COOLDOWN_DURATION_MS = 20_000;
+    private static final long SEND_THROTTLE_MS = 50;
+    /** Delay before trying again to hand message to peer's writer, while it is busy */
+    private static final long HANDOFF_RETRY_MS = 10;
+    /** Longest wait before rechecking, when only QDN data is waiting and we're over bandwidth budget */
+    private static final long MAX_BANDWIDTH_WAIT_MS = 250;
 
     private final Peer peer;
-    private final BlockingQueue<TimedMessage> queue = new LinkedBlockingQueue<>();
-    private final ExecutorService executor;
+    /** Waiting messages, by lane. Synchronize on this map to access lanes. */
+    private final Map<PeerSendLane, LaneQueue> laneQueues = new EnumMap<>(PeerSendLane.class);
+    private final Map<PeerSendLane, PeerSendLaneStats> laneStats;
+    private final ScheduledExecutorService executor;
+    /** Whether executor is ours alone, rather than shared by all peers' send managers */
+    private final boolean hasOwnExecutor;
     private final AtomicInteger failureCount = new AtomicInteger(0);
     private static final AtomicInteger threadCount = new AtomicInteger(1);
 
+    /** Whether processing of queue is scheduled or in progress. Only one such task runs at a time. */
+    private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+    /** Message currently being sent, how many attempts so far, and when current attempt times out. Only accessed by processing task. */
+    private TimedMessage currentMessage = null;
+    private int currentAttempts = 0;
+    private long currentAttemptDeadline = 0;
+
     private volatile boolean coolingDown = false;
+    private volatile boolean isShutdown = false;
     private volatile long lastUsed = System.currentTimeMillis();
 
-    public PeerSendManager(Peer peer) {
+    /**
+     * Creates send manager for <tt>peer</tt>.
+     * <p>
+     * If <tt>sharedExecutor</tt> is null then a dedicated thread is used for this peer.
+     * <p>
+     * Messages are handed to peer's writer without blocking. If writer isn't ready, e.g. still writing
+     * an earlier message to a slow peer, handoff is tried again shortly, until message's timeout.
+     * So waiting for slow peers, between sends, for retries and during cooldown doesn't occupy a thread,
+     * and a small shared executor can serve many peers.
+     * <p>
+     * Sends are recorded in <tt>laneStats</tt>, which are typically shared by all peers.
+     */
+    public PeerSendManager(Peer peer, ScheduledExecutorService sharedExecutor, Map<PeerSendLane, PeerSendLaneStats> laneStats) {
         this.peer = peer;
-        this.executor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r);
-            t.setName("PeerSendManager-" + peer.getResolvedAddress().getHostString() + "-" + threadCount.getAndIncrement());
-            return t;
-        });
-        start();
+        this.laneStats = laneStats;
+
+        for (PeerSendLane lane : PeerSendLane.values())
+            this.laneQueues.put(lane, new LaneQueue(lane));
+
+        if (sharedExecutor != null) {
+            this.executor = sharedExecutor;
+            this.hasOwnExecutor = false;
+        } else {
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r);
+                t.setName("PeerSendManager-" + peer.getResolvedAddress().getHostString() + "-" + threadCount.getAndIncrement());
+                return t;
+            });
+            this.hasOwnExecutor = true;
+        }
+    }
+
+    private void schedule(long delayMs) {
+        if (isShutdown)
+            return;
+
+        try {
+            executor.schedule(this::process, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
     }
 
-    private void start() {
-        executor.submit(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
+    /** Tries once to hand one message to peer's writer, then reschedules itself while there is more to do. */
+    private void process() {
+        if (isShutdown)
+            return;
+
+        try {
+            if (currentMessage == null) {
+                currentMessage = pollNextMessage();
+
+                if (currentMessage == null && !isQueueEmpty()) {
+                    // Only QDN data waiting, but we're over bandwidth budget
+                    BandwidthManager bandwidthManager = BandwidthManager.getInstance();
+                    bandwidthManager.recordThrottledUpload();
+                    schedule(Math.max(1L, Math.min(bandwidthManager.getUploadWaitTime(peer), MAX_BANDWIDTH_WAIT_MS)));
+                    return;
+                }
+
+                if (currentMessage == null) {
+                    isScheduled.set(false);
+
+                    // A message might have been queued just before we cleared flag
+                    if (!isQueueEmpty() && isScheduled.compareAndSet(false, true))
+                        schedule(0);
+
+                    return;
+                }
+
+                currentAttempts = 0;
+                currentAttemptDeadline = 0;
+
+                long age = System.currentTimeMillis() - currentMessage.timestamp;
+                if (age > MAX_QUEUE_DURATION_MS) {
+                    LOGGER.debug("Dropping stale message {} ({}ms old)", currentMessage.message.getId(), age);
+                    laneStats.get(currentMessage.lane).recordDropped();
+                    currentMessage = null;
+                    schedule(0);
+                    return;
+                }
+            }
+
+            Message message = currentMessage.message;
+            long now = System.currentTimeMillis();
+
+            if (currentAttemptDeadline == 0) {
+                currentAttempts++;
+                currentAttemptDeadline = now + currentMessage.timeout;
+            }
+
+            try {
+                if (peer.trySendMessageNow(message)) {
+                    failureCount.set(0); // reset on success
+                    laneStats.get(currentMessage.lane).recordSent(currentMessage.dataLength, now - currentMessage.timestamp);
+                    currentMessage = null;
+
+                    schedule(SEND_THROTTLE_MS); // small throttle
+                    return;
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Attempt {} failed for message {} to peer {}: {}", currentAttempts, message.getId(), peer, e.getMessage());
+            }
+
+            // Writer not ready yet, so try again shortly, without holding thread
+            if (now < currentAttemptDeadline && peer.getSocketChannel().isOpen()) {
+                schedule(HANDOFF_RETRY_MS);
+                return;
+            }
+
+            currentAttemptDeadline = 0;
+
+            if (currentAttempts < MAX_MESSAGE_ATTEMPTS) {
+                schedule(RETRY_DELAY_MS);
+                return;
+            }
+
+            laneStats.get(currentMessage.lane).recordDropped();
+            currentMessage = null;
+
+            int totalFailures = failureCount.incrementAndGet();
+            LOGGER.debug("Failed to send message {} to peer {}. Total failures: {}", message.getId(), peer, totalFailures);
+
+            if (totalFailures >= MAX_FAILURES) {
+                LOGGER.debug("Peer {} exceeded failure limit ({}). Disconnecting...", peer, totalFailures);
+                peer.disconnect("Too many message send failures");
+                coolingDown = true;
+                clearQueue();
+
                 try {
-                    TimedMessage timedMessage = queue.take();
-                    long age = System.currentTimeMillis() - timedMessage.timestamp;
-
-                    if (age > MAX_QUEUE_DURATION_MS) {
-                        LOGGER.debug("Dropping stale message {} ({}ms old)", timedMessage.message.getId(), age);
-                        continue;
-                    }
-
-                    Message message = timedMessage.message;
-                    int timeout = timedMessage.timeout;
-                    boolean success = false;
-
-                    for (int attempt = 1; attempt <= MAX_MESSAGE_ATTEMPTS; attempt++) {
-                        try {
-                            if (peer.sendMessageWithTimeoutNow(message, timeout)) {
-                                success = true;
-                                failureCount.set(0); // reset on success
-                                break;
-                            }
-                        } catch (Exception e) {
-                            LOGGER.debug("Attempt {} failed for message {} to peer {}: {}", attempt, message.getId(), peer, e.getMessage());
-                        }
-
-                        Thread.sleep(RETRY_DELAY_MS);
-                    }
-
-                    if (!success) {
-                        int totalFailures = failureCount.incrementAndGet();
-                        LOGGER.debug("Failed to send message {} to peer {}. Total failures: {}", message.getId(), peer, totalFailures);
-
-                        if (totalFailures >= MAX_FAILURES) {
-                            LOGGER.debug("Peer {} exceeded failure limit ({}). Disconnecting...", peer, totalFailures);
-                            peer.disconnect("Too many message send failures");
-                            coolingDown = true;
-                            queue.clear();
-
-                            try {
-                                Thread.sleep(COOLDOWN_DURATION_MS);
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                                return;
-                            } finally {
-                                coolingDown = false;
-                                failureCount.set(0);
-                            }
-                        }
-                    }
-
-                    Thread.sleep(50); // small throttle
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    LOGGER.error("Unexpected error in PeerSendManager for peer {}: {}", peer, e.getMessage(), e);
+                    executor.schedule(this::endCooldown, COOLDOWN_DURATION_MS, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
                 }
+                return;
             }
-        });
+
+            schedule(RETRY_DELAY_MS + SEND_THROTTLE_MS);
+        } catch (Exception e) {
+            LOGGER.error("Unexpected error in PeerSendManager for peer {}: {}", peer, e.getMessage(), e);
+            currentMessage = null;
+            schedule(SEND_THROTTLE_MS);
+        }
+    }
+
+    private void endCooldown() {
+        coolingDown = false;
+        failureCount.set(0);
+
+        process();
     }
 
     public boolean queueMessage(Message message, int timeout) {
@@ -106,33 +213,190 @@ public class PeerSendManager {
         }
 
         lastUsed = System.currentTimeMillis();
-        if (!queue.offer(new TimedMessage(message, timeout))) {
-            LOGGER.debug("Send queue full, dropping message {}", message.getId());
+
+        TimedMessage timedMessage = new TimedMessage(message, timeout);
+        if (!offerMessage(timedMessage)) {
+            LOGGER.debug("Send queue lane {} full, dropping message {}", timedMessage.lane, message.getId());
+            laneStats.get(timedMessage.lane).recordDropped();
 
             return false;
         }
 
+        if (isScheduled.compareAndSet(false, true))
+            schedule(0);
+
         return true;
     }
 
+    private boolean offerMessage(TimedMessage timedMessage) {
+        synchronized (laneQueues) {
+            LaneQueue laneQueue = laneQueues.get(timedMessage.lane);
+
+            // Always allow one message, however big, into an empty lane
+            if (!laneQueue.isEmpty() && laneQueue.queuedBytes + timedMessage.dataLength > timedMessage.lane.maxQueuedBytes)
+                return false;
+
+            laneQueue.add(timedMessage);
+            return true;
+        }
+    }
+
+    /**
+     * Returns next message to send, using smooth weighted round-robin across lanes with waiting messages,
+     * or null if none waiting.
+     * <p>
+     * QDN data is skipped while we're over bandwidth budget, see {@link BandwidthManager}, but other messages
+     * in the same lane can still be sent. Lanes with only QDN data waiting keep their credit.
+     */
+    private TimedMessage pollNextMessage() {
+        BandwidthManager bandwidthManager = BandwidthManager.getInstance();
+        Boolean isUploadAvailable = null;
+
+        synchronized (laneQueues) {
+            LaneQueue nextLaneQueue = null;
+            TimedMessage nextMessage = null;
+            int totalWeight = 0;
+
+            for (LaneQueue laneQueue : laneQueues.values()) {
+                if (laneQueue.isEmpty()) {
+                    // Idle lanes don't build up credit
+                    laneQueue.currentWeight = 0;
+                    continue;
+                }
+
+                if (isUploadAvailable == null && !laneQueue.shapedMessages.isEmpty())
+                    isUploadAvailable = bandwidthManager.isUploadAvailable(peer);
+
+                TimedMessage headMessage = laneQueue.peekNext(Boolean.TRUE.equals(isUploadAvailable));
+
+                // Lane keeps its credit while waiting for bandwidth
+                if (headMessage == null)
+                    continue;
+
+                laneQueue.currentWeight += laneQueue.lane.weight;
+                totalWeight += laneQueue.lane.weight;
+
+                if (nextLaneQueue == null || laneQueue.currentWeight > nextLaneQueue.currentWeight) {
+                    nextLaneQueue = laneQueue;
+                    nextMessage = headMessage;
+                }
+            }
+
+            if (nextLaneQueue == null)
+                return null;
+
+            nextLaneQueue.currentWeight -= totalWeight;
+
+            TimedMessage timedMessage = nextLaneQueue.remove(nextMessage);
+
+            if (timedMessage.isShaped)
+                bandwidthManager.recordUpload(peer, timedMessage.dataLength);
+
+            return timedMessage;
+        }
+    }
+
+    private boolean isQueueEmpty() {
+        synchronized (laneQueues) {
+            return laneQueues.values().stream().allMatch(LaneQueue::isEmpty);
+        }
+    }
+
+    private void clearQueue() {
+        synchronized (laneQueues) {
+            for (LaneQueue laneQueue : laneQueues.values()) {
+                laneQueue.messages.clear();
+                laneQueue.shapedMessages.clear();
+                laneQueue.queuedBytes = 0;
+                laneQueue.currentWeight = 0;
+            }
+        }
+    }
+
+    /** Returns number of messages waiting in <tt>lane</tt>. */
+    public int getQueuedMessages(PeerSendLane lane) {
+        synchronized (laneQueues) {
+            LaneQueue laneQueue = laneQueues.get(lane);
+            return laneQueue.messages.size() + laneQueue.shapedMessages.size();
+        }
+    }
+
+    /** Returns total data bytes of messages waiting in <tt>lane</tt>. */
+    public long getQueuedBytes(PeerSendLane lane) {
+        synchronized (laneQueues) {
+            return laneQueues.get(lane).queuedBytes;
+        }
+    }
+
     public boolean isIdle(long cutoffMillis) {
         return System.currentTimeMillis() - lastUsed > cutoffMillis;
     }
 
     public void shutdown() {
-        queue.clear();
-        executor.shutdownNow();
+        isShutdown = true;
+        clearQueue();
+
+        if (hasOwnExecutor)
+            executor.shutdownNow();
     }
 
     private static class TimedMessage {
         final Message message;
         final long timestamp;
         final int timeout;
+        final PeerSendLane lane;
+        final int dataLength;
+        /** Whether message is QDN data, limited by bandwidth budget */
+        final boolean isShaped;
 
         TimedMessage(Message message, int timeout) {
             this.message = message;
             this.timestamp = System.currentTimeMillis();
             this.timeout = timeout;
+            this.lane = PeerSendLane.forMessageType(message.getType());
+            this.dataLength = message.getDataLength();
+            this.isShaped = BandwidthManager.isShaped(message.getType());
+        }
+    }
+
+    private static class LaneQueue {
+        final PeerSendLane lane;
+        final Queue<TimedMessage> messages = new ArrayDeque<>();
+        /** QDN data, kept apart so that waiting for bandwidth doesn't hold up other messages in lane */
+        final Queue<TimedMessage> shapedMessages = new ArrayDeque<>();
+        long queuedBytes = 0;
+        /** For smooth weighted round-robin */
+        int currentWeight = 0;
+
+        LaneQueue(PeerSendLane lane) {
+            this.lane = lane;
+        }
+
+        boolean isEmpty() {
+            return messages.isEmpty() && shapedMessages.isEmpty();
+        }
+
+        void add(TimedMessage timedMessage) {
+            (timedMessage.isShaped ? shapedMessages : messages).add(timedMessage);
+            queuedBytes += timedMessage.dataLength;
+        }
+
+        /** Returns oldest message that can be sent, skipping QDN data if over bandwidth budget, or null if none. */
+        TimedMessage peekNext(boolean isUploadAvailable) {
+            TimedMessage message = messages.peek();
+            TimedMessage shapedMessage = isUploadAvailable ? shapedMessages.peek() : null;
+
+            if (shapedMessage != null && (message == null || shapedMessage.timestamp < message.timestamp))
+                return shapedMessage;
+
+            return message;
+        }
+
+        /** Removes <tt>timedMessage</tt>, previously returned by {@link #peekNext(boolean)}. */
+        TimedMessage remove(TimedMessage timedMessage) {
+            (timedMessage.isShaped ? shapedMessages : messages).poll();
+            queuedBytes -= timedMessage.dataLength;
+            return timedMessage;
         }
     }
 }
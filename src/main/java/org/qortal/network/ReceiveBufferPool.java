@@ -0,0 +1,141 @@
+package org.qortal.network;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pool of peer receive buffers.
+ * <p>
+ * Peers start out with a small receive buffer and only swap to a larger one when a message header
+ * declares a message too big for their current buffer. Once a large message has been consumed, peers swap
+ * back to a small buffer, returning the large one here for reuse by other peers.
+ * <p>
+ * Buffer capacities are rounded up to powers of two, capped at max message size, so that
+ * returned buffers are likely to fit later requests. Idle buffers are kept up to a total byte limit,
+ * beyond which returned buffers are left to GC.
+ */
+public class ReceiveBufferPool {
+
+    private final int initialCapacity;
+    private final int maxCapacity;
+    private final long maxIdleBytes;
+    private final boolean useDirectBuffers;
+
+    private final Map<Integer, Queue<ByteBuffer>> idleBuffersByCapacity = new ConcurrentHashMap<>();
+
+    private final AtomicLong buffersInUse = new AtomicLong();
+    private final AtomicLong bytesInUse = new AtomicLong();
+    private final AtomicLong idleBuffers = new AtomicLong();
+    private final AtomicLong idleBytes = new AtomicLong();
+    private final AtomicLong bytesCopied = new AtomicLong();
+
+    public ReceiveBufferPool(int initialCapacity, int maxCapacity, long maxIdleBytes, boolean useDirectBuffers) {
+        this.maxCapacity = maxCapacity;
+        this.initialCapacity = this.capacityFor(initialCapacity);
+        this.maxIdleBytes = maxIdleBytes;
+        this.useDirectBuffers = useDirectBuffers;
+    }
+
+    public int getInitialCapacity() {
+        return this.initialCapacity;
+    }
+
+    public int getMaxCapacity() {
+        return this.maxCapacity;
+    }
+
+    /** Returns empty buffer, ready for writing, with capacity at least <tt>minCapacity</tt> (but no more than max capacity). */
+    public ByteBuffer acquire(int minCapacity) {
+        int capacity = this.capacityFor(minCapacity);
+
+        ByteBuffer buffer = null;
+        Queue<ByteBuffer> idleQueue = this.idleBuffersByCapacity.get(capacity);
+        if (idleQueue != null)
+            buffer = idleQueue.poll();
+
+        if (buffer != null) {
+            this.idleBuffers.decrementAndGet();
+            this.idleBytes.addAndGet(-capacity);
+        } else {
+            buffer = this.useDirectBuffers ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+
+        this.buffersInUse.incrementAndGet();
+        this.bytesInUse.addAndGet(capacity);
+
+        return buffer;
+    }
+
+    /** Returns buffer to pool. Caller must not use buffer afterwards. */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+
+        this.buffersInUse.decrementAndGet();
+        this.bytesInUse.addAndGet(-capacity);
+
+        // Keep buffer, unless pool already holds enough
+        if (this.idleBytes.addAndGet(capacity) > this.maxIdleBytes) {
+            this.idleBytes.addAndGet(-capacity);
+            return;
+        }
+
+        buffer.clear();
+        this.idleBuffersByCapacity.computeIfAbsent(capacity, k -> new ConcurrentLinkedQueue<>()).offer(buffer);
+        this.idleBuffers.incrementAndGet();
+    }
+
+    /**
+     * Moves contents of <tt>buffer</tt>, which is in writing mode, to new buffer with capacity at least <tt>minCapacity</tt>,
+     * returning old buffer to pool.
+     *
+     * @return new buffer, in writing mode, positioned after copied contents
+     */
+    public ByteBuffer resize(ByteBuffer buffer, int minCapacity) {
+        ByteBuffer newBuffer = this.acquire(Math.max(minCapacity, buffer.position()));
+
+        buffer.flip();
+        this.bytesCopied.addAndGet(buffer.remaining());
+        newBuffer.put(buffer);
+
+        this.release(buffer);
+
+        return newBuffer;
+    }
+
+    private int capacityFor(int minCapacity) {
+        if (minCapacity >= this.maxCapacity)
+            return this.maxCapacity;
+
+        int capacity = Integer.highestOneBit(Math.max(minCapacity, 1));
+        if (capacity < minCapacity)
+            capacity <<= 1;
+
+        return Math.min(capacity, this.maxCapacity);
+    }
+
+    public long getBuffersInUse() {
+        return this.buffersInUse.get();
+    }
+
+    public long getBytesInUse() {
+        return this.bytesInUse.get();
+    }
+
+    public long getIdleBuffers() {
+        return this.idleBuffers.get();
+    }
+
+    public long getIdleBytes() {
+        return this.idleBytes.get();
+    }
+
+    /** Returns total bytes copied when moving buffered contents between buffers. */
+    public long getBytesCopied() {
+        return this.bytesCopied.get();
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.qortal.network;
+
+/**
+ * Token bucket rate limiter, in bytes.
+ * <p>
+ * Bucket refills at <tt>rate</tt> bytes per second, holding up to one second's worth.
+ * Sending is allowed whenever the bucket isn't empty, with the whole send then taken from the bucket,
+ * possibly leaving it in debt. This means sends larger than the bucket still go through,
+ * with the debt paid off by waiting before the next send.
+ * <p>
+ * A rate of 0 means unlimited.
+ * <p>
+ * Times are passed in, as milliseconds, so callers can share one clock reading between buckets.
+ */
+public class TokenBucket {
+
+    private long rate;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long rate, long now) {
+        this.rate = rate;
+        this.tokens = rate;
+        this.lastRefill = now;
+    }
+
+    public synchronized long getRate() {
+        return this.rate;
+    }
+
+    /** Changes refill rate, keeping any debt but trimming any excess tokens. */
+    public synchronized void setRate(long rate, long now) {
+        this.refill(now);
+
+        this.rate = rate;
+        this.tokens = Math.min(this.tokens, rate);
+    }
+
+    /** Returns whether sending is allowed now. */
+    public synchronized boolean isAvailable(long now) {
+        if (this.rate == 0)
+            return true;
+
+        this.refill(now);
+        return this.tokens > 0;
+    }
+
+    /** Takes <tt>amount</tt> bytes from bucket, possibly leaving it in debt. */
+    public synchronized void consume(long amount, long now) {
+        if (this.rate == 0)
+            return;
+
+        this.refill(now);
+        this.tokens -= amount;
+    }
+
+    /** Returns time (ms) until sending is allowed, or 0 if allowed now. */
+    public synchronized long getWaitTime(long now) {
+        if (this.rate == 0)
+            return 0L;
+
+        this.refill(now);
+        if (this.tokens > 0)
+            return 0L;
+
+        // Round up, plus one, so that bucket is non-empty after waiting
+        return (long) Math.ceil(-this.tokens * 1000.0 / this.rate) + 1L;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - this.lastRefill;
+        if (elapsed <= 0)
+            return;
+
+        this.tokens = Math.min(this.rate, this.tokens + this.rate * elapsed / 1000.0);
+        this.lastRefill = now;
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.qortal.network.message;
+
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import org.qortal.transform.Transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * For requesting online accounts info from remote peer, given our hashes of online accounts
+ * for some leading-byte buckets, at finer two-byte prefix granularity.
+ * <p></p>
+ * Typically sent in reply to {@link GetOnlineAccountsV3Message} for only those leading-byte buckets whose hashes didn't match,
+ * so that remote peer only needs to send online accounts from the two-byte prefixes that differ,
+ * rather than every online account in the mismatched leading-byte bucket.
+ * <p></p>
+ * Remote peer only considers leading-byte buckets that are present in this message.
+ * <p></p>
+ * V4 is: groups of: timestamp, number of entries (one per two-byte prefix), then hash(pubkeys) for each entry
+ * <p></p>
+ * End
+ */
+public class GetOnlineAccountsV4Message extends Message {
+
+	public static final long MIN_PEER_VERSION = 0x500000007L; // 5.0.7
+
+	private static final Map<Long, Map<Short, byte[]>> EMPTY_ONLINE_ACCOUNTS = Collections.emptyMap();
+	private Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefix;
+
+	public GetOnlineAccountsV4Message(Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefix) {
+		super(MessageType.GET_ONLINE_ACCOUNTS_V4);
+
+		// If we don't have ANY online accounts then it's an easier construction...
+		if (hashesByTimestampThenPrefix.isEmpty()) {
+			this.dataBytes = EMPTY_DATA_BYTES;
+			return;
+		}
+
+		// We should know exactly how many bytes to allocate now
+		int byteSize = hashesByTimestampThenPrefix.size() * (Transformer.TIMESTAMP_LENGTH + Transformer.INT_LENGTH);
+
+		byteSize += hashesByTimestampThenPrefix.values()
+				.stream()
+				.mapToInt(map -> map.size() * Transformer.PUBLIC_KEY_LENGTH)
+				.sum();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(byteSize);
+
+		// Warning: no double-checking/fetching! We must be ConcurrentMap compatible.
+		// So no contains() then get() or multiple get()s on the same key/map.
+		try {
+			for (var outerMapEntry : hashesByTimestampThenPrefix.entrySet()) {
+				// Take a copy of values so count and hashes are consistent
+				var hashes = outerMapEntry.getValue().values().toArray(new byte[0][]);
+
+				bytes.write(Longs.toByteArray(outerMapEntry.getKey()));
+
+				bytes.write(Ints.toByteArray(hashes.length));
+
+				for (byte[] hashBytes : hashes) {
+					bytes.write(hashBytes);
+				}
+			}
+		} catch (IOException e) {
+			throw new AssertionError("IOException shouldn't occur with ByteArrayOutputStream");
+		}
+
+		this.dataBytes = bytes.toByteArray();
+		this.checksumBytes = Message.generateChecksum(this.dataBytes);
+	}
+
+	private GetOnlineAccountsV4Message(int id, Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefix) {
+		super(id, MessageType.GET_ONLINE_ACCOUNTS_V4);
+
+		this.hashesByTimestampThenPrefix = hashesByTimestampThenPrefix;
+	}
+
+	public Map<Long, Map<Short, byte[]>> getHashesByTimestampThenPrefix() {
+		return this.hashesByTimestampThenPrefix;
+	}
+
+	/** Returns two-byte prefix of public key, or hash of public keys, as used for map keys. */
+	public static short getPrefix(byte[] publicKeyOrHash) {
+		return (short) (((publicKeyOrHash[0] & 0xFF) << 8) | (publicKeyOrHash[1] & 0xFF));
+	}
+
+	/** Returns leading byte of two-byte prefix. */
+	public static byte getLeadingByte(short prefix) {
+		return (byte) (prefix >> 8);
+	}
+
+	public static Message fromByteBuffer(int id, ByteBuffer bytes) throws MessageException {
+		// 'empty' case
+		if (!bytes.hasRemaining()) {
+			return new GetOnlineAccountsV4Message(id, EMPTY_ONLINE_ACCOUNTS);
+		}
+
+		Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefix = new HashMap<>();
+
+		while (bytes.hasRemaining()) {
+			long timestamp = bytes.getLong();
+
+			int hashCount = bytes.getInt();
+			if (hashCount < 0 || hashCount > 0x10000)
+				throw new MessageException("Invalid number of online account hashes");
+
+			Map<Short, byte[]> hashesByPrefix = new HashMap<>();
+
+			for (int i = 0; i < hashCount; ++i) {
+				byte[] publicKeyHash = new byte[Transformer.PUBLIC_KEY_LENGTH];
+				bytes.get(publicKeyHash);
+
+				hashesByPrefix.put(getPrefix(publicKeyHash), publicKeyHash);
+			}
+
+			hashesByTimestampThenPrefix.put(timestamp, hashesByPrefix);
+		}
+
+		return new GetOnlineAccountsV4Message(id, hashesByTimestampThenPrefix);
+	}
+
+}
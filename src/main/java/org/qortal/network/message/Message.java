@@ -6,7 +6,6 @@ import org.qortal.network.Network;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
@@ -35,17 +34,16 @@ import java.util.Arrays;
 public abstract class Message {
 
 	// MAGIC(4) + TYPE(4) + HAS-ID(1) + ID?(4) + DATA-SIZE(4) + CHECKSUM?(4) + DATA?(*)
-	private static final int MAGIC_LENGTH = 4;
-	private static final int TYPE_LENGTH = 4;
-	private static final int HAS_ID_LENGTH = 1;
-	private static final int ID_LENGTH = 4;
-	private static final int DATA_SIZE_LENGTH = 4;
-	private static final int CHECKSUM_LENGTH = 4;
+	static final int MAGIC_LENGTH = 4;
+	static final int TYPE_LENGTH = 4;
+	static final int HAS_ID_LENGTH = 1;
+	static final int ID_LENGTH = 4;
+	static final int DATA_SIZE_LENGTH = 4;
+	static final int CHECKSUM_LENGTH = 4;
 
-	private static final int MAX_DATA_SIZE = 10 * 1024 * 1024; // 10MB
+	static final int MAX_DATA_SIZE = 10 * 1024 * 1024; // 10MB
 
 	protected static final byte[] EMPTY_DATA_BYTES = new byte[0];
-	private static final ByteBuffer EMPTY_READ_ONLY_BYTE_BUFFER = ByteBuffer.wrap(EMPTY_DATA_BYTES).asReadOnlyBuffer();
 
 	protected int id;
 	protected final MessageType type;
@@ -54,6 +52,8 @@ public abstract class Message {
 	protected byte[] dataBytes;
 	/** Serialized outgoing message checksum. Expected to be written to by subclass. */
 	protected byte[] checksumBytes;
+	/** Read-only views of checksum and data, shared by every send of this message (and its clones). Built on first send. */
+	private volatile ByteBuffer[] payloadBuffers;
 
 	/** Typically called by subclass when constructing message from received network data. */
 	protected Message(int id, MessageType type) {
@@ -82,75 +82,22 @@ public abstract class Message {
 		return this.type;
 	}
 
+	/** Returns length of serialized data of message built for sending, or 0 for received messages. */
+	public int getDataLength() {
+		return this.dataBytes != null ? this.dataBytes.length : 0;
+	}
+
 	/**
 	 * Attempt to read a message from byte buffer.
+	 * <p>
+	 * For repeated attempts as bytes arrive, use a long-lived {@link MessageFrameDecoder} instead, so header is only parsed once.
 	 * 
 	 * @param readOnlyBuffer ByteBuffer containing bytes read from network
 	 * @return null if no complete message can be read
 	 * @throws MessageException if message could not be decoded or is invalid
 	 */
 	public static Message fromByteBuffer(ByteBuffer readOnlyBuffer) throws MessageException {
-		try {
-			// Read only enough bytes to cover Message "magic" preamble
-			byte[] messageMagic = new byte[MAGIC_LENGTH];
-			readOnlyBuffer.get(messageMagic);
-
-			if (!Arrays.equals(messageMagic, Network.getInstance().getMessageMagic()))
-				// Didn't receive correct Message "magic"
-				throw new MessageException("Received incorrect message 'magic'");
-
-			// Find supporting object
-			int typeValue = readOnlyBuffer.getInt();
-			MessageType messageType = MessageType.valueOf(typeValue);
-			if (messageType == null)
-				messageType = MessageType.UNSUPPORTED;
-
-			// Optional message ID
-			byte hasId = readOnlyBuffer.get();
-			int id = -1;
-			if (hasId != 0) {
-				id = readOnlyBuffer.getInt();
-
-				if (id <= 0)
-					// Invalid ID
-					throw new MessageException("Invalid negative ID");
-			}
-
-			int dataSize = readOnlyBuffer.getInt();
-
-			if (dataSize > MAX_DATA_SIZE)
-				// Too large
-				throw new MessageException(String.format("Declared data length %d larger than max allowed %d", dataSize, MAX_DATA_SIZE));
-
-			// Don't have all the data yet?
-			if (dataSize > 0 && dataSize + CHECKSUM_LENGTH > readOnlyBuffer.remaining())
-				return null;
-
-			ByteBuffer dataSlice = EMPTY_READ_ONLY_BYTE_BUFFER;
-			if (dataSize > 0) {
-				byte[] expectedChecksum = new byte[CHECKSUM_LENGTH];
-				readOnlyBuffer.get(expectedChecksum);
-
-				// Slice data in readBuffer so we can pass to Message subclass
-				dataSlice = readOnlyBuffer.slice();
-				dataSlice.limit(dataSize);
-
-				// Test checksum
-				byte[] actualChecksum = generateChecksum(dataSlice);
-				if (!Arrays.equals(expectedChecksum, actualChecksum))
-					throw new MessageException("Message checksum incorrect");
-
-				// Reset position after being consumed by generateChecksum
-				dataSlice.position(0);
-				// Update position in readOnlyBuffer
-				readOnlyBuffer.position(readOnlyBuffer.position() + dataSize);
-			}
-
-			return messageType.fromByteBuffer(id, dataSlice);
-		} catch (BufferUnderflowException e) {
-			// Not enough bytes to fully decode message...
-			return null;
-		}
+		return new MessageFrameDecoder(Network.getInstance().getMessageMagic()).decode(readOnlyBuffer);
 	}
 
 	protected static byte[] generateChecksum(byte[] data) {
@@ -209,6 +156,54 @@ public abstract class Message {
 		}
 	}
 
+	/**
+	 * Returns message framed for sending, as buffers for a gathering write: header, then checksum and data if any.
+	 * <p>
+	 * Unlike {@link #toBytes()}, payload isn't copied. Read-only views of payload are built once and shared
+	 * by every send, e.g. when broadcasting to many peers, with only the small header built per send
+	 * as it includes message ID, which can differ between sends.
+	 * <p>
+	 * Returned buffers belong to caller.
+	 */
+	public ByteBuffer[] toFrame() throws MessageException {
+		checkValidOutgoing();
+
+		int headerLength = MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH + (this.hasId() ? ID_LENGTH : 0) + DATA_SIZE_LENGTH;
+		int messageLength = headerLength + (this.dataBytes.length > 0 ? CHECKSUM_LENGTH + this.dataBytes.length : 0);
+
+		if (messageLength > MAX_DATA_SIZE)
+			throw new MessageException(String.format("About to send message with length %d larger than allowed %d", messageLength, MAX_DATA_SIZE));
+
+		ByteBuffer header = ByteBuffer.allocate(headerLength);
+		header.put(Network.getInstance().getMessageMagic());
+		header.putInt(this.type.value);
+
+		if (this.hasId()) {
+			header.put((byte) 1);
+			header.putInt(this.id);
+		} else {
+			header.put((byte) 0);
+		}
+
+		header.putInt(this.dataBytes.length);
+		header.flip();
+
+		if (this.dataBytes.length == 0)
+			return new ByteBuffer[] { header };
+
+		ByteBuffer[] payloadBuffers = this.payloadBuffers;
+		if (payloadBuffers == null) {
+			payloadBuffers = new ByteBuffer[] {
+					ByteBuffer.wrap(this.checksumBytes).asReadOnlyBuffer(),
+					ByteBuffer.wrap(this.dataBytes).asReadOnlyBuffer()
+			};
+			this.payloadBuffers = payloadBuffers;
+		}
+
+		// Duplicates so each send has its own position
+		return new ByteBuffer[] { header, payloadBuffers[0].duplicate(), payloadBuffers[1].duplicate() };
+	}
+
 	public static <M extends Message> M cloneWithNewId(M message, int newId) {
 		M clone;
 
@@ -0,0 +1,161 @@
+package org.qortal.network.message;
+
+import org.qortal.crypto.Crypto;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.qortal.network.message.Message.*;
+
+/**
+ * Decodes messages from a peer's receive buffer, as bytes trickle in.
+ * <p>
+ * Each frame's header is parsed, and validated, only once, however many reads it takes for the rest of the frame to arrive.
+ * Once the whole frame has arrived, its checksum is verified, without copying, and the message subclass
+ * is handed a read-only slice of the receive buffer to decode from.
+ * <p>
+ * Not thread-safe: expected to be used by one peer, under that peer's receive buffer lock.
+ */
+public class MessageFrameDecoder {
+
+	private static final ByteBuffer EMPTY_READ_ONLY_BYTE_BUFFER = ByteBuffer.wrap(EMPTY_DATA_BYTES).asReadOnlyBuffer();
+
+	private final byte[] messageMagic;
+
+	// Header of frame currently being received, valid if headerLength > 0
+	private int headerLength;
+	private MessageType messageType;
+	private int id;
+	private int dataSize;
+
+	private long headersParsed;
+
+	public MessageFrameDecoder(byte[] messageMagic) {
+		this.messageMagic = messageMagic;
+	}
+
+	/**
+	 * Attempt to read a message from start of byte buffer.
+	 * <p>
+	 * If a whole frame is available, buffer's position is moved to end of frame.
+	 * Otherwise buffer's position is unchanged, and any parsed header is kept for next attempt.
+	 *
+	 * @param readOnlyBuffer ByteBuffer containing bytes read from network
+	 * @return null if no complete message can be read
+	 * @throws MessageException if message could not be decoded or is invalid
+	 */
+	public Message decode(ByteBuffer readOnlyBuffer) throws MessageException {
+		if (this.headerLength == 0 && !this.parseHeader(readOnlyBuffer))
+			return null;
+
+		int frameLength = this.getFrameLength();
+		if (readOnlyBuffer.remaining() < frameLength)
+			return null;
+
+		int frameStart = readOnlyBuffer.position();
+
+		ByteBuffer dataSlice = EMPTY_READ_ONLY_BYTE_BUFFER;
+		if (this.dataSize > 0) {
+			int checksumStart = frameStart + this.headerLength;
+
+			// Slice data in readBuffer so we can pass to Message subclass
+			dataSlice = readOnlyBuffer.duplicate();
+			dataSlice.limit(checksumStart + CHECKSUM_LENGTH + this.dataSize);
+			dataSlice.position(checksumStart + CHECKSUM_LENGTH);
+			dataSlice = dataSlice.slice();
+
+			// Test checksum, comparing in place
+			byte[] actualDigest = Crypto.digest(dataSlice);
+			for (int i = 0; i < CHECKSUM_LENGTH; ++i)
+				if (actualDigest[i] != readOnlyBuffer.get(checksumStart + i))
+					throw new MessageException("Message checksum incorrect");
+
+			// Reset position after being consumed by digest
+			dataSlice.rewind();
+		}
+
+		MessageType frameMessageType = this.messageType;
+		int frameId = this.id;
+
+		// Ready for next frame
+		this.headerLength = 0;
+		readOnlyBuffer.position(frameStart + frameLength);
+
+		try {
+			return frameMessageType.fromByteBuffer(frameId, dataSlice);
+		} catch (BufferUnderflowException e) {
+			// Whole frame was available, so message subclass expected more data than peer declared
+			throw new MessageException(String.format("Truncated %s message", frameMessageType.name()));
+		}
+	}
+
+	/**
+	 * Returns total length of frame currently being received, as declared by its header,
+	 * or null if header hasn't arrived yet.
+	 */
+	public Integer getFrameLength() {
+		if (this.headerLength == 0)
+			return null;
+
+		return this.dataSize > 0 ? this.headerLength + CHECKSUM_LENGTH + this.dataSize : this.headerLength;
+	}
+
+	/** Returns number of frame headers parsed so far, i.e. number of frames started. */
+	public long getHeadersParsed() {
+		return this.headersParsed;
+	}
+
+	/** Parses, and validates, frame header at start of buffer, returning false if header is incomplete. Buffer's position is unchanged. */
+	private boolean parseHeader(ByteBuffer readOnlyBuffer) throws MessageException {
+		int position = readOnlyBuffer.position();
+		int remaining = readOnlyBuffer.remaining();
+
+		if (remaining < MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH)
+			return false;
+
+		// Check Message "magic" preamble, in place
+		for (int i = 0; i < MAGIC_LENGTH; ++i)
+			if (readOnlyBuffer.get(position + i) != this.messageMagic[i])
+				throw new MessageException("Received incorrect message 'magic'");
+
+		byte hasId = readOnlyBuffer.get(position + MAGIC_LENGTH + TYPE_LENGTH);
+		int frameHeaderLength = MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH + (hasId != 0 ? ID_LENGTH : 0) + DATA_SIZE_LENGTH;
+
+		if (remaining < frameHeaderLength)
+			return false;
+
+		// Find supporting object
+		int typeValue = readOnlyBuffer.getInt(position + MAGIC_LENGTH);
+		MessageType frameMessageType = MessageType.valueOf(typeValue);
+		if (frameMessageType == null)
+			frameMessageType = MessageType.UNSUPPORTED;
+
+		// Optional message ID
+		int frameId = -1;
+		if (hasId != 0) {
+			frameId = readOnlyBuffer.getInt(position + MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH);
+
+			if (frameId <= 0)
+				// Invalid ID
+				throw new MessageException("Invalid negative ID");
+		}
+
+		int frameDataSize = readOnlyBuffer.getInt(position + frameHeaderLength - DATA_SIZE_LENGTH);
+
+		if (frameDataSize > MAX_DATA_SIZE)
+			// Too large
+			throw new MessageException(String.format("Declared data length %d larger than max allowed %d", frameDataSize, MAX_DATA_SIZE));
+
+		if (frameDataSize < 0)
+			throw new MessageException(String.format("Invalid negative data length %d", frameDataSize));
+
+		this.headerLength = frameHeaderLength;
+		this.messageType = frameMessageType;
+		this.id = frameId;
+		this.dataSize = frameDataSize;
+		++this.headersParsed;
+
+		return true;
+	}
+
+}
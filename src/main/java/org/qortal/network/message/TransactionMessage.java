@@ -17,6 +17,14 @@ public class TransactionMessage extends Message {
 		this.checksumBytes = Message.generateChecksum(this.dataBytes);
 	}
 
+	/** Constructs message using already-serialized transaction, e.g. from cache. */
+	public TransactionMessage(byte[] transactionBytes) {
+		super(MessageType.TRANSACTION);
+
+		this.dataBytes = transactionBytes;
+		this.checksumBytes = Message.generateChecksum(this.dataBytes);
+	}
+
 	private TransactionMessage(int id, TransactionData transactionData) {
 		super(id, MessageType.TRANSACTION);
 
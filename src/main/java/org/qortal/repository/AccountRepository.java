@@ -14,6 +14,9 @@ public interface AccountRepository {
 	/** Returns all general information about account, e.g. public key, last reference, default group ID. */
 	public AccountData getAccount(String address) throws DataException;
 
+	/** Returns general information about accounts, in no particular order. Addresses without accounts are omitted. */
+	public List<AccountData> getAccounts(List<String> addresses) throws DataException;
+
 	/** Returns accounts with <b>any</b> bit set in given mask. */
 	public List<AccountData> getFlaggedAccounts(int mask) throws DataException;
 
@@ -196,6 +199,24 @@ public interface AccountRepository {
 
 	public void delete(String address, long assetId) throws DataException;
 
+	// Batched changes
+
+	/**
+	 * Starts buffering account balance, last-reference and level changes in memory, e.g. during block processing.
+	 * <p>
+	 * Buffered changes are visible to {@link #getBalance(String, long)}, {@link #getLastReference(String)}
+	 * and {@link #getLevel(String)}. Other repository methods involving accounts or their balances, savepoints and commits
+	 * call {@link #flushBatchedChanges()} first, and rolling back discards them. Code using raw SQL statements
+	 * should call {@link #flushBatchedChanges()} itself.
+	 */
+	public void beginBatchedChanges();
+
+	/** Writes buffered account changes to repository in batches. */
+	public void flushBatchedChanges() throws DataException;
+
+	/** Stops buffering account changes. Any still-buffered changes are written by next account query, savepoint or commit. */
+	public void endBatchedChanges();
+
 	// Reward-shares
 
 	public RewardShareData getRewardShare(byte[] mintingAccountPublicKey, String recipientAccount) throws DataException;
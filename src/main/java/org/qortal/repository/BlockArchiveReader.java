@@ -8,12 +8,17 @@ import org.qortal.settings.Settings;
 import org.qortal.transform.TransformationException;
 import org.qortal.transform.block.BlockTransformation;
 import org.qortal.transform.block.BlockTransformer;
+import org.qortal.utils.Pair;
 import org.qortal.utils.Triple;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 import static org.qortal.transform.Transformer.INT_LENGTH;
@@ -21,12 +26,112 @@ import static org.qortal.transform.Transformer.INT_LENGTH;
 public class BlockArchiveReader {
 
     private static BlockArchiveReader instance;
-    private Map<String, Triple<Integer, Integer, Integer>> fileListCache;
+    /** Archive filename and end height, keyed by start height, for height lookups via floorEntry() */
+    private volatile NavigableMap<Integer, Pair<String, Integer>> heightIndex;
+
+    /** Memory-mapped archive files, keyed by filename, in least-recently-used order */
+    private final Map<String, MappedArchiveFile> mappedFiles;
 
     private static final Logger LOGGER = LogManager.getLogger(BlockArchiveReader.class);
 
+    /** Length of the fixed header at the start of every archive file: version, start/end height, block count, index length */
+    private static final int FIXED_HEADER_LENGTH = 5 * INT_LENGTH;
+
+    /**
+     * A read-only memory mapping of a single archive file, along with its parsed header.
+     * <p>
+     * Archive files are never modified once written, so a mapping stays valid until the
+     * file list is invalidated (e.g. when a new file is written, or the archive is rebuilt).
+     * <p>
+     * Block bytes are always copied out, so no references to the mapping escape, and it can be
+     * unmapped once dropped from <tt>mappedFiles</tt> and garbage collected.
+     */
+    private static class MappedArchiveFile {
+        private final String filename;
+        private final MappedByteBuffer buffer;
+        private final int version;
+        private final int startHeight;
+        private final int endHeight;
+        private final int indexStart;
+        private final int dataSegmentStart;
+
+        private MappedArchiveFile(String filename, MappedByteBuffer buffer) throws IOException {
+            if (buffer.capacity() < FIXED_HEADER_LENGTH)
+                throw new IOException(String.format("Archive file %s is truncated", filename));
+
+            this.filename = filename;
+            this.buffer = buffer;
+            this.version = buffer.getInt(0);
+            this.startHeight = buffer.getInt(INT_LENGTH);
+            this.endHeight = buffer.getInt(2 * INT_LENGTH);
+            // Block count at offset 3 * INT_LENGTH is unused
+            final int variableHeaderLength = buffer.getInt(4 * INT_LENGTH);
+
+            this.indexStart = FIXED_HEADER_LENGTH;
+            // Data segment is prefixed with its own length
+            this.dataSegmentStart = FIXED_HEADER_LENGTH + variableHeaderLength + INT_LENGTH;
+        }
+
+        /** Returns offset of block's record (height, length, bytes) within the mapping, or -1 if the index is truncated or corrupt. */
+        private int getBlockRecordOffset(int height) {
+            final long indexOffset = this.indexStart + (long) (height - this.startHeight) * INT_LENGTH;
+            if (indexOffset < 0 || indexOffset + INT_LENGTH > this.buffer.capacity()) {
+                LOGGER.info("Error: index entry for block {} in file {} extends beyond end of file", height, this.filename);
+                return -1;
+            }
+
+            final long recordOffset = (long) this.dataSegmentStart + this.buffer.getInt((int) indexOffset);
+            if (recordOffset < 0 || recordOffset > Integer.MAX_VALUE) {
+                LOGGER.info("Error: invalid offset for block {} in file {}", height, this.filename);
+                return -1;
+            }
+
+            return (int) recordOffset;
+        }
+
+        /**
+         * Returns a copy of the serialized block whose record starts at <tt>recordOffset</tt>, preceded by
+         * <tt>prefixLength</tt> zero bytes, or null if the record is not for <tt>height</tt>.
+         */
+        private byte[] readBlockRecord(int recordOffset, int height, int prefixLength) {
+            if (recordOffset < 0 || (long) recordOffset + 2 * INT_LENGTH > this.buffer.capacity()) {
+                LOGGER.info("Error: block {} in file {} extends beyond end of file", height, this.filename);
+                return null;
+            }
+
+            final int blockHeight = this.buffer.getInt(recordOffset);
+            final int blockLength = this.buffer.getInt(recordOffset + INT_LENGTH);
+
+            // Ensure the block height matches the one requested
+            if (blockHeight != height) {
+                LOGGER.info("Error: height {} does not match requested: {}", blockHeight, height);
+                return null;
+            }
+
+            final int blockOffset = recordOffset + 2 * INT_LENGTH;
+            if (blockLength < 0 || (long) blockOffset + blockLength > this.buffer.capacity()) {
+                LOGGER.info("Error: block {} in file {} extends beyond end of file", height, this.filename);
+                return null;
+            }
+
+            byte[] bytes = new byte[prefixLength + blockLength];
+            ByteBuffer blockBuffer = this.buffer.duplicate();
+            blockBuffer.position(blockOffset);
+            blockBuffer.get(bytes, prefixLength, blockLength);
+            return bytes;
+        }
+    }
+
     public BlockArchiveReader() {
+        final int maxMappedFiles = Settings.getInstance().getArchiveMappedFileCacheSize();
 
+        this.mappedFiles = new LinkedHashMap<>(maxMappedFiles + 1, 0.75F, true) {
+            // This method is called just after a new entry has been added
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MappedArchiveFile> eldest) {
+                return size() > maxMappedFiles;
+            }
+        };
     }
 
     public static synchronized BlockArchiveReader getInstance() {
@@ -37,11 +142,11 @@ public class BlockArchiveReader {
         return instance;
     }
 
-    private void fetchFileList() {
+    private NavigableMap<Integer, Pair<String, Integer>> fetchFileList() {
         Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive").toAbsolutePath();
         File archiveDirFile = archivePath.toFile();
         String[] files = archiveDirFile.list();
-        Map<String, Triple<Integer, Integer, Integer>> map = new HashMap<>();
+        NavigableMap<Integer, Pair<String, Integer>> index = new TreeMap<>();
 
         if (files != null) {
             for (String file : files) {
@@ -57,15 +162,16 @@ public class BlockArchiveReader {
                 String[] parts = filename.substring(0, filename.lastIndexOf('.')).split("-");
                 Integer startHeight = Integer.parseInt(parts[0]);
                 Integer endHeight = Integer.parseInt(parts[1]);
-                Integer range = endHeight - startHeight;
-                map.put(filename, new Triple(startHeight, endHeight, range));
+                index.put(startHeight, new Pair<>(filename, endHeight));
             }
         }
-        this.fileListCache = Map.copyOf(map);
+        NavigableMap<Integer, Pair<String, Integer>> heightIndex = Collections.unmodifiableNavigableMap(index);
+        this.heightIndex = heightIndex;
+        return heightIndex;
     }
 
     public Integer fetchSerializationVersionForHeight(int height) {
-        if (this.fileListCache == null) {
+        if (this.heightIndex == null) {
             this.fetchFileList();
         }
 
@@ -78,21 +184,23 @@ public class BlockArchiveReader {
     }
 
     public BlockTransformation fetchBlockAtHeight(int height) {
-        if (this.fileListCache == null) {
+        if (this.heightIndex == null) {
             this.fetchFileList();
         }
 
         Triple<byte[], Integer, Integer> serializedBlock = this.fetchSerializedBlockBytesForHeight(height);
-        if (serializedBlock == null) {
+        if (serializedBlock == null || serializedBlock.getA() == null) {
             return null;
         }
-        byte[] serializedBytes = serializedBlock.getA();
-        Integer serializationVersion = serializedBlock.getB();
-        if (serializedBytes == null || serializationVersion == null) {
+
+        return this.transformBlock(ByteBuffer.wrap(serializedBlock.getA()), serializedBlock.getB(), height);
+    }
+
+    private BlockTransformation transformBlock(ByteBuffer byteBuffer, Integer serializationVersion, int height) {
+        if (byteBuffer == null || serializationVersion == null) {
             return null;
         }
 
-        ByteBuffer byteBuffer = ByteBuffer.wrap(serializedBytes);
         BlockTransformation blockInfo = null;
         try {
             switch (serializationVersion) {
@@ -122,7 +230,7 @@ public class BlockArchiveReader {
 
     public BlockTransformation fetchBlockWithSignature(byte[] signature, Repository repository) {
 
-        if (this.fileListCache == null) {
+        if (this.heightIndex == null) {
             this.fetchFileList();
         }
 
@@ -137,12 +245,61 @@ public class BlockArchiveReader {
 
         List<BlockTransformation> blockInfoList = new ArrayList<>();
 
-        for (int height = startHeight; height <= endHeight; height++) {
-            BlockTransformation blockInfo = this.fetchBlockAtHeight(height);
-            if (blockInfo == null) {
+        if (!Settings.getInstance().isArchiveMemoryMapEnabled()) {
+            for (int height = startHeight; height <= endHeight; height++) {
+                BlockTransformation blockInfo = this.fetchBlockAtHeight(height);
+                if (blockInfo == null) {
+                    return blockInfoList;
+                }
+                blockInfoList.add(blockInfo);
+            }
+            return blockInfoList;
+        }
+
+        int height = startHeight;
+        while (height <= endHeight) {
+            String filename = this.getFilenameForHeight(height);
+            if (filename == null) {
+                // We don't have this block in the archive
+                // Invalidate the file list cache in case it is out of date
+                this.invalidateHeightIndex();
                 return blockInfoList;
             }
-            blockInfoList.add(blockInfo);
+
+            MappedArchiveFile mappedFile = this.getMappedFile(filename);
+            if (mappedFile == null) {
+                // Unable to map file, so fall back to reading it block by block
+                BlockTransformation blockInfo = this.fetchBlockAtHeight(height);
+                if (blockInfo == null) {
+                    return blockInfoList;
+                }
+                blockInfoList.add(blockInfo);
+                height++;
+                continue;
+            }
+
+            if (!this.isValidMappedFileForHeight(mappedFile, height)) {
+                return blockInfoList;
+            }
+
+            // Block records are stored contiguously, so we only need the index for the first one in each file
+            int recordOffset = mappedFile.getBlockRecordOffset(height);
+            final int lastHeightInFile = Math.min(endHeight, mappedFile.endHeight);
+
+            for (; height <= lastHeightInFile; height++) {
+                byte[] blockBytes = mappedFile.readBlockRecord(recordOffset, height, 0);
+                if (blockBytes == null) {
+                    return blockInfoList;
+                }
+
+                BlockTransformation blockInfo = this.transformBlock(ByteBuffer.wrap(blockBytes), mappedFile.version, height);
+                if (blockInfo == null) {
+                    return blockInfoList;
+                }
+                blockInfoList.add(blockInfo);
+
+                recordOffset += 2 * INT_LENGTH + blockBytes.length;
+            }
         }
         return blockInfoList;
     }
@@ -172,74 +329,88 @@ public class BlockArchiveReader {
     }
 
     private String getFilenameForHeight(int height) {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+        NavigableMap<Integer, Pair<String, Integer>> heightIndex = this.heightIndex;
+        if (heightIndex == null) {
+            heightIndex = this.fetchFileList();
         }
 
-        Iterator it = this.fileListCache.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry) it.next();
-            if (pair == null && pair.getKey() == null && pair.getValue() == null) {
-                continue;
-            }
-            Triple<Integer, Integer, Integer> heightInfo = (Triple<Integer, Integer, Integer>) pair.getValue();
-            Integer startHeight = heightInfo.getA();
-            Integer endHeight = heightInfo.getB();
-
-            if (height >= startHeight && height <= endHeight) {
-                // Found the correct file
-                String filename = (String) pair.getKey();
-                return filename;
-            }
+        Map.Entry<Integer, Pair<String, Integer>> entry = heightIndex.floorEntry(height);
+        if (entry == null || height > entry.getValue().getB()) {
+            // Height is before the first file, or falls after the end of the closest file
+            return null;
         }
 
-        return null;
+        // Found the correct file
+        return entry.getValue().getA();
     }
 
     public Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForSignature(byte[] signature, boolean includeHeightPrefix, Repository repository) {
-        if (this.fileListCache == null) {
+        if (this.heightIndex == null) {
             this.fetchFileList();
         }
 
         Integer height = this.fetchHeightForSignature(signature, repository);
         if (height != null) {
-            Triple<byte[], Integer, Integer> serializedBlock = this.fetchSerializedBlockBytesForHeight(height);
+            // When responding to a peer with a BLOCK message, we must prefix the byte array with the block height
+            // This mimics the toData() method in BlockMessage and CachedBlockMessage
+            final int prefixLength = includeHeightPrefix ? INT_LENGTH : 0;
+
+            // Block is read straight into the reply bytes, after room for the prefix
+            Triple<byte[], Integer, Integer> serializedBlock = this.fetchSerializedBlockBytesForHeight(height, prefixLength);
             if (serializedBlock == null) {
                 return null;
             }
-            byte[] blockBytes = serializedBlock.getA();
+            byte[] bytes = serializedBlock.getA();
             Integer version = serializedBlock.getB();
-            if (blockBytes == null || version == null) {
+            if (bytes == null || version == null) {
                 return null;
             }
 
-            // When responding to a peer with a BLOCK message, we must prefix the byte array with the block height
-            // This mimics the toData() method in BlockMessage and CachedBlockMessage
             if (includeHeightPrefix) {
-                ByteArrayOutputStream bytes = new ByteArrayOutputStream(blockBytes.length + INT_LENGTH);
-                try {
-                    bytes.write(Ints.toByteArray(height));
-                    bytes.write(blockBytes);
-                    return new Triple<>(bytes.toByteArray(), version, height);
-
-                } catch (IOException e) {
-                    return null;
-                }
+                System.arraycopy(Ints.toByteArray(height), 0, bytes, 0, INT_LENGTH);
             }
-            return new Triple<>(blockBytes, version, height);
+
+            return new Triple<>(bytes, version, height);
         }
         return null;
     }
 
     public Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForHeight(int height) {
+        return this.fetchSerializedBlockBytesForHeight(height, 0);
+    }
+
+    /**
+     * Returns serialized block at <tt>height</tt>, preceded by <tt>prefixLength</tt> zero bytes for caller to fill in,
+     * along with its serialization version and height.
+     * <p>
+     * When memory-mapping is enabled, the block bytes are copied from the mapped archive file,
+     * falling back to reading the file if it can't be mapped.
+     */
+    private Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForHeight(int height, int prefixLength) {
         String filename = this.getFilenameForHeight(height);
         if (filename == null) {
             // We don't have this block in the archive
             // Invalidate the file list cache in case it is out of date
-            this.invalidateFileListCache();
+            this.invalidateHeightIndex();
             return null;
         }
 
+        if (Settings.getInstance().isArchiveMemoryMapEnabled()) {
+            MappedArchiveFile mappedFile = this.getMappedFile(filename);
+            if (mappedFile != null) {
+                if (!this.isValidMappedFileForHeight(mappedFile, height)) {
+                    return null;
+                }
+
+                byte[] blockBytes = mappedFile.readBlockRecord(mappedFile.getBlockRecordOffset(height), height, prefixLength);
+                if (blockBytes == null) {
+                    return null;
+                }
+                return new Triple<>(blockBytes, mappedFile.version, height);
+            }
+            // Otherwise unable to map file, so read it instead
+        }
+
         Path filePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive", filename).toAbsolutePath();
         RandomAccessFile file = null;
         try {
@@ -288,8 +459,8 @@ public class BlockArchiveReader {
             }
 
             // Now retrieve the block's serialized bytes
-            byte[] blockBytes = new byte[blockLength];
-            file.read(blockBytes);
+            byte[] blockBytes = new byte[prefixLength + blockLength];
+            file.read(blockBytes, prefixLength, blockLength);
 
             return new Triple<>(blockBytes, version, height);
 
@@ -312,21 +483,62 @@ public class BlockArchiveReader {
         }
     }
 
+    private boolean isValidMappedFileForHeight(MappedArchiveFile mappedFile, int height) {
+        // Make sure the version is one we recognize
+        if (mappedFile.version != 1 && mappedFile.version != 2) {
+            LOGGER.info("Error: unknown version in file {}: {}", mappedFile.filename, mappedFile.version);
+            return false;
+        }
+
+        // Verify that the block is within the reported range
+        if (height < mappedFile.startHeight || height > mappedFile.endHeight) {
+            LOGGER.info("Error: requested height {} but the range of file {} is {}-{}",
+                    height, mappedFile.filename, mappedFile.startHeight, mappedFile.endHeight);
+            return false;
+        }
+
+        return true;
+    }
+
+    private MappedArchiveFile getMappedFile(String filename) {
+        synchronized (this.mappedFiles) {
+            MappedArchiveFile mappedFile = this.mappedFiles.get(filename);
+            if (mappedFile != null) {
+                return mappedFile;
+            }
+
+            Path filePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive", filename).toAbsolutePath();
+            // Mapping remains valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    LOGGER.info("Archive file {} is too large to map", filename);
+                    return null;
+                }
+
+                mappedFile = new MappedArchiveFile(filename, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                LOGGER.info("File {} not found: {}", filename, e.getMessage());
+                return null;
+            } catch (IOException e) {
+                LOGGER.info("Unable to map archive file {}: {}", filename, e.getMessage());
+                return null;
+            }
+
+            this.mappedFiles.put(filename, mappedFile);
+            return mappedFile;
+        }
+    }
+
     public int getHeightOfLastArchivedBlock() {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+        NavigableMap<Integer, Pair<String, Integer>> heightIndex = this.heightIndex;
+        if (heightIndex == null) {
+            heightIndex = this.fetchFileList();
         }
 
         int maxEndHeight = 0;
 
-        Iterator it = this.fileListCache.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry) it.next();
-            if (pair == null && pair.getKey() == null && pair.getValue() == null) {
-                continue;
-            }
-            Triple<Integer, Integer, Integer> heightInfo = (Triple<Integer, Integer, Integer>) pair.getValue();
-            Integer endHeight = heightInfo.getB();
+        for (Pair<String, Integer> fileInfo : heightIndex.values()) {
+            Integer endHeight = fileInfo.getB();
 
             if (endHeight != null && endHeight > maxEndHeight) {
                 maxEndHeight = endHeight;
@@ -336,8 +548,23 @@ public class BlockArchiveReader {
         return maxEndHeight;
     }
 
+    /** Forces the archive file list to be re-read, without dropping mapped files. */
+    private void invalidateHeightIndex() {
+        this.heightIndex = null;
+    }
+
+    /**
+     * Forces the archive file list to be re-read, and discards any mapped files as the archive has changed.
+     * <p>
+     * Discarded mappings are only unmapped once garbage collected, so their files might not be deletable
+     * straight away on some platforms, e.g. Windows.
+     */
     public void invalidateFileListCache() {
-        this.fileListCache = null;
+        this.heightIndex = null;
+
+        synchronized (this.mappedFiles) {
+            this.mappedFiles.clear();
+        }
     }
 
 }
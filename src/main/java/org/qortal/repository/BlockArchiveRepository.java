@@ -85,6 +85,14 @@ public interface BlockArchiveRepository {
      */
     public List<BlockSummaryData> getBlockSummariesBySigner(byte[] signerPublicKey, Integer limit, Integer offset, Boolean reverse) throws DataException;
 
+    /**
+     * Returns block summaries for the passed height range, in height order,
+     * using a single ranged read of the archive.
+     * <p>
+     * Stops at the first block missing from the archive.
+     */
+    public List<BlockSummaryData> getBlockSummaries(int firstBlockHeight, int lastBlockHeight) throws DataException;
+
     /**
      * Returns summaries of block signers, optionally limited to passed addresses.
      * This combines both the BlockArchive and the Blocks data into a single result set.
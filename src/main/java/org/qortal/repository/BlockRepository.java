@@ -144,7 +144,7 @@ public interface BlockRepository {
 	public BlockData getBlockInRangeWithHighestOnlineAccountsCount(int firstBlockHeight, int lastBlockHeight) throws DataException;
 
 	/**
-	 * Returns block summaries for the passed height range.
+	 * Returns block summaries for the passed height range, in height order.
 	 */
 	public List<BlockSummaryData> getBlockSummaries(int firstBlockHeight, int lastBlockHeight) throws DataException;
 
@@ -3,6 +3,7 @@ package org.qortal.repository;
 import org.qortal.data.group.*;
 
 import java.util.List;
+import java.util.Set;
 
 public interface GroupRepository {
 
@@ -73,6 +74,9 @@ public interface GroupRepository {
 
 	public boolean memberExists(int groupId, String address) throws DataException;
 
+	/** Returns those of <tt>addresses</tt> that are members of <b>any</b> of <tt>groupIds</tt>. */
+	public Set<String> getMembersOfAnyGroup(List<Integer> groupIds, List<String> addresses) throws DataException;
+
 	public List<GroupMemberData> getGroupMembers(int groupId, Integer limit, Integer offset, Boolean reverse) throws DataException;
 
 	public default List<GroupMemberData> getGroupMembers(int groupId) throws DataException {
@@ -0,0 +1,337 @@
+package org.qortal.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.transaction.Transaction;
+import org.qortal.transaction.Transaction.ApprovalStatus;
+import org.qortal.transaction.Transaction.TransactionType;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.transaction.TransactionTransformer;
+import org.qortal.utils.Base58;
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of unconfirmed transactions, kept in step with the repository's unconfirmed transactions.
+ * <p>
+ * Repository sessions record their changes to unconfirmed transactions as they go, but these are only
+ * applied here once the session commits, so savepoint rollbacks and discarded changes never leak out.
+ * Until then, a session sees its own pending changes overlaid on the committed set.
+ * <p>
+ * Entries are indexed in {@link Transaction#getDataComparator()} order, i.e. timestamp then signature,
+ * as well as by creator and by transaction type.
+ * <p>
+ * Transactions are held in serialized form and each reader is given freshly decoded copies,
+ * as callers (e.g. block processing) are free to modify the transaction data they receive.
+ */
+public class Mempool {
+
+	private static final Logger LOGGER = LogManager.getLogger(Mempool.class);
+
+	private static Mempool instance;
+
+	/** Loads all committed unconfirmed transactions from repository, for initial population. */
+	@FunctionalInterface
+	public interface Loader {
+		List<TransactionData> load() throws DataException;
+	}
+
+	/** Pending change to unconfirmed transactions, recorded by a repository session until it commits. */
+	public static class Change {
+		private final ByteArray signature;
+		/** Entry added to unconfirmed transactions, or null if removed */
+		private final Entry entry;
+
+		private Change(ByteArray signature, Entry entry) {
+			this.signature = signature;
+			this.entry = entry;
+		}
+
+		public static Change added(TransactionData transactionData) throws DataException {
+			return new Change(ByteArray.copyOf(transactionData.getSignature()), new Entry(transactionData));
+		}
+
+		public static Change removed(byte[] signature) {
+			return new Change(ByteArray.copyOf(signature), null);
+		}
+	}
+
+	private static class Entry {
+		/** Only used for indexing, never handed out */
+		private final TransactionData transactionData;
+		private final byte[] bytes;
+		private final ApprovalStatus approvalStatus;
+
+		private Entry(TransactionData transactionData) throws DataException {
+			try {
+				this.bytes = TransactionTransformer.toBytes(transactionData);
+				this.transactionData = TransactionTransformer.fromBytes(this.bytes);
+			} catch (TransformationException e) {
+				throw new DataException(String.format("Unable to serialize unconfirmed transaction %s", Base58.encode(transactionData.getSignature())), e);
+			}
+
+			this.approvalStatus = transactionData.getApprovalStatus();
+		}
+
+		private TransactionData decode() throws DataException {
+			try {
+				TransactionData transactionData = TransactionTransformer.fromBytes(this.bytes);
+				transactionData.setApprovalStatus(this.approvalStatus);
+				return transactionData;
+			} catch (TransformationException e) {
+				throw new DataException("Unable to deserialize unconfirmed transaction", e);
+			}
+		}
+
+		private ByteArray getSignature() {
+			return ByteArray.wrap(this.transactionData.getSignature());
+		}
+
+		private ByteArray getCreator() {
+			return ByteArray.wrap(this.transactionData.getCreatorPublicKey());
+		}
+
+		private TransactionType getType() {
+			return this.transactionData.getType();
+		}
+
+		private long getTimestamp() {
+			return this.transactionData.getTimestamp();
+		}
+	}
+
+	private static final Comparator<TransactionData> DATA_COMPARATOR = Transaction.getDataComparator();
+	private static final Comparator<Entry> ENTRY_COMPARATOR = (entry1, entry2) -> DATA_COMPARATOR.compare(entry1.transactionData, entry2.transactionData);
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private boolean isLoaded = false;
+	private final Map<ByteArray, Entry> entriesBySignature = new HashMap<>();
+	private final NavigableSet<Entry> entries = new TreeSet<>(ENTRY_COMPARATOR);
+	private final Map<ByteArray, NavigableSet<Entry>> entriesByCreator = new HashMap<>();
+	private final Map<TransactionType, NavigableSet<Entry>> entriesByType = new EnumMap<>(TransactionType.class);
+
+	private Mempool() {
+	}
+
+	public static synchronized Mempool getInstance() {
+		if (instance == null)
+			instance = new Mempool();
+
+		return instance;
+	}
+
+	/** Discards all entries, e.g. because repository has been replaced. Reloaded on next use. */
+	public void invalidate() {
+		this.lock.writeLock().lock();
+		try {
+			this.isLoaded = false;
+			this.clear();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/** Applies changes from a repository session that has just committed. */
+	public void applyChanges(List<Change> changes) {
+		if (changes.isEmpty())
+			return;
+
+		this.lock.writeLock().lock();
+		try {
+			// If not loaded yet then committed changes will be picked up by loading
+			if (!this.isLoaded)
+				return;
+
+			// Changes are idempotent, so any already picked up by loading are harmless
+			for (Change change : changes) {
+				if (change.entry != null)
+					this.add(change.entry);
+				else
+					this.remove(change.signature);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns unconfirmed transactions, in timestamp-else-signature order.
+	 *
+	 * @param txTypes only include these types, or null for all types
+	 * @param creatorPublicKey only include transactions by this creator, or null for all creators
+	 * @param minTimestamp only include transactions with timestamp not before this, or null
+	 * @param limit maximum number of transactions, or null/zero for no limit
+	 * @param offset number of transactions to skip, or null
+	 * @param reverse whether to return in reverse order
+	 * @param pendingChanges caller's uncommitted changes
+	 */
+	public List<TransactionData> getTransactions(Set<TransactionType> txTypes, byte[] creatorPublicKey, Long minTimestamp,
+			Integer limit, Integer offset, boolean reverse, List<Change> pendingChanges, Loader loader) throws DataException {
+		List<Entry> selectedEntries = this.select(txTypes, creatorPublicKey, minTimestamp, pendingChanges, loader);
+
+		if (reverse)
+			Collections.reverse(selectedEntries);
+
+		int fromIndex = offset != null ? Math.min(Math.max(offset, 0), selectedEntries.size()) : 0;
+		int toIndex = limit != null && limit > 0 ? Math.min(fromIndex + limit, selectedEntries.size()) : selectedEntries.size();
+
+		List<TransactionData> transactions = new ArrayList<>(toIndex - fromIndex);
+		for (Entry entry : selectedEntries.subList(fromIndex, toIndex))
+			transactions.add(entry.decode());
+
+		return transactions;
+	}
+
+	/** Returns number of unconfirmed transactions matching criteria. See {@link #getTransactions}. */
+	public int countTransactions(Set<TransactionType> txTypes, byte[] creatorPublicKey, Long minTimestamp,
+			List<Change> pendingChanges, Loader loader) throws DataException {
+		return this.select(txTypes, creatorPublicKey, minTimestamp, pendingChanges, loader).size();
+	}
+
+	/** Returns signatures of all unconfirmed transactions, in timestamp-else-signature order. */
+	public List<byte[]> getSignatures(boolean reverse, List<Change> pendingChanges, Loader loader) throws DataException {
+		List<Entry> selectedEntries = this.select(null, null, null, pendingChanges, loader);
+
+		if (reverse)
+			Collections.reverse(selectedEntries);
+
+		List<byte[]> signatures = new ArrayList<>(selectedEntries.size());
+		for (Entry entry : selectedEntries)
+			signatures.add(entry.transactionData.getSignature());
+
+		return signatures;
+	}
+
+	private List<Entry> select(Set<TransactionType> txTypes, byte[] creatorPublicKey, Long minTimestamp,
+			List<Change> pendingChanges, Loader loader) throws DataException {
+		this.ensureLoaded(loader);
+
+		ByteArray creator = creatorPublicKey != null ? ByteArray.wrap(creatorPublicKey) : null;
+		List<Entry> selectedEntries = new ArrayList<>();
+
+		this.lock.readLock().lock();
+		try {
+			if (creator != null) {
+				for (Entry entry : this.entriesByCreator.getOrDefault(creator, Collections.emptyNavigableSet()))
+					if (matches(entry, txTypes, null, minTimestamp))
+						selectedEntries.add(entry);
+			} else if (txTypes != null && txTypes.size() < TransactionType.values().length / 2) {
+				for (TransactionType txType : txTypes)
+					for (Entry entry : this.entriesByType.getOrDefault(txType, Collections.emptyNavigableSet()))
+						if (matches(entry, null, null, minTimestamp))
+							selectedEntries.add(entry);
+
+				if (txTypes.size() > 1)
+					selectedEntries.sort(ENTRY_COMPARATOR);
+			} else {
+				// Start from oldest entry that could match
+				for (Entry entry : this.entries)
+					if (matches(entry, txTypes, null, minTimestamp))
+						selectedEntries.add(entry);
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+
+		if (pendingChanges == null || pendingChanges.isEmpty())
+			return selectedEntries;
+
+		// Overlay caller's own uncommitted changes, in order, with later changes taking precedence
+		Map<ByteArray, Entry> pendingEntriesBySignature = new LinkedHashMap<>();
+		for (Change change : pendingChanges)
+			pendingEntriesBySignature.put(change.signature, change.entry);
+
+		selectedEntries.removeIf(entry -> pendingEntriesBySignature.containsKey(entry.getSignature()));
+
+		for (Entry entry : pendingEntriesBySignature.values())
+			if (entry != null && matches(entry, txTypes, creator, minTimestamp))
+				selectedEntries.add(entry);
+
+		selectedEntries.sort(ENTRY_COMPARATOR);
+
+		return selectedEntries;
+	}
+
+	private static boolean matches(Entry entry, Set<TransactionType> txTypes, ByteArray creator, Long minTimestamp) {
+		if (txTypes != null && !txTypes.contains(entry.getType()))
+			return false;
+
+		if (creator != null && !creator.equals(entry.getCreator()))
+			return false;
+
+		return minTimestamp == null || entry.getTimestamp() >= minTimestamp;
+	}
+
+	private void ensureLoaded(Loader loader) throws DataException {
+		this.lock.readLock().lock();
+		try {
+			if (this.isLoaded)
+				return;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+
+		// Loading holds the write lock so that commits can't be applied, and lost, part way through
+		this.lock.writeLock().lock();
+		try {
+			if (this.isLoaded)
+				return;
+
+			List<TransactionData> transactions = loader.load();
+
+			this.clear();
+			for (TransactionData transactionData : transactions)
+				this.add(new Entry(transactionData));
+
+			this.isLoaded = true;
+
+			LOGGER.debug("Loaded {} unconfirmed transaction{} into mempool", transactions.size(), (transactions.size() == 1 ? "" : "s"));
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private void add(Entry entry) {
+		ByteArray signature = entry.getSignature();
+
+		// Replace any existing entry, as index positions depend on entry contents
+		this.remove(signature);
+
+		this.entriesBySignature.put(signature, entry);
+		this.entries.add(entry);
+		this.entriesByCreator.computeIfAbsent(entry.getCreator(), k -> new TreeSet<>(ENTRY_COMPARATOR)).add(entry);
+		this.entriesByType.computeIfAbsent(entry.getType(), k -> new TreeSet<>(ENTRY_COMPARATOR)).add(entry);
+	}
+
+	private void remove(ByteArray signature) {
+		Entry entry = this.entriesBySignature.remove(signature);
+		if (entry == null)
+			return;
+
+		this.entries.remove(entry);
+
+		ByteArray creator = entry.getCreator();
+		NavigableSet<Entry> creatorEntries = this.entriesByCreator.get(creator);
+		if (creatorEntries != null) {
+			creatorEntries.remove(entry);
+			if (creatorEntries.isEmpty())
+				this.entriesByCreator.remove(creator);
+		}
+
+		NavigableSet<Entry> typeEntries = this.entriesByType.get(entry.getType());
+		if (typeEntries != null)
+			typeEntries.remove(entry);
+	}
+
+	private void clear() {
+		this.entriesBySignature.clear();
+		this.entries.clear();
+		this.entriesByCreator.clear();
+		this.entriesByType.clear();
+	}
+
+}
@@ -34,6 +34,10 @@ public abstract class RepositoryManager {
 
 	public static void setRepositoryFactory(RepositoryFactory newRepositoryFactory) {
 		repositoryFactory = newRepositoryFactory;
+
+		// Any cached unconfirmed transactions and reward-shares came from previous repository
+		Mempool.getInstance().invalidate();
+		RewardShareIndex.getInstance().invalidate();
 	}
 
 	public static boolean wasPristineAtOpen() throws DataException {
@@ -60,6 +64,9 @@ public abstract class RepositoryManager {
 	public static void closeRepositoryFactory() throws DataException {
 		repositoryFactory.close();
 		repositoryFactory = null;
+
+		Mempool.getInstance().invalidate();
+		RewardShareIndex.getInstance().invalidate();
 	}
 
 	public static void backup(boolean quick, String name, Long timeout) throws TimeoutException {
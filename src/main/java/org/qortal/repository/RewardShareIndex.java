@@ -0,0 +1,305 @@
+package org.qortal.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qortal.data.account.RewardShareData;
+import org.qortal.utils.Base58;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of reward-shares, sorted by reward-share public key, kept in step with the repository.
+ * <p>
+ * Online accounts in blocks are encoded as indexes into reward-shares sorted by public key,
+ * so block minting and validation need index-to-share and share-to-index lookups.
+ * Here these take O(log n) or better, instead of walking the whole RewardShares table.
+ * <p>
+ * As with {@link Mempool}, repository sessions record their changes to reward-shares as they go,
+ * but these are only applied here once the session commits, so savepoint rollbacks (e.g. block validation)
+ * and discarded changes never leak out. Sessions with uncommitted reward-share changes must use the repository directly.
+ * <p>
+ * Repository sessions are serializable, so a session can be reading a snapshot taken before another session
+ * committed changes to reward-shares. So each commit of reward-share changes bumps our version, atomically with
+ * the commit itself, see {@link #commitChanges(List, RepositoryAction)}. Sessions start their transactions
+ * via {@link #startTransaction(RepositoryAction)}, noting our version, and only get a {@link View}
+ * while our version still matches their snapshot. Otherwise they must use the repository directly.
+ * <p>
+ * Reward-shares change rarely compared to how often they're looked up, so entries are kept in a sorted array,
+ * replaced on each change so that views never change: lookups by index are O(1) and by public key are O(log n),
+ * with O(n) insertion and removal.
+ */
+public class RewardShareIndex {
+
+	private static final Logger LOGGER = LogManager.getLogger(RewardShareIndex.class);
+
+	private static RewardShareIndex instance;
+
+	/** Loads all reward-shares visible to repository session, sorted by reward-share public key, for initial population. */
+	@FunctionalInterface
+	public interface Loader {
+		List<RewardShareData> load() throws DataException;
+	}
+
+	/** Action on repository session, e.g. commit, or a statement that starts a transaction. */
+	@FunctionalInterface
+	public interface RepositoryAction<E extends Exception> {
+		void run() throws E;
+	}
+
+	/** Pending change to reward-shares, recorded by a repository session until it commits. */
+	public static class Change {
+		private final byte[] rewardSharePublicKey;
+		/** Reward-share added or updated, or null if removed */
+		private final RewardShareData rewardShareData;
+
+		private Change(byte[] rewardSharePublicKey, RewardShareData rewardShareData) {
+			this.rewardSharePublicKey = rewardSharePublicKey;
+			this.rewardShareData = rewardShareData;
+		}
+
+		public static Change saved(RewardShareData rewardShareData) {
+			return new Change(rewardShareData.getRewardSharePublicKey().clone(), copyOf(rewardShareData));
+		}
+
+		public static Change removed(byte[] rewardSharePublicKey) {
+			return new Change(rewardSharePublicKey.clone(), null);
+		}
+	}
+
+	/** Reward-shares as of one version. Never changes, so lookups are consistent with each other. */
+	public static class View {
+		private final List<RewardShareData> entries;
+
+		private View(List<RewardShareData> entries) {
+			this.entries = entries;
+		}
+
+		/** Returns all reward-share public keys, in sorted order. */
+		public List<byte[]> getRewardSharePublicKeys() {
+			List<byte[]> publicKeys = new ArrayList<>(this.entries.size());
+
+			for (RewardShareData rewardShareData : this.entries)
+				publicKeys.add(rewardShareData.getRewardSharePublicKey().clone());
+
+			return publicKeys;
+		}
+
+		/** Returns index of reward-share with public key, or null if no such reward-share. */
+		public Integer getIndex(byte[] rewardSharePublicKey) {
+			int index = search(this.entries, rewardSharePublicKey);
+			return index >= 0 ? index : null;
+		}
+
+		/** Returns reward-share at index, or null if out of bounds. */
+		public RewardShareData getByIndex(int index) {
+			if (index < 0 || index >= this.entries.size())
+				return null;
+
+			return copyOf(this.entries.get(index));
+		}
+
+		/** Returns reward-shares at indexes, or null if any index is out of bounds. */
+		public List<RewardShareData> getByIndexes(int[] indexes) {
+			List<RewardShareData> rewardShares = new ArrayList<>(indexes.length);
+
+			for (int index : indexes) {
+				if (index < 0 || index >= this.entries.size())
+					return null;
+
+				rewardShares.add(copyOf(this.entries.get(index)));
+			}
+
+			return rewardShares;
+		}
+	}
+
+	/** Same order as repository's <tt>ORDER BY reward_share_public_key</tt>, i.e. unsigned bytes. */
+	private static final Comparator<byte[]> PUBLIC_KEY_COMPARATOR = Arrays::compareUnsigned;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private boolean isLoaded = false;
+	/** Whether repository's order didn't match ours, in which case repository must always be used */
+	private boolean isUnusable = false;
+	/** Incremented by each commit of reward-share changes, or invalidation, whether or not we're loaded */
+	private long version = 0;
+	/** Sorted entries, replaced rather than modified */
+	private List<RewardShareData> entries = Collections.emptyList();
+
+	private RewardShareIndex() {
+	}
+
+	public static synchronized RewardShareIndex getInstance() {
+		if (instance == null)
+			instance = new RewardShareIndex();
+
+		return instance;
+	}
+
+	/** Discards all entries, e.g. because repository has been replaced. Reloaded on next use. */
+	public void invalidate() {
+		this.lock.writeLock().lock();
+		try {
+			this.isLoaded = false;
+			this.isUnusable = false;
+			this.entries = Collections.emptyList();
+			++this.version;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Starts repository session's transaction, using <tt>starter</tt> to run a statement, with no commits of
+	 * reward-share changes meanwhile.
+	 *
+	 * @return our version, matching session's snapshot, to be passed to {@link #getView(Loader, long)}
+	 */
+	public <E extends Exception> long startTransaction(RepositoryAction<E> starter) throws E {
+		this.lock.readLock().lock();
+		try {
+			starter.run();
+
+			return this.version;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Commits repository session's transaction using <tt>committer</tt>, then applies session's reward-share changes.
+	 * <p>
+	 * Transactions starting, and views, wait for both, so none see us out of step with committed reward-shares.
+	 */
+	public <E extends Exception> void commitChanges(List<Change> changes, RepositoryAction<E> committer) throws E {
+		if (changes.isEmpty()) {
+			committer.run();
+			return;
+		}
+
+		this.lock.writeLock().lock();
+		try {
+			committer.run();
+
+			this.applyChanges(changes);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/** Must be inside write lock. Applies changes from a repository session that has just committed. */
+	private void applyChanges(List<Change> changes) {
+		++this.version;
+
+		// If not loaded yet then committed changes will be picked up by loading
+		if (!this.isLoaded)
+			return;
+
+		List<RewardShareData> newEntries = new ArrayList<>(this.entries);
+
+		// Changes are idempotent, so any already picked up by loading are harmless
+		for (Change change : changes) {
+			int index = search(newEntries, change.rewardSharePublicKey);
+
+			if (change.rewardShareData != null) {
+				if (index >= 0)
+					newEntries.set(index, change.rewardShareData);
+				else
+					newEntries.add(-index - 1, change.rewardShareData);
+			} else if (index >= 0) {
+				newEntries.remove(index);
+			}
+		}
+
+		this.entries = newEntries;
+	}
+
+	/**
+	 * Returns view of reward-shares for repository session whose transaction started at <tt>sessionVersion</tt>,
+	 * loading index if necessary, or null if index can't be used, in which case caller should fall back to repository.
+	 * <p>
+	 * <tt>loader</tt> must read using the same session, without uncommitted reward-share changes, so what it loads
+	 * matches <tt>sessionVersion</tt>.
+	 */
+	public View getView(Loader loader, long sessionVersion) throws DataException {
+		this.lock.readLock().lock();
+		try {
+			if (this.version != sessionVersion)
+				return null;
+
+			if (this.isLoaded)
+				return this.isUnusable ? null : new View(this.entries);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+
+		// Load without holding lock, as loader's session might need to wait for others to commit (or release connections)
+		List<RewardShareData> rewardShares = loader.load();
+		List<RewardShareData> newEntries = sortedEntries(rewardShares);
+
+		this.lock.writeLock().lock();
+		try {
+			// If reward-shares have been committed since session's snapshot then what we loaded is out of date
+			if (this.version != sessionVersion)
+				return null;
+
+			if (!this.isLoaded) {
+				this.entries = newEntries != null ? newEntries : Collections.emptyList();
+				this.isUnusable = newEntries == null;
+				this.isLoaded = true;
+
+				LOGGER.debug("Loaded {} reward-share{} into index", rewardShares.size(), (rewardShares.size() == 1 ? "" : "s"));
+			}
+
+			return this.isUnusable ? null : new View(this.entries);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/** Returns copy of loaded reward-shares, or null if they're not in our order. */
+	private static List<RewardShareData> sortedEntries(List<RewardShareData> rewardShares) {
+		List<RewardShareData> newEntries = new ArrayList<>(rewardShares.size());
+
+		for (RewardShareData rewardShareData : rewardShares) {
+			// Our order must match repository's, as indexes are part of consensus
+			if (!newEntries.isEmpty()
+					&& PUBLIC_KEY_COMPARATOR.compare(newEntries.get(newEntries.size() - 1).getRewardSharePublicKey(), rewardShareData.getRewardSharePublicKey()) >= 0) {
+				LOGGER.warn("Repository's reward-share order differs at {} - not using in-memory index", Base58.encode(rewardShareData.getRewardSharePublicKey()));
+				return null;
+			}
+
+			newEntries.add(rewardShareData);
+		}
+
+		return newEntries;
+	}
+
+	/** Returns index into sorted <tt>entries</tt>, or (-(insertion point) - 1) if not found, as with {@link Collections#binarySearch}. */
+	private static int search(List<RewardShareData> entries, byte[] rewardSharePublicKey) {
+		int low = 0;
+		int high = entries.size() - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int result = PUBLIC_KEY_COMPARATOR.compare(entries.get(mid).getRewardSharePublicKey(), rewardSharePublicKey);
+
+			if (result < 0)
+				low = mid + 1;
+			else if (result > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+
+		return -(low + 1);
+	}
+
+	/** Callers get their own copy, as byte arrays are mutable. */
+	private static RewardShareData copyOf(RewardShareData rewardShareData) {
+		return new RewardShareData(rewardShareData.getMinterPublicKey().clone(), rewardShareData.getMinter(), rewardShareData.getRecipient(),
+				rewardShareData.getRewardSharePublicKey().clone(), rewardShareData.getSharePercent());
+	}
+
+}
@@ -18,6 +18,7 @@ public interface TransactionRepository {
 
 	public TransactionData fromSignature(byte[] signature) throws DataException;
 
+	/** Returns transactions matching signatures, in same order as <tt>signatures</tt>, omitting any not found. */
 	public List<TransactionData> fromSignatures(List<byte[]> signatures) throws DataException;
 
 	public TransactionData fromReference(byte[] reference) throws DataException;
@@ -327,6 +328,17 @@ public interface TransactionRepository {
 	 */
 	public List<TransactionData> getUnconfirmedTransactions(EnumSet<TransactionType> excludedTxTypes, Integer limit) throws DataException;
 
+	/**
+	 * Returns number of unconfirmed transactions matching criteria.
+	 * 
+	 * @param creatorPublicKey optional
+	 * @param txTypes optional, only count transactions of these types
+	 * @param minTimestamp optional, only count transactions with timestamp not before this
+	 * @return number of matching transactions
+	 * @throws DataException
+	 */
+	public int countUnconfirmedTransactions(byte[] creatorPublicKey, EnumSet<TransactionType> txTypes, Long minTimestamp) throws DataException;
+
 	/**
 	 * Remove transaction from unconfirmed transactions pile.
 	 * 
@@ -6,12 +6,14 @@ import org.qortal.asset.Asset;
 import org.qortal.data.account.*;
 import org.qortal.repository.AccountRepository;
 import org.qortal.repository.DataException;
+import org.qortal.repository.RewardShareIndex;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,6 +29,27 @@ public class HSQLDBAccountRepository implements AccountRepository {
 	public static final String BUY = "buy";
 	protected HSQLDBRepository repository;
 
+	/**
+	 * Buffered change to one account's asset balance.
+	 * <p>
+	 * Decreases made before any increase are written out before an increase is buffered,
+	 * as decreases don't apply to missing balance rows, so we never net those two together.
+	 */
+	private static class BalanceDelta {
+		long delta;
+		/** Whether first change increased balance, in which case balance row is created if missing */
+		boolean isIncrease;
+	}
+
+	/** Nesting depth of beginBatchedChanges() calls, buffering changes while positive */
+	private int batchedChangesDepth = 0;
+	/** Buffered balance changes, by address then asset ID */
+	private final Map<String, Map<Long, BalanceDelta>> bufferedBalanceDeltas = new LinkedHashMap<>();
+	/** Buffered last-reference changes, with public key if known, by address */
+	private final Map<String, AccountData> bufferedLastReferences = new LinkedHashMap<>();
+	/** Buffered level changes, with public key if known, by address */
+	private final Map<String, AccountData> bufferedLevels = new LinkedHashMap<>();
+
 	public HSQLDBAccountRepository(HSQLDBRepository repository) {
 		this.repository = repository;
 	}
@@ -36,6 +59,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public AccountData getAccount(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT reference, public_key, default_group_id, flags, level, blocks_minted, blocks_minted_adjustment, blocks_minted_penalty FROM Accounts WHERE account = ?";
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
@@ -57,8 +82,49 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		}
 	}
 
+	@Override
+	public List<AccountData> getAccounts(List<String> addresses) throws DataException {
+		this.flushBatchedChanges();
+
+		List<AccountData> accounts = new ArrayList<>(addresses.size());
+
+		if (addresses.isEmpty())
+			return accounts;
+
+		StringBuilder sql = new StringBuilder(1024);
+		sql.append("SELECT reference, public_key, default_group_id, flags, level, blocks_minted, blocks_minted_adjustment, blocks_minted_penalty, account FROM Accounts ");
+		sql.append("WHERE account IN (");
+		sql.append(String.join(", ", Collections.nCopies(addresses.size(), "?")));
+		sql.append(")");
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), addresses.toArray())) {
+			if (resultSet == null)
+				return accounts;
+
+			do {
+				byte[] reference = resultSet.getBytes(1);
+				byte[] publicKey = resultSet.getBytes(2);
+				int defaultGroupId = resultSet.getInt(3);
+				int flags = resultSet.getInt(4);
+				int level = resultSet.getInt(5);
+				int blocksMinted = resultSet.getInt(6);
+				int blocksMintedAdjustment = resultSet.getInt(7);
+				int blocksMintedPenalty = resultSet.getInt(8);
+				String address = resultSet.getString(9);
+
+				accounts.add(new AccountData(address, reference, publicKey, defaultGroupId, flags, level, blocksMinted, blocksMintedAdjustment, blocksMintedPenalty));
+			} while (resultSet.next());
+
+			return accounts;
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch accounts info from repository", e);
+		}
+	}
+
 	@Override
 	public List<AccountData> getFlaggedAccounts(int mask) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT reference, public_key, default_group_id, flags, level, blocks_minted, blocks_minted_adjustment, blocks_minted_penalty, account FROM Accounts WHERE BITAND(flags, ?) != 0";
 
 		List<AccountData> accounts = new ArrayList<>();
@@ -89,6 +155,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<AccountData> getPenaltyAccounts() throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT reference, public_key, default_group_id, flags, level, blocks_minted, blocks_minted_adjustment, blocks_minted_penalty, account FROM Accounts WHERE blocks_minted_penalty != 0";
 
 		List<AccountData> accounts = new ArrayList<>();
@@ -119,8 +187,13 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public byte[] getLastReference(String address) throws DataException {
+		AccountData bufferedAccountData = this.bufferedLastReferences.get(address);
+		if (bufferedAccountData != null)
+			return bufferedAccountData.getReference();
+
 		String sql = "SELECT reference FROM Accounts WHERE account = ?";
 
+		// Other buffered changes don't affect this account's reference, so don't need writing first
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
 			if (resultSet == null)
 				return null;
@@ -133,6 +206,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Integer getDefaultGroupId(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT default_group_id FROM Accounts WHERE account = ?";
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
@@ -148,6 +223,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Integer getFlags(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT flags FROM Accounts WHERE account = ?";
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
@@ -162,8 +239,13 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Integer getLevel(String address) throws DataException {
+		AccountData bufferedAccountData = this.bufferedLevels.get(address);
+		if (bufferedAccountData != null)
+			return bufferedAccountData.getLevel();
+
 		String sql = "SELECT level FROM Accounts WHERE account = ?";
 
+		// Other buffered changes don't affect this account's level, so don't need writing first
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
 			if (resultSet == null)
 				return null;
@@ -176,6 +258,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public boolean accountExists(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		try {
 			return this.repository.exists("Accounts", "account = ?", address);
 		} catch (SQLException e) {
@@ -185,6 +269,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void ensureAccount(AccountData accountData) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "INSERT IGNORE INTO Accounts (account, public_key) VALUES (?, ?)"; // MySQL syntax
 		try {
 			this.repository.executeCheckedUpdate(sql, accountData.getAddress(), accountData.getPublicKey());
@@ -195,6 +281,14 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setLastReference(AccountData accountData) throws DataException {
+		if (this.batchedChangesDepth > 0) {
+			bufferAccountChange(this.bufferedLastReferences, accountData);
+			return;
+		}
+
+		// Earlier buffered changes must be written first, so they don't later overwrite this one
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("Accounts");
 
 		saveHelper.bind("account", accountData.getAddress()).bind("reference", accountData.getReference());
@@ -212,6 +306,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setDefaultGroupId(AccountData accountData) throws DataException {
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("Accounts");
 
 		saveHelper.bind("account", accountData.getAddress()).bind("default_group_id", accountData.getDefaultGroupId());
@@ -229,6 +325,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setFlags(AccountData accountData) throws DataException {
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("Accounts");
 
 		saveHelper.bind("account", accountData.getAddress()).bind("flags", accountData.getFlags());
@@ -246,6 +344,14 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setLevel(AccountData accountData) throws DataException {
+		if (this.batchedChangesDepth > 0) {
+			bufferAccountChange(this.bufferedLevels, accountData);
+			return;
+		}
+
+		// Earlier buffered changes must be written first, so they don't later overwrite this one
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("Accounts");
 
 		saveHelper.bind("account", accountData.getAddress()).bind("level", accountData.getLevel());
@@ -263,6 +369,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setBlocksMintedAdjustment(AccountData accountData) throws DataException {
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("Accounts");
 
 		saveHelper.bind("account", accountData.getAddress())
@@ -281,6 +389,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Integer getMintedBlockCount(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT blocks_minted FROM Accounts WHERE account = ?";
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
@@ -295,6 +405,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setMintedBlockCount(AccountData accountData) throws DataException {
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("Accounts");
 
 		saveHelper.bind("account", accountData.getAddress()).bind("blocks_minted", accountData.getBlocksMinted());
@@ -312,6 +424,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public int modifyMintedBlockCount(String address, int delta) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "INSERT INTO Accounts (account, blocks_minted) VALUES (?, ?) " +
 			"ON DUPLICATE KEY UPDATE blocks_minted = blocks_minted + ?";
 
@@ -324,6 +438,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void modifyMintedBlockCounts(List<String> addresses, int delta) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "INSERT INTO Accounts (account, blocks_minted) VALUES (?, ?) " +
 				"ON DUPLICATE KEY UPDATE blocks_minted = blocks_minted + ?";
 
@@ -338,6 +454,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Integer getBlocksMintedPenaltyCount(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT blocks_minted_penalty FROM Accounts WHERE account = ?";
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address)) {
@@ -350,6 +468,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		}
 	}
 	public void updateBlocksMintedPenalties(Set<AccountPenaltyData> accountPenalties) throws DataException {
+		this.flushBatchedChanges();
+
 		// Nothing to do?
 		if (accountPenalties == null || accountPenalties.isEmpty())
 			return;
@@ -371,6 +491,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void delete(String address) throws DataException {
+		this.flushBatchedChanges();
+
 		// NOTE: Account balances are deleted automatically by the database thanks to "ON DELETE CASCADE" in AccountBalances' FOREIGN KEY
 		// definition.
 		try {
@@ -382,6 +504,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void tidy() throws DataException {
+		this.flushBatchedChanges();
+
 		try {
 			this.repository.delete("AccountBalances", "balance = 0");
 		} catch (SQLException e) {
@@ -393,14 +517,26 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public AccountBalanceData getBalance(String address, long assetId) throws DataException {
+		Map<Long, BalanceDelta> bufferedAssetDeltas = this.bufferedBalanceDeltas.get(address);
+		BalanceDelta balanceDelta = bufferedAssetDeltas != null ? bufferedAssetDeltas.get(assetId) : null;
+
 		String sql = "SELECT balance FROM AccountBalances WHERE account = ? AND asset_id = ? LIMIT 1";
 
+		// Other buffered changes don't affect this balance, and we add this balance's buffered change ourselves
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, address, assetId)) {
-			if (resultSet == null)
-				return null;
+			if (resultSet == null) {
+				// Missing balance row is only created by an increase
+				if (balanceDelta == null || !balanceDelta.isIncrease)
+					return null;
+
+				return new AccountBalanceData(address, assetId, balanceDelta.delta);
+			}
 
 			long balance = resultSet.getLong(1);
 
+			if (balanceDelta != null)
+				balance += balanceDelta.delta;
+
 			return new AccountBalanceData(address, assetId, balance);
 		} catch (SQLException e) {
 			throw new DataException("Unable to fetch account balance from repository", e);
@@ -409,6 +545,7 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<AccountBalanceData> getBalances(List<String> addresses, long assetId) throws DataException {
+		this.flushBatchedChanges();
 
 		StringBuffer sql = new StringBuffer();
 		sql.append("SELECT balance, account, asset_id FROM AccountBalances ");
@@ -442,6 +579,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<AccountBalanceData> getAssetBalances(long assetId, Boolean excludeZero) throws DataException {
+		this.flushBatchedChanges();
+
 		StringBuilder sql = new StringBuilder(1024);
 
 		sql.append("SELECT account, balance FROM AccountBalances WHERE asset_id = ?");
@@ -470,6 +609,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 	@Override
 	public List<AccountBalanceData> getAssetBalances(List<String> addresses, List<Long> assetIds, BalanceOrdering balanceOrdering, Boolean excludeZero,
 			Integer limit, Integer offset, Boolean reverse) throws DataException {
+		this.flushBatchedChanges();
+
 		StringBuilder sql = new StringBuilder(1024);
 
 		sql.append("SELECT account, asset_id, balance, asset_name FROM ");
@@ -578,15 +719,34 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		if (deltaBalance == 0)
 			return;
 
+		if (this.batchedChangesDepth > 0) {
+			Map<Long, BalanceDelta> bufferedAssetDeltas = this.bufferedBalanceDeltas.computeIfAbsent(address, k -> new LinkedHashMap<>());
+			BalanceDelta balanceDelta = bufferedAssetDeltas.get(assetId);
+
+			// Decreases only apply if balance row already exists, unlike increases,
+			// so decreases buffered before any increase are written now, rather than netted with this increase
+			if (deltaBalance > 0 && balanceDelta != null && !balanceDelta.isIncrease) {
+				bufferedAssetDeltas.remove(assetId);
+				this.reduceAssetBalance(address, assetId, balanceDelta.delta);
+				balanceDelta = null;
+			}
+
+			if (balanceDelta == null) {
+				balanceDelta = new BalanceDelta();
+				bufferedAssetDeltas.put(assetId, balanceDelta);
+			}
+
+			balanceDelta.delta += deltaBalance;
+			balanceDelta.isIncrease |= deltaBalance > 0;
+			return;
+		}
+
+		// Earlier buffered changes must be written first, so they don't later overwrite this one
+		this.flushBatchedChanges();
+
 		// If deltaBalance is negative then we assume AccountBalances & parent Accounts rows exist
 		if (deltaBalance < 0) {
-			// Perform actual balance change
-			String sql = "UPDATE AccountBalances set balance = balance + ? WHERE account = ? AND asset_id = ?";
-			try {
-				this.repository.executeCheckedUpdate(sql, deltaBalance, address, assetId);
-			} catch (SQLException e) {
-				throw new DataException("Unable to reduce account balance in repository", e);
-			}
+			this.reduceAssetBalance(address, assetId, deltaBalance);
 		} else {
 			// We have to ensure parent row exists to satisfy foreign key constraint
 			try {
@@ -607,7 +767,20 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		}
 	}
 
+	/** Reduces account's asset balance by negative <tt>deltaBalance</tt>, or does nothing if account has no balance row. */
+	private void reduceAssetBalance(String address, long assetId, long deltaBalance) throws DataException {
+		// Perform actual balance change
+		String sql = "UPDATE AccountBalances set balance = balance + ? WHERE account = ? AND asset_id = ?";
+		try {
+			this.repository.executeCheckedUpdate(sql, deltaBalance, address, assetId);
+		} catch (SQLException e) {
+			throw new DataException("Unable to reduce account balance in repository", e);
+		}
+	}
+
 	public void modifyAssetBalances(List<AccountBalanceData> accountBalanceDeltas) throws DataException {
+		this.flushBatchedChanges();
+
 		// Nothing to do?
 		if (accountBalanceDeltas == null || accountBalanceDeltas.isEmpty())
 			return;
@@ -639,6 +812,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void setAssetBalances(List<AccountBalanceData> accountBalances) throws DataException {
+		this.flushBatchedChanges();
+
 		// Nothing to do?
 		if (accountBalances == null || accountBalances.isEmpty())
 			return;
@@ -691,6 +866,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void save(AccountBalanceData accountBalanceData) throws DataException {
+		this.flushBatchedChanges();
+
 		HSQLDBSaver saveHelper = new HSQLDBSaver("AccountBalances");
 
 		saveHelper.bind("account", accountBalanceData.getAddress()).bind("asset_id", accountBalanceData.getAssetId())
@@ -705,6 +882,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public void delete(String address, long assetId) throws DataException {
+		this.flushBatchedChanges();
+
 		try {
 			this.repository.delete("AccountBalances", "account = ? AND asset_id = ?", address, assetId);
 		} catch (SQLException e) {
@@ -712,6 +891,130 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		}
 	}
 
+	// Batched changes
+
+	@Override
+	public void beginBatchedChanges() {
+		++this.batchedChangesDepth;
+	}
+
+	@Override
+	public void flushBatchedChanges() throws DataException {
+		try {
+			this.flushBufferedChanges();
+		} catch (SQLException e) {
+			throw new DataException("Unable to save batched account changes into repository", e);
+		}
+	}
+
+	@Override
+	public void endBatchedChanges() {
+		if (this.batchedChangesDepth > 0)
+			--this.batchedChangesDepth;
+	}
+
+	/** Returns whether there are buffered changes still to be written to repository. */
+	/* package */ boolean hasBufferedChanges() {
+		return !this.bufferedBalanceDeltas.isEmpty() || !this.bufferedLastReferences.isEmpty() || !this.bufferedLevels.isEmpty();
+	}
+
+	/** Writes buffered changes to repository, one batched statement per kind of change. */
+	/* package */ void flushBufferedChanges() throws SQLException {
+		if (!this.hasBufferedChanges())
+			return;
+
+		List<Object[]> ensureAccountParams = new ArrayList<>();
+		List<Object[]> increaseBalanceParams = new ArrayList<>();
+		List<Object[]> reduceBalanceParams = new ArrayList<>();
+
+		for (Map.Entry<String, Map<Long, BalanceDelta>> addressEntry : this.bufferedBalanceDeltas.entrySet()) {
+			String address = addressEntry.getKey();
+			boolean needsAccount = false;
+
+			for (Map.Entry<Long, BalanceDelta> assetEntry : addressEntry.getValue().entrySet()) {
+				BalanceDelta balanceDelta = assetEntry.getValue();
+
+				// Same as modifyAssetBalance(): only increases create missing rows
+				if (balanceDelta.isIncrease) {
+					needsAccount = true;
+					increaseBalanceParams.add(new Object[] { address, assetEntry.getKey(), balanceDelta.delta, balanceDelta.delta });
+				} else {
+					reduceBalanceParams.add(new Object[] { balanceDelta.delta, address, assetEntry.getKey() });
+				}
+			}
+
+			if (needsAccount)
+				ensureAccountParams.add(new Object[] { address });
+		}
+
+		List<AccountData> lastReferences = new ArrayList<>(this.bufferedLastReferences.values());
+		List<AccountData> levels = new ArrayList<>(this.bufferedLevels.values());
+
+		// Forget buffered changes up front so a failed write isn't repeated
+		this.clearBufferedChanges();
+
+		this.saveAccountColumn("reference", lastReferences, AccountData::getReference);
+		this.saveAccountColumn("level", levels, AccountData::getLevel);
+
+		// We have to ensure parent rows exist to satisfy foreign key constraint
+		String ensureSql = "INSERT IGNORE INTO Accounts (account) VALUES (?)"; // MySQL syntax
+		this.repository.executeCheckedBatchUpdate(ensureSql, ensureAccountParams);
+
+		String increaseSql = "INSERT INTO AccountBalances (account, asset_id, balance) VALUES (?, ?, ?) " +
+			"ON DUPLICATE KEY UPDATE balance = balance + ?";
+		this.repository.executeCheckedBatchUpdate(increaseSql, increaseBalanceParams);
+
+		String reduceSql = "UPDATE AccountBalances set balance = balance + ? WHERE account = ? AND asset_id = ?";
+		this.repository.executeCheckedBatchUpdate(reduceSql, reduceBalanceParams);
+	}
+
+	/**
+	 * Saves one column of <tt>Accounts</tt>, and public key if present, for each account, like {@link HSQLDBSaver} would.
+	 */
+	private void saveAccountColumn(String column, List<AccountData> accounts, Function<AccountData, Object> valueGetter) throws SQLException {
+		List<Object[]> withPublicKeyParams = new ArrayList<>();
+		List<Object[]> withoutPublicKeyParams = new ArrayList<>();
+
+		for (AccountData accountData : accounts) {
+			String address = accountData.getAddress();
+			Object value = valueGetter.apply(accountData);
+			byte[] publicKey = accountData.getPublicKey();
+
+			if (publicKey != null)
+				withPublicKeyParams.add(new Object[] { address, value, publicKey, address, value, publicKey });
+			else
+				withoutPublicKeyParams.add(new Object[] { address, value, address, value });
+		}
+
+		String withPublicKeySql = String.format("INSERT INTO Accounts (account, %1$s, public_key) VALUES (?, ?, ?) " +
+				"ON DUPLICATE KEY UPDATE account=?, %1$s=?, public_key=?", column);
+		this.repository.executeCheckedBatchUpdate(withPublicKeySql, withPublicKeyParams);
+
+		String withoutPublicKeySql = String.format("INSERT INTO Accounts (account, %1$s) VALUES (?, ?) " +
+				"ON DUPLICATE KEY UPDATE account=?, %1$s=?", column);
+		this.repository.executeCheckedBatchUpdate(withoutPublicKeySql, withoutPublicKeyParams);
+	}
+
+	/** Forgets buffered changes, e.g. on rollback. */
+	/* package */ void clearBufferedChanges() {
+		this.bufferedBalanceDeltas.clear();
+		this.bufferedLastReferences.clear();
+		this.bufferedLevels.clear();
+	}
+
+	/** Buffers account change, keeping previously buffered public key if new change doesn't have one. */
+	private static void bufferAccountChange(Map<String, AccountData> bufferedChanges, AccountData accountData) {
+		// Copy as callers can reuse their AccountData
+		AccountData bufferedAccountData = new AccountData(accountData.getAddress());
+		bufferedAccountData.setReference(accountData.getReference());
+		bufferedAccountData.setLevel(accountData.getLevel());
+		bufferedAccountData.setPublicKey(accountData.getPublicKey());
+
+		AccountData previousAccountData = bufferedChanges.put(accountData.getAddress(), bufferedAccountData);
+		if (bufferedAccountData.getPublicKey() == null && previousAccountData != null)
+			bufferedAccountData.setPublicKey(previousAccountData.getPublicKey());
+	}
+
 	// Reward-Share
 
 	@Override
@@ -753,6 +1056,12 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<byte[]> getRewardSharePublicKeys() throws DataException {
+		RewardShareIndex.View rewardShareIndexView = this.getRewardShareIndexView();
+		if (rewardShareIndexView != null) {
+			List<byte[]> rewardSharePublicKeys = rewardShareIndexView.getRewardSharePublicKeys();
+			return rewardSharePublicKeys.isEmpty() ? null : rewardSharePublicKeys;
+		}
+
 		String sql = "SELECT reward_share_public_key FROM RewardShares ORDER BY reward_share_public_key";
 
 		List<byte[]> rewardSharePublicKeys = new ArrayList<>();
@@ -805,6 +1114,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<RewardShareData> getRewardShares() throws DataException {
+		this.flushBatchedChanges();
+
 		String sql = "SELECT minter_public_key, minter, recipient, share_percent, reward_share_public_key FROM RewardShares";
 
 		List<RewardShareData> rewardShares = new ArrayList<>();
@@ -832,6 +1143,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 	@Override
 	public List<RewardShareData> findRewardShares(List<String> minters, List<String> recipients, List<String> involvedAddresses,
 			Integer limit, Integer offset, Boolean reverse) throws DataException {
+		this.flushBatchedChanges();
+
 		StringBuilder sql = new StringBuilder(1024);
 		sql.append("SELECT DISTINCT minter_public_key, minter, recipient, share_percent, reward_share_public_key FROM RewardShares ");
 
@@ -919,6 +1232,10 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Integer getRewardShareIndex(byte[] rewardSharePublicKey) throws DataException {
+		RewardShareIndex.View rewardShareIndexView = this.getRewardShareIndexView();
+		if (rewardShareIndexView != null)
+			return rewardShareIndexView.getIndex(rewardSharePublicKey);
+
 		if (!this.rewardShareExists(rewardSharePublicKey))
 			return null;
 
@@ -933,6 +1250,10 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public RewardShareData getRewardShareByIndex(int index) throws DataException {
+		RewardShareIndex.View rewardShareIndexView = this.getRewardShareIndexView();
+		if (rewardShareIndexView != null)
+			return rewardShareIndexView.getByIndex(index);
+
 		String sql = "SELECT minter_public_key, minter, recipient, share_percent, reward_share_public_key FROM RewardShares "
 				+ "ORDER BY reward_share_public_key ASC "
 				+ "OFFSET ? LIMIT 1";
@@ -965,6 +1286,10 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		if (indexes.length == 0)
 			return rewardShares;
 
+		RewardShareIndex.View rewardShareIndexView = this.getRewardShareIndexView();
+		if (rewardShareIndexView != null)
+			return rewardShareIndexView.getByIndexes(indexes);
+
 		try (ResultSet resultSet = this.repository.checkedExecute(sql)) {
 			if (resultSet == null)
 				return null;
@@ -1020,15 +1345,64 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to save reward-share info into repository", e);
 		}
+
+		this.repository.recordRewardShareChange(RewardShareIndex.Change.saved(rewardShareData));
 	}
 
 	@Override
 	public void delete(byte[] minterPublickey, String recipient) throws DataException {
+		// Reward-share index needs to know which public key is going
+		RewardShareData rewardShareData = this.getRewardShare(minterPublickey, recipient);
+		if (rewardShareData == null)
+			return;
+
 		try {
 			this.repository.delete("RewardShares", "minter_public_key = ? and recipient = ?", minterPublickey, recipient);
 		} catch (SQLException e) {
 			throw new DataException("Unable to delete reward-share info from repository", e);
 		}
+
+		this.repository.recordRewardShareChange(RewardShareIndex.Change.removed(rewardShareData.getRewardSharePublicKey()));
+	}
+
+	/**
+	 * Returns in-memory reward-share index's view matching this session's snapshot,
+	 * or null if index can't answer queries for this session, so repository must be used instead.
+	 */
+	private RewardShareIndex.View getRewardShareIndexView() throws DataException {
+		// Index only reflects committed reward-shares
+		if (this.repository.hasRewardShareChanges())
+			return null;
+
+		// Index might be newer than our snapshot, e.g. if another session committed reward-share changes since our transaction started
+		return RewardShareIndex.getInstance().getView(this::loadRewardShares, this.repository.getRewardShareIndexVersion());
+	}
+
+	/** Loads all reward-shares in this session's snapshot, sorted by public key, to populate reward-share index. */
+	private List<RewardShareData> loadRewardShares() throws DataException {
+		String sql = "SELECT minter_public_key, minter, recipient, share_percent, reward_share_public_key FROM RewardShares "
+				+ "ORDER BY reward_share_public_key ASC";
+
+		List<RewardShareData> rewardShares = new ArrayList<>();
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql)) {
+			if (resultSet == null)
+				return rewardShares;
+
+			do {
+				byte[] minterPublicKey = resultSet.getBytes(1);
+				String minter = resultSet.getString(2);
+				String recipient = resultSet.getString(3);
+				int sharePercent = resultSet.getInt(4);
+				byte[] rewardSharePublicKey = resultSet.getBytes(5);
+
+				rewardShares.add(new RewardShareData(minterPublicKey, minter, recipient, rewardSharePublicKey, sharePercent));
+			} while (resultSet.next());
+
+			return rewardShares;
+		} catch (SQLException e) {
+			throw new DataException("Unable to load reward-shares from repository", e);
+		}
 	}
 
 	// Minting accounts used by BlockMinter
@@ -1100,6 +1474,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<EligibleQoraHolderData> getEligibleLegacyQoraHolders(Integer blockHeight) throws DataException {
+		this.flushBatchedChanges();
+
 		StringBuilder sql = new StringBuilder(1024);
 		List<Object> bindParams = new ArrayList<>();
 
@@ -1200,6 +1576,7 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public SponsorshipReport getMintershipReport(String account, Function<String, List<String>> addressFetcher) throws DataException {
+		this.flushBatchedChanges();
 
 		try {
 			ResultSet accountResultSet = getAccountResultSet(account);
@@ -1229,6 +1606,8 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<String> getSponseeAddresses(String account, String[] realRewardShareRecipients) throws DataException {
+		this.flushBatchedChanges();
+
 		StringBuffer sponseeSql = new StringBuffer();
 
 		sponseeSql.append( "SELECT DISTINCT t.recipient sponsees " );
@@ -1284,6 +1663,7 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public Optional<String> getSponsor(String address) throws DataException {
+		this.flushBatchedChanges();
 
 		StringBuffer sponsorSql = new StringBuffer();
 
@@ -1308,6 +1688,7 @@ public class HSQLDBAccountRepository implements AccountRepository {
 
 	@Override
 	public List<AddressLevelPairing> getAddressLevelPairings(int minLevel) throws DataException {
+		this.flushBatchedChanges();
 
 		StringBuffer accLevelSql = new StringBuffer(51);
 
@@ -8,6 +8,7 @@ import org.qortal.arbitrary.metadata.ArbitraryDataTransactionMetadata;
 import org.qortal.arbitrary.misc.Category;
 import org.qortal.arbitrary.misc.Service;
 import org.qortal.data.arbitrary.ArbitraryResourceCache;
+import org.qortal.data.arbitrary.ArbitraryResourceIndex;
 import org.qortal.data.arbitrary.ArbitraryResourceData;
 import org.qortal.data.arbitrary.ArbitraryResourceMetadata;
 import org.qortal.data.arbitrary.ArbitraryResourceStatus;
@@ -867,32 +868,27 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 																Boolean includeMetadata, Boolean includeStatus, Long before, Long after, Integer limit, Integer offset, Boolean reverse) throws DataException {
 
 		if(Settings.getInstance().isDbCacheEnabled()) {
-			List<ArbitraryResourceData> list
-				= HSQLDBCacheUtils.callCache(
-					ArbitraryResourceCache.getInstance(),
-					service, query, identifier, names, title, description, prefixOnly, exactMatchNames,
-					defaultResource, mode, minLevel, followedOnly, excludeBlocked, includeMetadata, includeStatus,
-					before, after, limit, offset, reverse);
-
-			if( !list.isEmpty() ) {
+			ArbitraryResourceIndex index
+				= service != null ? ArbitraryResourceCache.getInstance().getIndexByService().get(service.value) : null;
+
+			if( index != null && !index.isEmpty() ) {
 				List<ArbitraryResourceData> results
-					= HSQLDBCacheUtils.filterList(
-						list,
+					= HSQLDBCacheUtils.searchIndex(
+						index,
 						ArbitraryResourceCache.getInstance().getLevelByName(),
 						Optional.ofNullable(mode),
-						Optional.ofNullable(service),
 						Optional.ofNullable(query),
 						Optional.ofNullable(identifier),
 						Optional.ofNullable(names),
 						Optional.ofNullable(title),
 						Optional.ofNullable(description),
+						Optional.ofNullable(keywords),
 						prefixOnly,
 						Optional.ofNullable(exactMatchNames),
-						Optional.ofNullable(keywords),
 						defaultResource,
 						Optional.ofNullable(minLevel),
-						Optional.ofNullable(() -> ListUtils.followedNames()),
-						Optional.ofNullable(ListUtils::blockedNames),
+						followedOnly != null && followedOnly ? Optional.of(ListUtils::followedNames) : Optional.empty(),
+						Optional.of(ListUtils::blockedNames),
 						Optional.ofNullable(includeMetadata),
 						Optional.ofNullable(includeStatus),
 						Optional.ofNullable(before),
@@ -936,6 +932,9 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 		}
 
 		if (minLevel != null) {
+			// Level filter needs any buffered account changes written first
+			this.repository.getAccountRepository().flushBatchedChanges();
+
 			// Join tables necessary for level filter
 			sql.append(" JOIN Names USING (name) JOIN Accounts ON Accounts.account=Names.owner");
 		}
@@ -200,6 +200,9 @@ public class HSQLDBAssetRepository implements AssetRepository {
 
 	@Override
 	public void delete(long assetId) throws DataException {
+		// Buffered balance changes could refer to asset
+		this.repository.getAccountRepository().flushBatchedChanges();
+
 		try {
 			this.repository.delete("Assets", "asset_id = ?", assetId);
 
@@ -114,6 +114,17 @@ public class HSQLDBBlockArchiveRepository implements BlockArchiveRepository {
         }
     }
 
+    @Override
+    public List<BlockSummaryData> getBlockSummaries(int firstBlockHeight, int lastBlockHeight) throws DataException {
+        List<BlockSummaryData> blockSummaries = new ArrayList<>();
+
+        List<BlockTransformation> blockInfos = BlockArchiveReader.getInstance().fetchBlocksFromRange(firstBlockHeight, lastBlockHeight);
+        for (BlockTransformation blockInfo : blockInfos)
+            blockSummaries.add(new BlockSummaryData(blockInfo.getBlockData()));
+
+        return blockSummaries;
+    }
+
     @Override
     public List<BlockSummaryData> getBlockSummariesBySigner(byte[] signerPublicKey, Integer limit, Integer offset, Boolean reverse) throws DataException {
         StringBuilder sql = new StringBuilder(512);
@@ -165,6 +176,9 @@ public class HSQLDBBlockArchiveRepository implements BlockArchiveRepository {
 
     @Override
     public List<BlockSignerSummary> getBlockSigners(List<String> addresses, Integer limit, Integer offset, Boolean reverse) throws DataException {
+        // Query below joins Accounts
+        this.repository.getAccountRepository().flushBatchedChanges();
+
         String subquerySql = "SELECT minter, COUNT(signature) FROM (" +
                     "(SELECT minter, signature FROM Blocks) UNION ALL (SELECT minter, signature FROM BlockArchive)" +
                 ") GROUP BY minter";
@@ -7,7 +7,6 @@ import org.qortal.data.block.BlockTransactionData;
 import org.qortal.data.transaction.TransactionData;
 import org.qortal.repository.BlockRepository;
 import org.qortal.repository.DataException;
-import org.qortal.repository.TransactionRepository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -184,24 +183,22 @@ public class HSQLDBBlockRepository implements BlockRepository {
 
 		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
 
-		List<TransactionData> transactions = new ArrayList<>();
+		List<byte[]> transactionSignatures = new ArrayList<>();
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), signature)) {
 			if (resultSet == null)
-				return transactions; // No transactions in this block
-
-			TransactionRepository transactionRepo = this.repository.getTransactionRepository();
+				return new ArrayList<>(); // No transactions in this block
 
 			// NB: do-while loop because .checkedExecute() implicitly calls ResultSet.next() for us
 			do {
-				byte[] transactionSignature = resultSet.getBytes(1);
-				transactions.add(transactionRepo.fromSignature(transactionSignature));
+				transactionSignatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
 		} catch (SQLException e) {
 			throw new DataException("Unable to fetch block's transactions from repository", e);
 		}
 
-		return transactions;
+		// Fetch in bulk, batched by transaction type, rather than one by one
+		return this.repository.getTransactionRepository().fromSignatures(transactionSignatures);
 	}
 
 	@Override
@@ -231,6 +228,9 @@ public class HSQLDBBlockRepository implements BlockRepository {
 
 	@Override
 	public List<BlockSignerSummary> getBlockSigners(List<String> addresses, Integer limit, Integer offset, Boolean reverse) throws DataException {
+		// Query below joins Accounts
+		this.repository.getAccountRepository().flushBatchedChanges();
+
 		String subquerySql = "SELECT minter, COUNT(signature) FROM Blocks GROUP BY minter";
 
 		StringBuilder sql = new StringBuilder(1024);
@@ -389,7 +389,7 @@ public class HSQLDBBlockRepository implements BlockRepository {
 	@Override
 	public List<BlockSummaryData> getBlockSummaries(int firstBlockHeight, int lastBlockHeight) throws DataException {
 		String sql = "SELECT signature, height, minter, online_accounts_count, minted_when, transaction_count, reference "
-				+ "FROM Blocks WHERE height BETWEEN ? AND ?";
+				+ "FROM Blocks WHERE height BETWEEN ? AND ? ORDER BY height";
 
 		List<BlockSummaryData> blockSummaries = new ArrayList<>();
 
@@ -13,6 +13,7 @@ import org.qortal.data.account.BlockHeightRange;
 import org.qortal.data.account.BlockHeightRangeAddressAmounts;
 import org.qortal.data.arbitrary.ArbitraryResourceCache;
 import org.qortal.data.arbitrary.ArbitraryResourceData;
+import org.qortal.data.arbitrary.ArbitraryResourceIndex;
 import org.qortal.data.arbitrary.ArbitraryResourceMetadata;
 import org.qortal.data.arbitrary.ArbitraryResourceStatus;
 import org.qortal.data.transaction.TransactionData;
@@ -29,11 +30,14 @@ import java.sql.Statement;
 import java.time.format.DateTimeFormatter;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
@@ -67,69 +71,13 @@ public class HSQLDBCacheUtils {
     public static final String BALANCE_RECORDER_TIMER = "Balance Recorder Timer";
     public static final String BALANCE_RECORDER_TIMER_TASK = "Balance Recorder Timer Task";
 
-    /**
-     *
-     * @param cache
-     * @param service the service to filter
-     * @param query query for name, identifier, title or description match
-     * @param identifier the identifier to match
-     * @param names the names to match, ignored if there are exact names
-     * @param title the title to match for
-     * @param description the description to match for
-     * @param prefixOnly true to match on prefix only, false for match anywhere in string
-     * @param exactMatchNames names to match exactly, overrides names
-     * @param defaultResource true to query filter identifier on the default identifier and use the query terms to match candidates names only
-     * @param mode LATEST or ALL
-     * @param minLevel the minimum account level for resource creators
-     * @param includeOnly names to retain, exclude all others
-     * @param exclude names to exclude, retain all others
-     * @param includeMetadata true to include resource metadata in the results, false to exclude metadata
-     * @param includeStatus true to include resource status in the results, false to exclude status
-     * @param before the latest creation timestamp for any candidate
-     * @param after  the earliest creation timestamp for any candidate
-     * @param limit  the maximum number of resource results to return
-     * @param offset the number of resource results to skip after the results have been retained, filtered and sorted
-     * @param reverse true to reverse the sort order, false to order in chronological order
-     *
-     * @return the resource results
-     */
-    public static List<ArbitraryResourceData> callCache(
-            ArbitraryResourceCache cache,
-            Service service,
-            String query,
-            String identifier,
-            List<String> names,
-            String title,
-            String description,
-            boolean prefixOnly,
-            List<String> exactMatchNames,
-            boolean defaultResource,
-            SearchMode mode,
-            Integer minLevel,
-            Boolean followedOnly,
-            Boolean excludeBlocked,
-            Boolean includeMetadata,
-            Boolean includeStatus,
-            Long before,
-            Long after,
-            Integer limit,
-            Integer offset,
-            Boolean reverse) {
-
-        List<ArbitraryResourceData> candidates = new ArrayList<>();
-
-        // cache all results for requested service
-        if( service != null ) {
-            candidates.addAll(cache.getDataByService().getOrDefault(service.value, new ArrayList<>(0)));
-        }
-        // if no requested, then empty cache
-
-        return candidates;
-    }
-
     /**
      * Filter candidates
      *
+     * As with the repository query, LATEST mode returns the latest resource for each name/service
+     * combination, where that resource satisfies the filters. Older resources are never returned
+     * in its place.
+     *
      * @param candidates the candidates, they may be preprocessed
      * @param levelByName name -> level map
      * @param mode LATEST or ALL
@@ -183,6 +131,23 @@ public class HSQLDBCacheUtils {
         // retain only candidates with names
         Stream<ArbitraryResourceData> stream = candidates.stream().filter(candidate -> candidate.name != null );
 
+        // if latest mode or empty
+        if( LATEST.equals( mode.orElse( LATEST ) ) ) {
+
+            // Latest creation time for each name/service combination, before any filters are applied
+            Map<AbstractMap.SimpleEntry<String, Service>, Long> latestCreatedByNameAndService
+                = candidates.stream()
+                    .filter(candidate -> candidate.name != null && candidate.service != null && candidate.created != null)
+                    .collect(Collectors.toMap(
+                            data -> new AbstractMap.SimpleEntry<>(data.name, data.service), // name, service combination
+                            data -> data.created,
+                            Math::max));
+
+            // Include latest item only for a name/service combination, which must then pass the filters below
+            stream = stream.filter(candidate -> candidate.service != null && candidate.created != null
+                    && candidate.created.equals(latestCreatedByNameAndService.get(new AbstractMap.SimpleEntry<>(candidate.name, candidate.service))));
+        }
+
         if(after.isPresent()) {
             stream = stream.filter( candidate -> candidate.created > after.get().longValue() );
         }
@@ -191,103 +156,13 @@ public class HSQLDBCacheUtils {
             stream = stream.filter( candidate -> candidate.created < before.get().longValue() );
         }
 
-        if(exclude.isPresent())
-            stream = stream.filter( candidate -> !exclude.get().get().contains( candidate.name ));
-
         // filter by service
         if( service.isPresent() )
             stream = stream.filter(candidate -> candidate.service.equals(service.get()));
 
-        // filter by query (either identifier, name, title or description)
-        if (query.isPresent()) {
-
-            Predicate<String> predicate
-                    = prefixOnly ? getPrefixPredicate(query.get()) : getContainsPredicate(query.get());
-
-            if (defaultResource) {
-                stream = stream.filter( candidate -> DEFAULT_IDENTIFIER.equals( candidate.identifier ) && predicate.test(candidate.name));
-            } else {
-                stream = stream.filter( candidate -> passQuery(predicate, candidate));
-            }
-        }
-
-        // filter for identifier, title and description
-        stream = filterTerm(identifier, data -> data.identifier, prefixOnly, stream);
-        stream = filterTerm(title, data -> data.metadata != null ? data.metadata.getTitle() : null, prefixOnly, stream);
-        stream = filterTerm(description, data -> data.metadata != null ? data.metadata.getDescription() : null, prefixOnly, stream);
-
-        // New: Filter by keywords if provided
-        if (keywords.isPresent() && !keywords.get().isEmpty()) {
-            List<String> searchKeywords = keywords.get().stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toList());
-
-            stream = stream.filter(candidate -> {
-                
-                if (candidate.metadata != null && candidate.metadata.getDescription() != null) {
-                    String descriptionLower = candidate.metadata.getDescription().toLowerCase();
-                    return searchKeywords.stream().anyMatch(descriptionLower::contains);
-                }
-                return false;
-            });
-        }
-
-        if (keywords.isPresent() && !keywords.get().isEmpty()) {
-            List<String> searchKeywords = keywords.get().stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toList());
-
-            stream = stream.filter(candidate -> {
-                if (candidate.metadata != null && candidate.metadata.getDescription() != null) {
-            String descriptionLower = candidate.metadata.getDescription().toLowerCase();
-            return searchKeywords.stream().anyMatch(descriptionLower::contains);
-                }
-                return false;
-            });
-        }
-
-        // if exact names is set, retain resources with exact names
-        if( exactMatchNames.isPresent() && !exactMatchNames.get().isEmpty()) {
-
-            // key the data by lower case name
-            Map<String, List<ArbitraryResourceData>> dataByName
-                    = stream.collect(Collectors.groupingBy(data -> data.name.toLowerCase()));
-
-            // lower the case of the exact names
-            // retain the lower case names of the data above
-            List<String> exactNamesToSearch
-                = exactMatchNames.get().stream()
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toList());
-            exactNamesToSearch.retainAll(dataByName.keySet());
-
-            // get the data for the names retained and
-            // set them to the stream
-            stream
-                = dataByName.entrySet().stream()
-                    .filter(entry -> exactNamesToSearch.contains(entry.getKey())).flatMap(entry -> entry.getValue().stream());
-        }
-        // if exact names is not set, retain resources that match
-        else if( names.isPresent() && !names.get().isEmpty() ) {
-
-            stream = retainTerms(names.get(), data -> data.name, prefixOnly, stream);
-        }
-
-        // filter for minimum account level
-        if(minLevel.isPresent())
-            stream = stream.filter( candidate -> levelByName.getOrDefault(candidate.name, 0) >= minLevel.get() );
-
-        // if latest mode or empty
-        if( LATEST.equals( mode.orElse( LATEST ) ) ) {
-
-            // Include latest item only for a name/service combination
-            stream
-                = stream.filter(candidate -> candidate.service != null && candidate.created != null ).collect(
-                    Collectors.groupingBy(
-                            data -> new AbstractMap.SimpleEntry<>(data.name, data.service), // name, service combination
-                            Collectors.maxBy(Comparator.comparingLong(data -> data.created)) // latest data item
-                    )).values().stream().filter(Optional::isPresent).map(Optional::get); // if there is a value for the group, then retain it
-        }
+        // filter by query, terms, names and minimum level
+        stream = stream.filter(buildFilter(levelByName, query, identifier, names, title, description, keywords,
+                prefixOnly, exactMatchNames, defaultResource, minLevel, exclude));
 
         // sort
         if( reverse.isPresent() && reverse.get())
@@ -303,6 +178,25 @@ public class HSQLDBCacheUtils {
 
         List<ArbitraryResourceData> listCopy1 = stream.collect(Collectors.toList());
 
+        return copyResults(listCopy1, includeMetadata, includeStatus);
+    }
+
+    /**
+     * Copy Results
+     *
+     * Copy the results so the cached data isn't exposed, removing metadata and status unless requested.
+     *
+     * @param listCopy1 the results to copy
+     * @param includeMetadata true to include resource metadata in the results, false to exclude metadata
+     * @param includeStatus true to include resource status in the results, false to exclude status
+     *
+     * @return the copied results
+     */
+    private static List<ArbitraryResourceData> copyResults(
+            List<ArbitraryResourceData> listCopy1,
+            Optional<Boolean> includeMetadata,
+            Optional<Boolean> includeStatus) {
+
         List<ArbitraryResourceData> listCopy2 = new ArrayList<>(listCopy1.size());
 
         // remove metadata from the first copy
@@ -356,65 +250,313 @@ public class HSQLDBCacheUtils {
     }
 
     /**
-     * Filter Terms
+     * Search Index
      *
-     * @param term the term to filter
-     * @param stringSupplier the string of interest from the resource candidates
-     * @param prefixOnly true if prexif only, false for contains
-     * @param stream the stream of candidates
+     * Filters a single service's resources like filterList, but using a pre-built per-service index
+     * rather than streaming every cached resource through each filter. The most selective indexed
+     * terms are used to narrow the candidates, which are then checked against every filter and walked
+     * in creation order, so limit/offset queries stop as soon as enough results have been found.
      *
-     * @return the stream that filtered the term
+     * As with the repository query, LATEST mode returns the latest resource for each name/service
+     * combination, where that resource satisfies the filters.
+     *
+     * @param index the service's resource index
+     * @param levelByName name -> level map
+     * @param mode LATEST or ALL
+     * @param query query for name, identifier, title or description match
+     * @param identifier the identifier to match
+     * @param names the names to match, ignored if there are exact names
+     * @param title the title to match for
+     * @param description the description to match for
+     * @param keywords keywords to match in the description, any of which will do
+     * @param prefixOnly true to match on prefix only, false for match anywhere in string
+     * @param exactMatchNames names to match exactly, overrides names
+     * @param defaultResource true to query filter identifier on the default identifier and use the query terms to match candidates names only
+     * @param minLevel the minimum account level for resource creators
+     * @param includeOnly names to retain, exclude all others
+     * @param exclude names to exclude, retain all others
+     * @param includeMetadata true to include resource metadata in the results, false to exclude metadata
+     * @param includeStatus true to include resource status in the results, false to exclude status
+     * @param before the latest creation timestamp for any candidate
+     * @param after  the earliest creation timestamp for any candidate
+     * @param limit  the maximum number of resource results to return
+     * @param offset the number of resource results to skip after the results have been retained, filtered and sorted
+     * @param reverse true to reverse the sort order, false to order in chronological order
+     *
+     * @return the resource results
      */
-    private static Stream<ArbitraryResourceData> filterTerm(
-            Optional<String> term,
-            Function<ArbitraryResourceData,String> stringSupplier,
+    public static List<ArbitraryResourceData> searchIndex(
+            ArbitraryResourceIndex index,
+            Map<String, Integer> levelByName,
+            Optional<SearchMode> mode,
+            Optional<String> query,
+            Optional<String> identifier,
+            Optional<List<String>> names,
+            Optional<String> title,
+            Optional<String> description,
+            Optional<List<String>> keywords,
             boolean prefixOnly,
-            Stream<ArbitraryResourceData> stream) {
+            Optional<List<String>> exactMatchNames,
+            boolean defaultResource,
+            Optional<Integer> minLevel,
+            Optional<Supplier<List<String>>> includeOnly,
+            Optional<Supplier<List<String>>> exclude,
+            Optional<Boolean> includeMetadata,
+            Optional<Boolean> includeStatus,
+            Optional<Long> before,
+            Optional<Long> after,
+            Optional<Integer> limit,
+            Optional<Integer> offset,
+            Optional<Boolean> reverse) {
+
+        // narrow candidates using indexes, null means all candidates
+        int[] positions = null;
+
+        if( exactMatchNames.isPresent() && !exactMatchNames.get().isEmpty() ) {
+            positions = ArbitraryResourceIndex.union(
+                exactMatchNames.get().stream()
+                    .map(index::getPositionsForExactName)
+                    .collect(Collectors.toList()));
+        }
+        else if( names.isPresent() && !names.get().isEmpty() ) {
+            positions = narrow(positions, getPositionsForAnyTerm(index, ArbitraryResourceIndex.Field.NAME, names.get(), prefixOnly));
+        }
+
+        if( query.isPresent() ) {
+            if( defaultResource ) {
+                positions = narrow(positions, index.getPositionsForTerm(ArbitraryResourceIndex.Field.NAME, query.get(), prefixOnly));
+            }
+            else {
+                positions = narrow(positions, getPositionsForAnyField(index, query.get(), prefixOnly));
+            }
+        }
+
+        if( identifier.isPresent() )
+            positions = narrow(positions, index.getPositionsForTerm(ArbitraryResourceIndex.Field.IDENTIFIER, identifier.get(), prefixOnly));
+
+        if( title.isPresent() )
+            positions = narrow(positions, index.getPositionsForTerm(ArbitraryResourceIndex.Field.TITLE, title.get(), prefixOnly));
+
+        if( description.isPresent() )
+            positions = narrow(positions, index.getPositionsForTerm(ArbitraryResourceIndex.Field.DESCRIPTION, description.get(), prefixOnly));
+
+        // build the full check for each candidate, as indexes can return extra candidates
+        Predicate<ArbitraryResourceData> predicate = buildFilter(levelByName, query, identifier, names, title, description, keywords,
+                prefixOnly, exactMatchNames, defaultResource, minLevel, exclude);
+
+        if( includeOnly.isPresent() ) {
+            Set<String> includedNames = toSet(includeOnly.get().get());
+            if( !includedNames.isEmpty() ) {
+                Set<String> lowerIncludedNames = includedNames.stream().map(String::toLowerCase).collect(Collectors.toSet());
+                predicate = predicate.and(candidate -> lowerIncludedNames.contains(candidate.name.toLowerCase()));
+            }
+        }
+
+        final boolean latestOnly = LATEST.equals(mode.orElse(LATEST));
+
+        // timestamp range, as positions are in created order
+        int startPosition = after.isPresent() ? index.getFirstPositionAfter(after.get()) : 0;
+        int endPosition = before.isPresent() ? index.getFirstPositionNotBefore(before.get()) : index.size();
+
+        int toSkip = offset.orElse(0);
+        int maxResults = limit.isPresent() && limit.get() > 0 ? limit.get() : Integer.MAX_VALUE;
+        boolean reversed = reverse.isPresent() && reverse.get();
+
+        List<ArbitraryResourceData> results = new ArrayList<>();
+
+        int count = positions != null ? positions.length : endPosition - startPosition;
+        for( int i = 0; i < count && results.size() < maxResults; i++ ) {
+            int sequence = reversed ? count - 1 - i : i;
+            int position = positions != null ? positions[sequence] : startPosition + sequence;
 
-        if(term.isPresent()){
-            Predicate<String> predicate
-                    = prefixOnly ? getPrefixPredicate(term.get()): getContainsPredicate(term.get());
-            stream = stream.filter(candidate -> predicate.test(stringSupplier.apply(candidate)));
+            if( position < startPosition || position >= endPosition )
+                continue;
+
+            if( latestOnly && !index.isLatest(position) )
+                continue;
+
+            ArbitraryResourceData candidate = index.get(position);
+
+            if( (before.isPresent() || after.isPresent()) && candidate.created == null )
+                continue;
+
+            if( !predicate.test(candidate) )
+                continue;
+
+            // skip to offset
+            if( toSkip > 0 ) {
+                toSkip--;
+                continue;
+            }
+
+            results.add(candidate);
         }
 
-        return stream;
+        return copyResults(results, includeMetadata, includeStatus);
+    }
+
+    private static int[] narrow(int[] positions, int[] newPositions) {
+        if( newPositions == null )
+            return positions;
+
+        if( positions == null )
+            return newPositions;
+
+        return ArbitraryResourceIndex.intersect(positions, newPositions);
+    }
+
+    private static int[] getPositionsForAnyTerm(ArbitraryResourceIndex index, ArbitraryResourceIndex.Field field, List<String> terms, boolean prefixOnly) {
+        List<int[]> positionArrays = new ArrayList<>(terms.size());
+
+        for( String term : terms ) {
+            int[] termPositions = index.getPositionsForTerm(field, term, prefixOnly);
+
+            // can't narrow if any term is unindexable
+            if( termPositions == null )
+                return null;
+
+            positionArrays.add(termPositions);
+        }
+
+        return ArbitraryResourceIndex.union(positionArrays);
+    }
+
+    private static int[] getPositionsForAnyField(ArbitraryResourceIndex index, String term, boolean prefixOnly) {
+        List<int[]> positionArrays = new ArrayList<>(ArbitraryResourceIndex.Field.values().length);
+
+        for( ArbitraryResourceIndex.Field field : ArbitraryResourceIndex.Field.values() ) {
+            int[] fieldPositions = index.getPositionsForTerm(field, term, prefixOnly);
+
+            // can't narrow if any field is unindexable
+            if( fieldPositions == null )
+                return null;
+
+            positionArrays.add(fieldPositions);
+        }
+
+        return ArbitraryResourceIndex.union(positionArrays);
+    }
+
+    private static Set<String> toSet(List<String> values) {
+        return values != null ? new HashSet<>(values) : Collections.emptySet();
     }
 
     /**
-     * Retain Terms
+     * Build Filter
      *
-     * Retain resources that satisfy terms given.
+     * Build the check, shared by filterList and searchIndex, that each candidate must pass.
      *
-     * @param terms the terms to retain
-     * @param stringSupplier the string of interest from the resource candidates
-     * @param prefixOnly true if prexif only, false for contains
-     * @param stream the stream of candidates
+     * @param levelByName name -> level map
+     * @param query query for name, identifier, title or description match
+     * @param identifier the identifier to match
+     * @param names the names to match, ignored if there are exact names
+     * @param title the title to match for
+     * @param description the description to match for
+     * @param keywords keywords to match in the description, any of which will do
+     * @param prefixOnly true to match on prefix only, false for match anywhere in string
+     * @param exactMatchNames names to match exactly, overrides names
+     * @param defaultResource true to query filter identifier on the default identifier and use the query terms to match candidates names only
+     * @param minLevel the minimum account level for resource creators
+     * @param exclude names to exclude, retain all others
      *
-     * @return the stream that retained the terms
+     * @return the predicate
      */
-    private static Stream<ArbitraryResourceData> retainTerms(
-            List<String> terms,
-            Function<ArbitraryResourceData,String> stringSupplier,
+    private static Predicate<ArbitraryResourceData> buildFilter(
+            Map<String, Integer> levelByName,
+            Optional<String> query,
+            Optional<String> identifier,
+            Optional<List<String>> names,
+            Optional<String> title,
+            Optional<String> description,
+            Optional<List<String>> keywords,
             boolean prefixOnly,
-            Stream<ArbitraryResourceData> stream) {
+            Optional<List<String>> exactMatchNames,
+            boolean defaultResource,
+            Optional<Integer> minLevel,
+            Optional<Supplier<List<String>>> exclude) {
 
-        // collect the data to process, start the data to retain
-        List<ArbitraryResourceData> toProcess = stream.collect(Collectors.toList());
-        List<ArbitraryResourceData> toRetain = new ArrayList<>();
+        Predicate<ArbitraryResourceData> predicate = candidate -> true;
 
-        // for each term, get the predicate, get a new stream process and
-        // apply the predicate to each data item in the stream
-        for( String term : terms ) {
-            Predicate<String> predicate
-                    = prefixOnly ? getPrefixPredicate(term) : getContainsPredicate(term);
-            toRetain.addAll(
-                toProcess.stream()
-                    .filter(candidate -> predicate.test(stringSupplier.apply(candidate)))
-                    .collect(Collectors.toList())
-            );
+        if( exclude.isPresent() ) {
+            Set<String> excludedNames = toSet(exclude.get().get());
+            predicate = predicate.and(candidate -> !excludedNames.contains(candidate.name));
+        }
+
+        // filter by query (either identifier, name, title or description)
+        if( query.isPresent() ) {
+            Predicate<String> queryPredicate
+                    = prefixOnly ? getPrefixPredicate(query.get()) : getContainsPredicate(query.get());
+
+            if( defaultResource ) {
+                predicate = predicate.and(candidate -> DEFAULT_IDENTIFIER.equals(candidate.identifier) && queryPredicate.test(candidate.name));
+            }
+            else {
+                predicate = predicate.and(candidate -> passQuery(queryPredicate, candidate));
+            }
         }
 
-        return toRetain.stream();
+        // filter for identifier, title and description
+        predicate = andTerm(predicate, identifier, data -> data.identifier, prefixOnly);
+        predicate = andTerm(predicate, title, data -> data.metadata != null ? data.metadata.getTitle() : null, prefixOnly);
+        predicate = andTerm(predicate, description, data -> data.metadata != null ? data.metadata.getDescription() : null, prefixOnly);
+
+        // filter by keywords, if provided
+        if( keywords.isPresent() && !keywords.get().isEmpty() ) {
+            List<String> searchKeywords = keywords.get().stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
+
+            predicate = predicate.and(candidate -> {
+                if (candidate.metadata != null && candidate.metadata.getDescription() != null) {
+                    String descriptionLower = candidate.metadata.getDescription().toLowerCase();
+                    return searchKeywords.stream().anyMatch(descriptionLower::contains);
+                }
+                return false;
+            });
+        }
+
+        // if exact names is set, retain resources with exact names
+        if( exactMatchNames.isPresent() && !exactMatchNames.get().isEmpty() ) {
+            Set<String> exactNamesToSearch = exactMatchNames.get().stream().map(String::toLowerCase).collect(Collectors.toSet());
+            predicate = predicate.and(candidate -> exactNamesToSearch.contains(candidate.name.toLowerCase()));
+        }
+        // if exact names is not set, retain resources that match any of the names
+        else if( names.isPresent() && !names.get().isEmpty() ) {
+            List<Predicate<String>> namePredicates = names.get().stream()
+                .map(term -> prefixOnly ? getPrefixPredicate(term) : getContainsPredicate(term))
+                .collect(Collectors.toList());
+            predicate = predicate.and(candidate -> namePredicates.stream().anyMatch(namePredicate -> namePredicate.test(candidate.name)));
+        }
+
+        // filter for minimum account level
+        if( minLevel.isPresent() )
+            predicate = predicate.and(candidate -> levelByName.getOrDefault(candidate.name, 0) >= minLevel.get());
+
+        return predicate;
+    }
+
+    /**
+     * And Term
+     *
+     * @param predicate the predicate so far
+     * @param term the term to filter
+     * @param stringSupplier the string of interest from the resource candidates
+     * @param prefixOnly true if prefix only, false for contains
+     *
+     * @return the predicate that also checks the term
+     */
+    private static Predicate<ArbitraryResourceData> andTerm(
+            Predicate<ArbitraryResourceData> predicate,
+            Optional<String> term,
+            Function<ArbitraryResourceData,String> stringSupplier,
+            boolean prefixOnly) {
+
+        if( term.isEmpty() )
+            return predicate;
+
+        Predicate<String> termPredicate = prefixOnly ? getPrefixPredicate(term.get()) : getContainsPredicate(term.get());
+
+        return predicate.and(candidate -> termPredicate.test(stringSupplier.apply(candidate)));
     }
 
     private static Predicate<String> getContainsPredicate(String term) {
@@ -595,10 +737,7 @@ public class HSQLDBCacheUtils {
                     TransactionsResource.ConfirmationStatus.CONFIRMED,
                     null, null, null);
 
-            transactions = new ArrayList<>(signatures.size());
-            for (byte[] signature : signatures) {
-                transactions.add(repository.getTransactionRepository().fromSignature(signature));
-            }
+            transactions = new ArrayList<>(repository.getTransactionRepository().fromSignatures(signatures));
 
             LOGGER.debug(String.format("Found %s transactions for " + blockHeightRange, transactions.size()));
         } catch (Exception e) {
@@ -687,10 +826,18 @@ public class HSQLDBCacheUtils {
                     = resources.stream()
                         .collect(Collectors.groupingBy(data -> data.service.value));
 
+            Map<Integer, ArbitraryResourceIndex> indexByService
+                    = dataByService.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, entry -> new ArbitraryResourceIndex(entry.getValue())));
+
             // lock, clear and refill
             synchronized (cache.getDataByService()) {
                 cache.getDataByService().clear();
                 cache.getDataByService().putAll(dataByService);
+
+                // replace indexes, dropping those for services that no longer have resources
+                cache.getIndexByService().putAll(indexByService);
+                cache.getIndexByService().keySet().retainAll(indexByService.keySet());
             }
 
             fillNamepMap(cache.getLevelByName(), repository);
@@ -8,7 +8,10 @@ import org.qortal.repository.GroupRepository;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class HSQLDBGroupRepository implements GroupRepository {
 
@@ -485,6 +488,38 @@ public class HSQLDBGroupRepository implements GroupRepository {
 		}
 	}
 
+	@Override
+	public Set<String> getMembersOfAnyGroup(List<Integer> groupIds, List<String> addresses) throws DataException {
+		Set<String> members = new HashSet<>();
+
+		if (groupIds.isEmpty() || addresses.isEmpty())
+			return members;
+
+		StringBuilder sql = new StringBuilder(1024);
+		sql.append("SELECT DISTINCT address FROM GroupMembers WHERE group_id IN (");
+		sql.append(String.join(", ", Collections.nCopies(groupIds.size(), "?")));
+		sql.append(") AND address IN (");
+		sql.append(String.join(", ", Collections.nCopies(addresses.size(), "?")));
+		sql.append(")");
+
+		List<Object> bindParams = new ArrayList<>(groupIds.size() + addresses.size());
+		bindParams.addAll(groupIds);
+		bindParams.addAll(addresses);
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams.toArray())) {
+			if (resultSet == null)
+				return members;
+
+			do {
+				members.add(resultSet.getString(1));
+			} while (resultSet.next());
+
+			return members;
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch group members from repository", e);
+		}
+	}
+
 	@Override
 	public List<GroupMemberData> getGroupMembers(int groupId, Integer limit, Integer offset, Boolean reverse) throws DataException {
 		StringBuilder sql = new StringBuilder(256);
@@ -2,6 +2,7 @@ package org.qortal.repository.hsqldb;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hsqldb.jdbc.HSQLDBPooledConnection;
 import org.qortal.crypto.Crypto;
 import org.qortal.globalization.Translator;
 import org.qortal.gui.SysTray;
@@ -39,13 +40,27 @@ public class HSQLDBRepository implements Repository {
 	protected Long slowQueryThreshold = null;
 	protected List<String> sqlStatements;
 	protected long sessionId;
+	/** Pooled connection backing this session, which caches prepared statements across sessions, or null if not pooled */
+	protected final HSQLDBPooledConnection pooledConnection;
+	/** Per-session prepared statement cache, only used if connection isn't pooled */
 	protected final Map<String, PreparedStatement> preparedStatementCache = new HashMap<>();
+	/** Changes to unconfirmed transactions, applied to mempool only once committed */
+	protected final List<Mempool.Change> mempoolChanges = new ArrayList<>();
+	/** Size of <tt>mempoolChanges</tt> when each savepoint was set, matching <tt>savepoints</tt> */
+	protected final Deque<Integer> mempoolChangeMarkers = new ArrayDeque<>(3);
+	/** Changes to reward-shares, applied to reward-share index only once committed */
+	protected final List<RewardShareIndex.Change> rewardShareChanges = new ArrayList<>();
+	/** Size of <tt>rewardShareChanges</tt> when each savepoint was set, matching <tt>savepoints</tt> */
+	protected final Deque<Integer> rewardShareChangeMarkers = new ArrayDeque<>(3);
+	/** Reward-share index version when current transaction started, or -1 if unknown, see {@link RewardShareIndex#startTransaction(RewardShareIndex.RepositoryAction)} */
+	protected long rewardShareIndexVersion = -1;
 	// We want the same object corresponding to the actual DB
 	protected final Object trimHeightsLock = RepositoryManager.getRepositoryFactory();
 	protected final Object latestATStatesLock = RepositoryManager.getRepositoryFactory();
 
 	private final ATRepository atRepository = new HSQLDBATRepository(this);
-	private final AccountRepository accountRepository = new HSQLDBAccountRepository(this);
+	/** Also buffers account changes during block processing, so needs to know about savepoints, commits, etc. */
+	private final HSQLDBAccountRepository accountRepository = new HSQLDBAccountRepository(this);
 	private final ArbitraryRepository arbitraryRepository = new HSQLDBArbitraryRepository(this);
 	private final AssetRepository assetRepository = new HSQLDBAssetRepository(this);
 	private final BlockRepository blockRepository = new HSQLDBBlockRepository(this);
@@ -64,22 +79,25 @@ public class HSQLDBRepository implements Repository {
 	// NB: no visibility modifier so only callable from within same package
 	/* package */ HSQLDBRepository(Connection connection) throws DataException {
 		this.connection = connection;
+		this.pooledConnection = HSQLDBPooledConnection.fromConnection(connection);
 
 		this.slowQueryThreshold = Settings.getInstance().getSlowQueryThreshold();
 		if (this.slowQueryThreshold != null)
 			this.sqlStatements = new ArrayList<>();
 
-		// Find out our session ID
+		// Find out our session ID, which also starts our transaction
 		try (Statement stmt = this.connection.createStatement()) {
-			if (!stmt.execute("SELECT SESSION_ID()"))
-				throw new DataException("Unable to fetch session ID from repository");
+			this.rewardShareIndexVersion = RewardShareIndex.getInstance().startTransaction(() -> {
+				if (!stmt.execute("SELECT SESSION_ID()"))
+					throw new SQLException("No session ID");
 
-			try (ResultSet resultSet = stmt.getResultSet()) {
-				if (resultSet == null || !resultSet.next())
-					throw new DataException("Unable to fetch session ID from repository");
+				try (ResultSet resultSet = stmt.getResultSet()) {
+					if (resultSet == null || !resultSet.next())
+						throw new SQLException("No session ID");
 
-				this.sessionId = resultSet.getLong(1);
-			}
+					this.sessionId = resultSet.getLong(1);
+				}
+			});
 		} catch (SQLException e) {
 			throw new DataException("Unable to fetch session ID from repository", e);
 		}
@@ -182,9 +200,17 @@ public class HSQLDBRepository implements Repository {
 	@Override
 	public void saveChanges() throws DataException {
 		long beforeQuery = this.slowQueryThreshold == null ? 0 : System.currentTimeMillis();
+		boolean isCommitted = false;
 
 		try {
-			this.connection.commit();
+			// Write any buffered account changes first
+			this.accountRepository.flushBufferedChanges();
+
+			// Reward-share index is updated atomically with commit
+			RewardShareIndex.getInstance().commitChanges(this.rewardShareChanges, this.connection::commit);
+			isCommitted = true;
+
+			Mempool.getInstance().applyChanges(this.mempoolChanges);
 
 			if (this.slowQueryThreshold != null) {
 				long queryTime = System.currentTimeMillis() - beforeQuery;
@@ -199,9 +225,11 @@ public class HSQLDBRepository implements Repository {
 			throw new DataException("commit error", e);
 		} finally {
 			this.savepoints.clear();
+			this.clearMempoolChanges();
+			this.clearRewardShareChanges();
 
 			// Before clearing statements so we can log what led to assertion error
-			assertEmptyTransaction("transaction commit");
+			startNextTransaction("transaction commit", isCommitted);
 
 			if (this.sqlStatements != null)
 				this.sqlStatements.clear();
@@ -210,15 +238,21 @@ public class HSQLDBRepository implements Repository {
 
 	@Override
 	public void discardChanges() throws DataException {
+		this.accountRepository.clearBufferedChanges();
+		boolean isRolledBack = false;
+
 		try {
 			this.connection.rollback();
+			isRolledBack = true;
 		} catch (SQLException e) {
 			throw new DataException("rollback error", e);
 		} finally {
 			this.savepoints.clear();
+			this.clearMempoolChanges();
+			this.clearRewardShareChanges();
 
 			// Before clearing statements so we can log what led to assertion error
-			assertEmptyTransaction("transaction rollback");
+			startNextTransaction("transaction rollback", isRolledBack);
 
 			if (this.sqlStatements != null)
 				this.sqlStatements.clear();
@@ -228,12 +262,17 @@ public class HSQLDBRepository implements Repository {
 	@Override
 	public void setSavepoint() throws DataException {
 		try {
+			// Write any buffered account changes first, so rolling back to savepoint only needs to discard buffer
+			this.accountRepository.flushBufferedChanges();
+
 			if (this.sqlStatements != null)
 				// We don't know savepoint's ID yet
 				this.sqlStatements.add("SAVEPOINT [?]");
 
 			Savepoint savepoint = this.connection.setSavepoint();
 			this.savepoints.push(savepoint);
+			this.mempoolChangeMarkers.push(this.mempoolChanges.size());
+			this.rewardShareChangeMarkers.push(this.rewardShareChanges.size());
 
 			// Update query log with savepoint ID
 			if (this.sqlStatements != null)
@@ -250,6 +289,19 @@ public class HSQLDBRepository implements Repository {
 
 		Savepoint savepoint = this.savepoints.pop();
 
+		// Forget any mempool changes made since savepoint
+		Integer mempoolChangeMarker = this.mempoolChangeMarkers.poll();
+		if (mempoolChangeMarker != null)
+			this.mempoolChanges.subList(mempoolChangeMarker, this.mempoolChanges.size()).clear();
+
+		// Likewise reward-share changes
+		Integer rewardShareChangeMarker = this.rewardShareChangeMarkers.poll();
+		if (rewardShareChangeMarker != null)
+			this.rewardShareChanges.subList(rewardShareChangeMarker, this.rewardShareChanges.size()).clear();
+
+		// Buffered account changes were all made since savepoint
+		this.accountRepository.clearBufferedChanges();
+
 		try {
 			if (this.sqlStatements != null)
 				this.sqlStatements.add("ROLLBACK TO SAVEPOINT [" + savepoint.getSavepointId() + "]");
@@ -260,6 +312,36 @@ public class HSQLDBRepository implements Repository {
 		}
 	}
 
+	/** Records change to unconfirmed transactions, to be applied to mempool on commit. */
+	public void recordMempoolChange(Mempool.Change change) {
+		this.mempoolChanges.add(change);
+	}
+
+	/** Returns this session's uncommitted changes to unconfirmed transactions. */
+	public List<Mempool.Change> getMempoolChanges() {
+		return this.mempoolChanges;
+	}
+
+	private void clearMempoolChanges() {
+		this.mempoolChanges.clear();
+		this.mempoolChangeMarkers.clear();
+	}
+
+	/** Records change to reward-shares, to be applied to reward-share index on commit. */
+	public void recordRewardShareChange(RewardShareIndex.Change change) {
+		this.rewardShareChanges.add(change);
+	}
+
+	/** Returns whether this session has uncommitted changes to reward-shares. */
+	public boolean hasRewardShareChanges() {
+		return !this.rewardShareChanges.isEmpty();
+	}
+
+	private void clearRewardShareChanges() {
+		this.rewardShareChanges.clear();
+		this.rewardShareChangeMarkers.clear();
+	}
+
 	// Close / backup / rebuild / restore
 
 	@Override
@@ -277,6 +359,9 @@ public class HSQLDBRepository implements Repository {
 			this.preparedStatementCache.clear();
 			this.sqlStatements = null;
 			this.savepoints.clear();
+			this.clearMempoolChanges();
+			this.clearRewardShareChanges();
+			this.accountRepository.clearBufferedChanges();
 
 			// If a checkpoint has been requested, we could perform that now
 			this.maybeCheckpoint();
@@ -569,6 +654,10 @@ public class HSQLDBRepository implements Repository {
 	}
 
 	private PreparedStatement cachePreparedStatement(String sql) throws SQLException {
+		// Pooled connections keep their own bounded cache, which outlives this session
+		if (this.pooledConnection != null)
+			return this.pooledConnection.prepareStatement(sql);
+
 		/*
 		 * We cache a duplicate PreparedStatement for this SQL string,
 		 * which we never close, which means HSQLDB also caches a parsed,
@@ -963,6 +1052,28 @@ public class HSQLDBRepository implements Repository {
 		return e;
 	}
 
+	/**
+	 * Checks for uncommitted changes after <tt>context</tt>, which also starts our next transaction.
+	 * <p>
+	 * If previous transaction definitely ended, notes reward-share index version at start of next transaction.
+	 * Otherwise our snapshot might be older, so reward-share index isn't used until next commit or rollback.
+	 */
+	private void startNextTransaction(String context, boolean hasTransactionEnded) throws DataException {
+		this.rewardShareIndexVersion = -1;
+
+		if (!hasTransactionEnded) {
+			assertEmptyTransaction(context);
+			return;
+		}
+
+		this.rewardShareIndexVersion = RewardShareIndex.getInstance().startTransaction(() -> assertEmptyTransaction(context));
+	}
+
+	/** Returns reward-share index version when current transaction started, or -1 if unknown. */
+	public long getRewardShareIndexVersion() {
+		return this.rewardShareIndexVersion;
+	}
+
 	private void assertEmptyTransaction(String context) throws DataException {
 		String sql = "SELECT transaction, transaction_size FROM information_schema.system_sessions WHERE session_id = ?";
 
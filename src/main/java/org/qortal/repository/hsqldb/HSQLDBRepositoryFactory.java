@@ -61,11 +61,14 @@ public class HSQLDBRepositoryFactory implements RepositoryFactory {
 			HSQLDBRepository.attemptRecovery(connectionUrl, "backup");
 		}
 
+		int poolSize = Settings.getInstance().getRepositoryConnectionPoolSize();
+		int statementCacheSize = Settings.getInstance().getRepositoryStatementCacheSize();
+
 		if(Settings.getInstance().isConnectionPoolMonitorEnabled()) {
-			this.connectionPool = new HSQLDBPoolMonitored(Settings.getInstance().getRepositoryConnectionPoolSize());
+			this.connectionPool = new HSQLDBPoolMonitored(poolSize, statementCacheSize);
 		}
 		else {
-			this.connectionPool = new HSQLDBPool(Settings.getInstance().getRepositoryConnectionPoolSize());
+			this.connectionPool = new HSQLDBPool(poolSize, statementCacheSize);
 		}
 
 		this.connectionPool.setUrl(this.connectionUrl);
@@ -178,4 +181,14 @@ public class HSQLDBRepositoryFactory implements RepositoryFactory {
 			return new ArrayList<>(0);
 		}
 	}
+
+	/** Number of prepared statements reused from pooled connections' statement caches. */
+	public long getStatementCacheHits() {
+		return this.connectionPool.getStatementCacheHits();
+	}
+
+	/** Number of statements that pooled connections had to prepare, i.e. compile, afresh. */
+	public long getStatementCacheMisses() {
+		return this.connectionPool.getStatementCacheMisses();
+	}
 }
@@ -7,39 +7,41 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 public class HSQLDBAtTransactionRepository extends HSQLDBTransactionRepository {
 
-	public HSQLDBAtTransactionRepository(HSQLDBRepository repository) {
-		this.repository = repository;
-	}
+	private static final String DETAILS_SQL = "SELECT signature, AT_address, recipient, amount, asset_id, message FROM ATTransactions";
 
-	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
-		String sql = "SELECT AT_address, recipient, amount, asset_id, message FROM ATTransactions WHERE signature = ?";
+	private static final DetailsMapper DETAILS_MAPPER = (resultSet, baseTransactionData) -> {
+		String atAddress = resultSet.getString(2);
+		String recipient = resultSet.getString(3);
+
+		Long amount = resultSet.getLong(4);
+		if (amount == 0 && resultSet.wasNull())
+			amount = null;
 
-		try (ResultSet resultSet = this.repository.checkedExecute(sql, baseTransactionData.getSignature())) {
-			if (resultSet == null)
-				return null;
+		Long assetId = resultSet.getLong(5);
+		if (assetId == 0 && resultSet.wasNull())
+			assetId = null;
 
-			String atAddress = resultSet.getString(1);
-			String recipient = resultSet.getString(2);
+		byte[] message = resultSet.getBytes(6);
 
-			Long amount = resultSet.getLong(3);
-			if (amount == 0 && resultSet.wasNull())
-				amount = null;
+		return new ATTransactionData(baseTransactionData, atAddress, recipient, amount, assetId, message);
+	};
 
-			Long assetId = resultSet.getLong(4);
-			if (assetId == 0 && resultSet.wasNull())
-				assetId = null;
+	public HSQLDBAtTransactionRepository(HSQLDBRepository repository) {
+		this.repository = repository;
+	}
 
-			byte[] message = resultSet.getBytes(5);
+	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, Collections.singletonList(baseTransactionData), DETAILS_MAPPER).get(0);
+	}
 
-			return new ATTransactionData(baseTransactionData, atAddress, recipient, amount, assetId, message);
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch AT transaction from repository", e);
-		}
+	List<TransactionData> fromBases(List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, baseTransactionDatas, DETAILS_MAPPER);
 	}
 
 	@Override
@@ -7,34 +7,36 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 public class HSQLDBChatTransactionRepository extends HSQLDBTransactionRepository {
 
+	private static final String DETAILS_SQL = "SELECT signature, sender, nonce, recipient, is_text, is_encrypted, data, chat_reference FROM ChatTransactions";
+
+	private static final DetailsMapper DETAILS_MAPPER = (resultSet, baseTransactionData) -> {
+		String sender = resultSet.getString(2);
+		int nonce = resultSet.getInt(3);
+		String recipient = resultSet.getString(4);
+		boolean isText = resultSet.getBoolean(5);
+		boolean isEncrypted = resultSet.getBoolean(6);
+		byte[] data = resultSet.getBytes(7);
+		byte[] chatReference = resultSet.getBytes(8);
+
+		return new ChatTransactionData(baseTransactionData, sender, nonce, recipient, chatReference, data, isText, isEncrypted);
+	};
+
 	public HSQLDBChatTransactionRepository(HSQLDBRepository repository) {
 		this.repository = repository;
 	}
 
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
-		String sql = "SELECT sender, nonce, recipient, is_text, is_encrypted, data, chat_reference FROM ChatTransactions WHERE signature = ?";
-
-		try (ResultSet resultSet = this.repository.checkedExecute(sql, baseTransactionData.getSignature())) {
-			if (resultSet == null)
-				return null;
-
-			String sender = resultSet.getString(1);
-			int nonce = resultSet.getInt(2);
-			String recipient = resultSet.getString(3);
-			boolean isText = resultSet.getBoolean(4);
-			boolean isEncrypted = resultSet.getBoolean(5);
-			byte[] data = resultSet.getBytes(6);
-			byte[] chatReference = resultSet.getBytes(7);
+		return this.fromBasesBatched(DETAILS_SQL, Collections.singletonList(baseTransactionData), DETAILS_MAPPER).get(0);
+	}
 
-			return new ChatTransactionData(baseTransactionData, sender, nonce, recipient, chatReference, data, isText, isEncrypted);
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch chat transaction from repository", e);
-		}
+	List<TransactionData> fromBases(List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, baseTransactionDatas, DETAILS_MAPPER);
 	}
 
 	@Override
@@ -7,40 +7,42 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 public class HSQLDBMessageTransactionRepository extends HSQLDBTransactionRepository {
 
-	public HSQLDBMessageTransactionRepository(HSQLDBRepository repository) {
-		this.repository = repository;
-	}
+	private static final String DETAILS_SQL = "SELECT signature, version, nonce, recipient, is_text, is_encrypted, amount, asset_id, data FROM MessageTransactions";
 
-	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
-		String sql = "SELECT version, nonce, recipient, is_text, is_encrypted, amount, asset_id, data FROM MessageTransactions WHERE signature = ?";
+	private static final DetailsMapper DETAILS_MAPPER = (resultSet, baseTransactionData) -> {
+		int version = resultSet.getInt(2);
+		int nonce = resultSet.getInt(3);
+		String recipient = resultSet.getString(4);
+		boolean isText = resultSet.getBoolean(5);
+		boolean isEncrypted = resultSet.getBoolean(6);
+		long amount = resultSet.getLong(7);
+
+		// Special null-checking for asset ID
+		Long assetId = resultSet.getLong(8);
+		if (assetId == 0 && resultSet.wasNull())
+			assetId = null;
 
-		try (ResultSet resultSet = this.repository.checkedExecute(sql, baseTransactionData.getSignature())) {
-			if (resultSet == null)
-				return null;
+		byte[] data = resultSet.getBytes(9);
 
-			int version = resultSet.getInt(1);
-			int nonce = resultSet.getInt(2);
-			String recipient = resultSet.getString(3);
-			boolean isText = resultSet.getBoolean(4);
-			boolean isEncrypted = resultSet.getBoolean(5);
-			long amount = resultSet.getLong(6);
+		return new MessageTransactionData(baseTransactionData, version, nonce, recipient, amount, assetId, data, isText, isEncrypted);
+	};
 
-			// Special null-checking for asset ID
-			Long assetId = resultSet.getLong(7);
-			if (assetId == 0 && resultSet.wasNull())
-				assetId = null;
+	public HSQLDBMessageTransactionRepository(HSQLDBRepository repository) {
+		this.repository = repository;
+	}
 
-			byte[] data = resultSet.getBytes(8);
+	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, Collections.singletonList(baseTransactionData), DETAILS_MAPPER).get(0);
+	}
 
-			return new MessageTransactionData(baseTransactionData, version, nonce, recipient, amount, assetId, data, isText, isEncrypted);
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch message transaction from repository", e);
-		}
+	List<TransactionData> fromBases(List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, baseTransactionDatas, DETAILS_MAPPER);
 	}
 
 	@Override
@@ -7,29 +7,31 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 public class HSQLDBPaymentTransactionRepository extends HSQLDBTransactionRepository {
 
+	private static final String DETAILS_SQL = "SELECT signature, recipient, amount FROM PaymentTransactions";
+
+	private static final DetailsMapper DETAILS_MAPPER = (resultSet, baseTransactionData) -> {
+		String recipient = resultSet.getString(2);
+		long amount = resultSet.getLong(3);
+
+		return new PaymentTransactionData(baseTransactionData, recipient, amount);
+	};
+
 	public HSQLDBPaymentTransactionRepository(HSQLDBRepository repository) {
 		this.repository = repository;
 	}
 
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
-		String sql = "SELECT recipient, amount FROM PaymentTransactions WHERE signature = ?";
-
-		try (ResultSet resultSet = this.repository.checkedExecute(sql, baseTransactionData.getSignature())) {
-			if (resultSet == null)
-				return null;
-
-			String recipient = resultSet.getString(1);
-			long amount = resultSet.getLong(2);
+		return this.fromBasesBatched(DETAILS_SQL, Collections.singletonList(baseTransactionData), DETAILS_MAPPER).get(0);
+	}
 
-			return new PaymentTransactionData(baseTransactionData, recipient, amount);
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch payment transaction from repository", e);
-		}
+	List<TransactionData> fromBases(List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, baseTransactionDatas, DETAILS_MAPPER);
 	}
 
 	@Override
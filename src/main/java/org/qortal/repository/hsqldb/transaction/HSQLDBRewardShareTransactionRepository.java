@@ -7,34 +7,36 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 public class HSQLDBRewardShareTransactionRepository extends HSQLDBTransactionRepository {
 
+	private static final String DETAILS_SQL = "SELECT signature, recipient, reward_share_public_key, share_percent, previous_share_percent FROM RewardShareTransactions";
+
+	private static final DetailsMapper DETAILS_MAPPER = (resultSet, baseTransactionData) -> {
+		String recipient = resultSet.getString(2);
+		byte[] rewardSharePublicKey = resultSet.getBytes(3);
+		int sharePercent = resultSet.getInt(4);
+
+		Integer previousSharePercent = resultSet.getInt(5);
+		if (previousSharePercent == 0 && resultSet.wasNull())
+			previousSharePercent = null;
+
+		return new RewardShareTransactionData(baseTransactionData, recipient, rewardSharePublicKey, sharePercent, previousSharePercent);
+	};
+
 	public HSQLDBRewardShareTransactionRepository(HSQLDBRepository repository) {
 		this.repository = repository;
 	}
 
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
-		String sql = "SELECT recipient, reward_share_public_key, share_percent, previous_share_percent FROM RewardShareTransactions WHERE signature = ?";
-
-		try (ResultSet resultSet = this.repository.checkedExecute(sql, baseTransactionData.getSignature())) {
-			if (resultSet == null)
-				return null;
-
-			String recipient = resultSet.getString(1);
-			byte[] rewardSharePublicKey = resultSet.getBytes(2);
-			int sharePercent = resultSet.getInt(3);
-
-			Integer previousSharePercent = resultSet.getInt(4);
-			if (previousSharePercent == 0 && resultSet.wasNull())
-				previousSharePercent = null;
+		return this.fromBasesBatched(DETAILS_SQL, Collections.singletonList(baseTransactionData), DETAILS_MAPPER).get(0);
+	}
 
-			return new RewardShareTransactionData(baseTransactionData, recipient, rewardSharePublicKey, sharePercent, previousSharePercent);
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch reward-share transaction from repository", e);
-		}
+	List<TransactionData> fromBases(List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, baseTransactionDatas, DETAILS_MAPPER);
 	}
 
 	@Override
@@ -11,12 +11,16 @@ import org.qortal.data.transaction.GroupApprovalTransactionData;
 import org.qortal.data.transaction.TransactionData;
 import org.qortal.data.transaction.TransferAssetTransactionData;
 import org.qortal.repository.DataException;
+import org.qortal.repository.Mempool;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
 import org.qortal.repository.TransactionRepository;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 import org.qortal.transaction.Transaction.ApprovalStatus;
 import org.qortal.transaction.Transaction.TransactionType;
 import org.qortal.utils.Base58;
+import org.qortal.utils.ByteArray;
 import org.qortal.utils.Unicode;
 
 import java.lang.reflect.Constructor;
@@ -36,6 +40,7 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		public Class<?> clazz;
 		public Constructor<?> constructor;
 		public Method fromBaseMethod;
+		public Method fromBasesMethod;
 		public Method saveMethod;
 		public Method deleteMethod;
 	}
@@ -68,6 +73,15 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass's \"fromBase\" method not found for transaction type \"%s\"", txType.name()));
 			}
 
+			try {
+				subclassInfo.fromBasesMethod = subclassInfo.clazz.getDeclaredMethod("fromBases", List.class);
+			} catch (NoSuchMethodException e) {
+				// Subclass has no batched "fromBases" method - this is OK, we use "fromBase" for each transaction instead
+				subclassInfo.fromBasesMethod = null;
+			} catch (IllegalArgumentException | SecurityException e) {
+				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass's \"fromBases\" method not found for transaction type \"%s\"", txType.name()));
+			}
+
 			try {
 				subclassInfo.saveMethod = subclassInfo.clazz.getDeclaredMethod("save", TransactionData.class);
 			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
@@ -155,56 +169,84 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		}
 	}
 
+	/** Maximum number of signatures per <tt>IN (...)</tt> clause when fetching transactions in bulk */
+	private static final int MAX_BATCH_SIZE = 500;
+
+	/**
+	 * Returns transactions matching signatures, in same order as <tt>signatures</tt>, omitting any not found.
+	 * <p>
+	 * Base rows are fetched with one query per batch of signatures, then transactions are grouped by type
+	 * so each type's details are also fetched with one query per batch, rather than one query per transaction.
+	 */
 	@Override
 	public List<TransactionData> fromSignatures(List<byte[]> signatures) throws DataException {
-		StringBuffer sql = new StringBuffer();
+		Map<ByteArray, BaseTransactionData> baseTransactionsBySignature = new HashMap<>(signatures.size());
+		Map<TransactionType, List<BaseTransactionData>> baseTransactionsByType = new EnumMap<>(TransactionType.class);
 
-		sql.append("SELECT type, reference, creator, created_when, fee, tx_group_id, block_height, approval_status, approval_height, signature ");
-		sql.append("FROM Transactions WHERE signature IN (");
-		sql.append(String.join(", ", Collections.nCopies(signatures.size(), "?")));
-		sql.append(")");
+		for (int fromIndex = 0; fromIndex < signatures.size(); fromIndex += MAX_BATCH_SIZE) {
+			List<byte[]> batchSignatures = signatures.subList(fromIndex, Math.min(fromIndex + MAX_BATCH_SIZE, signatures.size()));
 
-		List<TransactionData> list;
-		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), signatures.toArray(new byte[0][]))) {
-			if (resultSet == null) {
-				return new ArrayList<>(0);
-			}
+			StringBuilder sql = new StringBuilder(1024);
 
-			list = new ArrayList<>(signatures.size());
+			sql.append("SELECT type, reference, creator, created_when, fee, tx_group_id, block_height, approval_status, approval_height, signature ");
+			sql.append("FROM Transactions WHERE signature IN (");
+			sql.append(String.join(", ", Collections.nCopies(batchSignatures.size(), "?")));
+			sql.append(")");
 
-			do {
-				TransactionType type = TransactionType.valueOf(resultSet.getInt(1));
+			try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), batchSignatures.toArray())) {
+				if (resultSet == null)
+					continue;
 
-				byte[] reference = resultSet.getBytes(2);
-				byte[] creatorPublicKey = resultSet.getBytes(3);
-				long timestamp = resultSet.getLong(4);
+				do {
+					TransactionType type = TransactionType.valueOf(resultSet.getInt(1));
 
-				Long fee = resultSet.getLong(5);
-				if (fee == 0 && resultSet.wasNull())
-					fee = null;
+					byte[] reference = resultSet.getBytes(2);
+					byte[] creatorPublicKey = resultSet.getBytes(3);
+					long timestamp = resultSet.getLong(4);
 
-				int txGroupId = resultSet.getInt(6);
+					Long fee = resultSet.getLong(5);
+					if (fee == 0 && resultSet.wasNull())
+						fee = null;
 
-				Integer blockHeight = resultSet.getInt(7);
-				if (blockHeight == 0 && resultSet.wasNull())
-					blockHeight = null;
+					int txGroupId = resultSet.getInt(6);
 
-				ApprovalStatus approvalStatus = ApprovalStatus.valueOf(resultSet.getInt(8));
-				Integer approvalHeight = resultSet.getInt(9);
-				if (approvalHeight == 0 && resultSet.wasNull())
-					approvalHeight = null;
+					Integer blockHeight = resultSet.getInt(7);
+					if (blockHeight == 0 && resultSet.wasNull())
+						blockHeight = null;
 
-				byte[] signature = resultSet.getBytes(10);
+					ApprovalStatus approvalStatus = ApprovalStatus.valueOf(resultSet.getInt(8));
+					Integer approvalHeight = resultSet.getInt(9);
+					if (approvalHeight == 0 && resultSet.wasNull())
+						approvalHeight = null;
 
-				BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, txGroupId, reference, creatorPublicKey, fee, approvalStatus, blockHeight, approvalHeight, signature);
+					byte[] signature = resultSet.getBytes(10);
 
-				list.add( fromBase(type, baseTransactionData) );
-			} while( resultSet.next());
+					BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, txGroupId, reference, creatorPublicKey, fee, approvalStatus, blockHeight, approvalHeight, signature);
 
-			return list;
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch transactions from repository", e);
+					// Duplicate signatures only need fetching once
+					if (baseTransactionsBySignature.putIfAbsent(ByteArray.wrap(signature), baseTransactionData) == null)
+						baseTransactionsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(baseTransactionData);
+				} while (resultSet.next());
+			} catch (SQLException e) {
+				throw new DataException("Unable to fetch transactions from repository", e);
+			}
+		}
+
+		Map<ByteArray, TransactionData> transactionsBySignature = new HashMap<>(baseTransactionsBySignature.size());
+		for (Map.Entry<TransactionType, List<BaseTransactionData>> entry : baseTransactionsByType.entrySet())
+			for (TransactionData transactionData : this.fromBases(entry.getKey(), entry.getValue()))
+				if (transactionData != null)
+					transactionsBySignature.put(ByteArray.wrap(transactionData.getSignature()), transactionData);
+
+		List<TransactionData> transactions = new ArrayList<>(transactionsBySignature.size());
+		for (byte[] signature : signatures) {
+			TransactionData transactionData = transactionsBySignature.remove(ByteArray.wrap(signature));
+
+			if (transactionData != null)
+				transactions.add(transactionData);
 		}
+
+		return transactions;
 	}
 
 	@Override
@@ -278,6 +320,89 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		}
 	}
 
+	/** Returns transactions of <tt>type</tt>, in same order as <tt>baseTransactionDatas</tt>, using subclass's batched "fromBases" if available. */
+	private List<TransactionData> fromBases(TransactionType type, List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		HSQLDBTransactionRepository txRepository = repositoryByTxType[type.value];
+
+		if (txRepository == null)
+			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
+
+		Method fromBasesMethod = subclassInfos[type.value].fromBasesMethod;
+
+		if (fromBasesMethod == null || baseTransactionDatas.size() == 1) {
+			List<TransactionData> transactions = new ArrayList<>(baseTransactionDatas.size());
+
+			for (BaseTransactionData baseTransactionData : baseTransactionDatas)
+				transactions.add(this.fromBase(type, baseTransactionData));
+
+			return transactions;
+		}
+
+		try {
+			@SuppressWarnings("unchecked")
+			List<TransactionData> transactions = (List<TransactionData>) fromBasesMethod.invoke(txRepository, baseTransactionDatas);
+			return transactions;
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof DataException)
+				throw (DataException) e.getCause();
+
+			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
+		}
+	}
+
+	/** Builds type-specific transaction data from a row of a batched fetch. See {@link #fromBasesBatched(String, List, DetailsMapper)}. */
+	@FunctionalInterface
+	protected interface DetailsMapper {
+		TransactionData map(ResultSet resultSet, BaseTransactionData baseTransactionData) throws SQLException;
+	}
+
+	/**
+	 * Fetches type-specific details for many transactions at once, for use by subclasses' "fromBases" methods.
+	 * <p>
+	 * <tt>sql</tt> must select <tt>signature</tt> as its first column, followed by whatever <tt>mapper</tt> needs,
+	 * and have no WHERE clause as one is appended to select by signature.
+	 *
+	 * @return transactions in same order as <tt>baseTransactionDatas</tt>, with null for any missing details
+	 * @throws DataException
+	 */
+	protected List<TransactionData> fromBasesBatched(String sql, List<BaseTransactionData> baseTransactionDatas, DetailsMapper mapper) throws DataException {
+		Map<ByteArray, TransactionData> transactionsBySignature = new HashMap<>(baseTransactionDatas.size());
+
+		for (int fromIndex = 0; fromIndex < baseTransactionDatas.size(); fromIndex += MAX_BATCH_SIZE) {
+			List<BaseTransactionData> batch = baseTransactionDatas.subList(fromIndex, Math.min(fromIndex + MAX_BATCH_SIZE, baseTransactionDatas.size()));
+
+			Map<ByteArray, BaseTransactionData> baseTransactionsBySignature = new HashMap<>(batch.size());
+			for (BaseTransactionData baseTransactionData : batch)
+				baseTransactionsBySignature.put(ByteArray.wrap(baseTransactionData.getSignature()), baseTransactionData);
+
+			String batchSql = sql + " WHERE signature IN (" + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+			Object[] bindParams = batch.stream().map(BaseTransactionData::getSignature).toArray();
+
+			try (ResultSet resultSet = this.repository.checkedExecute(batchSql, bindParams)) {
+				if (resultSet == null)
+					continue;
+
+				do {
+					ByteArray signature = ByteArray.wrap(resultSet.getBytes(1));
+					BaseTransactionData baseTransactionData = baseTransactionsBySignature.get(signature);
+
+					if (baseTransactionData != null)
+						transactionsBySignature.put(signature, mapper.map(resultSet, baseTransactionData));
+				} while (resultSet.next());
+			} catch (SQLException e) {
+				throw new DataException("Unable to fetch transactions from repository", e);
+			}
+		}
+
+		List<TransactionData> transactions = new ArrayList<>(baseTransactionDatas.size());
+		for (BaseTransactionData baseTransactionData : baseTransactionDatas)
+			transactions.add(transactionsBySignature.get(ByteArray.wrap(baseTransactionData.getSignature())));
+
+		return transactions;
+	}
+
 	/**
 	 * Returns payments associated with a transaction's signature.
 	 * <p>
@@ -1007,6 +1132,9 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 	@Override
 	public List<TransferAssetTransactionData> getAssetTransfers(long assetId, String address, Integer limit, Integer offset, Boolean reverse)
 			throws DataException {
+		// Query below can join Accounts
+		this.repository.getAccountRepository().flushBatchedChanges();
+
 		List<Object> bindParams = new ArrayList<>(3);
 
 		StringBuilder sql = new StringBuilder(1024);
@@ -1069,6 +1197,9 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 	}
 
 	public List<String> getConfirmedRewardShareCreatorsExcludingSelfShares() throws DataException {
+		// Query below joins Accounts
+		this.repository.getAccountRepository().flushBatchedChanges();
+
 		List<String> rewardShareCreators = new ArrayList<>();
 
 		String sql = "SELECT account "
@@ -1096,6 +1227,9 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 	}
 
 	public List<String> getConfirmedTransferAssetCreators() throws DataException {
+		// Query below joins Accounts
+		this.repository.getAccountRepository().flushBatchedChanges();
+
 		List<String> transferAssetCreators = new ArrayList<>();
 
 		String sql = "SELECT account "
@@ -1292,6 +1426,9 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 	@Override
 	public GroupApprovalData getApprovalData(byte[] pendingSignature) throws DataException {
+		// Query below joins Accounts
+		this.repository.getAccountRepository().flushBatchedChanges();
+
 		// Fetch latest approval data for pending transaction's signature
 		// NOT simply number of GROUP_APPROVAL transactions as some may be rejecting transaction, or changed opinions
 		// Also make sure that GROUP_APPROVAL transaction's admin is still an admin of group
@@ -1344,110 +1481,16 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 	@Override
 	public List<byte[]> getUnconfirmedTransactionSignatures() throws DataException {
-		String sql = "SELECT signature FROM UnconfirmedTransactions ORDER by created_when DESC, signature DESC";
-
-		List<byte[]> signatures = new ArrayList<>();
-
-		// Find transactions with no corresponding row in BlockTransactions
-		try (ResultSet resultSet = this.repository.checkedExecute(sql)) {
-			if (resultSet == null)
-				return signatures;
-
-			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				signatures.add(signature);
-			} while (resultSet.next());
-
-			return signatures;
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch unconfirmed transaction signatures from repository", e);
-		}
+		return Mempool.getInstance().getSignatures(true, this.repository.getMempoolChanges(), HSQLDBTransactionRepository::loadUnconfirmedTransactions);
 	}
 
 	@Override
 	public List<TransactionData> getUnconfirmedTransactions(List<TransactionType> txTypes, byte[] creatorPublicKey,
 															Integer limit, Integer offset, Boolean reverse) throws DataException {
-		List<String> whereClauses = new ArrayList<>();
-		List<Object> bindParams = new ArrayList<>();
-
-		boolean hasCreatorPublicKey = creatorPublicKey != null;
-		boolean hasTxTypes = txTypes != null && !txTypes.isEmpty();
-
-		if (creatorPublicKey != null) {
-			whereClauses.add("Transactions.creator = ?");
-			bindParams.add(creatorPublicKey);
-		}
-
-		StringBuilder sql = new StringBuilder(256);
-		sql.append("SELECT signature FROM UnconfirmedTransactions");
-		if (hasCreatorPublicKey || hasTxTypes) {
-			sql.append(" JOIN Transactions USING (signature) ");
-		}
-
-		if (hasTxTypes) {
-			StringBuilder txTypesIn = new StringBuilder(256);
-			txTypesIn.append("Transactions.type IN (");
-
-			// ints are safe enough to use literally
-			final int txTypesSize = txTypes.size();
-			for (int tti = 0; tti < txTypesSize; ++tti) {
-				if (tti != 0)
-					txTypesIn.append(", ");
+		Set<TransactionType> txTypesSet = txTypes != null && !txTypes.isEmpty() ? EnumSet.copyOf(txTypes) : null;
 
-				txTypesIn.append(txTypes.get(tti).value);
-			}
-
-			txTypesIn.append(")");
-
-			whereClauses.add(txTypesIn.toString());
-		}
-
-		if (!whereClauses.isEmpty()) {
-			sql.append(" WHERE ");
-
-			final int whereClausesSize = whereClauses.size();
-			for (int wci = 0; wci < whereClausesSize; ++wci) {
-				if (wci != 0)
-					sql.append(" AND ");
-
-				sql.append(whereClauses.get(wci));
-			}
-		}
-
-		sql.append(" ORDER BY created_when");
-		if (reverse != null && reverse)
-			sql.append(" DESC");
-
-		sql.append(", signature");
-		if (reverse != null && reverse)
-			sql.append(" DESC");
-
-		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
-
-		List<TransactionData> transactions = new ArrayList<>();
-
-		// Find transactions with no corresponding row in BlockTransactions
-		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams.toArray())) {
-			if (resultSet == null)
-				return transactions;
-
-			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException(String.format("Unable to fetch unconfirmed transaction %s from repository?", Base58.encode(signature)));
-
-				transactions.add(transactionData);
-			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
-			throw new DataException("Unable to fetch unconfirmed transactions from repository", e);
-		}
+		return Mempool.getInstance().getTransactions(txTypesSet, creatorPublicKey, null, limit, offset, reverse != null && reverse,
+				this.repository.getMempoolChanges(), HSQLDBTransactionRepository::loadUnconfirmedTransactions);
 	}
 
 	@Override
@@ -1455,96 +1498,41 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		if (txType == null && creatorPublicKey == null)
 			throw new IllegalArgumentException("At least one of txType or creatorPublicKey must be non-null");
 
-		StringBuilder sql = new StringBuilder(1024);
-		sql.append("SELECT signature FROM UnconfirmedTransactions ");
-		sql.append("JOIN Transactions USING (signature) ");
-		sql.append("WHERE ");
+		Set<TransactionType> txTypes = txType != null ? EnumSet.of(txType) : null;
 
-		List<String> whereClauses = new ArrayList<>();
-		List<Object> bindParams = new ArrayList<>();
-
-		if (txType != null) {
-			whereClauses.add("type = ?");
-			bindParams.add(Integer.valueOf(txType.value));
-		}
-
-		if (creatorPublicKey != null) {
-			whereClauses.add("creator = ?");
-			bindParams.add(creatorPublicKey);
-		}
-
-		final int whereClausesSize = whereClauses.size();
-		for (int wci = 0; wci < whereClausesSize; ++wci) {
-			if (wci != 0)
-				sql.append(" AND ");
-
-			sql.append(whereClauses.get(wci));
-		}
-
-		sql.append("ORDER BY created_when, signature");
-
-		List<TransactionData> transactions = new ArrayList<>();
-
-		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams.toArray())) {
-			if (resultSet == null)
-				return transactions;
-
-			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException(String.format("Unable to fetch unconfirmed transaction %s from repository?", Base58.encode(signature)));
-
-				transactions.add(transactionData);
-			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
-			throw new DataException("Unable to fetch unconfirmed transactions from repository", e);
-		}
+		return Mempool.getInstance().getTransactions(txTypes, creatorPublicKey, null, null, null, false,
+				this.repository.getMempoolChanges(), HSQLDBTransactionRepository::loadUnconfirmedTransactions);
 	}
 
 	@Override
 	public List<TransactionData> getUnconfirmedTransactions(EnumSet<TransactionType> excludedTxTypes, Integer limit) throws DataException {
-		StringBuilder sql = new StringBuilder(1024);
-		List<Object> bindParams = new ArrayList<>();
-
-		sql.append("SELECT signature FROM UnconfirmedTransactions ");
-		sql.append("JOIN Transactions USING (signature) ");
-		sql.append("WHERE type NOT IN (");
+		Set<TransactionType> txTypes = EnumSet.complementOf(excludedTxTypes);
 
-		boolean firstTxType = true;
-		for (TransactionType txType : excludedTxTypes) {
-			if (firstTxType)
-				firstTxType = false;
-			else
-				sql.append(", ");
-
-			sql.append(txType.value);
-		}
+		return Mempool.getInstance().getTransactions(txTypes, null, null, limit, null, false,
+				this.repository.getMempoolChanges(), HSQLDBTransactionRepository::loadUnconfirmedTransactions);
+	}
 
-		sql.append(")");
-		sql.append("ORDER BY created_when, signature ");
+	@Override
+	public int countUnconfirmedTransactions(byte[] creatorPublicKey, EnumSet<TransactionType> txTypes, Long minTimestamp) throws DataException {
+		return Mempool.getInstance().countTransactions(txTypes, creatorPublicKey, minTimestamp,
+				this.repository.getMempoolChanges(), HSQLDBTransactionRepository::loadUnconfirmedTransactions);
+	}
 
-		if (limit != null) {
-			sql.append("LIMIT ?");
-			bindParams.add(limit);
-		}
+	/** Loads all committed unconfirmed transactions, using a separate repository session, to populate mempool. */
+	private static List<TransactionData> loadUnconfirmedTransactions() throws DataException {
+		String sql = "SELECT signature FROM UnconfirmedTransactions ORDER BY created_when, signature";
 
 		List<TransactionData> transactions = new ArrayList<>();
 
-		// Find transactions with no corresponding row in BlockTransactions
-		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams.toArray())) {
+		try (final Repository repository = RepositoryManager.getRepository();
+				ResultSet resultSet = ((HSQLDBRepository) repository).checkedExecute(sql)) {
 			if (resultSet == null)
 				return transactions;
 
 			do {
 				byte[] signature = resultSet.getBytes(1);
 
-				TransactionData transactionData = this.fromSignature(signature);
+				TransactionData transactionData = repository.getTransactionRepository().fromSignature(signature);
 
 				if (transactionData == null)
 					// Something inconsistent with the repository
@@ -1566,6 +1554,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to remove transaction from unconfirmed transactions repository", e);
 		}
+
+		this.repository.recordMempoolChange(Mempool.Change.removed(signature));
 	}
 
 	@Override
@@ -1618,6 +1608,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to add transaction to unconfirmed transactions repository", e);
 		}
+
+		this.repository.recordMempoolChange(Mempool.Change.added(transactionData));
 	}
 
 	@Override
@@ -1671,6 +1663,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 			throw new DataException("Unable to remove transaction from unconfirmed transactions repository", e);
 		}
 
+		this.repository.recordMempoolChange(Mempool.Change.removed(transactionData.getSignature()));
+
 		// If transaction subclass has a "delete" method - call that now
 		TransactionType type = transactionData.getType();
 		if (subclassInfos[type.value].deleteMethod != null) {
@@ -7,32 +7,34 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 public class HSQLDBTransferAssetTransactionRepository extends HSQLDBTransactionRepository {
 
+	// LEFT OUTER JOIN because asset might not exist (e.g. if ISSUE_ASSET & TRANSFER_ASSET are both unconfirmed)
+	private static final String DETAILS_SQL = "SELECT signature, recipient, asset_id, amount, asset_name FROM TransferAssetTransactions LEFT OUTER JOIN Assets USING (asset_id)";
+
+	private static final DetailsMapper DETAILS_MAPPER = (resultSet, baseTransactionData) -> {
+		String recipient = resultSet.getString(2);
+		long assetId = resultSet.getLong(3);
+		long amount = resultSet.getLong(4);
+		String assetName = resultSet.getString(5);
+
+		return new TransferAssetTransactionData(baseTransactionData, recipient, amount, assetId, assetName);
+	};
+
 	public HSQLDBTransferAssetTransactionRepository(HSQLDBRepository repository) {
 		this.repository = repository;
 	}
 
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
-		// LEFT OUTER JOIN because asset might not exist (e.g. if ISSUE_ASSET & TRANSFER_ASSET are both unconfirmed)
-		String sql = "SELECT recipient, asset_id, amount, asset_name FROM TransferAssetTransactions LEFT OUTER JOIN Assets USING (asset_id) WHERE signature = ?";
-
-		try (ResultSet resultSet = this.repository.checkedExecute(sql, baseTransactionData.getSignature())) {
-			if (resultSet == null)
-				return null;
-
-			String recipient = resultSet.getString(1);
-			long assetId = resultSet.getLong(2);
-			long amount = resultSet.getLong(3);
-			String assetName = resultSet.getString(4);
+		return this.fromBasesBatched(DETAILS_SQL, Collections.singletonList(baseTransactionData), DETAILS_MAPPER).get(0);
+	}
 
-			return new TransferAssetTransactionData(baseTransactionData, recipient, amount, assetId, assetName);
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch transfer asset transaction from repository", e);
-		}
+	List<TransactionData> fromBases(List<BaseTransactionData> baseTransactionDatas) throws DataException {
+		return this.fromBasesBatched(DETAILS_SQL, baseTransactionDatas, DETAILS_MAPPER);
 	}
 
 	@Override
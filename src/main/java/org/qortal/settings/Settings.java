@@ -106,6 +106,12 @@ public class Settings {
 	private int maxUnconfirmedPerAccount = 25;
 	/** Max milliseconds into future for accepting new, unconfirmed transactions */
 	private int maxTransactionTimestampFuture = 30 * 60 * 1000; // milliseconds
+	/** Number of threads used to verify signatures (and PoW nonces) of incoming transactions.
+	 * Each thread keeps its own MemoryPoW work buffer (8 MiB) for reuse. */
+	private int transactionSignatureVerificationThreads = Runtime.getRuntime().availableProcessors();
+	/** Number of threads used to verify online accounts' PoW nonces in parallel, e.g. when validating blocks.
+	 * Each thread keeps its own MemoryPoW work buffer (1 MiB) for reuse. */
+	private int onlineAccountsPoWVerificationThreads = Runtime.getRuntime().availableProcessors();
 
 	/** Maximum number of CHAT transactions allowed per account in recent timeframe */
 	private int maxRecentChatMessagesPerAccount = 250;
@@ -132,6 +138,12 @@ public class Settings {
 	private boolean showCheckpointNotification = false;
 	/* How many blocks to cache locally. Defaulted to 10, which covers a typical Synchronizer request + a few spare - increased to 100 */
 	private int blockCacheSize = 100;
+	/** How many block summaries to cache for serving block summary and signature requests from peers */
+	private int blockSummariesCacheSize = 5000;
+	/** Maximum approximate size, in bytes, of deeply confirmed transactions to cache for API lookups and peer requests. 0 to disable. */
+	private long confirmedTransactionCacheSize = 32 * 1024 * 1024L; // bytes
+	/** How many confirmations a transaction needs before it can be cached */
+	private int confirmedTransactionCacheMinConfirmations = 10;
 
 	/** Maximum number of transactions for the block minter to include in a block */
 	private int maxTransactionsPerBlock = 100;
@@ -179,6 +191,10 @@ public class Settings {
 	private long archiveInterval = 7171L; // milliseconds
 	/** Serialization version to use when building an archive */
 	private int defaultArchiveVersion = 2;
+	/** Whether to read the block archive via memory-mapped files, rather than opening each file per block */
+	private boolean archiveMemoryMapEnabled = true;
+	/** Maximum number of archive files to keep memory-mapped at once */
+	private int archiveMappedFileCacheSize = 16;
 
 	/** Whether to automatically bootstrap instead of syncing from genesis */
 	private boolean bootstrap = true;
@@ -204,10 +220,23 @@ public class Settings {
 	private int maxDataPeers = 5;
 	/** Maximum number of threads for network engine. */
 	private int maxNetworkThreadPoolSize = 512;
+	/** Initial size of each peer's receive buffer, which only grows (temporarily) to receive larger messages. */
+	private int peerInitialReceiveBufferSize = 32 * 1024;
+	/** Maximum total size of idle peer receive buffers kept for reuse. */
+	private long receiveBufferPoolMaxIdleBytes = 64L * 1024 * 1024;
+	/** Whether pooled peer receive buffers are allocated off-heap. */
+	private boolean receiveBufferPoolDirect = false;
+	/**
+	 * Number of threads shared by all peers for queued message sending, or 0 for a dedicated thread per peer.
+	 * Sending doesn't block while waiting for slow peers, so a few threads serve many peers.
+	 */
+	private int peerSendManagerThreads = 4;
 	/** Maximum number of threads for network proof-of-work compute, used during handshaking. */
 	private int networkPoWComputePoolSize = 4;
 	/** Maximum number of retry attempts if a peer fails to respond with the requested data */
 	private int maxRetries = 3;
+	/** How many blocks to fetch, and pre-validate, ahead of the block being processed when syncing. 0 to fetch one at a time. */
+	private int syncPrefetchBlockCount = 8;
 
 	/** The number of seconds of no activity before recovery mode begins */
 	public long recoveryModeTimeout = 9999999999999L;
@@ -262,6 +291,8 @@ public class Settings {
 	private String repositoryPath = "db";
 	/** Repository connection pool size. Needs to be a bit bigger than maxNetworkThreadPoolSize */
 	private int repositoryConnectionPoolSize = 1920;
+	/** Maximum number of prepared statements cached by each pooled repository connection, reused across sessions */
+	private int repositoryStatementCacheSize = 200;
 	private List<String> fixedNetwork;
 
 	// Export/import
@@ -359,6 +390,9 @@ public class Settings {
 	/** Whether to make connections directly with peers that have the required data */
 	private boolean directDataRetrievalEnabled = true;
 
+	/** Maximum number of outstanding data file (chunk) requests per peer when downloading a resource */
+	private int maxOutstandingDataFileRequestsPerPeer = 8;
+
 	/** Expiry time (ms) for (unencrypted) built/cached data */
 	private Long builtDataExpiryInterval = 30 * 24 * 60 * 60 * 1000L; // 30 days
 
@@ -376,6 +410,15 @@ public class Settings {
 	/** Whether to serve QDN data without authentication */
 	private boolean qdnAuthBypassEnabled = true;
 
+	/** Maximum total rate (bytes per second) of QDN data uploaded to peers, shared between them. Unlimited if 0 */
+	private long maxQdnUploadRate = 0L;
+	/** Maximum total rate (bytes per second) of QDN data downloaded from peers, shared between them. Unlimited if 0 */
+	private long maxQdnDownloadRate = 0L;
+	/** Maximum rate (bytes per second) of QDN data uploaded to any one peer. Unlimited if 0 */
+	private long maxQdnPeerUploadRate = 0L;
+	/** Maximum rate (bytes per second) of QDN data downloaded from any one peer. Unlimited if 0 */
+	private long maxQdnPeerDownloadRate = 0L;
+
 	/** Limit threads per message type */
 	private Set<ThreadLimit> maxThreadsPerMessageType = new HashSet<>();
 
@@ -922,6 +965,14 @@ public class Settings {
 		return this.maxTransactionTimestampFuture;
 	}
 
+	public int getTransactionSignatureVerificationThreads() {
+		return this.transactionSignatureVerificationThreads;
+	}
+
+	public int getOnlineAccountsPoWVerificationThreads() {
+		return this.onlineAccountsPoWVerificationThreads;
+	}
+
 	public int getMaxRecentChatMessagesPerAccount() {
 		return this.maxRecentChatMessagesPerAccount;
 	}
@@ -934,6 +985,18 @@ public class Settings {
 		return this.blockCacheSize;
 	}
 
+	public int getBlockSummariesCacheSize() {
+		return this.blockSummariesCacheSize;
+	}
+
+	public long getConfirmedTransactionCacheSize() {
+		return this.confirmedTransactionCacheSize;
+	}
+
+	public int getConfirmedTransactionCacheMinConfirmations() {
+		return this.confirmedTransactionCacheMinConfirmations;
+	}
+
 	public int getMaxTransactionsPerBlock() {
 		return this.maxTransactionsPerBlock;
 	}
@@ -992,12 +1055,32 @@ public class Settings {
 		return this.maxNetworkThreadPoolSize;
 	}
 
+	public int getPeerInitialReceiveBufferSize() {
+		return this.peerInitialReceiveBufferSize;
+	}
+
+	public long getReceiveBufferPoolMaxIdleBytes() {
+		return this.receiveBufferPoolMaxIdleBytes;
+	}
+
+	public boolean isReceiveBufferPoolDirect() {
+		return this.receiveBufferPoolDirect;
+	}
+
+	public int getPeerSendManagerThreads() {
+		return this.peerSendManagerThreads;
+	}
+
 	public int getNetworkPoWComputePoolSize() {
 		return this.networkPoWComputePoolSize;
 	}
 
 	public int getMaxRetries() { return this.maxRetries; }
 
+	public int getSyncPrefetchBlockCount() {
+		return this.syncPrefetchBlockCount;
+	}
+
 	public long getRecoveryModeTimeout() {
 		return recoveryModeTimeout;
 	}
@@ -1070,6 +1153,10 @@ public class Settings {
 		return this.repositoryConnectionPoolSize;
 	}
 
+	public int getRepositoryStatementCacheSize() {
+		return this.repositoryStatementCacheSize;
+	}
+
 	public String getExportPath() {
 		return this.exportPath;
 	}
@@ -1224,6 +1311,14 @@ public class Settings {
 		return this.defaultArchiveVersion;
 	}
 
+	public boolean isArchiveMemoryMapEnabled() {
+		return this.archiveMemoryMapEnabled;
+	}
+
+	public int getArchiveMappedFileCacheSize() {
+		return this.archiveMappedFileCacheSize;
+	}
+
 
 	public boolean getBootstrap() {
 		return this.bootstrap;
@@ -1270,6 +1365,10 @@ public class Settings {
 		return this.directDataRetrievalEnabled;
 	}
 
+	public int getMaxOutstandingDataFileRequestsPerPeer() {
+		return this.maxOutstandingDataFileRequestsPerPeer;
+	}
+
 	public boolean isOriginalCopyIndicatorFileEnabled() {
 		return this.originalCopyIndicatorFileEnabled;
 	}
@@ -1294,6 +1393,22 @@ public class Settings {
 		return this.maxStorageCapacity;
 	}
 
+	public long getMaxQdnUploadRate() {
+		return this.maxQdnUploadRate;
+	}
+
+	public long getMaxQdnDownloadRate() {
+		return this.maxQdnDownloadRate;
+	}
+
+	public long getMaxQdnPeerUploadRate() {
+		return this.maxQdnPeerUploadRate;
+	}
+
+	public long getMaxQdnPeerDownloadRate() {
+		return this.maxQdnPeerDownloadRate;
+	}
+
 	public boolean isQDNAuthBypassEnabled() {
 		if (this.gatewayEnabled) {
 			// We must always bypass QDN authentication in gateway mode, in order for it to function properly
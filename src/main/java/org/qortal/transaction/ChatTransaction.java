@@ -19,10 +19,9 @@ import org.qortal.transform.transaction.TransactionTransformer;
 import org.qortal.utils.ListUtils;
 import org.qortal.utils.NTP;
 
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.function.Predicate;
 
 public class ChatTransaction extends Transaction {
 
@@ -237,22 +236,13 @@ public class ChatTransaction extends Transaction {
 	}
 
 	private int countRecentChatTransactionsByCreator(PublicKeyAccount creator) throws DataException {
-		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
 		final Long now = NTP.getTime();
 		long recentThreshold = Settings.getInstance().getRecentChatMessagesMaxAge();
 
 		// We only care about chat transactions, and only those that are considered 'recent'
-		Predicate<TransactionData> hasSameCreatorAndIsRecentChat = transactionData -> {
-			if (transactionData.getType() != TransactionType.CHAT)
-				return false;
+		Long minTimestamp = now != null ? now - recentThreshold : null;
 
-			if (transactionData.getTimestamp() < now - recentThreshold)
-				return false;
-
-			return Arrays.equals(creator.getPublicKey(), transactionData.getCreatorPublicKey());
-		};
-
-		return (int) unconfirmedTransactions.stream().filter(hasSameCreatorAndIsRecentChat).count();
+		return repository.getTransactionRepository().countUnconfirmedTransactions(creator.getPublicKey(), EnumSet.of(TransactionType.CHAT), minTimestamp);
 	}
 
 
@@ -8,7 +8,6 @@ import org.qortal.account.PublicKeyAccount;
 import org.qortal.asset.Asset;
 import org.qortal.block.BlockChain;
 import org.qortal.controller.Controller;
-import org.qortal.controller.TransactionImporter;
 import org.qortal.crypto.Crypto;
 import org.qortal.data.block.BlockData;
 import org.qortal.data.group.GroupApprovalData;
@@ -30,7 +29,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Predicate;
 
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toMap;
@@ -622,21 +620,11 @@ public abstract class Transaction {
 	}
 
 	private int countUnconfirmedByCreator(PublicKeyAccount creator) throws DataException {
-		List<TransactionData> unconfirmedTransactions = TransactionImporter.getInstance().unconfirmedTransactionsCache;
-		if (unconfirmedTransactions == null) {
-			unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
-		}
-
 		// We exclude CHAT transactions as they never get included into blocks and
 		// have spam/DoS prevention by requiring proof of work
-		Predicate<TransactionData> hasSameCreatorButNotChat = transactionData -> {
-			if (transactionData.getType() == TransactionType.CHAT)
-				return false;
-
-			return Arrays.equals(creator.getPublicKey(), transactionData.getCreatorPublicKey());
-		};
+		EnumSet<TransactionType> txTypes = EnumSet.complementOf(EnumSet.of(TransactionType.CHAT));
 
-		return (int) unconfirmedTransactions.stream().filter(hasSameCreatorButNotChat).count();
+		return repository.getTransactionRepository().countUnconfirmedTransactions(creator.getPublicKey(), txTypes, null);
 	}
 
 	/**
@@ -649,10 +637,9 @@ public abstract class Transaction {
 		BlockData latestBlockData = repository.getBlockRepository().getLastBlock();
 
 		EnumSet<TransactionType> excludedTxTypes = EnumSet.of(TransactionType.CHAT, TransactionType.PRESENCE);
+		// Already in timestamp-else-signature order
 		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions(excludedTxTypes, null);
 
-		unconfirmedTransactions.sort(getDataComparator());
-
 		Iterator<TransactionData> unconfirmedTransactionsIterator = unconfirmedTransactions.iterator();
 		while (unconfirmedTransactionsIterator.hasNext()) {
 			TransactionData transactionData = unconfirmedTransactionsIterator.next();
@@ -678,8 +665,6 @@ public abstract class Transaction {
 		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
 		List<TransactionData> invalidTransactions = new ArrayList<>();
 
-		unconfirmedTransactions.sort(getDataComparator());
-
 		Iterator<TransactionData> unconfirmedTransactionsIterator = unconfirmedTransactions.iterator();
 		while (unconfirmedTransactionsIterator.hasNext()) {
 			TransactionData transactionData = unconfirmedTransactionsIterator.next();
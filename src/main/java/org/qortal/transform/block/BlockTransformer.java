@@ -40,7 +40,7 @@ public class BlockTransformer extends Transformer {
 
 	public static final int BLOCK_SIGNATURE_LENGTH = MINTER_SIGNATURE_LENGTH + TRANSACTIONS_SIGNATURE_LENGTH;
 
-	protected static final int TRANSACTION_SIZE_LENGTH = INT_LENGTH; // per transaction
+	public static final int TRANSACTION_SIZE_LENGTH = INT_LENGTH; // per transaction
 
 	protected static final int AT_BYTES_LENGTH = INT_LENGTH;
 	protected static final int AT_FEES_LENGTH = AMOUNT_LENGTH;
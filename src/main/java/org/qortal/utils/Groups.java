@@ -44,6 +44,22 @@ public class Groups {
         return false;
     }
 
+    /**
+     * Which of these addresses are members of any of these groups?
+     *
+     * Bulk version of memberExistsInAnyGroup, using a single repository query.
+     *
+     * @param groupRepository the group data repository
+     * @param groupsIds the group Ids to look for the addresses
+     * @param addresses the addresses
+     *
+     * @return the addresses that are in any of the groups listed, no duplicates
+     * @throws DataException
+     */
+    public static Set<String> membersOfAnyGroup(GroupRepository groupRepository, List<Integer> groupsIds, List<String> addresses) throws DataException {
+        return groupRepository.getMembersOfAnyGroup(groupsIds, addresses);
+    }
+
     /**
      * Get All Members
      *
@@ -189,6 +189,69 @@ public class BlockArchiveV2Tests extends Common {
 		}
 	}
 
+	@Test
+	public void testMappedReader() throws DataException, InterruptedException, TransformationException, IOException, IllegalAccessException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+
+			System.out.println("Starting testMappedReader");
+
+			// Mint some blocks so that we are able to archive them later
+			System.out.println("Minting 1000 blocks...");
+			for (int i = 0; i < 1000; i++) {
+				BlockMinter.mintTestingBlock(repository, Common.getTestAccount(repository, "alice-reward-share"));
+			}
+			System.out.println("Finished minting blocks.");
+
+			// 900 blocks are trimmed (this specifies the first untrimmed height)
+			repository.getBlockRepository().setOnlineAccountsSignaturesTrimHeight(901);
+			repository.getATRepository().setAtTrimHeight(901);
+
+			// Write blocks 2-900 to the archive
+			final int maximumArchiveHeight = BlockArchiveWriter.getMaxArchiveHeight(repository);
+			BlockArchiveWriter writer = new BlockArchiveWriter(0, maximumArchiveHeight, repository);
+			writer.setShouldEnforceFileSizeTarget(false); // To avoid the need to pre-calculate file sizes
+			BlockArchiveWriter.BlockArchiveWriteResult result = writer.write();
+			assertEquals(BlockArchiveWriter.BlockArchiveWriteResult.OK, result);
+
+			BlockArchiveReader reader = BlockArchiveReader.getInstance();
+
+			// Read blocks using memory-mapped archive files
+			FieldUtils.writeField(Settings.getInstance(), "archiveMemoryMapEnabled", true, true);
+			List<BlockTransformation> mappedBlocks = reader.fetchBlocksFromRange(2, 900);
+			byte[] mappedBlock500Bytes = reader.fetchSerializedBlockBytesForHeight(500).getA();
+			assertNull(reader.fetchBlockAtHeight(901));
+
+			// Read blocks by opening the archive file per block
+			FieldUtils.writeField(Settings.getInstance(), "archiveMemoryMapEnabled", false, true);
+			List<BlockTransformation> fileBlocks = reader.fetchBlocksFromRange(2, 900);
+			byte[] fileBlock500Bytes = reader.fetchSerializedBlockBytesForHeight(500).getA();
+			assertNull(reader.fetchBlockAtHeight(901));
+
+			// Restore default
+			FieldUtils.writeField(Settings.getInstance(), "archiveMemoryMapEnabled", true, true);
+
+			// Both methods should return the same blocks
+			System.out.println("Comparing mapped and unmapped reads...");
+			assertEquals(900 - 1, mappedBlocks.size());
+			assertEquals(fileBlocks.size(), mappedBlocks.size());
+			for (int i = 0; i < mappedBlocks.size(); i++) {
+				BlockData mappedBlockData = mappedBlocks.get(i).getBlockData();
+				BlockData fileBlockData = fileBlocks.get(i).getBlockData();
+
+				assertEquals(i + 2, mappedBlockData.getHeight().intValue());
+				assertEquals(fileBlockData.getHeight(), mappedBlockData.getHeight());
+				assertArrayEquals(fileBlockData.getSignature(), mappedBlockData.getSignature());
+			}
+			assertArrayEquals(fileBlock500Bytes, mappedBlock500Bytes);
+
+			// Ensure the values match the repository
+			BlockData block900RepositoryData = repository.getBlockRepository().fromHeight(900);
+			assertArrayEquals(block900RepositoryData.getSignature(), mappedBlocks.get(mappedBlocks.size() - 1).getBlockData().getSignature());
+
+			System.out.println("testMappedReader completed successfully.");
+		}
+	}
+
 	@Test
 	public void testArchivedAtStates() throws DataException, InterruptedException, TransformationException, IOException {
 		try (final Repository repository = RepositoryManager.getRepository()) {
@@ -0,0 +1,80 @@
+package org.qortal.test;
+
+import org.junit.Test;
+import org.qortal.controller.BlockSummaryCache;
+import org.qortal.data.block.BlockSummaryData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BlockSummaryCacheTests {
+
+	@Test
+	public void testChainedLookups() {
+		List<BlockSummaryData> chain = buildChain(1, 20);
+		BlockSummaryCache cache = new BlockSummaryCache(100);
+
+		cache.putAll(chain.subList(1, 11), cache.getGeneration());
+
+		// Parent itself needn't be cached
+		List<BlockSummaryData> blockSummaries = cache.getSummariesAfter(chain.get(0).getSignature(), 5);
+		assertEquals(5, blockSummaries.size());
+		assertEquals(2, blockSummaries.get(0).getHeight());
+
+		// Stops at end of cached range
+		blockSummaries = cache.getSummariesAfter(chain.get(5).getSignature(), 100);
+		assertEquals(5, blockSummaries.size());
+		assertEquals(11, blockSummaries.get(blockSummaries.size() - 1).getHeight());
+
+		// Unknown parent
+		assertTrue(cache.getSummariesAfter(chain.get(15).getSignature(), 5).isEmpty());
+	}
+
+	@Test
+	public void testInvalidation() {
+		List<BlockSummaryData> chain = buildChain(1, 20);
+		BlockSummaryCache cache = new BlockSummaryCache(100);
+
+		long generation = cache.getGeneration();
+		cache.putAll(chain, generation);
+
+		cache.invalidateAbove(10);
+		assertEquals(10, cache.size());
+		assertEquals(9, cache.getSummariesAfter(chain.get(0).getSignature(), 100).size());
+
+		// Summaries fetched before invalidation are ignored
+		cache.putAll(chain, generation);
+		assertEquals(10, cache.size());
+	}
+
+	@Test
+	public void testEviction() {
+		List<BlockSummaryData> chain = buildChain(1, 20);
+		BlockSummaryCache cache = new BlockSummaryCache(10);
+
+		cache.putAll(chain, cache.getGeneration());
+		assertEquals(10, cache.size());
+
+		// Oldest entries evicted first
+		assertTrue(cache.getSummariesAfter(chain.get(0).getSignature(), 5).isEmpty());
+		assertEquals(5, cache.getSummariesAfter(chain.get(14).getSignature(), 5).size());
+	}
+
+	private static List<BlockSummaryData> buildChain(int firstHeight, int count) {
+		List<BlockSummaryData> chain = new ArrayList<>();
+		byte[] reference = new byte[64];
+
+		for (int height = firstHeight; height < firstHeight + count; ++height) {
+			byte[] signature = new byte[64];
+			signature[0] = (byte) height;
+
+			chain.add(new BlockSummaryData(height, signature, new byte[32], 0, 0L, 0, reference));
+			reference = signature;
+		}
+
+		return chain;
+	}
+
+}
@@ -3,17 +3,22 @@ package org.qortal.test;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.qortal.account.Account;
 import org.qortal.account.PrivateKeyAccount;
 import org.qortal.block.Block;
 import org.qortal.block.GenesisBlock;
+import org.qortal.controller.OnlineAccountsManager;
 import org.qortal.data.block.BlockData;
+import org.qortal.data.transaction.PaymentTransactionData;
 import org.qortal.data.transaction.TransactionData;
 import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.AccountUtils;
 import org.qortal.test.common.BlockUtils;
 import org.qortal.test.common.Common;
 import org.qortal.test.common.TransactionUtils;
+import org.qortal.test.common.transaction.TestTransaction;
 import org.qortal.transaction.Transaction;
 import org.qortal.transaction.Transaction.TransactionType;
 import org.qortal.transform.TransformationException;
@@ -138,6 +143,43 @@ public class BlockTests extends Common {
 		}
 	}
 
+	@Test
+	public void testAddTransactions() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			// Create a payment from each of several accounts
+			for (String accountName : Arrays.asList("alice", "bob", "chloe", "dilbert")) {
+				PrivateKeyAccount sender = Common.getTestAccount(repository, accountName);
+				Account recipient = AccountUtils.createRandomAccount(repository);
+				TransactionData paymentTransactionData = new PaymentTransactionData(TestTransaction.generateBase(sender), recipient.getAddress(), 100000L);
+				TransactionUtils.signAndImportValid(repository, paymentTransactionData, sender);
+			}
+
+			List<TransactionData> unconfirmedTransactions = Transaction.getUnconfirmedTransactions(repository);
+			assertEquals(4, unconfirmedTransactions.size());
+
+			PrivateKeyAccount mintingAccount = Common.getTestAccount(repository, "alice-reward-share");
+			OnlineAccountsManager.getInstance().ensureTestingAccountsOnline(mintingAccount);
+
+			Block newBlock = Block.mint(repository, repository.getBlockRepository().getLastBlock(), mintingAccount);
+			assertNotNull(newBlock);
+			newBlock.sign();
+
+			// Limit number of transactions in block
+			assertEquals(3, newBlock.addTransactions(unconfirmedTransactions, 3));
+			assertEquals(3, newBlock.getBlockData().getTransactionCount());
+
+			// Transactions already in block are not added again
+			assertEquals(1, newBlock.addTransactions(unconfirmedTransactions, 100));
+			assertEquals(4, newBlock.getBlockData().getTransactionCount());
+
+			long expectedFees = unconfirmedTransactions.stream().mapToLong(TransactionData::getFee).sum();
+			assertEquals(expectedFees, newBlock.getBlockData().getTotalFees() - newBlock.getBlockData().getATFees());
+
+			newBlock.sign();
+			assertEquals(Block.ValidationResult.OK, newBlock.isValid());
+		}
+	}
+
 	@Test
 	public void testLatestBlockCacheWithLatestBlock() throws DataException {
 		try (final Repository repository = RepositoryManager.getRepository()) {
@@ -0,0 +1,157 @@
+package org.qortal.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.controller.ConfirmedTransactionCache;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.AccountUtils;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.transaction.TransactionTransformer;
+import org.qortal.utils.ByteArray;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ConfirmedTransactionCacheTests extends Common {
+
+	private static final int MIN_CONFIRMATIONS = 5;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testOnlyDeepTransactionsCached() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ConfirmedTransactionCache cache = new ConfirmedTransactionCache(1024 * 1024L, MIN_CONFIRMATIONS);
+			byte[] signature = pay(repository);
+
+			// Not enough confirmations yet
+			assertNotNull(cache.fromSignature(repository, signature));
+			assertEquals(0, cache.size());
+
+			BlockUtils.mintBlocks(repository, MIN_CONFIRMATIONS);
+
+			TransactionData transactionData = cache.fromSignature(repository, signature);
+			assertNotNull(transactionData);
+			assertEquals(1, cache.size());
+
+			// Served from cache this time
+			long hits = cache.getHitCount();
+			assertSame(transactionData, cache.fromSignature(repository, signature));
+			assertEquals(hits + 1, cache.getHitCount());
+
+			// Unknown transactions aren't cached
+			assertNull(cache.fromSignature(repository, new byte[64]));
+			assertEquals(1, cache.size());
+		}
+	}
+
+	@Test
+	public void testTransactionBytes() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ConfirmedTransactionCache cache = new ConfirmedTransactionCache(1024 * 1024L, MIN_CONFIRMATIONS);
+			byte[] signature = pay(repository);
+			BlockUtils.mintBlocks(repository, MIN_CONFIRMATIONS);
+
+			byte[] expectedBytes = TransactionTransformer.toBytes(repository.getTransactionRepository().fromSignature(signature));
+
+			// First from repository, then from cache
+			for (int i = 0; i < 2; ++i) {
+				Map<ByteArray, byte[]> transactionBytes = cache.getTransactionBytes(repository, List.of(signature, new byte[64]));
+				assertEquals(1, transactionBytes.size());
+				assertArrayEquals(expectedBytes, transactionBytes.get(ByteArray.wrap(signature)));
+			}
+
+			assertEquals(1, cache.size());
+			assertTrue(cache.getHitRate() > 0.0);
+		}
+	}
+
+	@Test
+	public void testSingleTransactionBytes() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ConfirmedTransactionCache cache = new ConfirmedTransactionCache(1024 * 1024L, MIN_CONFIRMATIONS);
+			byte[] signature = pay(repository);
+			BlockUtils.mintBlocks(repository, MIN_CONFIRMATIONS);
+
+			byte[] expectedBytes = TransactionTransformer.toBytes(repository.getTransactionRepository().fromSignature(signature));
+
+			// First from repository, then from cache
+			for (int i = 0; i < 2; ++i)
+				assertArrayEquals(expectedBytes, cache.getTransactionBytes(repository, signature));
+
+			assertNull(cache.getTransactionBytes(repository, new byte[64]));
+			assertEquals(1, cache.size());
+		}
+	}
+
+	@Test
+	public void testInvalidation() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ConfirmedTransactionCache cache = new ConfirmedTransactionCache(1024 * 1024L, MIN_CONFIRMATIONS);
+			byte[] signature = pay(repository);
+			int height = repository.getBlockRepository().getBlockchainHeight();
+			BlockUtils.mintBlocks(repository, MIN_CONFIRMATIONS);
+
+			cache.fromSignature(repository, signature);
+			assertEquals(1, cache.size());
+
+			// Orphaning above transaction's block keeps it
+			cache.invalidateAbove(height);
+			assertEquals(1, cache.size());
+
+			// Orphaning transaction's block drops it
+			cache.invalidateAbove(height - 1);
+			assertEquals(0, cache.size());
+			assertEquals(0, cache.getTotalBytes());
+		}
+	}
+
+	@Test
+	public void testSizeBoundedEviction() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			byte[] firstSignature = pay(repository);
+			byte[] secondSignature = pay(repository);
+			BlockUtils.mintBlocks(repository, MIN_CONFIRMATIONS);
+
+			// Room for one payment, but not two
+			ConfirmedTransactionCache cache = new ConfirmedTransactionCache(1024L, MIN_CONFIRMATIONS);
+
+			cache.fromSignature(repository, firstSignature);
+			assertEquals(1, cache.size());
+
+			cache.fromSignature(repository, secondSignature);
+			assertEquals(1, cache.size());
+			assertEquals(1, cache.getEvictionCount());
+			assertTrue(cache.getTotalBytes() <= cache.getMaxBytes());
+
+			// Disabled cache never stores anything
+			ConfirmedTransactionCache disabledCache = new ConfirmedTransactionCache(0L, MIN_CONFIRMATIONS);
+			assertNotNull(disabledCache.fromSignature(repository, firstSignature));
+			assertEquals(0, disabledCache.size());
+		}
+	}
+
+	/** Mints block with payment from Alice to Bob and returns payment's signature. */
+	private static byte[] pay(Repository repository) throws DataException {
+		PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+		PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+		AccountUtils.pay(repository, alice, bob.getAddress(), 1234L);
+
+		byte[] lastReference = alice.getLastReference();
+		assertNotNull(lastReference);
+		return lastReference;
+	}
+
+}
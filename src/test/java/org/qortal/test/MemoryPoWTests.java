@@ -114,4 +114,25 @@ public class MemoryPoWTests {
 		assertTrue(MemoryPoW.verify2(data, workBufferLength, difficulty, expectedNonce));
 	}
 
+	@Test
+	public void testReusedWorkBufferVerify() {
+		byte[] data = new byte[] { (byte) 0xaa, (byte) 0xbb, (byte) 0xcc };
+
+		final int smallerWorkBufferLength = 1024 * 1024;
+		final int difficulty = 8;
+		int smallerNonce = MemoryPoW.compute2(data, smallerWorkBufferLength, difficulty);
+
+		MemoryPoW.reuseWorkBuffers();
+		try {
+			// Reused buffer must be resized to match each verification's work buffer length
+			assertTrue(MemoryPoW.verify2(data, workBufferLength, difficulty, 326));
+			assertTrue(MemoryPoW.verify2(data, smallerWorkBufferLength, difficulty, smallerNonce));
+			assertTrue(MemoryPoW.verify2(data, workBufferLength, difficulty, 326));
+			assertTrue(MemoryPoW.verify2(data, workBufferLength, 14, 11032));
+		} finally {
+			// Don't leave reusable buffer on shared test thread
+			MemoryPoW.releaseWorkBuffers();
+		}
+	}
+
 }
@@ -16,6 +16,7 @@ import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
+import org.qortal.repository.hsqldb.HSQLDBRepositoryFactory;
 import org.qortal.test.common.BlockUtils;
 import org.qortal.test.common.Common;
 
@@ -80,6 +81,27 @@ public class RepositoryTests extends Common {
 		}
 	}
 
+	@Test
+	public void testStatementCacheAcrossSessions() throws DataException, SQLException {
+		HSQLDBRepositoryFactory repositoryFactory = (HSQLDBRepositoryFactory) RepositoryManager.getRepositoryFactory();
+		final String sql = "SELECT COUNT(*) FROM Accounts";
+
+		try (final HSQLDBRepository hsqldb = (HSQLDBRepository) RepositoryManager.getRepository()) {
+			hsqldb.prepareStatement(sql).execute();
+		}
+
+		long previousHits = repositoryFactory.getStatementCacheHits();
+		long previousMisses = repositoryFactory.getStatementCacheMisses();
+
+		// Next session is handed same pooled connection, so should reuse already-prepared statement
+		try (final HSQLDBRepository hsqldb = (HSQLDBRepository) RepositoryManager.getRepository()) {
+			hsqldb.prepareStatement(sql).execute();
+		}
+
+		assertEquals(previousHits + 1, repositoryFactory.getStatementCacheHits());
+		assertEquals(previousMisses, repositoryFactory.getStatementCacheMisses());
+	}
+
 	@Test
 	public void testDeadlock() {
 		// Open connection 1
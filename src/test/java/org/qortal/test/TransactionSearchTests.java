@@ -3,6 +3,9 @@ package org.qortal.test;
 import org.junit.Before;
 import org.junit.Test;
 import org.qortal.account.PrivateKeyAccount;
+import org.qortal.data.transaction.PaymentTransactionData;
+import org.qortal.data.transaction.RewardShareTransactionData;
+import org.qortal.data.transaction.TransactionData;
 import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
@@ -11,9 +14,11 @@ import org.qortal.test.common.BlockUtils;
 import org.qortal.test.common.Common;
 import org.qortal.transaction.Transaction.TransactionType;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class TransactionSearchTests extends Common {
 
@@ -73,4 +78,57 @@ public class TransactionSearchTests extends Common {
 
 	}
 
+	@Test
+	public void testFromSignaturesMatchesFromSignature() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount chloe = Common.getTestAccount(repository, "chloe");
+
+			AccountUtils.pay(repository, alice, chloe.getAddress(), 1234L);
+			AccountUtils.pay(repository, chloe, alice.getAddress(), 5678L);
+			AccountUtils.rewardShare(repository, "alice", "chloe", 50_00);
+
+			// Mix of transaction types, including genesis block's
+			List<byte[]> signatures = new ArrayList<>(repository.getTransactionRepository().getSignaturesMatchingCriteria(null, null, null, null));
+			assertTrue(signatures.size() > 3);
+
+			// Shuffle to check order is preserved
+			Collections.shuffle(signatures);
+
+			List<TransactionData> transactions = repository.getTransactionRepository().fromSignatures(signatures);
+			assertEquals(signatures.size(), transactions.size());
+
+			for (int i = 0; i < signatures.size(); ++i) {
+				TransactionData expectedTransactionData = repository.getTransactionRepository().fromSignature(signatures.get(i));
+				TransactionData transactionData = transactions.get(i);
+
+				assertArrayEquals(expectedTransactionData.getSignature(), transactionData.getSignature());
+				assertEquals(expectedTransactionData.getType(), transactionData.getType());
+				assertEquals(expectedTransactionData.getClass(), transactionData.getClass());
+				assertEquals(expectedTransactionData.getTimestamp(), transactionData.getTimestamp());
+				assertEquals(expectedTransactionData.getBlockHeight(), transactionData.getBlockHeight());
+
+				if (transactionData instanceof PaymentTransactionData) {
+					assertEquals(((PaymentTransactionData) expectedTransactionData).getRecipient(), ((PaymentTransactionData) transactionData).getRecipient());
+					assertEquals(((PaymentTransactionData) expectedTransactionData).getAmount(), ((PaymentTransactionData) transactionData).getAmount());
+				}
+
+				if (transactionData instanceof RewardShareTransactionData) {
+					assertArrayEquals(((RewardShareTransactionData) expectedTransactionData).getRewardSharePublicKey(), ((RewardShareTransactionData) transactionData).getRewardSharePublicKey());
+					assertEquals(((RewardShareTransactionData) expectedTransactionData).getSharePercent(), ((RewardShareTransactionData) transactionData).getSharePercent());
+				}
+			}
+
+			// Unknown signatures are omitted, duplicates are only returned once
+			List<byte[]> mixedSignatures = new ArrayList<>();
+			mixedSignatures.add(new byte[64]);
+			mixedSignatures.add(signatures.get(0));
+			mixedSignatures.add(signatures.get(0));
+
+			transactions = repository.getTransactionRepository().fromSignatures(mixedSignatures);
+			assertEquals(1, transactions.size());
+			assertArrayEquals(signatures.get(0), transactions.get(0).getSignature());
+		}
+	}
+
 }
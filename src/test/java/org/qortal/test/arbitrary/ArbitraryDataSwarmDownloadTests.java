@@ -0,0 +1,123 @@
+package org.qortal.test.arbitrary;
+
+import org.junit.Test;
+import org.qortal.controller.arbitrary.ArbitraryDataSwarmDownload;
+import org.qortal.data.network.PeerData;
+import org.qortal.data.transaction.ArbitraryTransactionData;
+import org.qortal.data.transaction.BaseTransactionData;
+import org.qortal.network.Peer;
+import org.qortal.network.PeerAddress;
+import org.qortal.utils.Pair;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ArbitraryDataSwarmDownloadTests {
+
+    private static final int WINDOW = 2;
+
+    @Test
+    public void testWindowPerPeer() {
+        ArbitraryDataSwarmDownload download = buildDownload();
+        Peer peer1 = buildPeer("127.0.0.1:12392");
+        Peer peer2 = buildPeer("127.0.0.2:12392");
+
+        for (int i = 0; i < 10; i++) {
+            download.addPeerForHash("hash" + i, peer1, 0L);
+            download.addPeerForHash("hash" + i, peer2, 0L);
+        }
+
+        // Both peers should be used, with no more than WINDOW requests each
+        Set<String> requestedHashes = new HashSet<>();
+        int peer1Count = 0;
+        int peer2Count = 0;
+
+        Pair<String, Peer> request;
+        while ((request = download.nextRequest(WINDOW, hash58 -> false)) != null) {
+            assertTrue(requestedHashes.add(request.getA()));
+
+            if (request.getB() == peer1)
+                peer1Count++;
+            else
+                peer2Count++;
+        }
+
+        assertEquals(WINDOW, peer1Count);
+        assertEquals(WINDOW, peer2Count);
+
+        // Completing a request frees a slot for that peer
+        download.onChunkReceived("hash0", peer1, 100, 50, 1L);
+        request = download.nextRequest(WINDOW, hash58 -> false);
+        assertNotNull(request);
+        assertFalse(requestedHashes.contains(request.getA()));
+    }
+
+    @Test
+    public void testPrefersFasterPeer() {
+        ArbitraryDataSwarmDownload download = buildDownload();
+        Peer slowPeer = buildPeer("127.0.0.1:12392");
+        Peer fastPeer = buildPeer("127.0.0.2:12392");
+
+        for (int i = 0; i < 10; i++) {
+            download.addPeerForHash("hash" + i, slowPeer, 0L);
+            download.addPeerForHash("hash" + i, fastPeer, 0L);
+        }
+
+        // Measure a response from each peer
+        Pair<String, Peer> request1 = download.nextRequest(1, hash58 -> false);
+        Pair<String, Peer> request2 = download.nextRequest(1, hash58 -> false);
+        assertNotSame(request1.getB(), request2.getB());
+
+        for (Pair<String, Peer> request : List.of(request1, request2))
+            download.onChunkReceived(request.getA(), request.getB(), 100, request.getB() == slowPeer ? 1000 : 10, 1L);
+
+        // Next request should go to faster peer, even though both have a free slot
+        Pair<String, Peer> request = download.nextRequest(WINDOW, hash58 -> false);
+        assertSame(fastPeer, request.getB());
+    }
+
+    @Test
+    public void testFailures() {
+        ArbitraryDataSwarmDownload download = buildDownload();
+        Peer peer1 = buildPeer("127.0.0.1:12392");
+        Peer peer2 = buildPeer("127.0.0.2:12392");
+
+        download.addPeerForHash("hash0", peer1, 0L);
+        download.addPeerForHash("hash0", peer2, 0L);
+
+        // Peer that fails isn't asked for the same chunk again
+        Pair<String, Peer> request = download.nextRequest(WINDOW, hash58 -> false);
+        download.onChunkFailed(request.getA(), request.getB(), 1L);
+
+        Pair<String, Peer> retry = download.nextRequest(WINDOW, hash58 -> false);
+        assertEquals("hash0", retry.getA());
+        assertNotSame(request.getB(), retry.getB());
+
+        // No sources left
+        download.onChunkFailed(retry.getA(), retry.getB(), 2L);
+        assertNull(download.nextRequest(WINDOW, hash58 -> false));
+        assertTrue(download.isIdle());
+
+        // Chunks already being requested elsewhere are skipped
+        download.addPeerForHash("hash1", peer1, 3L);
+        assertNull(download.nextRequest(WINDOW, hash58 -> true));
+        assertNotNull(download.nextRequest(WINDOW, hash58 -> false));
+        assertFalse(download.hasExpired(Long.MAX_VALUE, 1000L));
+    }
+
+    private static ArbitraryDataSwarmDownload buildDownload() {
+        BaseTransactionData baseTransactionData = new BaseTransactionData(0L, 0, null, new byte[32], 0L, new byte[64]);
+        ArbitraryTransactionData transactionData = new ArbitraryTransactionData(baseTransactionData, 5, 0, 0, 0,
+                "test", null, ArbitraryTransactionData.Method.PUT, null, null, null, null, null, null);
+
+        return new ArbitraryDataSwarmDownload(transactionData, 0L);
+    }
+
+    private static Peer buildPeer(String address) {
+        return new Peer(new PeerData(PeerAddress.fromString(address)));
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.qortal.test.network;
+
+import org.junit.Test;
+import org.qortal.data.network.PeerData;
+import org.qortal.network.KnownPeers;
+import org.qortal.network.PeerAddress;
+import org.qortal.repository.DataException;
+import org.qortal.repository.NetworkRepository;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class KnownPeersTests {
+
+    private static final long BACKOFF = 5 * 60 * 1000L;
+
+    @Test
+    public void testMergeIgnoresKnownAddresses() {
+        KnownPeers knownPeers = new KnownPeers(BACKOFF);
+
+        List<PeerData> newPeers = knownPeers.merge(addresses("node1.example.com:12392", "127.0.0.1:12392"), 1000L, "test");
+        assertEquals(2, newPeers.size());
+
+        // Host comparison is case-insensitive, but ports must match
+        newPeers = knownPeers.merge(addresses("NODE1.example.com:12392", "node1.example.com:12393", "127.0.0.1:12392"), 2000L, "test");
+        assertEquals(1, newPeers.size());
+        assertEquals(12393, newPeers.get(0).getAddress().getPort());
+
+        assertEquals(3, knownPeers.size());
+        assertNotNull(knownPeers.get(PeerAddress.fromString("Node1.Example.com:12392")));
+    }
+
+    @Test
+    public void testConnectFailureBackoff() {
+        KnownPeers knownPeers = new KnownPeers(BACKOFF);
+        knownPeers.merge(addresses("127.0.0.1:12392"), 0L, "test");
+
+        long now = 1_000_000L;
+
+        PeerData peerData = knownPeers.pollConnectable(now, p -> false);
+        assertNotNull(peerData);
+        assertEquals(Long.valueOf(now), peerData.getLastAttempted());
+
+        // Attempt failed, so not eligible until backoff expires
+        assertNull(knownPeers.pollConnectable(now + BACKOFF - 1, p -> false));
+        assertSame(peerData, knownPeers.pollConnectable(now + BACKOFF, p -> false));
+
+        // Second consecutive failure doubles backoff
+        now += BACKOFF;
+        assertNull(knownPeers.pollConnectable(now + 2 * BACKOFF - 1, p -> false));
+        assertSame(peerData, knownPeers.pollConnectable(now + 2 * BACKOFF, p -> false));
+
+        // Success makes peer eligible again straight away, e.g. after disconnecting
+        now += 2 * BACKOFF;
+        knownPeers.noteConnected(peerData, now + 100L);
+        assertSame(peerData, knownPeers.pollConnectable(now + 200L, p -> false));
+    }
+
+    @Test
+    public void testConnectablePriority() {
+        KnownPeers knownPeers = new KnownPeers(BACKOFF);
+        knownPeers.merge(addresses("127.0.0.1:12392", "127.0.0.2:12392", "127.0.0.3:12392"), 0L, "test");
+
+        long now = 1_000_000L;
+        Set<PeerAddress> attempted = new HashSet<>();
+
+        // Never-attempted peers come first, with excluded peers skipped
+        PeerAddress excludedAddress = PeerAddress.fromString("127.0.0.2:12392");
+        for (int i = 0; i < 2; ++i) {
+            PeerData peerData = knownPeers.pollConnectable(now, p -> p.getAddress().equals(excludedAddress));
+            assertNotNull(peerData);
+            assertFalse(peerData.getAddress().equals(excludedAddress));
+            assertTrue(attempted.add(peerData.getAddress()));
+        }
+
+        assertNull(knownPeers.pollConnectable(now, p -> p.getAddress().equals(excludedAddress)));
+
+        PeerData peerData = knownPeers.pollConnectable(now, p -> false);
+        assertTrue(peerData.getAddress().equals(excludedAddress));
+    }
+
+    @Test
+    public void testRemoval() {
+        KnownPeers knownPeers = new KnownPeers(BACKOFF);
+        knownPeers.merge(addresses("127.0.0.1:12392", "127.0.0.2:12392"), 0L, "test");
+
+        assertTrue(knownPeers.remove(PeerAddress.fromString("127.0.0.1:12392")));
+        assertFalse(knownPeers.remove(PeerAddress.fromString("127.0.0.1:12392")));
+        assertEquals(1, knownPeers.size());
+
+        // Removed peers are no longer connect candidates
+        PeerData peerData = knownPeers.pollConnectable(1000L, p -> false);
+        assertEquals("127.0.0.2", peerData.getAddress().getHost());
+        assertNull(knownPeers.pollConnectable(1000L, p -> false));
+
+        List<PeerData> removedPeers = knownPeers.removeIf(p -> p.getLastAttempted() != null);
+        assertEquals(1, removedPeers.size());
+        assertEquals(0, knownPeers.size());
+    }
+
+    @Test
+    public void testBatchedPersistence() throws DataException {
+        KnownPeers knownPeers = new KnownPeers(BACKOFF);
+        TestNetworkRepository networkRepository = new TestNetworkRepository();
+
+        // Loaded peers are already persisted
+        PeerData loadedPeer = new PeerData(PeerAddress.fromString("127.0.0.1:12392"), 0L, "test");
+        knownPeers.load(Collections.singletonList(loadedPeer));
+        assertEquals(0, knownPeers.flush(networkRepository));
+
+        knownPeers.merge(addresses("127.0.0.2:12392", "127.0.0.3:12392"), 0L, "test");
+        knownPeers.remove(PeerAddress.fromString("127.0.0.3:12392"));
+        knownPeers.remove(PeerAddress.fromString("127.0.0.1:12392"));
+
+        assertEquals(3, knownPeers.flush(networkRepository));
+        assertEquals(Collections.singletonList("127.0.0.2:12392"), networkRepository.saved);
+        assertEquals(new HashSet<>(Arrays.asList("127.0.0.1:12392", "127.0.0.3:12392")), new HashSet<>(networkRepository.deleted));
+
+        // Nothing changed since last flush
+        assertEquals(0, knownPeers.flush(networkRepository));
+
+        // Connection attempt needs saving
+        knownPeers.pollConnectable(1000L, p -> false);
+        assertEquals(1, knownPeers.flush(networkRepository));
+
+        knownPeers.clear();
+        knownPeers.flush(networkRepository);
+        assertEquals(1, networkRepository.deleteAllCount);
+        assertEquals(2, networkRepository.deleted.size());
+    }
+
+    private static List<PeerAddress> addresses(String... addresses) {
+        List<PeerAddress> peerAddresses = new ArrayList<>();
+
+        for (String address : addresses)
+            peerAddresses.add(PeerAddress.fromString(address));
+
+        return peerAddresses;
+    }
+
+    private static class TestNetworkRepository implements NetworkRepository {
+        final List<String> saved = new ArrayList<>();
+        final List<String> deleted = new ArrayList<>();
+        int deleteAllCount = 0;
+
+        @Override
+        public List<PeerData> getAllPeers() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void save(PeerData peerData) {
+            this.saved.add(peerData.getAddress().toString());
+        }
+
+        @Override
+        public int delete(PeerAddress peerAddress) {
+            this.deleted.add(peerAddress.toString());
+            return 1;
+        }
+
+        @Override
+        public int deleteAllPeers() {
+            ++this.deleteAllCount;
+            return 0;
+        }
+    }
+
+}
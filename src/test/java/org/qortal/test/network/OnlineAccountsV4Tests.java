@@ -0,0 +1,133 @@
+package org.qortal.test.network;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+import org.junit.Test;
+import org.qortal.controller.OnlineAccountsManager;
+import org.qortal.network.message.GetOnlineAccountsV4Message;
+import org.qortal.network.message.Message;
+import org.qortal.network.message.MessageException;
+import org.qortal.transform.Transformer;
+
+import java.nio.ByteBuffer;
+import java.security.Security;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OnlineAccountsV4Tests {
+
+    private static final Random RANDOM = new Random();
+    static {
+        // This must go before any calls to LogManager/Logger
+        System.setProperty("java.util.logging.manager", "org.apache.logging.log4j.jul.LogManager");
+
+        Security.insertProviderAt(new BouncyCastleProvider(), 0);
+        Security.insertProviderAt(new BouncyCastleJsseProvider(), 1);
+    }
+
+    private Map<Short, byte[]> convertToPrefixHashes(List<byte[]> publicKeys) {
+        Map<Short, byte[]> hashesByPrefix = new HashMap<>();
+
+        for (byte[] publicKey : publicKeys)
+            hashesByPrefix.compute(GetOnlineAccountsV4Message.getPrefix(publicKey),
+                    (k, v) -> OnlineAccountsManager.xorByteArrayInPlace(v, publicKey, 2));
+
+        return hashesByPrefix;
+    }
+
+    @Test
+    public void testIncrementalHashes() {
+        List<byte[]> publicKeys = generatePublicKeys(2000);
+
+        Map<Short, byte[]> hashesByPrefix = convertToPrefixHashes(publicKeys);
+
+        // Order of accounts doesn't matter
+        List<byte[]> shuffledPublicKeys = new ArrayList<>(publicKeys);
+        Collections.shuffle(shuffledPublicKeys, RANDOM);
+        Map<Short, byte[]> shuffledHashesByPrefix = convertToPrefixHashes(shuffledPublicKeys);
+
+        assertEquals(hashesByPrefix.keySet(), shuffledHashesByPrefix.keySet());
+        for (Short prefix : hashesByPrefix.keySet()) {
+            byte[] hash = hashesByPrefix.get(prefix);
+
+            assertArrayEquals(hash, shuffledHashesByPrefix.get(prefix));
+
+            // Prefix is preserved in hash
+            assertEquals(prefix.shortValue(), GetOnlineAccountsV4Message.getPrefix(hash));
+        }
+
+        // Adding one more account only changes hash for that account's prefix
+        byte[] extraPublicKey = generatePublicKeys(1).get(0);
+        short extraPrefix = GetOnlineAccountsV4Message.getPrefix(extraPublicKey);
+
+        List<byte[]> morePublicKeys = new ArrayList<>(publicKeys);
+        morePublicKeys.add(extraPublicKey);
+        Map<Short, byte[]> moreHashesByPrefix = convertToPrefixHashes(morePublicKeys);
+
+        for (Short prefix : moreHashesByPrefix.keySet()) {
+            if (prefix == extraPrefix)
+                assertFalse(Arrays.equals(moreHashesByPrefix.get(prefix), hashesByPrefix.get(prefix)));
+            else
+                assertArrayEquals(hashesByPrefix.get(prefix), moreHashesByPrefix.get(prefix));
+        }
+
+        // XOR is its own inverse
+        byte[] hash = OnlineAccountsManager.xorByteArrayInPlace(moreHashesByPrefix.get(extraPrefix).clone(), extraPublicKey, 2);
+        byte[] expectedHash = hashesByPrefix.get(extraPrefix);
+        if (expectedHash != null)
+            assertArrayEquals(expectedHash, hash);
+    }
+
+    @Test
+    public void testSerialization() throws MessageException {
+        Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefixOut = new HashMap<>();
+        hashesByTimestampThenPrefixOut.put(1L << 40, convertToPrefixHashes(generatePublicKeys(3000)));
+        hashesByTimestampThenPrefixOut.put((1L << 40) + 300_000L, convertToPrefixHashes(generatePublicKeys(10)));
+
+        validateSerialization(hashesByTimestampThenPrefixOut);
+    }
+
+    @Test
+    public void testEmptySerialization() throws MessageException {
+        validateSerialization(Collections.emptyMap());
+        validateSerialization(new HashMap<>());
+    }
+
+    private void validateSerialization(Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefixOut) throws MessageException {
+        Message messageOut = new GetOnlineAccountsV4Message(hashesByTimestampThenPrefixOut);
+        byte[] messageBytes = messageOut.toBytes();
+
+        ByteBuffer byteBuffer = ByteBuffer.wrap(messageBytes).asReadOnlyBuffer();
+
+        GetOnlineAccountsV4Message messageIn = (GetOnlineAccountsV4Message) Message.fromByteBuffer(byteBuffer);
+
+        Map<Long, Map<Short, byte[]>> hashesByTimestampThenPrefixIn = messageIn.getHashesByTimestampThenPrefix();
+
+        assertEquals("timestamps mismatch", hashesByTimestampThenPrefixOut.keySet(), hashesByTimestampThenPrefixIn.keySet());
+
+        for (Long timestamp : hashesByTimestampThenPrefixOut.keySet()) {
+            Map<Short, byte[]> hashesByPrefixIn = hashesByTimestampThenPrefixIn.get(timestamp);
+            Map<Short, byte[]> hashesByPrefixOut = hashesByTimestampThenPrefixOut.get(timestamp);
+
+            assertEquals("prefix entry mismatch", hashesByPrefixOut.keySet(), hashesByPrefixIn.keySet());
+
+            for (Short prefix : hashesByPrefixOut.keySet())
+                assertArrayEquals("pubkey hash mismatch", hashesByPrefixOut.get(prefix), hashesByPrefixIn.get(prefix));
+        }
+    }
+
+    private List<byte[]> generatePublicKeys(int numAccounts) {
+        List<byte[]> publicKeys = new ArrayList<>();
+
+        for (int a = 0; a < numAccounts; ++a) {
+            byte[] pubkey = new byte[Transformer.PUBLIC_KEY_LENGTH];
+            RANDOM.nextBytes(pubkey);
+
+            publicKeys.add(pubkey);
+        }
+
+        return publicKeys;
+    }
+
+}
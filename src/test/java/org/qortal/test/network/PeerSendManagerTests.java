@@ -0,0 +1,220 @@
+package org.qortal.test.network;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.data.network.PeerData;
+import org.qortal.network.BandwidthManager;
+import org.qortal.network.Peer;
+import org.qortal.network.PeerAddress;
+import org.qortal.network.PeerSendLane;
+import org.qortal.network.PeerSendLaneStats;
+import org.qortal.network.PeerSendManager;
+import org.qortal.network.message.Message;
+import org.qortal.network.message.MessageType;
+import org.qortal.repository.DataException;
+import org.qortal.settings.Settings;
+import org.qortal.test.common.Common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PeerSendManagerTests extends Common {
+
+    private static final int TIMEOUT = 10_000; // ms
+    private static final long MAX_SEND_WAIT = 10_000L; // ms
+
+    private ScheduledExecutorService executor;
+    private CountDownLatch startLatch;
+    private List<Message> sentMessages;
+    private Peer peer;
+    private Map<PeerSendLane, PeerSendLaneStats> laneStats;
+    private PeerSendManager sendManager;
+
+    @Before
+    public void beforeTest() throws DataException {
+        Common.useDefaultSettings();
+
+        this.sentMessages = Collections.synchronizedList(new ArrayList<>());
+
+        // Writer that is always ready, recording messages instead of sending them
+        this.peer = new Peer(new PeerData(PeerAddress.fromString("127.0.0.1:12392"))) {
+            @Override
+            public boolean trySendMessageNow(Message message) {
+                sentMessages.add(message);
+                return true;
+            }
+        };
+
+        this.laneStats = new EnumMap<>(PeerSendLane.class);
+        for (PeerSendLane lane : PeerSendLane.values())
+            this.laneStats.put(lane, new PeerSendLaneStats());
+
+        // Hold up sending until test has queued its messages
+        this.executor = Executors.newSingleThreadScheduledExecutor();
+        this.startLatch = new CountDownLatch(1);
+        this.executor.execute(() -> {
+            try {
+                this.startLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        this.sendManager = new PeerSendManager(this.peer, this.executor, this.laneStats);
+    }
+
+    @After
+    public void afterTest() throws IllegalAccessException {
+        this.startLatch.countDown();
+        this.sendManager.shutdown();
+        this.executor.shutdownNow();
+
+        // Rebuild bandwidth budgets from settings next time they're needed
+        FieldUtils.writeStaticField(BandwidthManager.class, "instance", null, true);
+    }
+
+    @Test
+    public void testLaneOrderingByWeight() throws InterruptedException {
+        // More messages in each lane than its weight, so no lane runs dry during one round
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(this.sendManager.queueMessage(new TestMessage(MessageType.PING, 0), TIMEOUT));
+            assertTrue(this.sendManager.queueMessage(new TestMessage(MessageType.BLOCK, 0), TIMEOUT));
+            assertTrue(this.sendManager.queueMessage(new TestMessage(MessageType.TRANSACTION, 0), TIMEOUT));
+            assertTrue(this.sendManager.queueMessage(new TestMessage(MessageType.GET_ARBITRARY_DATA, 0), TIMEOUT));
+        }
+
+        int roundLength = 0;
+        for (PeerSendLane lane : PeerSendLane.values())
+            roundLength += lane.weight;
+
+        this.startLatch.countDown();
+        awaitSentMessages(roundLength);
+
+        List<PeerSendLane> sentLanes = getSentLanes().subList(0, roundLength);
+
+        // One round gives each lane as many sends as its weight
+        for (PeerSendLane lane : PeerSendLane.values())
+            assertEquals(lane.weight, Collections.frequency(sentLanes, lane));
+
+        // Smooth weighted round-robin interleaves lanes, rather than sending each lane's share in one burst
+        final PeerSendLane C = PeerSendLane.CONTROL;
+        final PeerSendLane B = PeerSendLane.BLOCKS;
+        final PeerSendLane T = PeerSendLane.TRANSACTIONS;
+        final PeerSendLane U = PeerSendLane.BULK;
+        List<PeerSendLane> expectedLanes = List.of(C, B, T, C, B, C, T, B, C, U, C, B, T, C, B, C, T, B, C);
+        assertEquals(expectedLanes, sentLanes);
+    }
+
+    @Test
+    public void testLaneByteLimit() throws InterruptedException {
+        final int maxQueuedBytes = (int) PeerSendLane.CONTROL.maxQueuedBytes;
+
+        TestMessage firstMessage = new TestMessage(MessageType.PING, maxQueuedBytes - 1000);
+        TestMessage overflowMessage = new TestMessage(MessageType.PING, 2000);
+        TestMessage fillingMessage = new TestMessage(MessageType.PING, 1000);
+        TestMessage otherLaneMessage = new TestMessage(MessageType.BLOCK, 2000);
+
+        assertTrue(this.sendManager.queueMessage(firstMessage, TIMEOUT));
+
+        // Lane is nearly full, so this message is dropped
+        assertFalse(this.sendManager.queueMessage(overflowMessage, TIMEOUT));
+        assertEquals(1, this.laneStats.get(PeerSendLane.CONTROL).getDroppedMessages());
+
+        // Exactly filling lane is allowed
+        assertTrue(this.sendManager.queueMessage(fillingMessage, TIMEOUT));
+        assertEquals(2, this.sendManager.getQueuedMessages(PeerSendLane.CONTROL));
+        assertEquals(maxQueuedBytes, this.sendManager.getQueuedBytes(PeerSendLane.CONTROL));
+
+        // Other lanes have their own limits
+        assertTrue(this.sendManager.queueMessage(otherLaneMessage, TIMEOUT));
+        assertEquals(0, this.laneStats.get(PeerSendLane.BLOCKS).getDroppedMessages());
+
+        this.startLatch.countDown();
+        awaitSentMessages(3);
+
+        assertTrue(this.sentMessages.contains(firstMessage));
+        assertTrue(this.sentMessages.contains(fillingMessage));
+        assertTrue(this.sentMessages.contains(otherLaneMessage));
+        assertFalse(this.sentMessages.contains(overflowMessage));
+        assertEquals(0L, this.sendManager.getQueuedBytes(PeerSendLane.CONTROL));
+    }
+
+    @Test
+    public void testEmptyLaneAcceptsOversizedMessage() {
+        final int maxQueuedBytes = (int) PeerSendLane.CONTROL.maxQueuedBytes;
+
+        assertTrue(this.sendManager.queueMessage(new TestMessage(MessageType.PING, maxQueuedBytes + 1000), TIMEOUT));
+
+        // Lane is now over its limit, so even an empty message is dropped
+        assertFalse(this.sendManager.queueMessage(new TestMessage(MessageType.PING, 0), TIMEOUT));
+        assertEquals(1, this.laneStats.get(PeerSendLane.CONTROL).getDroppedMessages());
+        assertEquals(1, this.sendManager.getQueuedMessages(PeerSendLane.CONTROL));
+    }
+
+    @Test
+    public void testShapedMessagesDontBlockUnshaped() throws IllegalAccessException, InterruptedException {
+        // Limit QDN uploads, then use up this peer's budget for a long time
+        FieldUtils.writeField(Settings.getInstance(), "maxQdnPeerUploadRate", 1000L, true);
+        FieldUtils.writeStaticField(BandwidthManager.class, "instance", null, true);
+        BandwidthManager.getInstance().recordUpload(this.peer, 1_000_000L);
+        assertFalse(BandwidthManager.getInstance().isUploadAvailable(this.peer));
+
+        TestMessage shapedMessage = new TestMessage(MessageType.ARBITRARY_DATA, 1000);
+        TestMessage sameLaneMessage = new TestMessage(MessageType.GET_ARBITRARY_DATA, 0);
+        TestMessage otherLaneMessage = new TestMessage(MessageType.PING, 0);
+
+        assertTrue(this.sendManager.queueMessage(shapedMessage, TIMEOUT));
+        assertTrue(this.sendManager.queueMessage(sameLaneMessage, TIMEOUT));
+        assertTrue(this.sendManager.queueMessage(otherLaneMessage, TIMEOUT));
+
+        this.startLatch.countDown();
+        awaitSentMessages(2);
+
+        assertTrue(this.sentMessages.contains(sameLaneMessage));
+        assertTrue(this.sentMessages.contains(otherLaneMessage));
+
+        // QDN data keeps waiting for bandwidth budget
+        Thread.sleep(500L);
+        assertEquals(2, this.sentMessages.size());
+        assertEquals(1, this.sendManager.getQueuedMessages(PeerSendLane.BULK));
+        assertEquals(0, this.laneStats.get(PeerSendLane.BULK).getDroppedMessages());
+    }
+
+    private void awaitSentMessages(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + MAX_SEND_WAIT;
+
+        while (this.sentMessages.size() < count) {
+            assertTrue("Timed out waiting for messages to be sent", System.currentTimeMillis() < deadline);
+            Thread.sleep(10L);
+        }
+    }
+
+    private List<PeerSendLane> getSentLanes() {
+        synchronized (this.sentMessages) {
+            return this.sentMessages.stream()
+                    .map(message -> PeerSendLane.forMessageType(message.getType()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** Message with <tt>dataLength</tt> bytes of payload, as only type and size matter for queuing. */
+    private static class TestMessage extends Message {
+        TestMessage(MessageType type, int dataLength) {
+            super(type);
+
+            this.dataBytes = new byte[dataLength];
+        }
+    }
+
+}
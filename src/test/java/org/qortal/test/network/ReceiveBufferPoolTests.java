@@ -0,0 +1,88 @@
+package org.qortal.test.network;
+
+import org.junit.Test;
+import org.qortal.network.ReceiveBufferPool;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ReceiveBufferPoolTests {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 100_000;
+
+    @Test
+    public void testCapacities() {
+        ReceiveBufferPool pool = new ReceiveBufferPool(INITIAL_CAPACITY, MAX_CAPACITY, 1024 * 1024, false);
+
+        assertEquals(INITIAL_CAPACITY, pool.acquire(INITIAL_CAPACITY).capacity());
+        assertEquals(2048, pool.acquire(INITIAL_CAPACITY + 1).capacity());
+
+        // Capped at max capacity
+        assertEquals(MAX_CAPACITY, pool.acquire(70_000).capacity());
+        assertEquals(MAX_CAPACITY, pool.acquire(MAX_CAPACITY * 2).capacity());
+
+        assertEquals(4, pool.getBuffersInUse());
+    }
+
+    @Test
+    public void testReuse() {
+        ReceiveBufferPool pool = new ReceiveBufferPool(INITIAL_CAPACITY, MAX_CAPACITY, 1024 * 1024, false);
+
+        ByteBuffer buffer = pool.acquire(5000);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+
+        assertEquals(0, pool.getBuffersInUse());
+        assertEquals(1, pool.getIdleBuffers());
+        assertEquals(buffer.capacity(), pool.getIdleBytes());
+
+        // Same size class is reused, cleared ready for writing
+        ByteBuffer reusedBuffer = pool.acquire(6000);
+        assertSame(buffer, reusedBuffer);
+        assertEquals(0, reusedBuffer.position());
+        assertEquals(0, pool.getIdleBuffers());
+        assertEquals(0, pool.getIdleBytes());
+    }
+
+    @Test
+    public void testIdleLimit() {
+        ReceiveBufferPool pool = new ReceiveBufferPool(INITIAL_CAPACITY, MAX_CAPACITY, MAX_CAPACITY, false);
+
+        ByteBuffer buffer1 = pool.acquire(MAX_CAPACITY);
+        ByteBuffer buffer2 = pool.acquire(MAX_CAPACITY);
+
+        pool.release(buffer1);
+        pool.release(buffer2);
+
+        // Only one buffer fits within idle limit
+        assertEquals(1, pool.getIdleBuffers());
+        assertEquals(MAX_CAPACITY, pool.getIdleBytes());
+        assertEquals(0, pool.getBuffersInUse());
+    }
+
+    @Test
+    public void testResize() {
+        ReceiveBufferPool pool = new ReceiveBufferPool(INITIAL_CAPACITY, MAX_CAPACITY, 1024 * 1024, true);
+
+        ByteBuffer buffer = pool.acquire(INITIAL_CAPACITY);
+        for (int i = 0; i < 100; ++i)
+            buffer.put((byte) i);
+
+        // Grow
+        ByteBuffer largeBuffer = pool.resize(buffer, 50_000);
+        assertTrue(largeBuffer.capacity() >= 50_000);
+        assertEquals(100, largeBuffer.position());
+        assertEquals(99, largeBuffer.get(99));
+        assertEquals(1, pool.getBuffersInUse());
+
+        // Shrink back, with original small buffer reused
+        ByteBuffer smallBuffer = pool.resize(largeBuffer, INITIAL_CAPACITY);
+        assertSame(buffer, smallBuffer);
+        assertEquals(100, smallBuffer.position());
+        assertEquals(42, smallBuffer.get(42));
+        assertEquals(1, pool.getIdleBuffers());
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.qortal.test.network;
+
+import org.junit.Test;
+import org.qortal.network.TokenBucket;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTests {
+
+    @Test
+    public void testUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, 0L);
+
+        bucket.consume(100L * 1024 * 1024, 0L);
+
+        assertTrue(bucket.isAvailable(0L));
+        assertEquals(0L, bucket.getWaitTime(0L));
+    }
+
+    @Test
+    public void testDebtAndRefill() {
+        final long rate = 1000L; // bytes per second
+        TokenBucket bucket = new TokenBucket(rate, 0L);
+
+        assertTrue(bucket.isAvailable(0L));
+
+        // Send larger than bucket is allowed, leaving bucket in debt
+        bucket.consume(3000L, 0L);
+        assertFalse(bucket.isAvailable(0L));
+
+        // 2000 bytes of debt takes just over 2 seconds to pay off
+        long waitTime = bucket.getWaitTime(0L);
+        assertTrue(waitTime > 2000L && waitTime < 2100L);
+
+        assertFalse(bucket.isAvailable(1000L));
+        assertTrue(bucket.isAvailable(waitTime));
+    }
+
+    @Test
+    public void testBurstCappedAtOneSecond() {
+        final long rate = 1000L;
+        TokenBucket bucket = new TokenBucket(rate, 0L);
+
+        // Idle for a long time shouldn't allow a huge burst
+        bucket.consume(rate, 60_000L);
+        bucket.consume(1L, 60_000L);
+        assertFalse(bucket.isAvailable(60_000L));
+    }
+
+    @Test
+    public void testSustainedRate() {
+        final long rate = 50_000L;
+        final long chunkSize = 8_000L;
+        TokenBucket bucket = new TokenBucket(rate, 0L);
+
+        // Simulate sender that sends whenever allowed, for 10 seconds
+        long now = 0L;
+        long sent = 0L;
+        while (now < 10_000L) {
+            if (bucket.isAvailable(now)) {
+                bucket.consume(chunkSize, now);
+                sent += chunkSize;
+            } else {
+                now += bucket.getWaitTime(now);
+            }
+        }
+
+        // Initial burst of up to one second, plus one chunk of debt
+        long maxExpected = rate * 10 + rate + chunkSize;
+        assertTrue(String.format("sent %d bytes", sent), sent >= rate * 10 && sent <= maxExpected);
+    }
+
+    @Test
+    public void testRateChange() {
+        TokenBucket bucket = new TokenBucket(1000L, 0L);
+
+        // Reducing rate trims excess tokens
+        bucket.setRate(100L, 0L);
+        bucket.consume(101L, 0L);
+        assertFalse(bucket.isAvailable(0L));
+
+        // Debt is kept, and paid off at new rate
+        bucket.setRate(1000L, 0L);
+        assertEquals(2L, bucket.getWaitTime(0L));
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.qortal.test.network.message;
+
+import org.junit.Test;
+import org.qortal.crypto.Crypto;
+import org.qortal.network.message.ArbitraryDataMessage;
+import org.qortal.network.message.Message;
+import org.qortal.network.message.MessageException;
+import org.qortal.network.message.MessageFrameDecoder;
+import org.qortal.network.message.MessageType;
+import org.qortal.transform.Transformer;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MessageFrameDecoderTests {
+
+    private static final byte[] MESSAGE_MAGIC = new byte[] { 0x51, 0x52, 0x54, 0x00 };
+
+    private static final Random RANDOM = new Random();
+
+    @Test
+    public void testPartialReads() throws MessageException {
+        byte[] data = new byte[5000];
+        RANDOM.nextBytes(data);
+        byte[] frame = buildArbitraryDataFrame(1234, data);
+
+        MessageFrameDecoder decoder = new MessageFrameDecoder(MESSAGE_MAGIC);
+        ByteBuffer buffer = ByteBuffer.allocate(frame.length);
+
+        // Feed frame a few bytes at a time
+        Message message = null;
+        for (int offset = 0; offset < frame.length; offset += 7) {
+            assertNull(message);
+
+            buffer.put(frame, offset, Math.min(7, frame.length - offset));
+
+            ByteBuffer readOnlyBuffer = buffer.asReadOnlyBuffer().flip();
+            message = decoder.decode(readOnlyBuffer);
+
+            if (message == null)
+                assertEquals("position should be unchanged", 0, readOnlyBuffer.position());
+            else
+                assertEquals(frame.length, readOnlyBuffer.position());
+        }
+
+        assertNotNull(message);
+        assertEquals(MessageType.ARBITRARY_DATA, message.getType());
+        assertEquals(1234, message.getId());
+        assertArrayEquals(data, ((ArbitraryDataMessage) message).getData());
+
+        // Header only parsed once, despite many partial reads
+        assertEquals(1, decoder.getHeadersParsed());
+        assertNull(decoder.getFrameLength());
+    }
+
+    @Test
+    public void testBadChecksum() {
+        byte[] frame = buildArbitraryDataFrame(1, new byte[100]);
+        // Corrupt last data byte
+        frame[frame.length - 1] ^= 0x01;
+
+        MessageFrameDecoder decoder = new MessageFrameDecoder(MESSAGE_MAGIC);
+        try {
+            decoder.decode(ByteBuffer.wrap(frame).asReadOnlyBuffer());
+            fail("Bad checksum should be rejected");
+        } catch (MessageException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testBadMagic() {
+        byte[] frame = buildArbitraryDataFrame(1, new byte[100]);
+        frame[0] ^= 0x01;
+
+        MessageFrameDecoder decoder = new MessageFrameDecoder(MESSAGE_MAGIC);
+        try {
+            // Only enough for magic, type and has-ID flag
+            decoder.decode(ByteBuffer.wrap(frame, 0, 9).slice().asReadOnlyBuffer());
+            fail("Bad magic should be rejected");
+        } catch (MessageException e) {
+            // Expected
+        }
+    }
+
+    private static byte[] buildArbitraryDataFrame(int id, byte[] data) {
+        byte[] signature = new byte[Transformer.SIGNATURE_LENGTH];
+        RANDOM.nextBytes(signature);
+
+        ByteBuffer payload = ByteBuffer.allocate(signature.length + Transformer.INT_LENGTH + data.length);
+        payload.put(signature);
+        payload.putInt(data.length);
+        payload.put(data);
+
+        byte[] payloadBytes = payload.array();
+        byte[] digest = Crypto.digest(payloadBytes);
+
+        ByteBuffer frame = ByteBuffer.allocate(4 + 4 + 1 + 4 + 4 + 4 + payloadBytes.length);
+        frame.put(MESSAGE_MAGIC);
+        frame.putInt(MessageType.ARBITRARY_DATA.value);
+        frame.put((byte) 1);
+        frame.putInt(id);
+        frame.putInt(payloadBytes.length);
+        frame.put(digest, 0, 4);
+        frame.put(payloadBytes);
+
+        return frame.array();
+    }
+
+}
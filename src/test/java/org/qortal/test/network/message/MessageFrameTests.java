@@ -0,0 +1,93 @@
+package org.qortal.test.network.message;
+
+import org.junit.Test;
+import org.qortal.network.message.GetOnlineAccountsV3Message;
+import org.qortal.network.message.Message;
+import org.qortal.network.message.MessageException;
+import org.qortal.network.message.PingMessage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MessageFrameTests {
+
+    private static final Random RANDOM = new Random();
+
+    @Test
+    public void testFrameMatchesBytes() throws MessageException {
+        Message message = buildMessageWithData();
+
+        assertArrayEquals(message.toBytes(), frameToBytes(message.toFrame()));
+
+        message.setId(1234);
+        assertArrayEquals(message.toBytes(), frameToBytes(message.toFrame()));
+    }
+
+    @Test
+    public void testEmptyFrameMatchesBytes() throws MessageException {
+        Message message = new PingMessage();
+        message.setId(5678);
+
+        ByteBuffer[] frame = message.toFrame();
+        assertEquals(1, frame.length);
+        assertArrayEquals(message.toBytes(), frameToBytes(frame));
+    }
+
+    @Test
+    public void testSharedPayload() throws MessageException {
+        Message message = buildMessageWithData();
+        message.setId(1);
+
+        // Consume one frame, as if written to a peer
+        ByteBuffer[] frame1 = message.toFrame();
+        byte[] frameBytes1 = frameToBytes(frame1);
+
+        // Clone, with different ID, shares payload but has its own header
+        Message clone = Message.cloneWithNewId(message, 2);
+        ByteBuffer[] frame2 = clone.toFrame();
+
+        assertTrue(frame2[2].isReadOnly());
+        assertEquals(frame2[2].capacity(), frame2[2].remaining());
+
+        byte[] frameBytes2 = frameToBytes(frame2);
+        assertArrayEquals(clone.toBytes(), frameBytes2);
+        assertFalse(Arrays.equals(frameBytes1, frameBytes2));
+
+        // Round trip
+        Message messageIn = Message.fromByteBuffer(ByteBuffer.wrap(frameBytes2).asReadOnlyBuffer());
+        assertNotNull(messageIn);
+        assertEquals(2, messageIn.getId());
+        assertEquals(message.getType(), messageIn.getType());
+    }
+
+    private static Message buildMessageWithData() {
+        Map<Long, Map<Byte, byte[]>> hashesByTimestampThenByte = new HashMap<>();
+
+        for (int i = 0; i < 5; ++i) {
+            byte[] hash = new byte[32];
+            RANDOM.nextBytes(hash);
+
+            hashesByTimestampThenByte.computeIfAbsent(1_000_000L + i, k -> new HashMap<>()).put(hash[0], hash);
+        }
+
+        return new GetOnlineAccountsV3Message(hashesByTimestampThenByte);
+    }
+
+    private static byte[] frameToBytes(ByteBuffer[] frame) {
+        int length = 0;
+        for (ByteBuffer buffer : frame)
+            length += buffer.remaining();
+
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        for (ByteBuffer buffer : frame)
+            bytes.put(buffer);
+
+        return bytes.array();
+    }
+
+}
@@ -0,0 +1,208 @@
+package org.qortal.test.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.asset.Asset;
+import org.qortal.crypto.Crypto;
+import org.qortal.data.account.AccountBalanceData;
+import org.qortal.data.account.AccountData;
+import org.qortal.repository.AccountRepository;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.AccountUtils;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AccountBatchedChangesTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testBufferedChangesVisible() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			AccountRepository accountRepository = repository.getAccountRepository();
+			String alice = Common.getTestAccount(repository, "alice").getAddress();
+			String newAddress = Crypto.toAddress(new byte[32]);
+
+			long initialBalance = accountRepository.getBalance(alice, Asset.QORT).getBalance();
+			byte[] reference = new byte[64];
+
+			accountRepository.beginBatchedChanges();
+			try {
+				accountRepository.modifyAssetBalance(alice, Asset.QORT, -1000L);
+				accountRepository.modifyAssetBalance(alice, Asset.QORT, +300L);
+				accountRepository.modifyAssetBalance(newAddress, Asset.QORT, +500L);
+
+				AccountData accountData = new AccountData(newAddress);
+				accountData.setReference(reference);
+				accountRepository.setLastReference(accountData);
+
+				accountData.setLevel(3);
+				accountRepository.setLevel(accountData);
+
+				// Buffered changes are visible to later reads
+				assertEquals(initialBalance - 700L, accountRepository.getBalance(alice, Asset.QORT).getBalance());
+				assertEquals(500L, accountRepository.getBalance(newAddress, Asset.QORT).getBalance());
+				assertArrayEquals(reference, accountRepository.getLastReference(newAddress));
+				assertEquals(Integer.valueOf(3), accountRepository.getLevel(newAddress));
+
+				// Other account queries see them too, as they're written first
+				List<AccountBalanceData> balances = accountRepository.getBalances(List.of(alice, newAddress), Asset.QORT);
+				assertEquals(2, balances.size());
+
+				AccountData newAccountData = accountRepository.getAccount(newAddress);
+				assertNotNull(newAccountData);
+				assertArrayEquals(reference, newAccountData.getReference());
+				assertEquals(3, newAccountData.getLevel());
+
+				// Further changes after writing are buffered again
+				accountRepository.modifyAssetBalance(newAddress, Asset.QORT, +250L);
+				assertEquals(750L, accountRepository.getBalance(newAddress, Asset.QORT).getBalance());
+			} finally {
+				accountRepository.endBatchedChanges();
+			}
+
+			repository.saveChanges();
+		}
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			String newAddress = Crypto.toAddress(new byte[32]);
+			assertEquals(750L, repository.getAccountRepository().getBalance(newAddress, Asset.QORT).getBalance());
+		}
+	}
+
+	@Test
+	public void testDecreaseBeforeIncrease() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			AccountRepository accountRepository = repository.getAccountRepository();
+			String unbufferedAddress = Crypto.toAddress(new byte[32]);
+			String bufferedAddress = Crypto.toAddress(Crypto.digest(new byte[32]));
+
+			// Without buffering, decrease doesn't apply as there's no balance row yet
+			accountRepository.modifyAssetBalance(unbufferedAddress, Asset.QORT, -500L);
+			accountRepository.modifyAssetBalance(unbufferedAddress, Asset.QORT, +300L);
+			accountRepository.modifyAssetBalance(unbufferedAddress, Asset.QORT, -100L);
+			assertEquals(200L, accountRepository.getBalance(unbufferedAddress, Asset.QORT).getBalance());
+
+			// Buffering must give the same result
+			accountRepository.beginBatchedChanges();
+			try {
+				accountRepository.modifyAssetBalance(bufferedAddress, Asset.QORT, -500L);
+				assertNull(accountRepository.getBalance(bufferedAddress, Asset.QORT));
+
+				accountRepository.modifyAssetBalance(bufferedAddress, Asset.QORT, +300L);
+				accountRepository.modifyAssetBalance(bufferedAddress, Asset.QORT, -100L);
+				assertEquals(200L, accountRepository.getBalance(bufferedAddress, Asset.QORT).getBalance());
+
+				accountRepository.flushBatchedChanges();
+			} finally {
+				accountRepository.endBatchedChanges();
+			}
+
+			assertEquals(200L, accountRepository.getBalance(bufferedAddress, Asset.QORT).getBalance());
+
+			// Decrease before increase, when balance row exists, applies both
+			accountRepository.beginBatchedChanges();
+			try {
+				accountRepository.modifyAssetBalance(bufferedAddress, Asset.QORT, -150L);
+				accountRepository.modifyAssetBalance(bufferedAddress, Asset.QORT, +20L);
+				assertEquals(70L, accountRepository.getBalance(bufferedAddress, Asset.QORT).getBalance());
+
+				accountRepository.flushBatchedChanges();
+			} finally {
+				accountRepository.endBatchedChanges();
+			}
+
+			assertEquals(70L, accountRepository.getBalance(bufferedAddress, Asset.QORT).getBalance());
+		}
+	}
+
+	@Test
+	public void testRollbackDiscardsBufferedChanges() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			AccountRepository accountRepository = repository.getAccountRepository();
+			String alice = Common.getTestAccount(repository, "alice").getAddress();
+			String newAddress = Crypto.toAddress(new byte[32]);
+
+			long initialBalance = accountRepository.getBalance(alice, Asset.QORT).getBalance();
+
+			accountRepository.beginBatchedChanges();
+			try {
+				accountRepository.modifyAssetBalance(alice, Asset.QORT, -1000L);
+
+				// Change before savepoint is kept
+				repository.setSavepoint();
+
+				accountRepository.modifyAssetBalance(alice, Asset.QORT, -2000L);
+				accountRepository.modifyAssetBalance(newAddress, Asset.QORT, +500L);
+				assertEquals(initialBalance - 3000L, accountRepository.getBalance(alice, Asset.QORT).getBalance());
+
+				// Changes after savepoint are discarded
+				repository.rollbackToSavepoint();
+
+				assertEquals(initialBalance - 1000L, accountRepository.getBalance(alice, Asset.QORT).getBalance());
+				assertNull(accountRepository.getBalance(newAddress, Asset.QORT));
+
+				accountRepository.flushBatchedChanges();
+			} finally {
+				accountRepository.endBatchedChanges();
+			}
+
+			assertEquals(initialBalance - 1000L, accountRepository.getBalance(alice, Asset.QORT).getBalance());
+
+			// Discarding changes discards any still-buffered changes too
+			accountRepository.beginBatchedChanges();
+			try {
+				accountRepository.modifyAssetBalance(alice, Asset.QORT, -2000L);
+			} finally {
+				accountRepository.endBatchedChanges();
+			}
+
+			repository.discardChanges();
+			assertEquals(initialBalance, accountRepository.getBalance(alice, Asset.QORT).getBalance());
+		}
+	}
+
+	@Test
+	public void testProcessAndOrphan() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			long aliceInitialBalance = alice.getConfirmedBalance(Asset.QORT);
+			long bobInitialBalance = bob.getConfirmedBalance(Asset.QORT);
+			byte[] aliceInitialReference = alice.getLastReference();
+
+			final long amount = 1234L;
+			AccountUtils.pay(repository, alice, bob.getAddress(), amount);
+
+			// Block processing wrote out all buffered changes
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				AccountRepository accountRepository = otherRepository.getAccountRepository();
+				assertTrue(accountRepository.getBalance(bob.getAddress(), Asset.QORT).getBalance() >= bobInitialBalance + amount);
+				assertFalse(Arrays.equals(aliceInitialReference, accountRepository.getLastReference(alice.getAddress())));
+			}
+
+			BlockUtils.orphanLastBlock(repository);
+
+			// Orphaning did too
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				AccountRepository accountRepository = otherRepository.getAccountRepository();
+				assertEquals(aliceInitialBalance, accountRepository.getBalance(alice.getAddress(), Asset.QORT).getBalance());
+				assertEquals(bobInitialBalance, accountRepository.getBalance(bob.getAddress(), Asset.QORT).getBalance());
+				assertArrayEquals(aliceInitialReference, accountRepository.getLastReference(alice.getAddress()));
+			}
+		}
+	}
+
+}
@@ -5,10 +5,12 @@ import org.junit.Test;
 import org.qortal.api.SearchMode;
 import org.qortal.arbitrary.misc.Service;
 import org.qortal.data.arbitrary.ArbitraryResourceData;
+import org.qortal.data.arbitrary.ArbitraryResourceIndex;
 import org.qortal.data.arbitrary.ArbitraryResourceMetadata;
 import org.qortal.data.arbitrary.ArbitraryResourceStatus;
 import org.qortal.repository.hsqldb.HSQLDBCacheUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -124,6 +126,26 @@ public class HSQLDBCacheUtilsTests {
         Assert.assertTrue( singleResult.created == 2 );
     }
 
+    @Test
+    public void testLatestModeOmitsUnmatchedLatest() {
+        ArbitraryResourceData first = buildResource("Joe", "one", 1L, null, null);
+        ArbitraryResourceData last = buildResource("Joe", "two", 2L, null, null);
+
+        HashMap<String, Object> valueByKey = new HashMap<>(Map.of(MODE, SearchMode.LATEST, IDENTIFIER, "one"));
+
+        // older matching resource isn't returned in place of the latest
+        filterListByMap(List.of(first, last), NAME_LEVEL, valueByKey, 0);
+        searchIndexByMap(new ArbitraryResourceIndex(List.of(first, last)), NAME_LEVEL, valueByKey, 0);
+
+        valueByKey.put(IDENTIFIER, "two");
+
+        List<ArbitraryResourceData> results = filterListByMap(List.of(first, last), NAME_LEVEL, valueByKey, 1);
+        Assert.assertEquals("two", results.get(0).identifier);
+
+        results = searchIndexByMap(new ArbitraryResourceIndex(List.of(first, last)), NAME_LEVEL, valueByKey, 1);
+        Assert.assertEquals("two", results.get(0).identifier);
+    }
+
     @Test
     public void testServicePositive() {
         ArbitraryResourceData data = new ArbitraryResourceData();
@@ -647,6 +669,127 @@ public class HSQLDBCacheUtilsTests {
         Assert.assertTrue( result.get(0).created == 2L);
 
     }
+    @Test
+    public void testIndexQueryPrefixAndContains() {
+        ArbitraryResourceData data1 = buildResource("Joe", "my-app", 1L, "Chess Game", "Play chess online");
+        ArbitraryResourceData data2 = buildResource("Bob", "chat", 2L, "Chat", "Talk to friends");
+        ArbitraryResourceData data3 = buildResource("Chester", "default", 3L, null, null);
+
+        ArbitraryResourceIndex index = new ArbitraryResourceIndex(List.of(data1, data2, data3));
+
+        // prefix match on name, identifier and title
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(QUERY, "ch", PREFIX_ONLY, true)), 3);
+
+        // contains match, narrowed by n-grams and then checked
+        List<ArbitraryResourceData> results
+            = searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(QUERY, "CHE")), 2);
+        Assert.assertEquals("Joe", results.get(0).name);
+        Assert.assertEquals("Chester", results.get(1).name);
+
+        // term too short for n-grams falls back to checking every candidate
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(QUERY, "e")), 3);
+
+        // description only matched via query or description term
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(DESCRIPTION, "friend")), 1);
+
+        // default resource only matches name
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(QUERY, "chest", DEFAULT_RESOURCE, true)), 1);
+    }
+
+    @Test
+    public void testIndexExactNamesAndLatest() {
+        ArbitraryResourceData data1 = buildResource("Joe", "one", 1L, null, null);
+        ArbitraryResourceData data2 = buildResource("Joe", "two", 2L, null, null);
+        ArbitraryResourceData data3 = buildResource("Bob", "one", 3L, null, null);
+
+        ArbitraryResourceIndex index = new ArbitraryResourceIndex(List.of(data3, data2, data1));
+
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(EXACT_MATCH_NAMES, List.of("joe"))), 2);
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(NAMES, List.of("jo", "bo"), PREFIX_ONLY, true)), 3);
+
+        List<ArbitraryResourceData> results
+            = searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(MODE, SearchMode.LATEST)), 2);
+        Assert.assertEquals("two", results.get(0).identifier);
+        Assert.assertEquals("Bob", results.get(1).name);
+
+        // latest resource for Joe doesn't match, so Joe is omitted
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(MODE, SearchMode.LATEST, IDENTIFIER, "one")), 1);
+
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(MIN_LEVEL, 4)), 2);
+    }
+
+    @Test
+    public void testIndexRangeLimitOffsetReverse() {
+        List<ArbitraryResourceData> candidates = new ArrayList<>();
+        for (long created = 1; created <= 10; created++)
+            candidates.add(buildResource("Joe", "id" + created, created, null, null));
+
+        ArbitraryResourceIndex index = new ArbitraryResourceIndex(candidates);
+
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(AFTER, 3L, BEFORE, 8L)), 4);
+
+        List<ArbitraryResourceData> results
+            = searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(LIMIT, 3, OFFSET, 2)), 3);
+        Assert.assertEquals(3L, results.get(0).created.longValue());
+        Assert.assertEquals(5L, results.get(2).created.longValue());
+
+        results = searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(LIMIT, 2, REVERSE, true)), 2);
+        Assert.assertEquals(10L, results.get(0).created.longValue());
+        Assert.assertEquals(9L, results.get(1).created.longValue());
+
+        Supplier<List<String>> blocked = () -> List.of("Joe");
+        searchIndexByMap(index, NAME_LEVEL, new HashMap<>(Map.of(EXCLUDE_BLOCKED, blocked)), 0);
+    }
+
+    private static ArbitraryResourceData buildResource(String name, String identifier, Long created, String title, String description) {
+        ArbitraryResourceData data = new ArbitraryResourceData();
+        data.name = name;
+        data.service = Service.FILE;
+        data.identifier = identifier;
+        data.created = created;
+
+        if (title != null || description != null)
+            data.metadata = new ArbitraryResourceMetadata(title, description, null, null, null, null);
+
+        return data;
+    }
+
+    public static List<ArbitraryResourceData> searchIndexByMap(
+            ArbitraryResourceIndex index,
+            Map<String, Integer> levelByName,
+            HashMap<String, Object> valueByKey,
+            int sizeToAssert) {
+
+        List<ArbitraryResourceData> results
+                = HSQLDBCacheUtils.searchIndex(
+                index,
+                levelByName,
+                Optional.of((SearchMode) valueByKey.getOrDefault(MODE, SearchMode.ALL)),
+                Optional.ofNullable((String) valueByKey.get(QUERY)),
+                Optional.ofNullable((String) valueByKey.get(IDENTIFIER)),
+                Optional.ofNullable((List<String>) valueByKey.get(NAMES)),
+                Optional.ofNullable((String) valueByKey.get(TITLE)),
+                Optional.ofNullable((String) valueByKey.get(DESCRIPTION)),
+                Optional.ofNullable((List<String>) valueByKey.get(KEYWORDS)),
+                valueByKey.containsKey(PREFIX_ONLY),
+                Optional.ofNullable((List<String>) valueByKey.get(EXACT_MATCH_NAMES)),
+                valueByKey.containsKey(DEFAULT_RESOURCE),
+                Optional.ofNullable((Integer) valueByKey.get(MIN_LEVEL)),
+                Optional.ofNullable((Supplier<List<String>>) valueByKey.get(FOLLOWED_ONLY)),
+                Optional.ofNullable((Supplier<List<String>>) valueByKey.get(EXCLUDE_BLOCKED)),
+                Optional.ofNullable((Boolean) valueByKey.get(INCLUDE_METADATA)),
+                Optional.ofNullable((Boolean) valueByKey.get(INCLUDE_STATUS)),
+                Optional.ofNullable((Long) valueByKey.get(BEFORE)),
+                Optional.ofNullable((Long) valueByKey.get(AFTER)),
+                Optional.ofNullable((Integer) valueByKey.get(LIMIT)),
+                Optional.ofNullable((Integer) valueByKey.get(OFFSET)),
+                Optional.ofNullable((Boolean) valueByKey.get(REVERSE)));
+
+        Assert.assertEquals(sizeToAssert, results.size());
+
+        return results;
+    }
+
     public static List<ArbitraryResourceData> filterListByMap(
             List<ArbitraryResourceData> candidates,
             Map<String, Integer> levelByName,
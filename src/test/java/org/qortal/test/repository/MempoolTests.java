@@ -0,0 +1,128 @@
+package org.qortal.test.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.transaction.Transaction;
+import org.qortal.transaction.Transaction.TransactionType;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MempoolTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testImportAndConfirm() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			TransactionData transactionData1 = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+			TransactionUtils.signAndImportValid(repository, transactionData1, alice);
+
+			TransactionData transactionData2 = TransactionUtils.randomTransaction(repository, bob, TransactionType.PAYMENT, true);
+			TransactionUtils.signAndImportValid(repository, transactionData2, bob);
+
+			// Committed imports should be visible to other sessions
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				List<TransactionData> unconfirmedTransactions = otherRepository.getTransactionRepository().getUnconfirmedTransactions();
+				assertEquals(2, unconfirmedTransactions.size());
+				assertEquals(unconfirmedTransactions, sorted(unconfirmedTransactions));
+
+				List<TransactionData> aliceTransactions = otherRepository.getTransactionRepository().getUnconfirmedTransactions(null, alice.getPublicKey());
+				assertEquals(1, aliceTransactions.size());
+				assertArrayEquals(transactionData1.getSignature(), aliceTransactions.get(0).getSignature());
+
+				assertEquals(1, otherRepository.getTransactionRepository().countUnconfirmedTransactions(bob.getPublicKey(), EnumSet.of(TransactionType.PAYMENT), null));
+				assertEquals(0, otherRepository.getTransactionRepository().countUnconfirmedTransactions(bob.getPublicKey(), EnumSet.of(TransactionType.CHAT), null));
+			}
+
+			// Minting a block confirms both transactions
+			BlockUtils.mintBlock(repository);
+			assertTrue(repository.getTransactionRepository().getUnconfirmedTransactions().isEmpty());
+
+			// Orphaning returns them to unconfirmed
+			BlockUtils.orphanLastBlock(repository);
+			assertEquals(2, repository.getTransactionRepository().getUnconfirmedTransactions().size());
+		}
+	}
+
+	@Test
+	public void testUncommittedChanges() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+
+			TransactionData transactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+			TransactionUtils.signAndImportValid(repository, transactionData, alice);
+
+			// Uncommitted delete is only visible to this session
+			repository.setSavepoint();
+			repository.getTransactionRepository().confirmTransaction(transactionData.getSignature());
+			assertTrue(repository.getTransactionRepository().getUnconfirmedTransactions().isEmpty());
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertEquals(1, otherRepository.getTransactionRepository().getUnconfirmedTransactions().size());
+			}
+
+			// Rolling back to savepoint restores transaction
+			repository.rollbackToSavepoint();
+			assertEquals(1, repository.getTransactionRepository().getUnconfirmedTransactions().size());
+
+			// Discarded changes never reach mempool
+			repository.getTransactionRepository().confirmTransaction(transactionData.getSignature());
+			repository.discardChanges();
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertEquals(1, otherRepository.getTransactionRepository().getUnconfirmedTransactions().size());
+			}
+
+			// Committed changes do
+			repository.getTransactionRepository().confirmTransaction(transactionData.getSignature());
+			repository.saveChanges();
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertTrue(otherRepository.getTransactionRepository().getUnconfirmedTransactions().isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testReturnedDataIsCopy() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+
+			TransactionData transactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+			TransactionUtils.signAndImportValid(repository, transactionData, alice);
+
+			TransactionData unconfirmedTransactionData = repository.getTransactionRepository().getUnconfirmedTransactions().get(0);
+			unconfirmedTransactionData.setBlockHeight(123);
+			unconfirmedTransactionData.setApprovalStatus(Transaction.ApprovalStatus.REJECTED);
+
+			TransactionData refetchedTransactionData = repository.getTransactionRepository().getUnconfirmedTransactions().get(0);
+			assertNull(refetchedTransactionData.getBlockHeight());
+			assertEquals(transactionData.getApprovalStatus(), refetchedTransactionData.getApprovalStatus());
+		}
+	}
+
+	private static List<TransactionData> sorted(List<TransactionData> transactions) {
+		TransactionData[] sortedTransactions = transactions.toArray(new TransactionData[0]);
+		Arrays.sort(sortedTransactions, Transaction.getDataComparator());
+		return Arrays.asList(sortedTransactions);
+	}
+
+}
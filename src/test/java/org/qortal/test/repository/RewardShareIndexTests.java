@@ -0,0 +1,239 @@
+package org.qortal.test.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.crypto.Crypto;
+import org.qortal.data.account.RewardShareData;
+import org.qortal.repository.AccountRepository;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.repository.RewardShareIndex;
+import org.qortal.test.common.AccountUtils;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class RewardShareIndexTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testIndexMatchesRepositoryOrder() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			assertConsistent(repository.getAccountRepository());
+		}
+	}
+
+	@Test
+	public void testProcessAndOrphan() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount dilbert = Common.getTestAccount(repository, "dilbert");
+			byte[] rewardSharePublicKey = Crypto.toPublicKey(alice.getRewardSharePrivateKey(dilbert.getPublicKey()));
+
+			// Populate index before any changes
+			int initialCount = repository.getAccountRepository().getRewardSharePublicKeys().size();
+			assertNull(repository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+
+			// Minting block with new reward-share commits it
+			AccountUtils.rewardShare(repository, "alice", "dilbert", 5_00);
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				AccountRepository accountRepository = otherRepository.getAccountRepository();
+				assertEquals(initialCount + 1, accountRepository.getRewardSharePublicKeys().size());
+
+				Integer index = accountRepository.getRewardShareIndex(rewardSharePublicKey);
+				assertNotNull(index);
+				assertArrayEquals(rewardSharePublicKey, accountRepository.getRewardShareByIndex(index).getRewardSharePublicKey());
+
+				assertConsistent(accountRepository);
+			}
+
+			// Orphaning removes it again
+			BlockUtils.orphanLastBlock(repository);
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				AccountRepository accountRepository = otherRepository.getAccountRepository();
+				assertEquals(initialCount, accountRepository.getRewardSharePublicKeys().size());
+				assertNull(accountRepository.getRewardShareIndex(rewardSharePublicKey));
+
+				assertConsistent(accountRepository);
+			}
+		}
+	}
+
+	@Test
+	public void testUncommittedChanges() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount dilbert = Common.getTestAccount(repository, "dilbert");
+			byte[] rewardSharePublicKey = Crypto.toPublicKey(alice.getRewardSharePrivateKey(dilbert.getPublicKey()));
+
+			int initialCount = repository.getAccountRepository().getRewardSharePublicKeys().size();
+
+			RewardShareData rewardShareData = new RewardShareData(alice.getPublicKey(), alice.getAddress(), dilbert.getAddress(), rewardSharePublicKey, 5_00);
+
+			// Uncommitted change is only visible to this session
+			repository.setSavepoint();
+			repository.getAccountRepository().save(rewardShareData);
+			assertNotNull(repository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+			assertEquals(initialCount + 1, repository.getAccountRepository().getRewardSharePublicKeys().size());
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertNull(otherRepository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+			}
+
+			// Rolled-back change never reaches index, even after commit
+			repository.rollbackToSavepoint();
+			repository.saveChanges();
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertNull(otherRepository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+				assertEquals(initialCount, otherRepository.getAccountRepository().getRewardSharePublicKeys().size());
+			}
+
+			// Committed change does reach index
+			repository.getAccountRepository().save(rewardShareData);
+			repository.saveChanges();
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertNotNull(otherRepository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+				assertConsistent(otherRepository.getAccountRepository());
+			}
+
+			// Committed delete too
+			repository.getAccountRepository().delete(alice.getPublicKey(), dilbert.getAddress());
+			repository.saveChanges();
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertNull(otherRepository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+			}
+		}
+	}
+
+	@Test
+	public void testOlderSnapshot() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository();
+				final Repository olderRepository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount dilbert = Common.getTestAccount(repository, "dilbert");
+			byte[] rewardSharePublicKey = Crypto.toPublicKey(alice.getRewardSharePrivateKey(dilbert.getPublicKey()));
+
+			// Older session's transaction is already under way
+			assertConsistent(olderRepository.getAccountRepository());
+
+			RewardShareData rewardShareData = new RewardShareData(alice.getPublicKey(), alice.getAddress(), dilbert.getAddress(), rewardSharePublicKey, 5_00);
+			repository.getAccountRepository().save(rewardShareData);
+			repository.saveChanges();
+
+			// Older session's lookups still agree with its own snapshot
+			assertConsistent(olderRepository.getAccountRepository());
+
+			// Once older session starts a new transaction, it sees committed change
+			olderRepository.discardChanges();
+			assertNotNull(olderRepository.getAccountRepository().getRewardShareIndex(rewardSharePublicKey));
+			assertConsistent(olderRepository.getAccountRepository());
+
+			repository.getAccountRepository().delete(alice.getPublicKey(), dilbert.getAddress());
+			repository.saveChanges();
+		}
+	}
+
+	@Test
+	public void testLoadingDoesNotBlockTransactions() throws DataException {
+		RewardShareIndex rewardShareIndex = RewardShareIndex.getInstance();
+		rewardShareIndex.invalidate();
+
+		long sessionVersion = rewardShareIndex.startTransaction(() -> {});
+		AtomicBoolean hasOtherTransactionStarted = new AtomicBoolean(false);
+
+		RewardShareIndex.View view = rewardShareIndex.getView(() -> {
+			// Other sessions can still start transactions, and so return connections to pool, while we load
+			Thread otherSession = new Thread(() -> {
+				rewardShareIndex.startTransaction(() -> {});
+				hasOtherTransactionStarted.set(true);
+			});
+			otherSession.start();
+
+			try {
+				otherSession.join(5000L);
+			} catch (InterruptedException e) {
+				throw new DataException(e);
+			}
+
+			return Collections.emptyList();
+		}, sessionVersion);
+
+		assertTrue(hasOtherTransactionStarted.get());
+		assertNotNull(view);
+		assertNull(view.getByIndex(0));
+
+		// Leave index to be reloaded from repository
+		rewardShareIndex.invalidate();
+	}
+
+	@Test
+	public void testCommitWhileLoading() throws DataException {
+		RewardShareIndex rewardShareIndex = RewardShareIndex.getInstance();
+		rewardShareIndex.invalidate();
+
+		long sessionVersion = rewardShareIndex.startTransaction(() -> {});
+
+		// Reward-shares committed while loading make what's loaded out of date
+		RewardShareIndex.View view = rewardShareIndex.getView(() -> {
+			rewardShareIndex.commitChanges(List.of(RewardShareIndex.Change.removed(new byte[32])), () -> {});
+			return Collections.emptyList();
+		}, sessionVersion);
+
+		assertNull(view);
+
+		// Session with newer snapshot can load
+		long newerSessionVersion = rewardShareIndex.startTransaction(() -> {});
+		assertNotNull(rewardShareIndex.getView(Collections::emptyList, newerSessionVersion));
+
+		// Leave index to be reloaded from repository
+		rewardShareIndex.invalidate();
+	}
+
+	/** Checks index lookups agree with each other and with repository's own reward-shares. */
+	private static void assertConsistent(AccountRepository accountRepository) throws DataException {
+		List<byte[]> publicKeys = accountRepository.getRewardSharePublicKeys();
+		assertEquals(accountRepository.getRewardShares().size(), publicKeys.size());
+
+		int[] indexes = new int[publicKeys.size()];
+		for (int i = 0; i < indexes.length; ++i) {
+			indexes[i] = i;
+
+			assertEquals(Integer.valueOf(i), accountRepository.getRewardShareIndex(publicKeys.get(i)));
+			assertArrayEquals(publicKeys.get(i), accountRepository.getRewardShareByIndex(i).getRewardSharePublicKey());
+
+			if (i > 0)
+				assertTrue(Arrays.compareUnsigned(publicKeys.get(i - 1), publicKeys.get(i)) < 0);
+		}
+
+		List<byte[]> indexedPublicKeys = new ArrayList<>();
+		for (RewardShareData rewardShareData : accountRepository.getRewardSharesByIndexes(indexes))
+			indexedPublicKeys.add(rewardShareData.getRewardSharePublicKey());
+
+		assertEquals(publicKeys.size(), indexedPublicKeys.size());
+		for (int i = 0; i < indexes.length; ++i)
+			assertArrayEquals(publicKeys.get(i), indexedPublicKeys.get(i));
+
+		// Out of bounds
+		assertNull(accountRepository.getRewardShareByIndex(publicKeys.size()));
+		assertNull(accountRepository.getRewardSharesByIndexes(new int[] { publicKeys.size() }));
+	}
+
+}
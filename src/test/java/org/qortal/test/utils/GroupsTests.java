@@ -15,6 +15,7 @@ import org.qortal.test.common.Common;
 import org.qortal.utils.Groups;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -112,6 +113,49 @@ public class GroupsTests extends Common {
         }
     }
 
+    @Test
+    public void testMembersOfAnyGroup() throws DataException {
+
+        try (final Repository repository = RepositoryManager.getRepository()) {
+
+            PrivateKeyAccount alice = Common.getTestAccount(repository, ALICE);
+            PrivateKeyAccount bob = Common.getTestAccount(repository, BOB);
+            PrivateKeyAccount chloe = Common.getTestAccount(repository, CHLOE);
+            PrivateKeyAccount dilbert = Common.getTestAccount(repository, DILBERT);
+
+            // Create groups
+            int group1Id = GroupsTestUtils.createGroup(repository, alice, "group-1", false);
+            int group2Id = GroupsTestUtils.createGroup(repository, bob, "group-2", false);
+
+            List<String> addresses = List.of(alice.getAddress(), bob.getAddress(), chloe.getAddress(), dilbert.getAddress());
+
+            // No groups or no addresses means no members
+            Assert.assertTrue(Groups.membersOfAnyGroup(repository.getGroupRepository(), List.of(), addresses).isEmpty());
+            Assert.assertTrue(Groups.membersOfAnyGroup(repository.getGroupRepository(), List.of(group1Id, group2Id), List.of()).isEmpty());
+
+            // Only owners are members so far
+            Set<String> members = Groups.membersOfAnyGroup(repository.getGroupRepository(), List.of(group1Id, group2Id), addresses);
+            Assert.assertEquals(Set.of(alice.getAddress(), bob.getAddress()), members);
+
+            members = Groups.membersOfAnyGroup(repository.getGroupRepository(), List.of(group1Id), addresses);
+            Assert.assertEquals(Set.of(alice.getAddress()), members);
+
+            // Chloe joins both groups, but only appears once
+            GroupsTestUtils.groupInvite(repository, alice, group1Id, chloe.getAddress(), 3600);
+            GroupsTestUtils.groupInvite(repository, bob, group2Id, chloe.getAddress(), 3600);
+
+            GroupsTestUtils.joinGroup(repository, chloe, group1Id);
+            GroupsTestUtils.joinGroup(repository, chloe, group2Id);
+
+            members = Groups.membersOfAnyGroup(repository.getGroupRepository(), List.of(group1Id, group2Id), addresses);
+            Assert.assertEquals(Set.of(alice.getAddress(), bob.getAddress(), chloe.getAddress()), members);
+
+            // Bulk results agree with individual checks
+            for (String address : addresses)
+                Assert.assertEquals(Groups.memberExistsInAnyGroup(repository.getGroupRepository(), List.of(group1Id, group2Id), address), members.contains(address));
+        }
+    }
+
     @Test
     public void testGroupsListedFunctionality() throws DataException {
 